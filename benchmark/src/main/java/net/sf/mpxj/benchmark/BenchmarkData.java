@@ -0,0 +1,114 @@
+/*
+ * file:       BenchmarkData.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       19/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import net.sf.mpxj.MPXJException;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.reader.UniversalProjectReader;
+
+/**
+ * Locates the sample files used by the benchmarks. By default these are
+ * taken from the junit/data directory used by the unit tests, an alternative
+ * location can be supplied using the mpxj.junit.datadir system property.
+ */
+final class BenchmarkData
+{
+   /**
+    * Private constructor to prevent instantiation.
+    */
+   private BenchmarkData()
+   {
+      // Private constructor to prevent instantiation.
+   }
+
+   /**
+    * Retrieve a sample file. Absolute file names are used as-is, otherwise
+    * the file is located relative to the data directory.
+    *
+    * @param fileName file name
+    * @return File instance
+    */
+   public static File getFile(String fileName)
+   {
+      File file = new File(fileName);
+      if (!file.isAbsolute())
+      {
+         file = new File(System.getProperty("mpxj.junit.datadir", "../junit/data"), fileName);
+      }
+
+      if (!file.isFile())
+      {
+         throw new IllegalArgumentException("Benchmark data file not found: " + file.getAbsolutePath());
+      }
+
+      return file;
+   }
+
+   /**
+    * Read a sample file into memory, so that benchmarks are not
+    * measuring disk access.
+    *
+    * @param fileName file name
+    * @return file content
+    */
+   public static byte[] readBytes(String fileName) throws IOException
+   {
+      File file = getFile(fileName);
+      byte[] data = new byte[(int) file.length()];
+      DataInputStream is = new DataInputStream(new FileInputStream(file));
+      try
+      {
+         is.readFully(data);
+         return data;
+      }
+
+      finally
+      {
+         is.close();
+      }
+   }
+
+   /**
+    * Read a sample project.
+    *
+    * @param fileName file name
+    * @return ProjectFile instance
+    */
+   public static ProjectFile readProject(String fileName) throws IOException, MPXJException
+   {
+      ProjectFile project = new UniversalProjectReader().read(new ByteArrayInputStream(readBytes(fileName)));
+      if (project == null)
+      {
+         throw new IllegalArgumentException("Unsupported file type: " + fileName);
+      }
+      return project;
+   }
+}
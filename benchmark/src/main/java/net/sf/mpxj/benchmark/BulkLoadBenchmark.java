@@ -0,0 +1,170 @@
+/*
+ * file:       BulkLoadBenchmark.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.mpxj.FieldContainer;
+import net.sf.mpxj.FieldType;
+import net.sf.mpxj.ProjectConfig;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.ResourceField;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
+
+/**
+ * Measures the cost of populating a project with and without a bulk load
+ * in progress. The task and resource field values read from a sample file
+ * are replayed into a new project, as a reader would, so that the
+ * difference reflects the work done when each field is set rather than
+ * the cost of parsing the file.
+ */
+@State(Scope.Benchmark) @BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.MICROSECONDS) @Warmup(iterations = 5, time = 1) @Measurement(iterations = 5, time = 1) @Fork(1) public class BulkLoadBenchmark
+{
+   /**
+    * Read the sample project and capture the populated field values.
+    */
+   @Setup public void setup() throws Exception
+   {
+      ProjectFile project = BenchmarkData.readProject(file);
+
+      for (Task task : project.getTasks())
+      {
+         m_tasks.add(capture(task, TaskField.values()));
+      }
+
+      for (Resource resource : project.getResources())
+      {
+         m_resources.add(capture(resource, ResourceField.values()));
+      }
+   }
+
+   /**
+    * Populate a new project with the captured values.
+    *
+    * @return populated project
+    */
+   @Benchmark public ProjectFile populate()
+   {
+      ProjectFile project = new ProjectFile();
+      ProjectConfig config = project.getProjectConfig();
+      config.setAutoTaskID(false);
+      config.setAutoTaskUniqueID(false);
+      config.setAutoResourceID(false);
+      config.setAutoResourceUniqueID(false);
+
+      if (bulkLoad)
+      {
+         project.beginBulkLoad();
+      }
+
+      for (Object[] values : m_tasks)
+      {
+         populate(project.addTask(), values);
+      }
+
+      for (Object[] values : m_resources)
+      {
+         populate(project.addResource(), values);
+      }
+
+      if (bulkLoad)
+      {
+         project.endBulkLoad();
+      }
+
+      return project;
+   }
+
+   /**
+    * Capture the non-null field values held by a container.
+    *
+    * @param container field container
+    * @param fields fields to capture
+    * @return alternating field type and value pairs
+    */
+   private Object[] capture(FieldContainer container, FieldType[] fields)
+   {
+      List<Object> values = new ArrayList<Object>();
+      for (FieldType field : fields)
+      {
+         if (field == TaskField.PREDECESSORS || field == TaskField.SUCCESSORS)
+         {
+            continue;
+         }
+
+         Object value = container.getCachedValue(field);
+         if (value != null)
+         {
+            values.add(field);
+            values.add(value);
+         }
+      }
+      return values.toArray();
+   }
+
+   /**
+    * Set captured field values on a container.
+    *
+    * @param container field container
+    * @param values alternating field type and value pairs
+    */
+   private void populate(FieldContainer container, Object[] values)
+   {
+      for (int index = 0; index < values.length; index += 2)
+      {
+         container.set((FieldType) values[index], values[index + 1]);
+      }
+   }
+
+   @Param(
+   {
+      "mpp14enterprise.mpp",
+      "primavera/multi-project-8.4.xer"
+   }) public String file;
+
+   @Param(
+   {
+      "true",
+      "false"
+   }) public boolean bulkLoad;
+
+   private final List<Object[]> m_tasks = new ArrayList<Object[]>();
+   private final List<Object[]> m_resources = new ArrayList<Object[]>();
+}
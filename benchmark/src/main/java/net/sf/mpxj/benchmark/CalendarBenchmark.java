@@ -0,0 +1,124 @@
+/*
+ * file:       CalendarBenchmark.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       19/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.benchmark;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.mpxj.DateRange;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.mpp.TimescaleUnits;
+import net.sf.mpxj.utility.TimephasedUtility;
+import net.sf.mpxj.utility.TimescaleUtility;
+
+/**
+ * Measures core calendar and timephased data operations.
+ */
+@State(Scope.Benchmark) @BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.MICROSECONDS) @Warmup(iterations = 5, time = 1) @Measurement(iterations = 5, time = 1) @Fork(1) public class CalendarBenchmark
+{
+   /**
+    * Read the sample project and locate the calendar and
+    * timephased data used by the benchmarks.
+    */
+   @Setup public void setup() throws Exception
+   {
+      ProjectFile project = BenchmarkData.readProject(file);
+
+      for (ResourceAssignment assignment : project.getResourceAssignments())
+      {
+         List<TimephasedWork> work = assignment.getTimephasedWork();
+         if (work != null && !work.isEmpty() && assignment.getCalendar() != null)
+         {
+            if (m_timephasedWork == null || work.size() > m_timephasedWork.size())
+            {
+               m_timephasedWork = work;
+               m_calendar = assignment.getCalendar();
+               m_start = assignment.getStart();
+            }
+         }
+      }
+
+      if (m_timephasedWork == null)
+      {
+         throw new IllegalArgumentException("No timephased work found in " + file);
+      }
+
+      Calendar cal = Calendar.getInstance();
+      cal.setTime(m_start);
+      cal.add(Calendar.DAY_OF_YEAR, days);
+      m_finish = cal.getTime();
+
+      m_ranges = new TimescaleUtility().createTimescale(m_start, TimescaleUnits.DAYS, days);
+   }
+
+   /**
+    * Calculate the working time between two dates.
+    *
+    * @return working time
+    */
+   @Benchmark public Duration getWork()
+   {
+      return m_calendar.getWork(m_start, m_finish, net.sf.mpxj.TimeUnit.HOURS);
+   }
+
+   /**
+    * Split timephased work into daily segments.
+    *
+    * @return segmented work
+    */
+   @Benchmark public ArrayList<Duration> segmentWork()
+   {
+      return new TimephasedUtility().segmentWork(m_calendar, m_timephasedWork, TimescaleUnits.DAYS, m_ranges);
+   }
+
+   @Param("mpp14timephased.mpp") public String file;
+
+   @Param("365") public int days;
+
+   private ProjectCalendar m_calendar;
+   private List<TimephasedWork> m_timephasedWork;
+   private Date m_start;
+   private Date m_finish;
+   private ArrayList<DateRange> m_ranges;
+}
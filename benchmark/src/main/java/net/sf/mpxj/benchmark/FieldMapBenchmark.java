@@ -0,0 +1,95 @@
+/*
+ * file:       FieldMapBenchmark.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.mpp.MPPReader;
+
+/**
+ * Measures the cost of populating tasks, resources and assignments from
+ * the field maps in each MPP file version. The field maps are internal to
+ * the MPP reader, so they are exercised by reading a file with presentation
+ * data disabled. The default sample files hold the same schedule saved
+ * in each version. Reading the project properties alone gives a baseline:
+ * the difference between the two is dominated by field map population.
+ */
+@State(Scope.Benchmark) @BenchmarkMode(Mode.Throughput) @OutputTimeUnit(TimeUnit.SECONDS) @Warmup(iterations = 5, time = 1) @Measurement(iterations = 5, time = 1) @Fork(1) public class FieldMapBenchmark
+{
+   /**
+    * Load the sample file.
+    */
+   @Setup public void setup() throws Exception
+   {
+      m_data = BenchmarkData.readBytes(file);
+   }
+
+   /**
+    * Read the tasks, resources and assignments from the sample file.
+    *
+    * @return project read from the file
+    */
+   @Benchmark public ProjectFile readEntities() throws Exception
+   {
+      MPPReader reader = new MPPReader();
+      reader.setReadPresentationData(false);
+      return reader.read(new ByteArrayInputStream(m_data));
+   }
+
+   /**
+    * Read only the project properties from the sample file.
+    *
+    * @return project read from the file
+    */
+   @Benchmark public ProjectFile readProperties() throws Exception
+   {
+      MPPReader reader = new MPPReader();
+      reader.setReadPropertiesOnly(true);
+      return reader.read(new ByteArrayInputStream(m_data));
+   }
+
+   @Param(
+   {
+      "generated/task-baselines/task-baselines-project2013-mpp9.mpp",
+      "generated/task-baselines/task-baselines-project2013-mpp12.mpp",
+      "generated/task-baselines/task-baselines-project2013-mpp14.mpp"
+   }) public String file;
+
+   private byte[] m_data;
+}
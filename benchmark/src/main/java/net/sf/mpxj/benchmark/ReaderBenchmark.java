@@ -0,0 +1,209 @@
+/*
+ * file:       ReaderBenchmark.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       19/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.asta.AstaFileReader;
+import net.sf.mpxj.fasttrack.FastTrackReader;
+import net.sf.mpxj.mpp.MPPReader;
+import net.sf.mpxj.mpx.MPXReader;
+import net.sf.mpxj.mspdi.MSPDIReader;
+import net.sf.mpxj.planner.PlannerReader;
+import net.sf.mpxj.primavera.PrimaveraPMFileReader;
+import net.sf.mpxj.primavera.PrimaveraXERFileReader;
+import net.sf.mpxj.reader.ProjectReader;
+import net.sf.mpxj.reader.UniversalProjectReader;
+
+/**
+ * Measures read throughput for each file format. The file content is held
+ * in memory, and a new reader is created for each read, as the readers
+ * hold state while they are working.
+ *
+ * The file read for each format can be changed using the file parameter,
+ * for example: -p format=ASTA -p file=/path/to/schedule.pp
+ */
+@State(Scope.Benchmark) @BenchmarkMode(Mode.Throughput) @OutputTimeUnit(TimeUnit.SECONDS) @Warmup(iterations = 5, time = 1) @Measurement(iterations = 5, time = 1) @Fork(1) public class ReaderBenchmark
+{
+   /**
+    * Supported formats, with the reader used and the default sample file.
+    */
+   public enum Format
+   {
+      MPP("mpp14enterprise.mpp")
+      {
+         @Override ProjectReader createReader()
+         {
+            return new MPPReader();
+         }
+      },
+
+      MSPDI("mspditimephased.xml")
+      {
+         @Override ProjectReader createReader()
+         {
+            return new MSPDIReader();
+         }
+      },
+
+      MPX("mpxrecurring.mpx")
+      {
+         @Override ProjectReader createReader()
+         {
+            return new MPXReader();
+         }
+      },
+
+      XER("primavera/multi-project-8.4.xer")
+      {
+         @Override ProjectReader createReader()
+         {
+            return new PrimaveraXERFileReader();
+         }
+      },
+
+      PMXML("generated/task-percentcomplete/percent-complete-8.4.pmxml")
+      {
+         @Override ProjectReader createReader()
+         {
+            return new PrimaveraPMFileReader();
+         }
+      },
+
+      PLANNER("planner-sample.planner")
+      {
+         @Override ProjectReader createReader()
+         {
+            return new PlannerReader();
+         }
+      },
+
+      FASTTRACK("generated/resource-misc/resource-misc-fasttrack10.fts")
+      {
+         @Override ProjectReader createReader()
+         {
+            return new FastTrackReader();
+         }
+      },
+
+      // There is no Asta sample in the test data, supply one using the file parameter
+      ASTA(null)
+      {
+         @Override ProjectReader createReader()
+         {
+            return new AstaFileReader();
+         }
+      },
+
+      UNIVERSAL("mpp14enterprise.mpp")
+      {
+         @Override ProjectReader createReader()
+         {
+            return new UniversalProjectReader();
+         }
+      };
+
+      /**
+       * Constructor.
+       *
+       * @param defaultFileName default sample file for this format
+       */
+      private Format(String defaultFileName)
+      {
+         m_defaultFileName = defaultFileName;
+      }
+
+      /**
+       * Create a reader for this format.
+       *
+       * @return ProjectReader instance
+       */
+      abstract ProjectReader createReader();
+
+      /**
+       * Retrieve the default sample file for this format.
+       *
+       * @return file name
+       */
+      String getDefaultFileName()
+      {
+         return m_defaultFileName;
+      }
+
+      private final String m_defaultFileName;
+   }
+
+   /**
+    * Load the sample file.
+    */
+   @Setup public void setup() throws Exception
+   {
+      String fileName = file.length() == 0 ? format.getDefaultFileName() : file;
+      if (fileName == null)
+      {
+         throw new IllegalArgumentException("No default file for " + format + ", please supply one using the file parameter");
+      }
+      m_data = BenchmarkData.readBytes(fileName);
+   }
+
+   /**
+    * Read the sample file.
+    *
+    * @return project read from the file
+    */
+   @Benchmark public ProjectFile read() throws Exception
+   {
+      return format.createReader().read(new ByteArrayInputStream(m_data));
+   }
+
+   @Param(
+   {
+      "MPP",
+      "MSPDI",
+      "MPX",
+      "XER",
+      "PMXML",
+      "PLANNER",
+      "FASTTRACK"
+   }) public Format format;
+
+   @Param("") public String file;
+
+   private byte[] m_data;
+}
@@ -0,0 +1,88 @@
+/*
+ * file:       SnapshotBenchmark.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.reader.UniversalProjectReader;
+import net.sf.mpxj.snapshot.SnapshotReader;
+import net.sf.mpxj.snapshot.SnapshotWriter;
+
+/**
+ * Compares the cost of reading a project from its original file
+ * with the cost of reloading the same project from a snapshot.
+ */
+@State(Scope.Benchmark) @BenchmarkMode(Mode.Throughput) @OutputTimeUnit(TimeUnit.SECONDS) @Warmup(iterations = 5, time = 1) @Measurement(iterations = 5, time = 1) @Fork(1) public class SnapshotBenchmark
+{
+   /**
+    * Load the sample file and create a snapshot from it.
+    */
+   @Setup public void setup() throws Exception
+   {
+      m_data = BenchmarkData.readBytes(file);
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      new SnapshotWriter().write(BenchmarkData.readProject(file), os);
+      m_snapshot = os.toByteArray();
+   }
+
+   /**
+    * Read the project from the original file.
+    *
+    * @return project read from the file
+    */
+   @Benchmark public ProjectFile readOriginal() throws Exception
+   {
+      return new UniversalProjectReader().read(new ByteArrayInputStream(m_data));
+   }
+
+   /**
+    * Read the project from the snapshot.
+    *
+    * @return project read from the snapshot
+    */
+   @Benchmark public ProjectFile readSnapshot() throws Exception
+   {
+      return new SnapshotReader().read(new ByteArrayInputStream(m_snapshot));
+   }
+
+   @Param("mpp14enterprise.mpp") public String file;
+
+   private byte[] m_data;
+   private byte[] m_snapshot;
+}
@@ -0,0 +1,101 @@
+/*
+ * file:       StartupBenchmark.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.benchmark.ReaderBenchmark.Format;
+import net.sf.mpxj.common.JAXBContextCache;
+
+/**
+ * Measures the time taken by the first read of each file format in a new
+ * JVM, which includes class loading and, for the XML formats, creating
+ * the JAXB context. Each fork performs a single read.
+ *
+ * When the initialise parameter is true, the JAXB contexts are created
+ * before the read, as they would be by an application calling
+ * JAXBContextCache.initialise at startup.
+ */
+@State(Scope.Benchmark) @BenchmarkMode(Mode.SingleShotTime) @OutputTimeUnit(TimeUnit.MILLISECONDS) @Warmup(iterations = 0) @Measurement(iterations = 1) @Fork(5) public class StartupBenchmark
+{
+   /**
+    * Load the sample file, and optionally create the JAXB contexts.
+    */
+   @Setup public void setup() throws Exception
+   {
+      m_data = BenchmarkData.readBytes(format.getDefaultFileName());
+
+      if (initialise)
+      {
+         JAXBContextCache.initialise();
+         for (String contextPath : JAXBContextCache.CONTEXT_PATHS)
+         {
+            JAXBContextCache.getContext(contextPath);
+         }
+      }
+   }
+
+   /**
+    * Read the sample file.
+    *
+    * @return project read from the file
+    */
+   @Benchmark public ProjectFile read() throws Exception
+   {
+      return format.createReader().read(new ByteArrayInputStream(m_data));
+   }
+
+   @Param(
+   {
+      "MPP",
+      "MSPDI",
+      "MPX",
+      "XER",
+      "PMXML",
+      "PLANNER",
+      "FASTTRACK"
+   }) public Format format;
+
+   @Param(
+   {
+      "false",
+      "true"
+   }) public boolean initialise;
+
+   private byte[] m_data;
+}
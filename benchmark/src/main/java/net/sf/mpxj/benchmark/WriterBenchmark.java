@@ -0,0 +1,151 @@
+/*
+ * file:       WriterBenchmark.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       19/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.json.JsonWriter;
+import net.sf.mpxj.mpx.MPXWriter;
+import net.sf.mpxj.mspdi.MSPDIWriter;
+import net.sf.mpxj.planner.PlannerWriter;
+import net.sf.mpxj.primavera.PrimaveraPMFileWriter;
+import net.sf.mpxj.snapshot.SnapshotWriter;
+import net.sf.mpxj.writer.ProjectWriter;
+
+/**
+ * Measures write throughput for each file format. The project written is
+ * read once from the sample file, and a new writer is created for each write.
+ */
+@State(Scope.Benchmark) @BenchmarkMode(Mode.Throughput) @OutputTimeUnit(TimeUnit.SECONDS) @Warmup(iterations = 5, time = 1) @Measurement(iterations = 5, time = 1) @Fork(1) public class WriterBenchmark
+{
+   /**
+    * Supported formats.
+    */
+   public enum Format
+   {
+      MSPDI
+      {
+         @Override ProjectWriter createWriter()
+         {
+            return new MSPDIWriter();
+         }
+      },
+
+      JSON
+      {
+         @Override ProjectWriter createWriter()
+         {
+            return new JsonWriter();
+         }
+      },
+
+      MPX
+      {
+         @Override ProjectWriter createWriter()
+         {
+            return new MPXWriter();
+         }
+      },
+
+      PLANNER
+      {
+         @Override ProjectWriter createWriter()
+         {
+            return new PlannerWriter();
+         }
+      },
+
+      PMXML
+      {
+         @Override ProjectWriter createWriter()
+         {
+            return new PrimaveraPMFileWriter();
+         }
+      },
+
+      SNAPSHOT
+      {
+         @Override ProjectWriter createWriter()
+         {
+            return new SnapshotWriter();
+         }
+      };
+
+      /**
+       * Create a writer for this format.
+       *
+       * @return ProjectWriter instance
+       */
+      abstract ProjectWriter createWriter();
+   }
+
+   /**
+    * Read the sample project.
+    */
+   @Setup public void setup() throws Exception
+   {
+      m_project = BenchmarkData.readProject(file);
+   }
+
+   /**
+    * Write the sample project.
+    *
+    * @return number of bytes written
+    */
+   @Benchmark public int write() throws Exception
+   {
+      ByteArrayOutputStream os = new ByteArrayOutputStream(1024 * 1024);
+      format.createWriter().write(m_project, os);
+      return os.size();
+   }
+
+   @Param(
+   {
+      "MSPDI",
+      "JSON",
+      "MPX",
+      "PLANNER",
+      "PMXML",
+      "SNAPSHOT"
+   }) public Format format;
+
+   @Param("mpp14enterprise.mpp") public String file;
+
+   private ProjectFile m_project;
+}
@@ -6,6 +6,7 @@ require "mpxj/resource"
 require "mpxj/task"
 require "mpxj/assignment"
 require "mpxj/relation"
+require "mpxj/server"
 require "mpxj/reader"
 
 require "mpxj/argument_error"
@@ -5,6 +5,8 @@ module MPXJ
   # Used to read a project plan from a file
   class Reader
     @@max_memory_size = nil
+    @@use_server = false
+    @@server = nil
        
     # Reads a project plan from a file, and returns a Project instance
     # which provides access to the structure and attributes of the project data.
@@ -20,10 +22,14 @@ module MPXJ
       tz = zone || Time.zone || ActiveSupport::TimeZone["UTC"]
 
       begin
-        classpath = Dir["#{File.dirname(__FILE__)}/*.jar"].join(path_separator)
-        java_output = `java -cp \"#{classpath}\" #{jvm_args} net.sf.mpxj.sample.MpxjConvert \"#{file_name}\" \"#{json_file.path}\"`
-        if $?.exitstatus != 0
-          report_error(java_output)
+        if @@use_server
+          error = server.convert(File.expand_path(file_name), json_file.path)
+          report_error("Conversion Error: #{error}") if error
+        else
+          java_output = `java -cp \"#{classpath}\" #{jvm_args} net.sf.mpxj.sample.MpxjConvert \"#{file_name}\" \"#{json_file.path}\"`
+          if $?.exitstatus != 0
+            report_error(java_output)
+          end
         end
         project = Project.new(json_file, tz)
       ensure
@@ -43,6 +49,38 @@ module MPXJ
       @@max_memory_size = value
     end
 
+    # Allows the caller to request that files are converted by a single long running
+    # Java process, rather than starting a new process for each file read. This
+    # substantially reduces the time taken to read each file when many files are
+    # read, e.g. `MPXJ::Reader.use_server = true`. The process is started when the
+    # first file is read, and is stopped when this option is set to false, or
+    # when the Ruby process exits.
+    #
+    # @param value true if a long running Java process should be used
+    def self.use_server=(value)
+      @@use_server = value
+      stop_server unless value
+    end
+
+    # @private
+    def self.server
+      @@server ||= begin
+        at_exit { stop_server }
+        Server.new(classpath, jvm_args)
+      end
+    end
+
+    # @private
+    def self.stop_server
+      @@server.stop if @@server
+      @@server = nil
+    end
+
+    # @private
+    def self.classpath
+      Dir["#{File.dirname(__FILE__)}/*.jar"].join(path_separator)
+    end
+
     # @private
     def self.jvm_args
       args = []
@@ -0,0 +1,83 @@
+require 'thread'
+
+module MPXJ
+  # @private
+  # Manages a long running Java process which converts schedules to JSON,
+  # avoiding the cost of starting a new JVM for each file read.
+  class Server
+    def initialize(classpath, jvm_args)
+      @classpath = classpath
+      @jvm_args = jvm_args
+      @mutex = Mutex.new
+      @pending = {}
+      @next_id = 0
+      @io = nil
+    end
+
+    # Converts the input file, writing the result to the output file.
+    # Returns nil on success, or the error text reported by the server.
+    def convert(input_file, output_file)
+      queue = Queue.new
+      @mutex.synchronize do
+        start unless running?
+        id = (@next_id += 1).to_s
+        @pending[id] = queue
+        @io.write("#{id}\t#{input_file}\t#{output_file}\n")
+        @io.flush
+      end
+      response = queue.pop
+      raise MPXJ::UnknownError, "Conversion server stopped unexpectedly" if response.nil?
+      response == :ok ? nil : response
+    end
+
+    # Stops the server process.
+    def stop
+      @mutex.synchronize do
+        @io.close if running?
+        @io = nil
+      end
+    end
+
+    private
+
+    def running?
+      !@io.nil? && !@io.closed?
+    end
+
+    def start
+      @io = IO.popen("java -cp \"#{@classpath}\" #{@jvm_args} net.sf.mpxj.sample.MpxjConvertServer", 'r+')
+      @pending = {}
+      io = @io
+      pending = @pending
+      Thread.new { read_responses(io, pending) }
+    end
+
+    def read_responses(io, pending)
+      io.each_line do |line|
+        id, status, message = line.chomp.split("\t", 3)
+        queue = @mutex.synchronize { pending.delete(id) }
+        next if queue.nil?
+        queue << (status == 'OK' ? :ok : unescape(message.to_s))
+      end
+    rescue IOError
+      # the server has been stopped
+    ensure
+      @mutex.synchronize do
+        @io = nil if @io.equal?(io)
+        pending.each_value { |queue| queue << nil }
+        pending.clear
+      end
+    end
+
+    def unescape(message)
+      message.gsub(/\\(.)/) do
+        case $1
+        when 'n' then "\n"
+        when 'r' then "\r"
+        when 't' then "\t"
+        else $1
+        end
+      end
+    end
+  end
+end
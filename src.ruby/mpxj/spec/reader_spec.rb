@@ -34,5 +34,19 @@ describe MPXJ::Reader do
         expect(e.message.split(/\n/).first).to eq("java.lang.IllegalArgumentException: Unsupported file type") 
       end
     end        
+
+    it 'will read files using a long running conversion process' do
+      begin
+        MPXJ::Reader.use_server = true
+        2.times do
+          project = MPXJ::Reader.read("#{File.dirname(__FILE__)}/reader.mpp")
+          expect(project.all_tasks.size).to eq(2)
+          expect(project.get_task_by_id(1).name).to eq("Task 1")
+        end
+        expect { MPXJ::Reader.read("#{File.dirname(__FILE__)}/reader_spec.rb") }.to raise_error(MPXJ::ArgumentError)
+      ensure
+        MPXJ::Reader.use_server = false
+      end
+    end
   end
 end
@@ -111,5 +111,17 @@ public abstract class ListWithCallbacks<T> extends AbstractList<T>
       return removed;
    }
 
+   /**
+    * Retrieve the list backing this instance. Changes made directly to
+    * this list do not result in calls to added, removed or replaced,
+    * allowing subclasses to manipulate ranges of items efficiently.
+    *
+    * @return backing list
+    */
+   protected List<T> getBackingList()
+   {
+      return m_list;
+   }
+
    private final List<T> m_list = new ArrayList<T>();
 }
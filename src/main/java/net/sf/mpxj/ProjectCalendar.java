@@ -31,7 +31,9 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.TimeZone;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.sf.mpxj.common.DateHelper;
 import net.sf.mpxj.common.NumberHelper;
@@ -146,6 +148,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     */
    public ProjectCalendarWeek addWorkWeek()
    {
+      checkFrozen();
       ProjectCalendarWeek week = new ProjectCalendarWeek();
       week.setParent(this);
       m_workWeeks.add(week);
@@ -159,6 +162,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     */
    public void clearWorkWeeks()
    {
+      checkFrozen();
       m_workWeeks.clear();
       m_weeksSorted = false;
       clearWorkingDateCache();
@@ -184,6 +188,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     */
    public ProjectCalendarException addCalendarException(Date fromDate, Date toDate)
    {
+      checkFrozen();
       ProjectCalendarException bce = new ProjectCalendarException(fromDate, toDate);
       m_exceptions.add(bce);
       m_expandedExceptions.clear();
@@ -197,6 +202,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     */
    public void clearCalendarExceptions()
    {
+      checkFrozen();
       m_exceptions.clear();
       m_expandedExceptions.clear();
       m_exceptionsSorted = false;
@@ -224,6 +230,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     */
    @Override public ProjectCalendarHours addCalendarHours(Day day)
    {
+      checkFrozen();
       clearWorkingDateCache();
       return super.addCalendarHours(day);
    }
@@ -236,6 +243,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     */
    @Override public void attachHoursToDay(ProjectCalendarHours hours)
    {
+      checkFrozen();
       clearWorkingDateCache();
       super.attachHoursToDay(hours);
    }
@@ -248,6 +256,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     */
    @Override public void removeHoursFromDay(ProjectCalendarHours hours)
    {
+      checkFrozen();
       clearWorkingDateCache();
       super.removeHoursFromDay(hours);
    }
@@ -259,6 +268,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     */
    public void setParent(ProjectCalendar calendar)
    {
+      checkFrozen();
       // I've seen a malformed MSPDI file which sets the parent calendar to itself.
       // Silently ignore this here.
       if (calendar != this)
@@ -356,7 +366,8 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     */
    public Date getStartTime(Date date)
    {
-      Date result = m_startTimeCache.get(date);
+      Map<Date, Date> cache = m_startTimeCache;
+      Date result = cache.get(date);
       if (result == null)
       {
          ProjectCalendarDateRanges ranges = getRanges(date, null, null);
@@ -369,7 +380,10 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
             result = ranges.getRange(0).getStart();
          }
          result = DateHelper.getCanonicalTime(result);
-         m_startTimeCache.put(new Date(date.getTime()), result);
+         if (result != null)
+         {
+            updateCache(cache, new Date(date.getTime()), result);
+         }
       }
       return result;
    }
@@ -441,18 +455,22 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
 
       //
       // Can we skip come computation by working forward from the
-      // last call to this method?
+      // last call to this method? This is not used once the calendar is frozen, as it is shared by all callers.
       //
-      Date getDateLastStartDate = m_getDateLastStartDate;
-      double getDateLastRemainingMinutes = m_getDateLastRemainingMinutes;
+      boolean frozen = m_frozen;
+      if (!frozen)
+      {
+         Date getDateLastStartDate = m_getDateLastStartDate;
+         double getDateLastRemainingMinutes = m_getDateLastRemainingMinutes;
 
-      m_getDateLastStartDate = startDate;
-      m_getDateLastRemainingMinutes = remainingMinutes;
+         m_getDateLastStartDate = startDate;
+         m_getDateLastRemainingMinutes = remainingMinutes;
 
-      if (m_getDateLastResult != null && DateHelper.compare(startDate, getDateLastStartDate) == 0 && remainingMinutes >= getDateLastRemainingMinutes)
-      {
-         startDate = m_getDateLastResult;
-         remainingMinutes = remainingMinutes - getDateLastRemainingMinutes;
+         if (m_getDateLastResult != null && DateHelper.compare(startDate, getDateLastStartDate) == 0 && remainingMinutes >= getDateLastRemainingMinutes)
+         {
+            startDate = m_getDateLastResult;
+            remainingMinutes = remainingMinutes - getDateLastRemainingMinutes;
+         }
       }
 
       Calendar cal = Calendar.getInstance();
@@ -481,6 +499,12 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
             //
             remainingMinutes = NumberHelper.round(remainingMinutes - currentDateWorkingMinutes, 2);
 
+            //
+            // Skip forward over any whole working days we can
+            // consume in one step
+            //
+            remainingMinutes = skipForward(cal, remainingMinutes);
+
             //
             // Move the calendar forward to the next working day
             //
@@ -599,7 +623,11 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
          }
       }
 
-      m_getDateLastResult = cal.getTime();
+      if (!frozen)
+      {
+         m_getDateLastResult = cal.getTime();
+      }
+
       if (returnNextWorkStart)
       {
          updateToNextWorkStart(cal);
@@ -651,6 +679,12 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
             //
             remainingMinutes = NumberHelper.round(remainingMinutes - currentDateWorkingMinutes, 2);
 
+            //
+            // Skip backward over any whole working days we can
+            // consume in one step
+            //
+            remainingMinutes = skipBackward(cal, remainingMinutes);
+
             //
             // Move the calendar backward to the previous working day
             //
@@ -771,6 +805,127 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
       return cal.getTime();
    }
 
+   /**
+    * Used by getDate to skip over whole working days. If the working time
+    * index can locate the day on which the remaining time is exhausted,
+    * the calendar is moved to the day before it, and the working time
+    * for the days skipped is deducted from the remaining time.
+    *
+    * @param cal current Calendar instance
+    * @param remainingMinutes remaining working time in minutes
+    * @return updated remaining working time in minutes
+    */
+   private double skipForward(Calendar cal, double remainingMinutes)
+   {
+      long time = cal.getTimeInMillis();
+      WorkingTimeIndex index = getWorkingTimeIndex(time, time);
+      if (index != null && index.isSimple())
+      {
+         int currentDay = WorkingTimeIndex.getDay(index.getTimeZone(), time);
+         int targetDay = index.findForward(currentDay, remainingMinutes);
+         if (targetDay == WorkingTimeIndex.NOT_FOUND && index.getLastDay() - currentDay < MAX_INDEX_DAYS / 2)
+         {
+            index = getWorkingTimeIndex(index.getTimeZone(), currentDay, currentDay + (index.getLastDay() - currentDay) * 2);
+            targetDay = index == null ? WorkingTimeIndex.NOT_FOUND : index.findForward(currentDay, remainingMinutes);
+         }
+
+         if (targetDay != WorkingTimeIndex.NOT_FOUND && targetDay > currentDay + 1 && index.canSkipForward(currentDay, targetDay))
+         {
+            double skippedMinutes = index.getWholeDayWork(currentDay + 1, targetDay) / (60.0 * 1000.0);
+            remainingMinutes = NumberHelper.round(remainingMinutes - skippedMinutes, 2);
+            cal.add(Calendar.DAY_OF_YEAR, targetDay - currentDay - 1);
+         }
+      }
+      return remainingMinutes;
+   }
+
+   /**
+    * Used by getStartDate to skip over whole working days. If the working time
+    * index can locate the day on which the remaining time is exhausted,
+    * the calendar is moved to the day after it, and the working time
+    * for the days skipped is deducted from the remaining time.
+    *
+    * @param cal current Calendar instance
+    * @param remainingMinutes remaining working time in minutes
+    * @return updated remaining working time in minutes
+    */
+   private double skipBackward(Calendar cal, double remainingMinutes)
+   {
+      long time = cal.getTimeInMillis();
+      WorkingTimeIndex index = getWorkingTimeIndex(time, time);
+      if (index != null && index.isSimple())
+      {
+         int currentDay = WorkingTimeIndex.getDay(index.getTimeZone(), time);
+         int targetDay = index.findBackward(currentDay, remainingMinutes);
+         if (targetDay == WorkingTimeIndex.NOT_FOUND && currentDay - index.getFirstDay() < MAX_INDEX_DAYS / 2)
+         {
+            index = getWorkingTimeIndex(index.getTimeZone(), currentDay - (currentDay - index.getFirstDay()) * 2, currentDay);
+            targetDay = index == null ? WorkingTimeIndex.NOT_FOUND : index.findBackward(currentDay, remainingMinutes);
+         }
+
+         if (targetDay != WorkingTimeIndex.NOT_FOUND && targetDay < currentDay - 1 && index.canSkipBackward(currentDay, targetDay))
+         {
+            double skippedMinutes = index.getWholeDayWork(targetDay + 1, currentDay) / (60.0 * 1000.0);
+            remainingMinutes = NumberHelper.round(remainingMinutes - skippedMinutes, 2);
+            cal.add(Calendar.DAY_OF_YEAR, targetDay - currentDay + 1);
+         }
+      }
+      return remainingMinutes;
+   }
+
+   /**
+    * Retrieve a working time index which covers the supplied range.
+    * The index is extended if necessary. Returns null if the range is
+    * too large to be indexed.
+    *
+    * @param startTime range start
+    * @param endTime range end
+    * @return WorkingTimeIndex instance or null
+    */
+   private WorkingTimeIndex getWorkingTimeIndex(long startTime, long endTime)
+   {
+      WorkingTimeIndex index = m_workingTimeIndex;
+      TimeZone timeZone = index == null ? TimeZone.getDefault() : index.getTimeZone();
+      return getWorkingTimeIndex(timeZone, WorkingTimeIndex.getDay(timeZone, startTime), WorkingTimeIndex.getDay(timeZone, endTime));
+   }
+
+   /**
+    * Retrieve a working time index which covers the supplied range of days.
+    * The index is extended if necessary. Returns null if the range is
+    * too large to be indexed.
+    *
+    * @param timeZone time zone used to identify days
+    * @param firstDay first day
+    * @param lastDay last day
+    * @return WorkingTimeIndex instance or null
+    */
+   private WorkingTimeIndex getWorkingTimeIndex(TimeZone timeZone, int firstDay, int lastDay)
+   {
+      WorkingTimeIndex index = m_workingTimeIndex;
+      if (index == null || !index.contains(firstDay) || !index.contains(lastDay))
+      {
+         long from = (long) firstDay - INDEX_PADDING_DAYS;
+         long to = (long) lastDay + INDEX_PADDING_DAYS;
+
+         if (index != null)
+         {
+            from = Math.min(from, index.getFirstDay());
+            to = Math.max(to, index.getLastDay());
+         }
+
+         if (to - from + 1 > MAX_INDEX_DAYS)
+         {
+            index = null;
+         }
+         else
+         {
+            index = new WorkingTimeIndex(this, timeZone, (int) from, (int) (to - from + 1));
+            m_workingTimeIndex = index;
+         }
+      }
+      return index;
+   }
+
    /**
     * This method finds the start of the next working period.
     *
@@ -948,6 +1103,82 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
       return cal.getTime();
    }
 
+   /**
+    * Adds an amount of working time, which may be negative, to a date.
+    * Where the result falls at the boundary between two working periods,
+    * the finish flag determines whether the end of the earlier period or the
+    * start of the later period is returned. Adding positive working time
+    * with the finish flag set matches getDate, and adding negative working
+    * time without it matches getStartDate. Adding zero working time without
+    * the finish flag matches getNextWorkStart.
+    *
+    * This method is intended for callers carrying out a large number of
+    * date calculations, such as scheduling. Where possible it uses the
+    * working time index held by this calendar, rather than walking the
+    * calendar day by day.
+    *
+    * @param date date in milliseconds
+    * @param minutes working time in minutes
+    * @param finish true if the end of a working period is preferred
+    * @return new date in milliseconds
+    */
+   public long addWorkingTime(long date, double minutes, boolean finish)
+   {
+      long time = Math.round(minutes * 60000);
+      WorkingTimeIndex index = getWorkingTimeIndex(date, date);
+
+      while (index != null && index.isSimple())
+      {
+         long offset = index.getOffset(date) + time;
+         int firstDay = index.getFirstDay();
+         int lastDay = index.getLastDay();
+         int dayCount = lastDay - firstDay + 1;
+
+         if (finish ? offset <= 0 : offset < 0)
+         {
+            index = getWorkingTimeIndex(index.getTimeZone(), firstDay - dayCount, lastDay);
+         }
+         else
+         {
+            if (finish ? offset > index.getTotalWork() : offset >= index.getTotalWork())
+            {
+               index = getWorkingTimeIndex(index.getTimeZone(), firstDay, lastDay + dayCount);
+            }
+            else
+            {
+               return finish ? index.getFinish(offset) : index.getStart(offset);
+            }
+         }
+      }
+
+      //
+      // The index can't be used, so walk the calendar instead
+      //
+      Date result;
+      if (minutes > 0)
+      {
+         result = getDate(new Date(date), Duration.getInstance(minutes, TimeUnit.MINUTES), !finish);
+      }
+      else
+      {
+         if (minutes < 0)
+         {
+            result = getStartDate(new Date(date), Duration.getInstance(-minutes, TimeUnit.MINUTES));
+         }
+         else
+         {
+            result = getNextWorkStart(new Date(date));
+         }
+
+         if (finish)
+         {
+            Duration minute = Duration.getInstance(1, TimeUnit.MINUTES);
+            result = getDate(getStartDate(result, minute), minute, false);
+         }
+      }
+      return result.getTime();
+   }
+
    /**
     * This method allows the caller to determine if a given date is a
     * working day. This method takes account of calendar exceptions.
@@ -1216,8 +1447,44 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     */
    public Duration getWork(Date startDate, Date endDate, TimeUnit format)
    {
+      long startTime = startDate.getTime();
+      long endTime = endDate.getTime();
+      WorkingTimeIndex index = getWorkingTimeIndex(Math.min(startTime, endTime), Math.max(startTime, endTime));
+
+      long totalTime;
+      if (index == null)
+      {
+         totalTime = getTotalTime(startDate, endDate);
+      }
+      else
+      {
+         if (startTime > endTime)
+         {
+            totalTime = -index.getWork(endTime, startTime);
+         }
+         else
+         {
+            totalTime = index.getWork(startTime, endTime);
+         }
+      }
+
+      return convertFormat(totalTime, format);
+   }
+
+   /**
+    * Calculates the amount of work between two dates by walking
+    * the range day by day. This is used where the range is too large
+    * to be represented by the working time index.
+    *
+    * @param startDate start date
+    * @param endDate end date
+    * @return amount of work in milliseconds
+    */
+   private long getTotalTime(Date startDate, Date endDate)
+   {
+      Map<DateRange, Long> cache = m_workingDateCache;
       DateRange range = new DateRange(startDate, endDate);
-      Long cachedResult = m_workingDateCache.get(range);
+      Long cachedResult = cache.get(range);
       long totalTime = 0;
 
       if (cachedResult == null)
@@ -1318,14 +1585,14 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
             totalTime = -totalTime;
          }
 
-         m_workingDateCache.put(range, Long.valueOf(totalTime));
+         updateCache(cache, range, Long.valueOf(totalTime));
       }
       else
       {
          totalTime = cachedResult.longValue();
       }
 
-      return convertFormat(totalTime, format);
+      return totalTime;
    }
 
    /**
@@ -1885,6 +2152,65 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
       }
    }
 
+   /**
+    * Prepare this calendar to be used concurrently by multiple threads.
+    * Exceptions and work weeks are sorted and expanded, and the caches
+    * used by date calculations are replaced with concurrent
+    * implementations. Once frozen, the calendar cannot be modified.
+    */
+   void freeze()
+   {
+      if (!m_frozen)
+      {
+         populateExpandedExceptions();
+         sortExceptions();
+         sortWorkWeeks();
+         m_workingDateCache = new ConcurrentHashMap<DateRange, Long>();
+         m_startTimeCache = new ConcurrentHashMap<Date, Date>();
+         m_getDateLastResult = null;
+         m_frozen = true;
+      }
+   }
+
+   /**
+    * Retrieve a flag indicating if this calendar has been frozen.
+    *
+    * @return true if this calendar is frozen
+    */
+   public boolean getFrozen()
+   {
+      return m_frozen;
+   }
+
+   /**
+    * Ensure that this calendar can be modified.
+    */
+   private void checkFrozen()
+   {
+      if (m_frozen)
+      {
+         throw new UnsupportedOperationException("Calendar " + getName() + " is frozen and cannot be modified");
+      }
+   }
+
+   /**
+    * Add an entry to a cache. Once the calendar is frozen the caches are
+    * no longer weak, so their size is limited by clearing them when they
+    * become full.
+    *
+    * @param cache target cache
+    * @param key cache key
+    * @param value cache value
+    */
+   private <K, V> void updateCache(Map<K, V> cache, K key, V value)
+   {
+      if (m_frozen && cache.size() >= MAX_FROZEN_CACHE_SIZE)
+      {
+         cache.clear();
+      }
+      cache.put(key, value);
+   }
+
    /**
     * Utility method to clear cached calendar data.
     */
@@ -1892,6 +2218,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
    {
       m_workingDateCache.clear();
       m_startTimeCache.clear();
+      m_workingTimeIndex = null;
       m_getDateLastResult = null;
       for (ProjectCalendar calendar : m_derivedCalendars)
       {
@@ -1899,6 +2226,18 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
       }
    }
 
+   /**
+    * Retrieves the working hours on the given date, taking account of
+    * calendar exceptions, work weeks and base calendars.
+    *
+    * @param date required date
+    * @return working hours
+    */
+   public ProjectCalendarDateRanges getHours(Date date)
+   {
+      return getRanges(date, null, null);
+   }
+
    /**
     * Retrieves the working hours on the given date.
     *
@@ -1907,7 +2246,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     * @param day optional day instance
     * @return working hours
     */
-   private ProjectCalendarDateRanges getRanges(Date date, Calendar cal, Day day)
+   ProjectCalendarDateRanges getRanges(Date date, Calendar cal, Day day)
    {
       ProjectCalendarDateRanges ranges = getException(date);
       if (ranges == null)
@@ -2052,6 +2391,16 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
    private double m_getDateLastRemainingMinutes;
    private Date m_getDateLastResult;
 
+   /**
+    * Precomputed working time, built on demand.
+    */
+   private volatile WorkingTimeIndex m_workingTimeIndex;
+
+   /**
+    * Set once this calendar is prepared for concurrent use.
+    */
+   private boolean m_frozen;
+
    /**
     * Work week definitions.
     */
@@ -2075,4 +2424,22 @@ public final class ProjectCalendar extends ProjectCalendarWeek implements Projec
     * and take an alternative approach.
     */
    private static final int MAX_NONWORKING_DAYS = 1000;
+
+   /**
+    * Number of days either side of the requested range included
+    * when the working time index is built or extended.
+    */
+   private static final int INDEX_PADDING_DAYS = 366;
+
+   /**
+    * Maximum number of days represented by the working time index.
+    * Calculations outside this range fall back to walking the range
+    * day by day.
+    */
+   private static final int MAX_INDEX_DAYS = 100 * 366;
+
+   /**
+    * Maximum number of entries held by each cache once the calendar is frozen.
+    */
+   private static final int MAX_FROZEN_CACHE_SIZE = 10000;
 }
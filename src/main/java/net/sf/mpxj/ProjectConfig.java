@@ -23,7 +23,10 @@
 
 package net.sf.mpxj;
 
+import net.sf.mpxj.common.ArrayFieldStore;
+import net.sf.mpxj.common.FieldStore;
 import net.sf.mpxj.common.NumberHelper;
+import net.sf.mpxj.common.SparseFieldStore;
 
 /**
  * Container for configuration details used to control the behaviour of the ProjectFile class.
@@ -229,6 +232,54 @@ public class ProjectConfig
       return m_autoResourceID;
    }
 
+   /**
+    * Set the type of field store used by tasks, resources and resource
+    * assignments created after this call.
+    *
+    * @param type field store type
+    */
+   public void setFieldStoreType(FieldStoreType type)
+   {
+      m_fieldStoreType = type == null ? FieldStoreType.ARRAY : type;
+   }
+
+   /**
+    * Retrieve the type of field store used by tasks, resources and
+    * resource assignments.
+    *
+    * @return field store type
+    */
+   public FieldStoreType getFieldStoreType()
+   {
+      return m_fieldStoreType;
+   }
+
+   /**
+    * Create a field store of the configured type.
+    *
+    * @param size maximum number of fields
+    * @return new FieldStore instance
+    */
+   FieldStore createFieldStore(int size)
+   {
+      FieldStore result;
+      switch (m_fieldStoreType)
+      {
+         case SPARSE:
+         {
+            result = new SparseFieldStore(size);
+            break;
+         }
+
+         default:
+         {
+            result = new ArrayFieldStore(size);
+            break;
+         }
+      }
+      return result;
+   }
+
    /**
     * This method is used to retrieve the next unique ID for a task.
     *
@@ -431,4 +482,8 @@ public class ProjectConfig
     */
    private int m_resourceID;
 
+   /**
+    * Type of field store used by entities in this project.
+    */
+   private FieldStoreType m_fieldStoreType = FieldStoreType.ARRAY;
 }
@@ -45,6 +45,36 @@ public abstract class ProjectEntityContainer<T extends ProjectEntityWithUniqueID
       m_projectFile = projectFile;
    }
 
+   @Override public boolean add(T element)
+   {
+      m_projectFile.checkFrozen();
+      return super.add(element);
+   }
+
+   @Override public void add(int index, T element)
+   {
+      m_projectFile.checkFrozen();
+      super.add(index, element);
+   }
+
+   @Override public T set(int index, T element)
+   {
+      m_projectFile.checkFrozen();
+      return super.set(index, element);
+   }
+
+   @Override public T remove(int index)
+   {
+      m_projectFile.checkFrozen();
+      return super.remove(index);
+   }
+
+   @Override public void clear()
+   {
+      m_projectFile.checkFrozen();
+      super.clear();
+   }
+
    /**
     * Returns the value of the first Unique ID to use when renumbering Unique IDs.
     *
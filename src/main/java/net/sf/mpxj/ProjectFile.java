@@ -23,6 +23,7 @@
 
 package net.sf.mpxj;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
@@ -44,6 +45,176 @@ public final class ProjectFile implements ChildTaskContainer
       return m_config;
    }
 
+   /**
+    * Start a bulk load. Until the matching call to endBulkLoad, field
+    * changes made to tasks, resources and resource assignments do not
+    * invalidate dependent calculated fields and are not passed to field
+    * listeners. This is used by readers while they populate a project,
+    * where the values being set have been read from the file, and will be
+    * consistent once loading is complete.
+    *
+    * Changes to task and resource Unique IDs are still processed as normal,
+    * so lookups by Unique ID remain available while a bulk load is in
+    * progress. Calls to this method may be nested.
+    */
+   public void beginBulkLoad()
+   {
+      ++m_bulkLoadDepth;
+   }
+
+   /**
+    * End a bulk load started by beginBulkLoad.
+    */
+   public void endBulkLoad()
+   {
+      if (m_bulkLoadDepth > 0)
+      {
+         --m_bulkLoadDepth;
+      }
+   }
+
+   /**
+    * Determine if a bulk load is in progress.
+    *
+    * @return true if a bulk load is in progress
+    */
+   public boolean getBulkLoad()
+   {
+      return m_bulkLoadDepth != 0;
+   }
+
+   /**
+    * Freeze this project, allowing it to be read safely by multiple
+    * threads. Calculated values held by tasks, resources and resource
+    * assignments are populated, timephased data is prepared, and each
+    * calendar is frozen.
+    *
+    * Once a project is frozen, any attempt to change the value of a task,
+    * resource, resource assignment or project property field, to add,
+    * remove or move tasks, resources, assignments or relations, or to
+    * modify a calendar, will result in an UnsupportedOperationException.
+    * Lists of child tasks, assignments and relations are read only.
+    * The project is frozen in place, so callers which need to continue
+    * editing should read a separate copy of the project.
+    */
+   public void freeze()
+   {
+      if (m_frozen)
+      {
+         return;
+      }
+
+      //
+      // Calculated values are populated as part of a bulk load to ensure
+      // that values populated early in this process are not cleared
+      // as other values they depend on are subsequently populated.
+      //
+      beginBulkLoad();
+
+      for (Task task : m_tasks)
+      {
+         for (TaskField field : TaskField.values())
+         {
+            task.getCurrentValue(field);
+         }
+      }
+
+      for (Resource resource : m_resources)
+      {
+         for (ResourceField field : ResourceField.values())
+         {
+            resource.getCurrentValue(field);
+         }
+      }
+
+      for (ResourceAssignment assignment : m_assignments)
+      {
+         for (AssignmentField field : AssignmentField.values())
+         {
+            assignment.getCurrentValue(field);
+         }
+
+         assignment.getTimephasedWork();
+         assignment.getTimephasedActualWork();
+         assignment.getTimephasedOvertimeWork();
+         assignment.getTimephasedActualOvertimeWork();
+         if (assignment.getResource() != null)
+         {
+            assignment.getTimephasedCost();
+            assignment.getTimephasedActualCost();
+         }
+         for (int index = 0; index < BASELINE_COUNT; index++)
+         {
+            assignment.getTimephasedBaselineWork(index);
+            assignment.getTimephasedBaselineCost(index);
+         }
+      }
+
+      endBulkLoad();
+
+      for (ProjectCalendar calendar : m_calendars)
+      {
+         calendar.freeze();
+      }
+
+      //
+      // Replace the lists describing the structure of the
+      // project with read only views.
+      //
+      for (Task task : m_tasks)
+      {
+         task.freeze();
+      }
+
+      for (Resource resource : m_resources)
+      {
+         resource.freeze();
+      }
+
+      m_childTasks = Collections.unmodifiableList(m_childTasks);
+      m_frozen = true;
+   }
+
+   /**
+    * Determine if this project has been frozen.
+    *
+    * @return true if this project is frozen
+    */
+   public boolean getFrozen()
+   {
+      return m_frozen;
+   }
+
+   /**
+    * Used by field containers to validate a change once the project is
+    * frozen. Values equal to the current value are ignored, as these are
+    * written by getters which cache calculated values.
+    *
+    * @param field field being changed
+    * @param oldValue current value
+    * @param newValue new value
+    */
+   void checkFrozen(FieldType field, Object oldValue, Object newValue)
+   {
+      if (oldValue == newValue || (oldValue != null && oldValue.equals(newValue)))
+      {
+         return;
+      }
+      throw new UnsupportedOperationException("Project is frozen, unable to change " + field);
+   }
+
+   /**
+    * Used to validate a change to the structure of the project, for example
+    * adding or removing a task, once the project is frozen.
+    */
+   void checkFrozen()
+   {
+      if (m_frozen)
+      {
+         throw new UnsupportedOperationException("Project is frozen, unable to change its structure");
+      }
+   }
+
    /**
     * This method allows a task to be added to the file programmatically.
     *
@@ -51,6 +222,7 @@ public final class ProjectFile implements ChildTaskContainer
     */
    @Override public Task addTask()
    {
+      checkFrozen();
       return m_tasks.add();
    }
 
@@ -61,6 +233,7 @@ public final class ProjectFile implements ChildTaskContainer
     */
    public void removeTask(Task task)
    {
+      checkFrozen();
       m_tasks.remove(task);
    }
 
@@ -157,6 +330,16 @@ public final class ProjectFile implements ChildTaskContainer
       return m_tasks;
    }
 
+   /**
+    * Retrieves the relations between tasks in this project.
+    *
+    * @return relation container
+    */
+   public RelationContainer getRelations()
+   {
+      return m_relations;
+   }
+
    /**
     * This method is used to add a new calendar to the file.
     *
@@ -673,7 +856,10 @@ public final class ProjectFile implements ChildTaskContainer
    private final ProjectProperties m_properties = new ProjectProperties(this);
    private final ResourceContainer m_resources = new ResourceContainer(this);
    private final TaskContainer m_tasks = new TaskContainer(this);
-   private final List<Task> m_childTasks = new LinkedList<Task>();
+   private final RelationContainer m_relations = new RelationContainer(this);
+   private int m_bulkLoadDepth;
+   private boolean m_frozen;
+   private List<Task> m_childTasks = new LinkedList<Task>();
    private final ResourceAssignmentContainer m_assignments = new ResourceAssignmentContainer(this);
    private final ProjectCalendarContainer m_calendars = new ProjectCalendarContainer(this);
    private final TableContainer m_tables = new TableContainer();
@@ -684,4 +870,9 @@ public final class ProjectFile implements ChildTaskContainer
    private final EventManager m_eventManager = new EventManager();
    private final CustomFieldContainer m_customFields = new CustomFieldContainer();
    private final ActivityCodeContainer m_activityCodes = new ActivityCodeContainer();
+
+   /**
+    * Number of baselines held for timephased data.
+    */
+   private static final int BASELINE_COUNT = 11;
 }
@@ -2709,6 +2709,11 @@ public final class ProjectProperties extends ProjectEntity implements FieldConta
       if (field != null)
       {
          int index = field.getValue();
+         if (getParentFile().getFrozen())
+         {
+            getParentFile().checkFrozen(field, m_array[index], value);
+            return;
+         }
          m_array[index] = value;
       }
    }
@@ -0,0 +1,249 @@
+/*
+ * file:       RelationContainer.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Provides project-level access to the relations between tasks.
+ * Relations are still held by each task, and are available via
+ * Task.getPredecessors() and Task.getSuccessors(). Each task's relations are
+ * indexed by the related task, so relations can be added, removed and
+ * located without scanning the full predecessor and successor lists.
+ * Iterating over this container visits each relation once, in its
+ * predecessor form.
+ */
+public class RelationContainer implements Iterable<Relation>
+{
+   /**
+    * Constructor.
+    *
+    * @param projectFile parent project
+    */
+   public RelationContainer(ProjectFile projectFile)
+   {
+      m_projectFile = projectFile;
+   }
+
+   /**
+    * Add a relation between two tasks. If an identical relation
+    * is already present, the existing relation is returned.
+    *
+    * @param successor successor task
+    * @param predecessor predecessor task
+    * @param type relation type
+    * @param lag relation lag
+    * @return predecessor relation held by the successor task
+    */
+   public Relation add(Task successor, Task predecessor, RelationType type, Duration lag)
+   {
+      return successor.addPredecessor(predecessor, type, lag);
+   }
+
+   /**
+    * Add a batch of relations. Each relation is supplied in its predecessor
+    * form, i.e. the source task is the successor and the target task is
+    * the predecessor. The relation instances supplied are retained, along
+    * with any Unique IDs they hold, unless an identical relation is already
+    * present. Task relation lists are sized once for the whole batch.
+    *
+    * @param relations relations to add
+    * @return predecessor relations held by the tasks, in the same order as the relations supplied
+    */
+   public List<Relation> addAll(Collection<Relation> relations)
+   {
+      m_projectFile.checkFrozen();
+      Map<RelationList, int[]> sizes = new IdentityHashMap<RelationList, int[]>();
+      for (Relation relation : relations)
+      {
+         increment(sizes, relation.getSourceTask().getRelationList(TaskField.PREDECESSORS));
+         increment(sizes, relation.getTargetTask().getRelationList(TaskField.SUCCESSORS));
+      }
+
+      for (Map.Entry<RelationList, int[]> entry : sizes.entrySet())
+      {
+         entry.getKey().ensureCapacity(entry.getKey().size() + entry.getValue()[0]);
+      }
+
+      List<Relation> result = new ArrayList<Relation>(relations.size());
+      for (Relation relation : relations)
+      {
+         Task successor = relation.getSourceTask();
+         Task predecessor = relation.getTargetTask();
+         RelationType type = relation.getType();
+         Duration lag = relation.getLag();
+
+         if (type == null)
+         {
+            type = RelationType.FINISH_START;
+         }
+
+         if (lag == null)
+         {
+            lag = Duration.getInstance(0, TimeUnit.DAYS);
+         }
+
+         RelationList predecessorList = successor.getRelationList(TaskField.PREDECESSORS);
+         Relation predecessorRelation = predecessorList.find(predecessor, type, lag);
+         if (predecessorRelation == null)
+         {
+            predecessorRelation = relation;
+            predecessorList.add(predecessorRelation);
+         }
+
+         RelationList successorList = predecessor.getRelationList(TaskField.SUCCESSORS);
+         if (successorList.find(successor, type, lag) == null)
+         {
+            successorList.add(new Relation(predecessor, successor, type, lag));
+         }
+
+         result.add(predecessorRelation);
+      }
+      return result;
+   }
+
+   /**
+    * Remove a relation between two tasks.
+    *
+    * @param successor successor task
+    * @param predecessor predecessor task
+    * @param type relation type
+    * @param lag relation lag
+    * @return true if a relation was removed
+    */
+   public boolean remove(Task successor, Task predecessor, RelationType type, Duration lag)
+   {
+      return successor.removePredecessor(predecessor, type, lag);
+   }
+
+   /**
+    * Retrieve a relation between two tasks.
+    *
+    * @param successor successor task
+    * @param predecessor predecessor task
+    * @param type relation type
+    * @param lag relation lag
+    * @return predecessor relation held by the successor task, or null if not found
+    */
+   public Relation get(Task successor, Task predecessor, RelationType type, Duration lag)
+   {
+      if (type == null)
+      {
+         type = RelationType.FINISH_START;
+      }
+
+      if (lag == null)
+      {
+         lag = Duration.getInstance(0, TimeUnit.DAYS);
+      }
+      return successor.getRelationList(TaskField.PREDECESSORS).find(predecessor, type, lag);
+   }
+
+   /**
+    * Determine if there is any relation between two tasks.
+    *
+    * @param successor successor task
+    * @param predecessor predecessor task
+    * @return true if the tasks are related
+    */
+   public boolean contains(Task successor, Task predecessor)
+   {
+      return successor.isPredecessor(predecessor);
+   }
+
+   /**
+    * Retrieve the number of relations in the project.
+    *
+    * @return relation count
+    */
+   public int size()
+   {
+      int result = 0;
+      for (Task task : m_projectFile.getTasks())
+      {
+         result += task.getPredecessors().size();
+      }
+      return result;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public Iterator<Relation> iterator()
+   {
+      return new Iterator<Relation>()
+      {
+         @Override public boolean hasNext()
+         {
+            while (!m_relations.hasNext() && m_tasks.hasNext())
+            {
+               m_relations = m_tasks.next().getPredecessors().iterator();
+            }
+            return m_relations.hasNext();
+         }
+
+         @Override public Relation next()
+         {
+            if (!hasNext())
+            {
+               throw new NoSuchElementException();
+            }
+            return m_relations.next();
+         }
+
+         @Override public void remove()
+         {
+            throw new UnsupportedOperationException();
+         }
+
+         private final Iterator<Task> m_tasks = m_projectFile.getTasks().iterator();
+         private Iterator<Relation> m_relations = new ArrayList<Relation>().iterator();
+      };
+   }
+
+   /**
+    * Increment the count held for a relation list.
+    *
+    * @param sizes counts by list
+    * @param list relation list
+    */
+   private void increment(Map<RelationList, int[]> sizes, RelationList list)
+   {
+      int[] count = sizes.get(list);
+      if (count == null)
+      {
+         count = new int[1];
+         sizes.put(list, count);
+      }
+      ++count[0];
+   }
+
+   private final ProjectFile m_projectFile;
+}
@@ -0,0 +1,491 @@
+/*
+ * file:       RelationList.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * List of predecessor or successor relations held by a task.
+ * Once the list grows beyond a small number of entries, relations are also
+ * indexed by their target task and by their position, allowing duplicate
+ * detection, lookup and removal without scanning the whole list.
+ */
+final class RelationList extends AbstractList<Relation> implements RandomAccess
+{
+   /**
+    * Ensure that this list can accept the given number of relations
+    * without being resized.
+    *
+    * @param capacity required capacity
+    */
+   public void ensureCapacity(int capacity)
+   {
+      checkFrozen();
+      m_relations.ensureCapacity(capacity);
+      if (m_index == null && capacity > INDEX_THRESHOLD)
+      {
+         createIndex();
+      }
+   }
+
+   /**
+    * Locate a relation with the given target, type and lag.
+    *
+    * @param targetTask target task
+    * @param type relation type
+    * @param lag relation lag
+    * @return Relation instance or null if not found
+    */
+   public Relation find(Task targetTask, RelationType type, Duration lag)
+   {
+      List<Relation> candidates = m_index == null ? m_relations : m_index.get(targetTask);
+      Relation result = null;
+      if (candidates != null)
+      {
+         for (Relation relation : candidates)
+         {
+            if (relation.getTargetTask() == targetTask && relation.getType() == type && relation.getLag().compareTo(lag) == 0)
+            {
+               result = relation;
+               break;
+            }
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Determine if this list contains a relation with the given target.
+    *
+    * @param targetTask target task
+    * @return true if a relation is present
+    */
+   public boolean containsTarget(Task targetTask)
+   {
+      boolean result = false;
+      if (m_index == null)
+      {
+         for (Relation relation : m_relations)
+         {
+            if (relation.getTargetTask() == targetTask)
+            {
+               result = true;
+               break;
+            }
+         }
+      }
+      else
+      {
+         result = m_index.containsKey(targetTask);
+      }
+      return result;
+   }
+
+   @Override public Relation get(int index)
+   {
+      return m_relations.get(getPosition(index));
+   }
+
+   @Override public int size()
+   {
+      return m_relations.size() - m_removed;
+   }
+
+   @Override public Relation set(int index, Relation element)
+   {
+      checkFrozen();
+      int position = getPosition(index);
+      Relation result = m_relations.set(position, element);
+      unindex(result, position);
+      index(element, position);
+      return result;
+   }
+
+   @Override public void add(int index, Relation element)
+   {
+      checkFrozen();
+      ++modCount;
+      if (index == size())
+      {
+         //
+         // Appending doesn't move any existing entries,
+         // so there is no need to remove the gaps first.
+         //
+         m_relations.add(element);
+         index(element, m_relations.size() - 1);
+      }
+      else
+      {
+         compact();
+         m_relations.add(index, element);
+         if (m_index != null)
+         {
+            index(element, index);
+            updatePositions();
+         }
+      }
+
+      if (m_index == null && m_relations.size() > INDEX_THRESHOLD)
+      {
+         createIndex();
+      }
+   }
+
+   @Override public Relation remove(int index)
+   {
+      checkFrozen();
+      int position = getPosition(index);
+      Relation result = m_relations.get(position);
+      ++modCount;
+      removeEntry(position, result);
+      return result;
+   }
+
+   @Override public boolean remove(Object o)
+   {
+      checkFrozen();
+      int index;
+      if (m_positions == null)
+      {
+         index = m_relations.indexOf(o);
+      }
+      else
+      {
+         Integer position = m_positions.get(o);
+         index = position == null ? -1 : position.intValue();
+      }
+
+      boolean result = index != -1;
+      if (result)
+      {
+         ++modCount;
+         removeEntry(index, (Relation) o);
+      }
+      return result;
+   }
+
+   @Override public Iterator<Relation> iterator()
+   {
+      return new RelationIterator();
+   }
+
+   @Override public void clear()
+   {
+      checkFrozen();
+      ++modCount;
+      m_relations.clear();
+      m_index = null;
+      m_positions = null;
+      m_removed = 0;
+   }
+
+   /**
+    * Remove the relation at the given position in the underlying list.
+    * Once the list is indexed, the entry is replaced by a gap rather than
+    * shifting the following entries, so removal takes constant time.
+    * The gaps are removed when they make up more than a quarter of the
+    * underlying list, when a relation is inserted, or when the
+    * parent project is frozen. Reads never remove the gaps.
+    *
+    * @param index position in the underlying list
+    * @param relation relation held at this position
+    */
+   private void removeEntry(int index, Relation relation)
+   {
+      if (m_index == null)
+      {
+         m_relations.remove(index);
+      }
+      else
+      {
+         m_relations.set(index, null);
+         ++m_removed;
+         unindex(relation, index);
+         if (m_removed > m_relations.size() / 4)
+         {
+            compact();
+         }
+      }
+   }
+
+   /**
+    * Map a position in this list to a position in the underlying list,
+    * skipping any gaps left by removed relations.
+    *
+    * @param index position in this list
+    * @return position in the underlying list
+    */
+   private int getPosition(int index)
+   {
+      if (index < 0 || index >= size())
+      {
+         throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+      }
+
+      if (m_removed == 0)
+      {
+         return index;
+      }
+
+      int position = 0;
+      int count = -1;
+      while (true)
+      {
+         if (m_relations.get(position) != null && ++count == index)
+         {
+            break;
+         }
+         ++position;
+      }
+      return position;
+   }
+
+   /**
+    * Called when the parent project is frozen. Any gaps left by removed
+    * relations are removed, and any subsequent attempt to change
+    * this list will result in an UnsupportedOperationException.
+    */
+   void freeze()
+   {
+      compact();
+      m_frozen = true;
+   }
+
+   /**
+    * Ensure that this list can be changed.
+    */
+   private void checkFrozen()
+   {
+      if (m_frozen)
+      {
+         throw new UnsupportedOperationException("Project is frozen, unable to change relations");
+      }
+   }
+
+   /**
+    * Remove any gaps left by removed relations.
+    */
+   private void compact()
+   {
+      if (m_removed != 0)
+      {
+         int size = 0;
+         for (int index = 0; index < m_relations.size(); index++)
+         {
+            Relation relation = m_relations.get(index);
+            if (relation != null)
+            {
+               m_relations.set(size++, relation);
+            }
+         }
+         m_relations.subList(size, m_relations.size()).clear();
+         m_removed = 0;
+         updatePositions();
+      }
+   }
+
+   /**
+    * Build the target task and position indexes from the current list contents.
+    */
+   private void createIndex()
+   {
+      m_index = new IdentityHashMap<Task, List<Relation>>();
+      m_positions = new IdentityHashMap<Relation, Integer>();
+      for (int index = 0; index < m_relations.size(); index++)
+      {
+         index(m_relations.get(index), index);
+      }
+   }
+
+   /**
+    * Rebuild the position index after entries have moved. If the same
+    * relation instance appears more than once, the first position is held.
+    */
+   private void updatePositions()
+   {
+      m_positions.clear();
+      for (int index = m_relations.size() - 1; index >= 0; index--)
+      {
+         Relation relation = m_relations.get(index);
+         if (relation != null)
+         {
+            m_positions.put(relation, Integer.valueOf(index));
+         }
+      }
+   }
+
+   /**
+    * Add a relation to the index.
+    *
+    * @param relation relation to add
+    * @param index position of the relation in the underlying list
+    */
+   private void index(Relation relation, int index)
+   {
+      if (m_index != null)
+      {
+         List<Relation> list = m_index.get(relation.getTargetTask());
+         if (list == null)
+         {
+            list = new ArrayList<Relation>(1);
+            m_index.put(relation.getTargetTask(), list);
+         }
+         list.add(relation);
+
+         Integer position = m_positions.get(relation);
+         if (position == null || position.intValue() > index)
+         {
+            m_positions.put(relation, Integer.valueOf(index));
+         }
+      }
+   }
+
+   /**
+    * Remove a relation from the index.
+    *
+    * @param relation relation to remove
+    * @param index position the relation held in the underlying list
+    */
+   private void unindex(Relation relation, int index)
+   {
+      if (m_index != null)
+      {
+         List<Relation> list = m_index.get(relation.getTargetTask());
+         if (list != null)
+         {
+            list.remove(relation);
+            if (list.isEmpty())
+            {
+               m_index.remove(relation.getTargetTask());
+            }
+         }
+
+         Integer position = m_positions.get(relation);
+         if (position != null && position.intValue() == index)
+         {
+            m_positions.remove(relation);
+
+            //
+            // The same instance may have been added more than once,
+            // in which case we need to locate its next position.
+            //
+            if (list != null && list.contains(relation))
+            {
+               int next = m_relations.indexOf(relation);
+               if (next != -1)
+               {
+                  m_positions.put(relation, Integer.valueOf(next));
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * Iterates over the underlying list directly, skipping gaps,
+    * so iteration doesn't need to map each position.
+    */
+   private final class RelationIterator implements Iterator<Relation>
+   {
+      @Override public boolean hasNext()
+      {
+         return m_next < size();
+      }
+
+      @Override public Relation next()
+      {
+         checkForComodification();
+         if (m_next >= size())
+         {
+            throw new NoSuchElementException();
+         }
+
+         while (m_relations.get(m_position) == null)
+         {
+            ++m_position;
+         }
+
+         m_last = m_next++;
+         return m_relations.get(m_position++);
+      }
+
+      @Override public void remove()
+      {
+         if (m_last == -1)
+         {
+            throw new IllegalStateException();
+         }
+         checkForComodification();
+
+         RelationList.this.remove(m_last);
+
+         //
+         // If removing the relation didn't leave a gap, the
+         // following entries have moved back by one place.
+         //
+         m_next = m_last;
+         if (m_removed == 0)
+         {
+            m_position = m_next;
+         }
+         m_last = -1;
+         m_expectedModCount = modCount;
+      }
+
+      /**
+       * Ensure the list hasn't been changed other than through this iterator.
+       */
+      private void checkForComodification()
+      {
+         if (modCount != m_expectedModCount)
+         {
+            throw new ConcurrentModificationException();
+         }
+      }
+
+      private int m_next;
+      private int m_position;
+      private int m_last = -1;
+      private int m_expectedModCount = modCount;
+   }
+
+   private final ArrayList<Relation> m_relations = new ArrayList<Relation>();
+   private Map<Task, List<Relation>> m_index;
+   private Map<Relation, Integer> m_positions;
+   private int m_removed;
+   private boolean m_frozen;
+
+   /**
+    * Lists up to this size are searched linearly.
+    */
+   private static final int INDEX_THRESHOLD = 8;
+}
@@ -24,6 +24,7 @@
 
 package net.sf.mpxj;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
@@ -31,6 +32,7 @@ import java.util.UUID;
 
 import net.sf.mpxj.common.BooleanHelper;
 import net.sf.mpxj.common.DateHelper;
+import net.sf.mpxj.common.FieldStore;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.common.ResourceFieldLists;
 import net.sf.mpxj.listener.FieldListener;
@@ -1978,6 +1980,7 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
     */
    public void addResourceAssignment(ResourceAssignment assignment)
    {
+      getParentFile().checkFrozen();
       m_assignments.add(assignment);
    }
 
@@ -1989,6 +1992,7 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
     */
    void removeResourceAssignment(ResourceAssignment assignment)
    {
+      getParentFile().checkFrozen();
       m_assignments.remove(assignment);
    }
 
@@ -2006,6 +2010,15 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
       return (m_assignments);
    }
 
+   /**
+    * Called when the parent project is frozen. The list of assignments
+    * held by this resource is replaced by a read only view.
+    */
+   void freeze()
+   {
+      m_assignments = Collections.unmodifiableList(m_assignments);
+   }
+
    /**
     * Where a resource in an MPP file represents a resource from a subproject,
     * this value will be non-zero. The value itself is the unique ID value shown
@@ -2328,7 +2341,7 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
     */
    @Override public Object getCachedValue(FieldType field)
    {
-      return (field == null ? null : m_array[field.getValue()]);
+      return (field == null ? null : m_fields.get(field.getValue()));
    }
 
    /**
@@ -2376,7 +2389,7 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
 
             default:
             {
-               result = m_array[field.getValue()];
+               result = m_fields.get(field.getValue());
                break;
             }
          }
@@ -2393,11 +2406,17 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
       if (field != null)
       {
          int index = field.getValue();
-         if (m_eventsEnabled)
+         if (getParentFile().getFrozen())
+         {
+            getParentFile().checkFrozen(field, m_fields.get(index), value);
+            return;
+         }
+
+         if (m_eventsEnabled && (field == ResourceField.UNIQUE_ID || !getParentFile().getBulkLoad()))
          {
-            fireFieldChangeEvent((ResourceField) field, m_array[index], value);
+            fireFieldChangeEvent((ResourceField) field, m_fields.get(index), value);
          }
-         m_array[index] = value;
+         m_fields.set(index, value);
       }
    }
 
@@ -2439,35 +2458,35 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
          case COST:
          case BASELINE_COST:
          {
-            m_array[ResourceField.COST_VARIANCE.getValue()] = null;
+            m_fields.set(ResourceField.COST_VARIANCE.getValue(), null);
             break;
          }
 
          case WORK:
          case BASELINE_WORK:
          {
-            m_array[ResourceField.WORK_VARIANCE.getValue()] = null;
+            m_fields.set(ResourceField.WORK_VARIANCE.getValue(), null);
             break;
          }
 
          case BCWP:
          case ACWP:
          {
-            m_array[ResourceField.CV.getValue()] = null;
-            m_array[ResourceField.SV.getValue()] = null;
+            m_fields.set(ResourceField.CV.getValue(), null);
+            m_fields.set(ResourceField.SV.getValue(), null);
             break;
          }
 
          case BCWS:
          {
-            m_array[ResourceField.SV.getValue()] = null;
+            m_fields.set(ResourceField.SV.getValue(), null);
             break;
          }
 
          case PEAK:
          case MAX_UNITS:
          {
-            m_array[ResourceField.OVERALLOCATED.getValue()] = null;
+            m_fields.set(ResourceField.OVERALLOCATED.getValue(), null);
             break;
          }
 
@@ -2587,9 +2606,9 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
    }
 
    /**
-    * Array of field values.
+    * Field values.
     */
-   private Object[] m_array = new Object[ResourceField.MAX_VALUE];
+   private final FieldStore m_fields = getParentFile().getProjectConfig().createFieldStore(ResourceField.MAX_VALUE);
 
    /**
     * List of all assignments for this resource.
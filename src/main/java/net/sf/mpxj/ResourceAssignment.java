@@ -34,6 +34,7 @@ import net.sf.mpxj.common.AssignmentFieldLists;
 import net.sf.mpxj.common.BooleanHelper;
 import net.sf.mpxj.common.DateHelper;
 import net.sf.mpxj.common.DefaultTimephasedWorkContainer;
+import net.sf.mpxj.common.FieldStore;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.listener.FieldListener;
 
@@ -2705,11 +2706,17 @@ public final class ResourceAssignment extends ProjectEntity implements ProjectEn
       if (field != null)
       {
          int index = field.getValue();
-         if (m_eventsEnabled)
+         if (getParentFile().getFrozen())
          {
-            fireFieldChangeEvent((AssignmentField) field, m_array[index], value);
+            getParentFile().checkFrozen(field, m_fields.get(index), value);
+            return;
          }
-         m_array[index] = value;
+
+         if (m_eventsEnabled && !getParentFile().getBulkLoad())
+         {
+            fireFieldChangeEvent((AssignmentField) field, m_fields.get(index), value);
+         }
+         m_fields.set(index, value);
       }
    }
 
@@ -2743,43 +2750,43 @@ public final class ResourceAssignment extends ProjectEntity implements ProjectEn
          case START:
          case BASELINE_START:
          {
-            m_array[AssignmentField.START_VARIANCE.getValue()] = null;
+            m_fields.set(AssignmentField.START_VARIANCE.getValue(), null);
             break;
          }
 
          case FINISH:
          case BASELINE_FINISH:
          {
-            m_array[AssignmentField.FINISH_VARIANCE.getValue()] = null;
+            m_fields.set(AssignmentField.FINISH_VARIANCE.getValue(), null);
             break;
          }
 
          case BCWP:
          case ACWP:
          {
-            m_array[AssignmentField.CV.getValue()] = null;
-            m_array[AssignmentField.SV.getValue()] = null;
+            m_fields.set(AssignmentField.CV.getValue(), null);
+            m_fields.set(AssignmentField.SV.getValue(), null);
             break;
          }
 
          case COST:
          case BASELINE_COST:
          {
-            m_array[AssignmentField.COST_VARIANCE.getValue()] = null;
+            m_fields.set(AssignmentField.COST_VARIANCE.getValue(), null);
             break;
          }
 
          case WORK:
          case BASELINE_WORK:
          {
-            m_array[AssignmentField.WORK_VARIANCE.getValue()] = null;
+            m_fields.set(AssignmentField.WORK_VARIANCE.getValue(), null);
             break;
          }
 
          case ACTUAL_OVERTIME_COST:
          case REMAINING_OVERTIME_COST:
          {
-            m_array[AssignmentField.OVERTIME_COST.getValue()] = null;
+            m_fields.set(AssignmentField.OVERTIME_COST.getValue(), null);
             break;
          }
 
@@ -2829,7 +2836,7 @@ public final class ResourceAssignment extends ProjectEntity implements ProjectEn
     */
    @Override public Object getCachedValue(FieldType field)
    {
-      return (field == null ? null : m_array[field.getValue()]);
+      return (field == null ? null : m_fields.get(field.getValue()));
    }
 
    /**
@@ -2843,7 +2850,7 @@ public final class ResourceAssignment extends ProjectEntity implements ProjectEn
       {
          int fieldValue = field.getValue();
 
-         result = m_array[fieldValue];
+         result = m_fields.get(fieldValue);
       }
 
       return (result);
@@ -2866,9 +2873,9 @@ public final class ResourceAssignment extends ProjectEntity implements ProjectEn
    }
 
    /**
-    * Array of field values.
+    * Field values.
     */
-   private Object[] m_array = new Object[AssignmentField.MAX_VALUE];
+   private final FieldStore m_fields = getParentFile().getProjectConfig().createFieldStore(AssignmentField.MAX_VALUE);
 
    private boolean m_eventsEnabled = true;
 
@@ -24,6 +24,7 @@
 
 package net.sf.mpxj;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -32,6 +33,7 @@ import java.util.UUID;
 
 import net.sf.mpxj.common.BooleanHelper;
 import net.sf.mpxj.common.DateHelper;
+import net.sf.mpxj.common.FieldStore;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.common.TaskFieldLists;
 import net.sf.mpxj.listener.FieldListener;
@@ -55,8 +57,8 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
       setConstraintType(ConstraintType.AS_SOON_AS_POSSIBLE);
       setTaskMode(TaskMode.AUTO_SCHEDULED);
       setActive(true);
-      set(TaskField.PREDECESSORS, new LinkedList<Relation>());
-      set(TaskField.SUCCESSORS, new LinkedList<Relation>());
+      set(TaskField.PREDECESSORS, new RelationList());
+      set(TaskField.SUCCESSORS, new RelationList());
       //      m_array[TaskField.PREDECESSORS.getValue()] = new LinkedList<Relation>();
       //      m_array[TaskField.SUCCESSORS.getValue()] = new LinkedList<Relation>();
 
@@ -212,6 +214,7 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
    @Override public Task addTask()
    {
       ProjectFile parent = getParentFile();
+      parent.checkFrozen();
 
       Task task = new Task(parent, this);
 
@@ -235,6 +238,7 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
     */
    public void addChildTask(Task child, int childOutlineLevel)
    {
+      getParentFile().checkFrozen();
       int outlineLevel = NumberHelper.getInt(getOutlineLevel());
 
       if ((outlineLevel + 1) == childOutlineLevel)
@@ -261,6 +265,7 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
     */
    public void addChildTask(Task child)
    {
+      getParentFile().checkFrozen();
       child.m_parent = this;
       m_children.add(child);
       setSummary(true);
@@ -279,6 +284,7 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
     */
    public void addChildTaskBefore(Task child, Task previousSibling)
    {
+      getParentFile().checkFrozen();
       int index = m_children.indexOf(previousSibling);
       if (index == -1)
       {
@@ -305,6 +311,7 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
     */
    public void removeChildTask(Task child)
    {
+      getParentFile().checkFrozen();
       if (m_children.remove(child))
       {
          child.m_parent = null;
@@ -318,6 +325,7 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
     */
    public void clearChildTasks()
    {
+      getParentFile().checkFrozen();
       m_children.clear();
       setSummary(false);
    }
@@ -378,6 +386,7 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
     */
    public ResourceAssignment addResourceAssignment(Resource resource)
    {
+      getParentFile().checkFrozen();
       ResourceAssignment assignment = getExistingResourceAssignment(resource);
 
       if (assignment == null)
@@ -407,6 +416,7 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
     */
    public void addResourceAssignment(ResourceAssignment assignment)
    {
+      getParentFile().checkFrozen();
       if (getExistingResourceAssignment(assignment.getResource()) == null)
       {
          m_assignments.add(assignment);
@@ -471,6 +481,7 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
     */
    void removeResourceAssignment(ResourceAssignment assignment)
    {
+      getParentFile().checkFrozen();
       m_assignments.remove(assignment);
    }
 
@@ -483,44 +494,29 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
     * @param lag relation lag
     * @return relationship
     */
-   @SuppressWarnings("unchecked") public Relation addPredecessor(Task targetTask, RelationType type, Duration lag)
+   public Relation addPredecessor(Task targetTask, RelationType type, Duration lag)
    {
+      getParentFile().checkFrozen();
+
       //
-      // Ensure that we have a valid lag duration
+      // Ensure that we have a valid type and lag duration
       //
-      if (lag == null)
+      if (type == null)
       {
-         lag = Duration.getInstance(0, TimeUnit.DAYS);
+         type = RelationType.FINISH_START;
       }
 
-      //
-      // Retrieve the list of predecessors
-      //
-      List<Relation> predecessorList = (List<Relation>) getCachedValue(TaskField.PREDECESSORS);
-
-      //
-      // Ensure that there is only one predecessor relationship between
-      // these two tasks.
-      //
-      Relation predecessorRelation = null;
-      Iterator<Relation> iter = predecessorList.iterator();
-      while (iter.hasNext() == true)
+      if (lag == null)
       {
-         predecessorRelation = iter.next();
-         if (predecessorRelation.getTargetTask() == targetTask)
-         {
-            if (predecessorRelation.getType() != type || predecessorRelation.getLag().compareTo(lag) != 0)
-            {
-               predecessorRelation = null;
-            }
-            break;
-         }
-         predecessorRelation = null;
+         lag = Duration.getInstance(0, TimeUnit.DAYS);
       }
 
       //
-      // If necessary, create a new predecessor relationship
+      // Ensure that there is only one predecessor relationship between
+      // these two tasks with this type and lag.
       //
+      RelationList predecessorList = getRelationList(TaskField.PREDECESSORS);
+      Relation predecessorRelation = predecessorList.find(targetTask, type, lag);
       if (predecessorRelation == null)
       {
          predecessorRelation = new Relation(this, targetTask, type, lag);
@@ -528,37 +524,12 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
       }
 
       //
-      // Retrieve the list of successors
-      //
-      List<Relation> successorList = (List<Relation>) targetTask.getCachedValue(TaskField.SUCCESSORS);
-
-      //
-      // Ensure that there is only one successor relationship between
-      // these two tasks.
-      //
-      Relation successorRelation = null;
-      iter = successorList.iterator();
-      while (iter.hasNext() == true)
-      {
-         successorRelation = iter.next();
-         if (successorRelation.getTargetTask() == this)
-         {
-            if (successorRelation.getType() != type || successorRelation.getLag().compareTo(lag) != 0)
-            {
-               successorRelation = null;
-            }
-            break;
-         }
-         successorRelation = null;
-      }
-
-      //
-      // If necessary, create a new successor relationship
+      // Ensure that there is a matching successor relationship
       //
-      if (successorRelation == null)
+      RelationList successorList = targetTask.getRelationList(TaskField.SUCCESSORS);
+      if (successorList.find(this, type, lag) == null)
       {
-         successorRelation = new Relation(targetTask, this, type, lag);
-         successorList.add(successorRelation);
+         successorList.add(new Relation(targetTask, this, type, lag));
       }
 
       return (predecessorRelation);
@@ -4588,46 +4559,35 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
     */
    public boolean removePredecessor(Task targetTask, RelationType type, Duration lag)
    {
-      boolean matchFound = false;
+      getParentFile().checkFrozen();
 
       //
-      // Retrieve the list of predecessors
+      // Ensure that we have a valid lag duration
       //
-      List<Relation> predecessorList = getPredecessors();
-      if (!predecessorList.isEmpty())
+      if (lag == null)
       {
-         //
-         // Ensure that we have a valid lag duration
-         //
-         if (lag == null)
-         {
-            lag = Duration.getInstance(0, TimeUnit.DAYS);
-         }
+         lag = Duration.getInstance(0, TimeUnit.DAYS);
+      }
 
-         //
-         // Ensure that there is a predecessor relationship between
-         // these two tasks, and remove it.
-         //
-         matchFound = removeRelation(predecessorList, targetTask, type, lag);
+      //
+      // Ensure that there is a predecessor relationship between
+      // these two tasks, and remove it.
+      //
+      RelationList predecessorList = getRelationList(TaskField.PREDECESSORS);
+      Relation relation = predecessorList.find(targetTask, type, lag);
+      boolean matchFound = relation != null && predecessorList.remove(relation);
 
-         //
-         // If we have removed a predecessor, then we must remove the
-         // corresponding successor entry from the target task list
-         //
-         if (matchFound)
+      //
+      // If we have removed a predecessor, then we must remove the
+      // corresponding successor entry from the target task list
+      //
+      if (matchFound)
+      {
+         RelationList successorList = targetTask.getRelationList(TaskField.SUCCESSORS);
+         relation = successorList.find(this, type, lag);
+         if (relation != null)
          {
-            //
-            // Retrieve the list of successors
-            //
-            List<Relation> successorList = targetTask.getSuccessors();
-            if (!successorList.isEmpty())
-            {
-               //
-               // Ensure that there is a successor relationship between
-               // these two tasks, and remove it.
-               //
-               removeRelation(successorList, this, type, lag);
-            }
+            successorList.remove(relation);
          }
       }
 
@@ -4635,29 +4595,27 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
    }
 
    /**
-    * Internal method used to locate an remove an item from a list Relations.
+    * Retrieve the predecessor or successor list for this task.
     *
-    * @param relationList list of Relation instances
-    * @param targetTask target relationship task
-    * @param type target relationship type
-    * @param lag target relationship lag
-    * @return true if a relationship was removed
+    * @param field TaskField.PREDECESSORS or TaskField.SUCCESSORS
+    * @return relation list
     */
-   private boolean removeRelation(List<Relation> relationList, Task targetTask, RelationType type, Duration lag)
+   RelationList getRelationList(TaskField field)
    {
-      boolean matchFound = false;
-      for (Relation relation : relationList)
-      {
-         if (relation.getTargetTask() == targetTask)
-         {
-            if (relation.getType() == type && relation.getLag().compareTo(lag) == 0)
-            {
-               matchFound = relationList.remove(relation);
-               break;
-            }
-         }
-      }
-      return matchFound;
+      return (RelationList) getCachedValue(field);
+   }
+
+   /**
+    * Called when the parent project is frozen. The lists of child tasks,
+    * resource assignments and relations held by this task are replaced
+    * by read only views.
+    */
+   void freeze()
+   {
+      m_children = Collections.unmodifiableList(m_children);
+      m_assignments = Collections.unmodifiableList(m_assignments);
+      getRelationList(TaskField.PREDECESSORS).freeze();
+      getRelationList(TaskField.SUCCESSORS).freeze();
    }
 
    /**
@@ -4681,7 +4639,7 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
     */
    @Override public Object getCachedValue(FieldType field)
    {
-      return (field == null ? null : m_array[field.getValue()]);
+      return (field == null ? null : m_fields.get(field.getValue()));
    }
 
    /**
@@ -4775,7 +4733,7 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
 
             default:
             {
-               result = m_array[field.getValue()];
+               result = m_fields.get(field.getValue());
                break;
             }
          }
@@ -4792,11 +4750,17 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
       if (field != null)
       {
          int index = field.getValue();
-         if (m_eventsEnabled)
+         if (getParentFile().getFrozen())
+         {
+            getParentFile().checkFrozen(field, m_fields.get(index), value);
+            return;
+         }
+
+         if (m_eventsEnabled && (field == TaskField.UNIQUE_ID || !getParentFile().getBulkLoad()))
          {
-            fireFieldChangeEvent((TaskField) field, m_array[index], value);
+            fireFieldChangeEvent((TaskField) field, m_fields.get(index), value);
          }
-         m_array[index] = value;
+         m_fields.set(index, value);
       }
    }
 
@@ -4830,88 +4794,88 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
          case START:
          case BASELINE_START:
          {
-            m_array[TaskField.START_VARIANCE.getValue()] = null;
+            m_fields.set(TaskField.START_VARIANCE.getValue(), null);
             break;
          }
 
          case FINISH:
          case BASELINE_FINISH:
          {
-            m_array[TaskField.FINISH_VARIANCE.getValue()] = null;
+            m_fields.set(TaskField.FINISH_VARIANCE.getValue(), null);
             break;
          }
 
          case COST:
          case BASELINE_COST:
          {
-            m_array[TaskField.COST_VARIANCE.getValue()] = null;
+            m_fields.set(TaskField.COST_VARIANCE.getValue(), null);
             break;
          }
 
          case DURATION:
          {
-            m_array[TaskField.DURATION_VARIANCE.getValue()] = null;
-            m_array[TaskField.COMPLETE_THROUGH.getValue()] = null;
+            m_fields.set(TaskField.DURATION_VARIANCE.getValue(), null);
+            m_fields.set(TaskField.COMPLETE_THROUGH.getValue(), null);
             break;
          }
 
          case BASELINE_DURATION:
          {
-            m_array[TaskField.DURATION_VARIANCE.getValue()] = null;
+            m_fields.set(TaskField.DURATION_VARIANCE.getValue(), null);
             break;
          }
 
          case WORK:
          case BASELINE_WORK:
          {
-            m_array[TaskField.WORK_VARIANCE.getValue()] = null;
+            m_fields.set(TaskField.WORK_VARIANCE.getValue(), null);
             break;
          }
 
          case BCWP:
          case ACWP:
          {
-            m_array[TaskField.CV.getValue()] = null;
-            m_array[TaskField.SV.getValue()] = null;
+            m_fields.set(TaskField.CV.getValue(), null);
+            m_fields.set(TaskField.SV.getValue(), null);
             break;
          }
 
          case BCWS:
          {
-            m_array[TaskField.SV.getValue()] = null;
+            m_fields.set(TaskField.SV.getValue(), null);
             break;
          }
 
          case START_SLACK:
          case FINISH_SLACK:
          {
-            m_array[TaskField.TOTAL_SLACK.getValue()] = null;
-            m_array[TaskField.CRITICAL.getValue()] = null;
+            m_fields.set(TaskField.TOTAL_SLACK.getValue(), null);
+            m_fields.set(TaskField.CRITICAL.getValue(), null);
             break;
          }
 
          case EARLY_FINISH:
          case LATE_FINISH:
          {
-            m_array[TaskField.FINISH_SLACK.getValue()] = null;
-            m_array[TaskField.TOTAL_SLACK.getValue()] = null;
-            m_array[TaskField.CRITICAL.getValue()] = null;
+            m_fields.set(TaskField.FINISH_SLACK.getValue(), null);
+            m_fields.set(TaskField.TOTAL_SLACK.getValue(), null);
+            m_fields.set(TaskField.CRITICAL.getValue(), null);
             break;
          }
 
          case EARLY_START:
          case LATE_START:
          {
-            m_array[TaskField.START_SLACK.getValue()] = null;
-            m_array[TaskField.TOTAL_SLACK.getValue()] = null;
-            m_array[TaskField.CRITICAL.getValue()] = null;
+            m_fields.set(TaskField.START_SLACK.getValue(), null);
+            m_fields.set(TaskField.TOTAL_SLACK.getValue(), null);
+            m_fields.set(TaskField.CRITICAL.getValue(), null);
             break;
          }
 
          case ACTUAL_START:
          case PERCENT_COMPLETE:
          {
-            m_array[TaskField.COMPLETE_THROUGH.getValue()] = null;
+            m_fields.set(TaskField.COMPLETE_THROUGH.getValue(), null);
             break;
          }
 
@@ -4984,7 +4948,7 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
     */
    public boolean isPredecessor(Task task)
    {
-      return isRelated(task, getPredecessors());
+      return getRelationList(TaskField.PREDECESSORS).containsTarget(task);
    }
 
    /**
@@ -4996,29 +4960,7 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
     */
    public boolean isSucessor(Task task)
    {
-      return isRelated(task, getSuccessors());
-   }
-
-   /**
-    * Internal method used to test for the existence of a relationship
-    * with a task.
-    *
-    * @param task target task
-    * @param list list of relationships
-    * @return boolean flag
-    */
-   private boolean isRelated(Task task, List<Relation> list)
-   {
-      boolean result = false;
-      for (Relation relation : list)
-      {
-         if (relation.getTargetTask().getUniqueID().intValue() == task.getUniqueID().intValue())
-         {
-            result = true;
-            break;
-         }
-      }
-      return result;
+      return getRelationList(TaskField.SUCCESSORS).containsTarget(task);
    }
 
    /**
@@ -5038,9 +4980,9 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Proje
    }
 
    /**
-    * Array of field values.
+    * Field values.
     */
-   private Object[] m_array = new Object[TaskField.MAX_VALUE];
+   private final FieldStore m_fields = getParentFile().getProjectConfig().createFieldStore(TaskField.MAX_VALUE);
 
    /**
     * This is a reference to the parent task, as specified by the
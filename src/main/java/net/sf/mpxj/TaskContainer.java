@@ -23,9 +23,13 @@
 
 package net.sf.mpxj;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.Set;
 
 import net.sf.mpxj.common.NumberHelper;
 
@@ -62,6 +66,8 @@ public class TaskContainer extends ProjectEntityWithIDContainer<Task>
     */
    @Override public void removed(Task task)
    {
+      m_outlineValid = false;
+
       //
       // Remove the task from the file and its parent task
       //
@@ -124,12 +130,14 @@ public class TaskContainer extends ProjectEntityWithIDContainer<Task>
       clear();
 
       int currentID = (getByID(Integer.valueOf(0)) == null ? 1 : 0);
+      m_firstID = currentID;
       for (Task task : m_projectFile.getChildTasks())
       {
          task.setID(Integer.valueOf(currentID++));
          add(task);
          currentID = synchroizeTaskIDToHierarchy(task, currentID);
       }
+      m_outlineValid = true;
    }
 
    /**
@@ -158,6 +166,9 @@ public class TaskContainer extends ProjectEntityWithIDContainer<Task>
     */
    public void updateStructure()
    {
+      m_projectFile.checkFrozen();
+      m_outlineValid = false;
+
       if (size() > 1)
       {
          Collections.sort(this);
@@ -233,9 +244,537 @@ public class TaskContainer extends ProjectEntityWithIDContainer<Task>
       }
    }
 
+   /**
+    * Add a new task to the project at a given point in the outline. The
+    * new task is a child of the supplied parent task, or a top level task
+    * if no parent is supplied, and is placed before the supplied sibling,
+    * or after the last child if no sibling is supplied.
+    *
+    * Rather than rebuilding the complete structure, task IDs are updated
+    * from the insertion point onwards, and outline numbers and WBS values
+    * are regenerated only for the siblings which follow the new task and
+    * their child tasks, subject to the auto outline number and auto WBS
+    * project settings.
+    *
+    * @param parent parent task, or null for a top level task
+    * @param before sibling task, or null to append
+    * @return new task instance
+    */
+   public Task insertTask(Task parent, Task before)
+   {
+      m_projectFile.checkFrozen();
+      validateOutline(parent, before);
+      List<Task> siblings = getChildTasks(parent);
+      int index = getSiblingIndex(siblings, before);
+      int position = getInsertPosition(parent, siblings, index);
+
+      Task task = new Task(m_projectFile, parent);
+      getBackingList().add(position, task);
+      addToParent(parent, siblings, index, task);
+      task.setOutlineLevel(Integer.valueOf(getChildOutlineLevel(parent)));
+
+      renumberIDs(position, size());
+      renumberOutline(parent, siblings, index);
+
+      return task;
+   }
+
+   /**
+    * Move a task, along with its child tasks, to a new point in the outline.
+    * The task becomes a child of the supplied parent task, or a top level
+    * task if no parent is supplied, and is placed before the supplied
+    * sibling, or after the last child if no sibling is supplied.
+    *
+    * Only the IDs of tasks between the original and new locations are
+    * updated. Outline numbers and WBS values are regenerated for the moved
+    * tasks, and for the siblings which follow the original and new
+    * locations, subject to the auto outline number and auto WBS project
+    * settings.
+    *
+    * @param task task to move
+    * @param parent new parent task, or null for a top level task
+    * @param before sibling task, or null to append
+    */
+   public void moveTask(Task task, Task parent, Task before)
+   {
+      m_projectFile.checkFrozen();
+      validateOutline(task, parent, before);
+      if (before == task)
+      {
+         return;
+      }
+
+      for (Task ancestor = parent; ancestor != null; ancestor = ancestor.getParentTask())
+      {
+         if (ancestor == task)
+         {
+            throw new IllegalArgumentException("Task " + task.getID() + " cannot be moved below itself");
+         }
+      }
+
+      List<Task> newSiblings = getChildTasks(parent);
+      int start = getPosition(task);
+      int end = getSubtreeEnd(task);
+      int count = end - start;
+      int target = getInsertPosition(parent, newSiblings, getSiblingIndex(newSiblings, before));
+      if (target > start)
+      {
+         target -= count;
+      }
+
+      List<Task> backing = getBackingList();
+      List<Task> range = backing.subList(start, end);
+      List<Task> block = new ArrayList<Task>(range);
+      range.clear();
+      backing.addAll(target, block);
+
+      int delta = getChildOutlineLevel(parent) - NumberHelper.getInt(task.getOutlineLevel());
+      if (delta != 0)
+      {
+         for (Task child : block)
+         {
+            child.setOutlineLevel(Integer.valueOf(NumberHelper.getInt(child.getOutlineLevel()) + delta));
+         }
+      }
+
+      Task oldParent = task.getParentTask();
+      List<Task> oldSiblings = getChildTasks(oldParent);
+      int oldIndex = oldSiblings.indexOf(task);
+      removeFromParent(oldParent, oldSiblings, oldIndex, task);
+      int newIndex = getSiblingIndex(newSiblings, before);
+      addToParent(parent, newSiblings, newIndex, task);
+
+      renumberIDs(Math.min(start, target), Math.max(end, target + count));
+
+      if (oldSiblings == newSiblings)
+      {
+         renumberOutline(parent, newSiblings, Math.min(oldIndex, newIndex));
+      }
+      else
+      {
+         renumberOutline(oldParent, oldSiblings, oldIndex);
+         renumberOutline(parent, newSiblings, newIndex);
+      }
+   }
+
+   /**
+    * Remove a task, along with its child tasks and their resource
+    * assignments, from the project. Task IDs are updated from the removal
+    * point onwards, and outline numbers and WBS values are regenerated for
+    * the siblings which followed the removed task, subject to the auto
+    * outline number and auto WBS project settings.
+    *
+    * @param task task to remove
+    */
+   public void deleteTask(Task task)
+   {
+      m_projectFile.checkFrozen();
+      validateOutline(task);
+      int start = getPosition(task);
+      int end = getSubtreeEnd(task);
+
+      List<Task> range = getBackingList().subList(start, end);
+      Set<Task> removed = Collections.newSetFromMap(new IdentityHashMap<Task, Boolean>());
+      removed.addAll(range);
+
+      Iterator<ResourceAssignment> iter = m_projectFile.getResourceAssignments().iterator();
+      while (iter.hasNext())
+      {
+         ResourceAssignment assignment = iter.next();
+         if (removed.contains(assignment.getTask()))
+         {
+            Resource resource = assignment.getResource();
+            if (resource != null)
+            {
+               resource.removeResourceAssignment(assignment);
+            }
+            iter.remove();
+         }
+      }
+
+      for (Task child : range)
+      {
+         unmapID(child.getID(), child);
+         if (m_uniqueIDMap.get(child.getUniqueID()) == child)
+         {
+            m_uniqueIDMap.remove(child.getUniqueID());
+         }
+      }
+      range.clear();
+
+      Task parent = task.getParentTask();
+      List<Task> siblings = getChildTasks(parent);
+      int index = siblings.indexOf(task);
+      removeFromParent(parent, siblings, index, task);
+
+      renumberIDs(start, size());
+      renumberOutline(parent, siblings, index);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override protected void added(Task element)
+   {
+      m_outlineValid = false;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void renumberIDs()
+   {
+      m_outlineValid = false;
+      super.renumberIDs();
+   }
+
+   /**
+    * Ensure that the order of this list and the task IDs follow the
+    * outline structure, as required by insertTask, moveTask and deleteTask.
+    * Once this has been verified, only the tasks involved in each
+    * operation are checked, unless tasks have been added or removed
+    * by other means. If the list does not follow the outline structure,
+    * the task IDs are synchronized with the hierarchy.
+    *
+    * @param tasks tasks involved in the current operation, may be null
+    */
+   private void validateOutline(Task... tasks)
+   {
+      for (Task task : tasks)
+      {
+         if (task != null && task.getParentFile() != m_projectFile)
+         {
+            throw new IllegalArgumentException("Task " + task.getID() + " does not belong to this project");
+         }
+      }
+
+      if (m_outlineValid)
+      {
+         for (Task task : tasks)
+         {
+            if (task != null && !isPositionValid(task))
+            {
+               m_outlineValid = false;
+               break;
+            }
+         }
+      }
+
+      if (!m_outlineValid)
+      {
+         m_firstID = isEmpty() ? (getByID(Integer.valueOf(0)) == null ? 1 : 0) : NumberHelper.getInt(get(0).getID());
+         int position = validateOutline(m_projectFile.getChildTasks(), 0);
+         if (position != size())
+         {
+            synchronizeTaskIDToHierarchy();
+         }
+         m_outlineValid = true;
+      }
+   }
+
+   /**
+    * Recursively verify that tasks appear in outline order with sequential IDs.
+    *
+    * @param tasks tasks to check
+    * @param position expected position of the first task
+    * @return expected position of the next task, or -1 if a task is out of order
+    */
+   private int validateOutline(List<Task> tasks, int position)
+   {
+      for (Task task : tasks)
+      {
+         if (position == -1 || position >= size() || get(position) != task || NumberHelper.getInt(task.getID()) != m_firstID + position)
+         {
+            return -1;
+         }
+         position = validateOutline(task.getChildTasks(), position + 1);
+      }
+      return position;
+   }
+
+   /**
+    * Determine if the task's ID matches its position in the list.
+    *
+    * @param task task to test
+    * @return true if the ID is valid
+    */
+   private boolean isPositionValid(Task task)
+   {
+      int position = NumberHelper.getInt(task.getID()) - m_firstID;
+      return position >= 0 && position < size() && get(position) == task;
+   }
+
+   /**
+    * Retrieve a task's position in the list.
+    *
+    * @param task task
+    * @return position
+    */
+   private int getPosition(Task task)
+   {
+      return NumberHelper.getInt(task.getID()) - m_firstID;
+   }
+
+   /**
+    * Retrieve the position following the last child task of a task.
+    *
+    * @param task parent task
+    * @return position
+    */
+   private int getSubtreeEnd(Task task)
+   {
+      Task last = task;
+      while (!last.getChildTasks().isEmpty())
+      {
+         List<Task> children = last.getChildTasks();
+         last = children.get(children.size() - 1);
+      }
+      return getPosition(last) + 1;
+   }
+
+   /**
+    * Determine the list position at which a task will be added.
+    *
+    * @param parent parent task
+    * @param siblings child tasks of the parent
+    * @param index index of the task within its siblings
+    * @return list position
+    */
+   private int getInsertPosition(Task parent, List<Task> siblings, int index)
+   {
+      int position;
+      if (index < siblings.size())
+      {
+         position = getPosition(siblings.get(index));
+      }
+      else
+      {
+         if (index > 0)
+         {
+            position = getSubtreeEnd(siblings.get(index - 1));
+         }
+         else
+         {
+            position = parent == null ? 0 : getPosition(parent) + 1;
+         }
+      }
+      return position;
+   }
+
+   /**
+    * Retrieve the child tasks of a parent task, or the top level tasks.
+    *
+    * @param parent parent task, may be null
+    * @return child tasks
+    */
+   private List<Task> getChildTasks(Task parent)
+   {
+      return parent == null ? m_projectFile.getChildTasks() : parent.getChildTasks();
+   }
+
+   /**
+    * Retrieve the index of a task within its siblings.
+    *
+    * @param siblings sibling tasks
+    * @param task task to locate, or null to append
+    * @return index
+    */
+   private int getSiblingIndex(List<Task> siblings, Task task)
+   {
+      int index;
+      if (task == null)
+      {
+         index = siblings.size();
+      }
+      else
+      {
+         index = siblings.indexOf(task);
+         if (index == -1)
+         {
+            throw new IllegalArgumentException("Task " + task.getID() + " is not a child of the requested parent");
+         }
+      }
+      return index;
+   }
+
+   /**
+    * Retrieve the outline level of a child of the supplied parent.
+    *
+    * @param parent parent task, may be null
+    * @return outline level
+    */
+   private int getChildOutlineLevel(Task parent)
+   {
+      return parent == null ? 1 : NumberHelper.getInt(parent.getOutlineLevel()) + 1;
+   }
+
+   /**
+    * Add a task to the child tasks of a parent task, or the top level tasks.
+    *
+    * @param parent parent task, may be null
+    * @param siblings child tasks of the parent
+    * @param index index at which the task is added
+    * @param task task to add
+    */
+   private void addToParent(Task parent, List<Task> siblings, int index, Task task)
+   {
+      if (parent == null)
+      {
+         siblings.add(index, task);
+      }
+      else
+      {
+         parent.addChildTaskBefore(task, index < siblings.size() ? siblings.get(index) : null);
+      }
+   }
+
+   /**
+    * Remove a task from the child tasks of a parent task, or the top level tasks.
+    *
+    * @param parent parent task, may be null
+    * @param siblings child tasks of the parent
+    * @param index index of the task
+    * @param task task to remove
+    */
+   private void removeFromParent(Task parent, List<Task> siblings, int index, Task task)
+   {
+      if (parent == null)
+      {
+         siblings.remove(index);
+      }
+      else
+      {
+         parent.removeChildTask(task);
+      }
+   }
+
+   /**
+    * Set sequential IDs for the tasks in a range of list positions.
+    *
+    * @param start first position
+    * @param end position following the last task
+    */
+   private void renumberIDs(int start, int end)
+   {
+      List<Task> range = getBackingList().subList(start, end);
+
+      //
+      // Remove existing mappings first, as IDs in this range are being
+      // exchanged between tasks.
+      //
+      for (Task task : range)
+      {
+         unmapID(task.getID(), task);
+      }
+
+      int id = m_firstID + start;
+      for (Task task : range)
+      {
+         Integer value = Integer.valueOf(id++);
+         task.set(TaskField.ID, value);
+         mapID(value, task);
+      }
+   }
+
+   /**
+    * Remove an ID mapping if it refers to the supplied task.
+    *
+    * @param id task ID
+    * @param task task instance
+    */
+   private void unmapID(Integer id, Task task)
+   {
+      if (id != null && m_idMap.get(id) == task)
+      {
+         m_idMap.remove(id);
+      }
+   }
+
+   /**
+    * Regenerate outline numbers and WBS values for a range of sibling
+    * tasks and their child tasks.
+    *
+    * @param parent parent task, may be null
+    * @param siblings child tasks of the parent
+    * @param index index of the first sibling to update
+    */
+   private void renumberOutline(Task parent, List<Task> siblings, int index)
+   {
+      ProjectConfig config = m_projectFile.getProjectConfig();
+      boolean autoWbs = config.getAutoWBS();
+      boolean autoOutlineNumber = config.getAutoOutlineNumber();
+      if (autoWbs || autoOutlineNumber)
+      {
+         String wbs = parent == null ? null : parent.getWBS();
+         String outlineNumber = parent == null ? null : parent.getOutlineNumber();
+         ListIterator<Task> iter = siblings.listIterator(index);
+         while (iter.hasNext())
+         {
+            renumberOutline(iter.next(), parent == null, iter.previousIndex(), wbs, outlineNumber, autoWbs, autoOutlineNumber);
+         }
+      }
+   }
+
+   /**
+    * Regenerate outline number and WBS values for a task and its child tasks.
+    *
+    * @param task task to update
+    * @param topLevel true if this is a top level task
+    * @param index index of this task within its siblings
+    * @param parentWbs parent WBS value
+    * @param parentOutlineNumber parent outline number
+    * @param autoWbs true if WBS values are updated
+    * @param autoOutlineNumber true if outline numbers are updated
+    */
+   private void renumberOutline(Task task, boolean topLevel, int index, String parentWbs, String parentOutlineNumber, boolean autoWbs, boolean autoOutlineNumber)
+   {
+      if (autoWbs)
+      {
+         task.setWBS(getOutlineValue(task, topLevel, index, parentWbs));
+      }
+
+      if (autoOutlineNumber)
+      {
+         task.setOutlineNumber(getOutlineValue(task, topLevel, index, parentOutlineNumber));
+      }
+
+      int childIndex = 0;
+      for (Task child : task.getChildTasks())
+      {
+         renumberOutline(child, false, childIndex++, task.getWBS(), task.getOutlineNumber(), autoWbs, autoOutlineNumber);
+      }
+   }
+
+   /**
+    * Generate an outline number or WBS value, following the same
+    * conventions as Task.generateWBS and Task.generateOutlineNumber.
+    *
+    * @param task task
+    * @param topLevel true if this is a top level task
+    * @param index index of the task within its siblings
+    * @param parentValue parent task value
+    * @return generated value
+    */
+   private String getOutlineValue(Task task, boolean topLevel, int index, String parentValue)
+   {
+      String result;
+      if (topLevel)
+      {
+         result = NumberHelper.getInt(task.getUniqueID()) == 0 ? "0" : Integer.toString(index + 1);
+      }
+      else
+      {
+         result = parentValue == null || parentValue.equals("0") ? Integer.toString(index + 1) : parentValue + "." + (index + 1);
+      }
+      return result;
+   }
+
    @Override protected int firstUniqueID()
    {
       Task firstEntity = getByID(Integer.valueOf(0));
       return firstEntity == null ? 1 : 0;
    }
+
+   private boolean m_outlineValid;
+   private int m_firstID = 1;
 }
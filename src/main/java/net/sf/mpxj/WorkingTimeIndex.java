@@ -0,0 +1,771 @@
+/*
+ * file:       WorkingTimeIndex.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       12/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+import net.sf.mpxj.common.NumberHelper;
+
+/**
+ * Precomputed representation of the working time defined by a calendar
+ * over a contiguous range of days. The working hours for each day are
+ * resolved once, taking account of exceptions, work weeks and base
+ * calendars, and reduced to a small set of distinct daily patterns.
+ * A running total of working time allows the amount of work between
+ * any two dates covered by the index to be calculated without walking
+ * the intervening days.
+ *
+ * Days are numbered from 01/01/1970 in the local time zone. Times of day
+ * are held in milliseconds from local midnight.
+ */
+final class WorkingTimeIndex
+{
+   /**
+    * Constructor.
+    *
+    * @param calendar calendar to index
+    * @param timeZone time zone used to identify day boundaries
+    * @param firstDay first day covered by the index
+    * @param dayCount number of days covered by the index
+    */
+   WorkingTimeIndex(ProjectCalendar calendar, TimeZone timeZone, int firstDay, int dayCount)
+   {
+      m_timeZone = timeZone;
+      m_firstDay = firstDay;
+      m_dayPattern = new int[dayCount];
+      m_cumulativeWork = new long[dayCount + 1];
+      m_forwardBreaks = new int[dayCount + 1];
+      m_backwardBreaks = new int[dayCount + 1];
+
+      Map<ProjectCalendarDateRanges, Integer> patternMap = new IdentityHashMap<ProjectCalendarDateRanges, Integer>();
+      PatternBuilder patterns = new PatternBuilder();
+
+      Calendar cal = Calendar.getInstance(timeZone);
+      cal.clear();
+      cal.set(1970, Calendar.JANUARY, 1);
+      cal.add(Calendar.DAY_OF_YEAR, firstDay);
+
+      int lastWorkingDay = Integer.MIN_VALUE;
+      for (int index = 0; index < dayCount; index++)
+      {
+         Date date = cal.getTime();
+         Day day = Day.getInstance(cal.get(Calendar.DAY_OF_WEEK));
+         ProjectCalendarDateRanges ranges = calendar.getRanges(date, cal, day);
+
+         Integer pattern = patternMap.get(ranges);
+         if (pattern == null)
+         {
+            pattern = Integer.valueOf(patterns.add(ranges));
+            patternMap.put(ranges, pattern);
+         }
+
+         int patternIndex = pattern.intValue();
+         m_dayPattern[index] = patternIndex;
+         m_cumulativeWork[index + 1] = m_cumulativeWork[index] + patterns.m_work[patternIndex];
+
+         boolean forwardBreak = false;
+         boolean backwardBreak = false;
+         if (patterns.m_rangeCount[patternIndex] != 0)
+         {
+            forwardBreak = lastWorkingDay == Integer.MIN_VALUE || index - lastWorkingDay > MAX_FORWARD_GAP;
+            backwardBreak = lastWorkingDay == Integer.MIN_VALUE || index - lastWorkingDay > MAX_BACKWARD_GAP;
+            lastWorkingDay = index;
+         }
+         m_forwardBreaks[index + 1] = m_forwardBreaks[index] + (forwardBreak ? 1 : 0);
+         m_backwardBreaks[index + 1] = m_backwardBreaks[index] + (backwardBreak ? 1 : 0);
+
+         cal.add(Calendar.DAY_OF_YEAR, 1);
+      }
+
+      m_rangeCount = patterns.m_rangeCount;
+      m_rangeOffset = patterns.m_rangeOffset;
+      m_rangeStart = patterns.m_rangeStart;
+      m_rangeEnd = patterns.m_rangeEnd;
+      m_wholeDay = patterns.m_wholeDay;
+      m_simple = patterns.m_simple;
+   }
+
+   /**
+    * Retrieve the time zone used to build this index.
+    *
+    * @return time zone
+    */
+   TimeZone getTimeZone()
+   {
+      return m_timeZone;
+   }
+
+   /**
+    * Retrieve the first day covered by this index.
+    *
+    * @return day number
+    */
+   int getFirstDay()
+   {
+      return m_firstDay;
+   }
+
+   /**
+    * Retrieve the last day covered by this index.
+    *
+    * @return day number
+    */
+   int getLastDay()
+   {
+      return m_firstDay + m_dayPattern.length - 1;
+   }
+
+   /**
+    * Determine if a day is covered by this index.
+    *
+    * @param day day number
+    * @return true if the day is covered
+    */
+   boolean contains(int day)
+   {
+      return day >= m_firstDay && day - m_firstDay < m_dayPattern.length;
+   }
+
+   /**
+    * Returns true if every day in the index has sorted, non-overlapping
+    * working time ranges which finish before midnight. Under these
+    * conditions whole working days can be skipped when calculating
+    * dates from durations.
+    *
+    * @return true if the index can be used to skip whole days
+    */
+   boolean isSimple()
+   {
+      return m_simple;
+   }
+
+   /**
+    * Determine if the given day has any working time ranges.
+    *
+    * @param day day number
+    * @return true if this is a working day
+    */
+   boolean isWorkingDay(int day)
+   {
+      return m_rangeCount[m_dayPattern[day - m_firstDay]] != 0;
+   }
+
+   /**
+    * Calculate the working time between two instants. This replicates
+    * the calculation performed by ProjectCalendar when walking the
+    * range day by day. Both instants must fall on days covered by
+    * the index, and the start must not be after the end.
+    *
+    * @param startDate start instant
+    * @param endDate end instant
+    * @return working time in milliseconds
+    */
+   long getWork(long startDate, long endDate)
+   {
+      int startDay = getDay(m_timeZone, startDate);
+      int endDay = getDay(m_timeZone, endDate);
+      long total = 0;
+
+      if (startDay == endDay)
+      {
+         if (startDate != endDate)
+         {
+            total = getOverlap(startDay, getTimeOfDay(m_timeZone, startDate), getTimeOfDay(m_timeZone, endDate));
+         }
+      }
+      else
+      {
+         //
+         // Find the first working day in the range
+         //
+         int currentDay = startDay;
+         while (currentDay < endDay && !isWorkingDay(currentDay))
+         {
+            ++currentDay;
+         }
+
+         //
+         // Working time remaining on the first day, plus
+         // the working time for each whole day up to the last day
+         //
+         if (currentDay < endDay)
+         {
+            total += getWorkAfter(currentDay, getTimeOfDay(m_timeZone, startDate));
+            total += getWholeDayWork(currentDay + 1, endDay);
+         }
+
+         //
+         // Working time on the last day
+         //
+         if (getLocalTime(m_timeZone, endDate) % MS_PER_DAY != 0)
+         {
+            total += getOverlap(endDay, 0, getTimeOfDay(m_timeZone, endDate));
+         }
+      }
+
+      return total;
+   }
+
+   /**
+    * Retrieve the working time for all days from the first day (inclusive)
+    * to the last day (exclusive).
+    *
+    * @param fromDay first day
+    * @param toDay last day
+    * @return working time in milliseconds
+    */
+   long getWholeDayWork(int fromDay, int toDay)
+   {
+      return m_cumulativeWork[toDay - m_firstDay] - m_cumulativeWork[fromDay - m_firstDay];
+   }
+
+   /**
+    * Retrieve the total working time covered by the index.
+    *
+    * @return working time in milliseconds
+    */
+   long getTotalWork()
+   {
+      return m_cumulativeWork[m_dayPattern.length];
+   }
+
+   /**
+    * Retrieve the working time from the start of the first day covered by
+    * the index to the supplied instant. The instant must fall on a day
+    * covered by the index, and the index must be simple.
+    *
+    * @param date instant
+    * @return working time in milliseconds
+    */
+   long getOffset(long date)
+   {
+      int day = getDay(m_timeZone, date);
+      long time = getLocalTime(m_timeZone, date) - day * MS_PER_DAY;
+      return m_cumulativeWork[day - m_firstDay] + getOverlap(day, 0, time);
+   }
+
+   /**
+    * Locate the instant at which the supplied amount of working time has
+    * elapsed from the start of the first day covered by the index. Where
+    * this falls at the end of a working period, the start of the next
+    * working period is returned. The offset must be at least zero and less
+    * than the total working time, and the index must be simple.
+    *
+    * @param offset working time in milliseconds
+    * @return instant
+    */
+   long getStart(long offset)
+   {
+      // First day on which the working time exceeds the offset
+      int low = 0;
+      int high = m_dayPattern.length - 1;
+      while (low < high)
+      {
+         int mid = (low + high) >>> 1;
+         if (m_cumulativeWork[mid + 1] > offset)
+         {
+            high = mid;
+         }
+         else
+         {
+            low = mid + 1;
+         }
+      }
+
+      long remaining = offset - m_cumulativeWork[low];
+      int pattern = m_dayPattern[low];
+      int index = m_rangeOffset[pattern];
+      while (remaining >= m_rangeEnd[index] - m_rangeStart[index])
+      {
+         remaining -= (m_rangeEnd[index] - m_rangeStart[index]);
+         ++index;
+      }
+
+      return getInstant(m_firstDay + low, m_rangeStart[index] + remaining);
+   }
+
+   /**
+    * Locate the instant at which the supplied amount of working time has
+    * elapsed from the start of the first day covered by the index. Where
+    * this falls at the start of a working period, the end of the previous
+    * working period is returned. The offset must be greater than zero and
+    * no more than the total working time, and the index must be simple.
+    *
+    * @param offset working time in milliseconds
+    * @return instant
+    */
+   long getFinish(long offset)
+   {
+      // First day on which the working time reaches the offset
+      int low = 0;
+      int high = m_dayPattern.length - 1;
+      while (low < high)
+      {
+         int mid = (low + high) >>> 1;
+         if (m_cumulativeWork[mid + 1] >= offset)
+         {
+            high = mid;
+         }
+         else
+         {
+            low = mid + 1;
+         }
+      }
+
+      long remaining = offset - m_cumulativeWork[low];
+      int pattern = m_dayPattern[low];
+      int index = m_rangeOffset[pattern];
+      while (remaining > m_rangeEnd[index] - m_rangeStart[index])
+      {
+         remaining -= (m_rangeEnd[index] - m_rangeStart[index]);
+         ++index;
+      }
+
+      return getInstant(m_firstDay + low, m_rangeStart[index] + remaining);
+   }
+
+   /**
+    * Working forwards from the day following the current day, locate
+    * the day on which the remaining working time will be exhausted.
+    *
+    * @param currentDay current day
+    * @param remainingMinutes remaining working time in minutes
+    * @return day number, or NOT_FOUND if the day is not covered by the index
+    */
+   int findForward(int currentDay, double remainingMinutes)
+   {
+      int lastDay = getLastDay();
+      if (currentDay >= lastDay || !contains(currentDay))
+      {
+         return NOT_FOUND;
+      }
+
+      int low = currentDay + 1;
+      int high = lastDay;
+      if (!isExhausted(remainingMinutes, getWholeDayWork(low, high + 1)))
+      {
+         return NOT_FOUND;
+      }
+
+      while (low < high)
+      {
+         int mid = (low + high) >>> 1;
+         if (isExhausted(remainingMinutes, getWholeDayWork(currentDay + 1, mid + 1)))
+         {
+            high = mid;
+         }
+         else
+         {
+            low = mid + 1;
+         }
+      }
+
+      return low;
+   }
+
+   /**
+    * Determine if the day by day calculation performed by
+    * ProjectCalendar.getDate would step forward from the current day
+    * through each working day to the target day without exceeding its
+    * limit on the number of consecutive non-working days.
+    *
+    * @param currentDay current day
+    * @param targetDay target day
+    * @return true if the intervening days can be skipped
+    */
+   boolean canSkipForward(int currentDay, int targetDay)
+   {
+      return m_forwardBreaks[targetDay + 1 - m_firstDay] == m_forwardBreaks[currentDay + 1 - m_firstDay];
+   }
+
+   /**
+    * Working backwards from the day preceding the current day, locate
+    * the day on which the remaining working time will be exhausted.
+    *
+    * @param currentDay current day
+    * @param remainingMinutes remaining working time in minutes
+    * @return day number, or NOT_FOUND if the day is not covered by the index
+    */
+   int findBackward(int currentDay, double remainingMinutes)
+   {
+      if (currentDay <= m_firstDay || !contains(currentDay))
+      {
+         return NOT_FOUND;
+      }
+
+      int low = m_firstDay;
+      int high = currentDay - 1;
+      if (!isExhausted(remainingMinutes, getWholeDayWork(low, currentDay)))
+      {
+         return NOT_FOUND;
+      }
+
+      while (low < high)
+      {
+         int mid = (low + high + 1) >>> 1;
+         if (isExhausted(remainingMinutes, getWholeDayWork(mid, currentDay)))
+         {
+            low = mid;
+         }
+         else
+         {
+            high = mid - 1;
+         }
+      }
+
+      return low;
+   }
+
+   /**
+    * Determine if the day by day calculation performed by
+    * ProjectCalendar.getStartDate would step back from the current day
+    * through each working day to the target day without exceeding its
+    * limit on the number of consecutive non-working days.
+    *
+    * @param currentDay current day
+    * @param targetDay target day
+    * @return true if the intervening days can be skipped
+    */
+   boolean canSkipBackward(int currentDay, int targetDay)
+   {
+      //
+      // The first step back from the current day must find a working day
+      // within the limit, as must each subsequent step.
+      //
+      int previousWorkingDay = currentDay - 1;
+      while (previousWorkingDay > targetDay && !isWorkingDay(previousWorkingDay))
+      {
+         --previousWorkingDay;
+      }
+
+      return currentDay - previousWorkingDay <= MAX_BACKWARD_GAP && m_backwardBreaks[currentDay - m_firstDay] == m_backwardBreaks[targetDay + 1 - m_firstDay];
+   }
+
+   /**
+    * Determine if the remaining work is consumed by the supplied amount
+    * of working time, rounding in the same way as the day by day calculation.
+    *
+    * @param remainingMinutes remaining working time in minutes
+    * @param work working time in milliseconds
+    * @return true if the remaining time is exhausted
+    */
+   private boolean isExhausted(double remainingMinutes, long work)
+   {
+      return NumberHelper.round(remainingMinutes - (work / MS_PER_MINUTE), 2) <= 0;
+   }
+
+   /**
+    * Retrieve the working time on a given day after the given time of day.
+    *
+    * @param day day number
+    * @param time time of day
+    * @return working time in milliseconds
+    */
+   private long getWorkAfter(int day, long time)
+   {
+      int pattern = m_dayPattern[day - m_firstDay];
+      int offset = m_rangeOffset[pattern];
+      int end = m_rangeOffset[pattern + 1];
+      long total = 0;
+
+      for (int index = offset; index < end; index++)
+      {
+         long rangeStart = m_rangeStart[index];
+         long rangeEnd = m_rangeEnd[index];
+         if (time < rangeStart)
+         {
+            total += (rangeEnd - rangeStart);
+         }
+         else
+         {
+            if (time <= rangeEnd)
+            {
+               total += (rangeEnd - time);
+            }
+         }
+      }
+
+      return total;
+   }
+
+   /**
+    * Retrieve the working time on a given day which falls between
+    * the two supplied times of day.
+    *
+    * @param day day number
+    * @param startTime start time of day
+    * @param endTime end time of day
+    * @return working time in milliseconds
+    */
+   private long getOverlap(int day, long startTime, long endTime)
+   {
+      int pattern = m_dayPattern[day - m_firstDay];
+      int offset = m_rangeOffset[pattern];
+      int end = m_rangeOffset[pattern + 1];
+      long total = 0;
+
+      for (int index = offset; index < end; index++)
+      {
+         if (m_wholeDay[index])
+         {
+            total += MS_PER_DAY;
+         }
+         else
+         {
+            long start = Math.max(startTime, m_rangeStart[index]);
+            long finish = Math.min(endTime, m_rangeEnd[index]);
+            if (start < finish)
+            {
+               total += (finish - start);
+            }
+         }
+      }
+
+      return total;
+   }
+
+   /**
+    * Retrieve the day number on which an instant falls.
+    *
+    * @param timeZone time zone
+    * @param date instant
+    * @return day number
+    */
+   static int getDay(TimeZone timeZone, long date)
+   {
+      long localTime = getLocalTime(timeZone, date);
+      long day = localTime / MS_PER_DAY;
+      if (localTime % MS_PER_DAY < 0)
+      {
+         --day;
+      }
+      return (int) day;
+   }
+
+   /**
+    * Retrieve the time of day of an instant, truncated to whole seconds.
+    *
+    * @param timeZone time zone
+    * @param date instant
+    * @return milliseconds from local midnight
+    */
+   static long getTimeOfDay(TimeZone timeZone, long date)
+   {
+      long time = getLocalTime(timeZone, date) % MS_PER_DAY;
+      if (time < 0)
+      {
+         time += MS_PER_DAY;
+      }
+      return time - (time % 1000);
+   }
+
+   /**
+    * Convert a day and time of day to an instant.
+    *
+    * @param day day number
+    * @param time time of day
+    * @return instant
+    */
+   private long getInstant(int day, long time)
+   {
+      long localTime = day * MS_PER_DAY + time;
+      return localTime - m_timeZone.getOffset(localTime - m_timeZone.getOffset(localTime));
+   }
+
+   /**
+    * Convert an instant to local time.
+    *
+    * @param timeZone time zone
+    * @param date instant
+    * @return local time
+    */
+   private static long getLocalTime(TimeZone timeZone, long date)
+   {
+      return date + timeZone.getOffset(date);
+   }
+
+   /**
+    * Accumulates the distinct daily working time patterns
+    * while the index is being built.
+    */
+   private final class PatternBuilder
+   {
+      /**
+       * Add a new pattern.
+       *
+       * @param ranges working time ranges
+       * @return pattern index
+       */
+      int add(ProjectCalendarDateRanges ranges)
+      {
+         int pattern = m_patternCount++;
+         if (pattern + 1 >= m_rangeOffset.length)
+         {
+            m_rangeCount = grow(m_rangeCount);
+            m_rangeOffset = grow(m_rangeOffset);
+            m_work = grow(m_work);
+         }
+
+         int rangeCount = ranges == null ? 0 : ranges.getRangeCount();
+         m_rangeCount[pattern] = rangeCount;
+
+         long previousEnd = Long.MIN_VALUE;
+         long work = 0;
+         for (int index = 0; index < rangeCount; index++)
+         {
+            DateRange range = ranges.getRange(index);
+            Date start = range.getStart();
+            Date end = range.getEnd();
+            if (start == null || end == null)
+            {
+               m_simple = false;
+               continue;
+            }
+
+            long rangeStart = getTimeOfDay(m_timeZone, start.getTime());
+            long rangeEnd = getTimeOfDay(m_timeZone, end.getTime());
+
+            //
+            // Handle the case where the end of the range is at midnight -
+            // this will show up as the start and end days not matching
+            //
+            if (getDay(m_timeZone, start.getTime()) != getDay(m_timeZone, end.getTime()))
+            {
+               rangeEnd += MS_PER_DAY;
+            }
+
+            boolean wholeDay = rangeStart == rangeEnd && end.getTime() > start.getTime();
+            if (wholeDay || rangeStart >= rangeEnd || rangeStart < previousEnd || rangeEnd >= MS_PER_DAY)
+            {
+               m_simple = false;
+            }
+            previousEnd = rangeEnd;
+
+            addRange(rangeStart, rangeEnd, wholeDay);
+            work += (rangeEnd - rangeStart);
+         }
+
+         m_work[pattern] = work;
+         m_rangeOffset[pattern + 1] = m_size;
+         return pattern;
+      }
+
+      /**
+       * Add a range to the current pattern.
+       *
+       * @param start start time of day
+       * @param end end time of day
+       * @param wholeDay true if this range represents a whole day
+       */
+      private void addRange(long start, long end, boolean wholeDay)
+      {
+         if (m_size == m_rangeStart.length)
+         {
+            m_rangeStart = grow(m_rangeStart);
+            m_rangeEnd = grow(m_rangeEnd);
+            boolean[] newWholeDay = new boolean[m_wholeDay.length * 2];
+            System.arraycopy(m_wholeDay, 0, newWholeDay, 0, m_wholeDay.length);
+            m_wholeDay = newWholeDay;
+         }
+
+         m_rangeStart[m_size] = start;
+         m_rangeEnd[m_size] = end;
+         m_wholeDay[m_size] = wholeDay;
+         ++m_size;
+      }
+
+      /**
+       * Double the size of an array.
+       *
+       * @param array source array
+       * @return new array
+       */
+      private int[] grow(int[] array)
+      {
+         int[] result = new int[array.length * 2];
+         System.arraycopy(array, 0, result, 0, array.length);
+         return result;
+      }
+
+      /**
+       * Double the size of an array.
+       *
+       * @param array source array
+       * @return new array
+       */
+      private long[] grow(long[] array)
+      {
+         long[] result = new long[array.length * 2];
+         System.arraycopy(array, 0, result, 0, array.length);
+         return result;
+      }
+
+      int m_patternCount;
+      int m_size;
+      int[] m_rangeCount = new int[8];
+      int[] m_rangeOffset = new int[8];
+      long[] m_work = new long[8];
+      long[] m_rangeStart = new long[16];
+      long[] m_rangeEnd = new long[16];
+      boolean[] m_wholeDay = new boolean[16];
+      boolean m_simple = true;
+   }
+
+   private final TimeZone m_timeZone;
+   private final int m_firstDay;
+   private final int[] m_dayPattern;
+   private final long[] m_cumulativeWork;
+   private final int[] m_forwardBreaks;
+   private final int[] m_backwardBreaks;
+   private final int[] m_rangeCount;
+   private final int[] m_rangeOffset;
+   private final long[] m_rangeStart;
+   private final long[] m_rangeEnd;
+   private final boolean[] m_wholeDay;
+   private final boolean m_simple;
+
+   /**
+    * Value returned when a day can't be located within the index.
+    */
+   static final int NOT_FOUND = Integer.MIN_VALUE;
+
+   private static final long MS_PER_DAY = 24 * 60 * 60 * 1000;
+   private static final double MS_PER_MINUTE = 60 * 1000;
+
+   /**
+    * Maximum number of days ProjectCalendar.getDate will step forward to
+    * find the next working day.
+    */
+   private static final int MAX_FORWARD_GAP = 1000;
+
+   /**
+    * Maximum number of days ProjectCalendar.getStartDate will step back to
+    * find the previous working day.
+    */
+   private static final int MAX_BACKWARD_GAP = 8;
+}
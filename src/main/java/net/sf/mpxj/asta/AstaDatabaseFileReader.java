@@ -47,13 +47,13 @@ import net.sf.mpxj.common.FileHelper;
 import net.sf.mpxj.common.InputStreamHelper;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.listener.ProjectListener;
-import net.sf.mpxj.reader.ProjectReader;
+import net.sf.mpxj.reader.AbstractProjectReader;
 
 /**
  * This class provides a generic front end to read project data from
  * a SQLite-based Asta PP file.
  */
-public final class AstaDatabaseFileReader implements ProjectReader
+public final class AstaDatabaseFileReader extends AbstractProjectReader
 {
    /**
     * {@inheritDoc}
@@ -148,7 +148,9 @@ public final class AstaDatabaseFileReader implements ProjectReader
       {
          m_reader = new AstaReader();
          ProjectFile project = m_reader.getProject();
+         applyFieldStoreType(project);
          project.getEventManager().addProjectListeners(m_projectListeners);
+         project.beginBulkLoad();
 
          processProjectProperties();
          processCalendars();
@@ -159,6 +161,8 @@ public final class AstaDatabaseFileReader implements ProjectReader
 
          m_reader = null;
 
+         project.endBulkLoad();
+
          return (project);
       }
 
@@ -43,13 +43,13 @@ import net.sf.mpxj.MPXJException;
 import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.listener.ProjectListener;
-import net.sf.mpxj.reader.ProjectReader;
+import net.sf.mpxj.reader.AbstractProjectReader;
 
 /**
  * This class provides a generic front end to read project data from
  * a database.
  */
-public final class AstaDatabaseReader implements ProjectReader
+public final class AstaDatabaseReader extends AbstractProjectReader
 {
    /**
     * {@inheritDoc}
@@ -105,7 +105,9 @@ public final class AstaDatabaseReader implements ProjectReader
       {
          m_reader = new AstaReader();
          ProjectFile project = m_reader.getProject();
+         applyFieldStoreType(project);
          project.getEventManager().addProjectListeners(m_projectListeners);
+         project.beginBulkLoad();
 
          processProjectProperties();
          processCalendars();
@@ -116,6 +118,8 @@ public final class AstaDatabaseReader implements ProjectReader
 
          m_reader = null;
 
+         project.endBulkLoad();
+
          return (project);
       }
 
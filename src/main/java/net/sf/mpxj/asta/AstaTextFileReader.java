@@ -71,7 +71,9 @@ final class AstaTextFileReader extends AbstractProjectReader
       {
          m_reader = new AstaReader();
          ProjectFile project = m_reader.getProject();
+         applyFieldStoreType(project);
          project.getEventManager().addProjectListeners(m_projectListeners);
+         project.beginBulkLoad();
 
          m_tables = new HashMap<String, List<Row>>();
 
@@ -84,6 +86,8 @@ final class AstaTextFileReader extends AbstractProjectReader
          processPredecessors();
          processAssignments();
 
+         project.endBulkLoad();
+
          return (project);
       }
 
@@ -0,0 +1,64 @@
+/*
+ * file:       AbstractTimephasedCostNormaliser.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       24/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.common;
+
+import java.util.LinkedList;
+
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.TimephasedCost;
+
+/**
+ * Common implementation detail for normalisation. Normalisation is carried
+ * out on the primitive values held by a CompactTimephasedCostList, rather
+ * than by creating intermediate TimephasedCost instances.
+ */
+public abstract class AbstractTimephasedCostNormaliser implements TimephasedCostNormaliser
+{
+   /**
+    * This method converts the internal representation of timephased
+    * resource assignment data used by MS Project into a standardised
+    * format to make it easy to work with.
+    *
+    * @param calendar current calendar
+    * @param list list of assignment data
+    */
+   @Override public void normalise(ProjectCalendar calendar, LinkedList<TimephasedCost> list)
+   {
+      CompactTimephasedCostList result = normalise(calendar, new CompactTimephasedCostList(list));
+      list.clear();
+      list.addAll(result);
+   }
+
+   /**
+    * This method converts the internal representation of timephased
+    * resource assignment data used by MS Project into a standardised
+    * format to make it easy to work with.
+    *
+    * @param calendar current calendar
+    * @param list list of assignment data
+    * @return normalised assignment data, which may be the list passed in
+    */
+   public abstract CompactTimephasedCostList normalise(ProjectCalendar calendar, CompactTimephasedCostList list);
+}
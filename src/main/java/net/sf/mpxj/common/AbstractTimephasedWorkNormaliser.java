@@ -21,18 +21,19 @@
  * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
  */
 
+
 package net.sf.mpxj.common;
 
-import java.util.Date;
 import java.util.LinkedList;
 
-import net.sf.mpxj.Duration;
 import net.sf.mpxj.ProjectCalendar;
 import net.sf.mpxj.TimeUnit;
 import net.sf.mpxj.TimephasedWork;
 
 /**
- * Common implementation detail for normalisation.
+ * Common implementation detail for normalisation. Normalisation is carried
+ * out on the primitive values held by a CompactTimephasedWorkList, rather
+ * than by creating intermediate TimephasedWork instances.
  */
 public abstract class AbstractTimephasedWorkNormaliser implements TimephasedWorkNormaliser
 {
@@ -44,7 +45,23 @@ public abstract class AbstractTimephasedWorkNormaliser implements TimephasedWork
     * @param calendar current calendar
     * @param list list of assignment data
     */
-   @Override public abstract void normalise(ProjectCalendar calendar, LinkedList<TimephasedWork> list);
+   @Override public void normalise(ProjectCalendar calendar, LinkedList<TimephasedWork> list)
+   {
+      CompactTimephasedWorkList result = normalise(calendar, new CompactTimephasedWorkList(list));
+      list.clear();
+      list.addAll(result);
+   }
+
+   /**
+    * This method converts the internal representation of timephased
+    * resource assignment data used by MS Project into a standardised
+    * format to make it easy to work with.
+    *
+    * @param calendar current calendar
+    * @param list list of assignment data
+    * @return normalised assignment data, which may be the list passed in
+    */
+   public abstract CompactTimephasedWorkList normalise(ProjectCalendar calendar, CompactTimephasedWorkList list);
 
    /**
     * Merges individual days together into time spans where the
@@ -52,52 +69,32 @@ public abstract class AbstractTimephasedWorkNormaliser implements TimephasedWork
     *
     * @param list assignment data
     */
-   protected void mergeSameWork(LinkedList<TimephasedWork> list)
+   protected void mergeSameWork(CompactTimephasedWorkList list)
    {
-      LinkedList<TimephasedWork> result = new LinkedList<TimephasedWork>();
+      int size = list.size();
+      int previous = -1;
 
-      TimephasedWork previousAssignment = null;
-      for (TimephasedWork assignment : list)
+      for (int index = 0; index < size; index++)
       {
-         if (previousAssignment == null)
+         if (previous != -1 && NumberHelper.equals(list.getAmountPerDay(previous), list.getTotalAmount(index), 0.01))
          {
-            assignment.setAmountPerDay(assignment.getTotalAmount());
-            result.add(assignment);
+            double total = list.getTotalAmount(previous);
+            total += list.getTotalAmount(index);
+
+            list.setFinish(previous, list.getFinish(index));
+            list.setAmountPerDay(previous, list.getTotalAmount(index), list.getTotalAmountUnits(index));
+            list.setTotalAmount(previous, total, TimeUnit.MINUTES);
+            list.setModified(previous, false);
          }
          else
          {
-            Duration previousAssignmentWork = previousAssignment.getAmountPerDay();
-            Duration assignmentWork = assignment.getTotalAmount();
-
-            if (NumberHelper.equals(previousAssignmentWork.getDuration(), assignmentWork.getDuration(), 0.01))
-            {
-               Date assignmentStart = previousAssignment.getStart();
-               Date assignmentFinish = assignment.getFinish();
-               double total = previousAssignment.getTotalAmount().getDuration();
-               total += assignmentWork.getDuration();
-               Duration totalWork = Duration.getInstance(total, TimeUnit.MINUTES);
-
-               TimephasedWork merged = new TimephasedWork();
-               merged.setStart(assignmentStart);
-               merged.setFinish(assignmentFinish);
-               merged.setAmountPerDay(assignmentWork);
-               merged.setTotalAmount(totalWork);
-
-               result.removeLast();
-               assignment = merged;
-            }
-            else
-            {
-               assignment.setAmountPerDay(assignment.getTotalAmount());
-            }
-            result.add(assignment);
+            ++previous;
+            list.copy(index, previous);
+            list.setAmountPerDay(previous, list.getTotalAmount(previous), list.getTotalAmountUnits(previous));
          }
-
-         previousAssignment = assignment;
       }
 
-      list.clear();
-      list.addAll(result);
+      list.truncate(previous + 1);
    }
 
    /**
@@ -105,16 +102,12 @@ public abstract class AbstractTimephasedWorkNormaliser implements TimephasedWork
     *
     * @param list assignment data
     */
-   protected void convertToHours(LinkedList<TimephasedWork> list)
+   protected void convertToHours(CompactTimephasedWorkList list)
    {
-      for (TimephasedWork assignment : list)
+      for (int index = 0; index < list.size(); index++)
       {
-         Duration totalWork = assignment.getTotalAmount();
-         Duration workPerDay = assignment.getAmountPerDay();
-         totalWork = Duration.getInstance(totalWork.getDuration() / 60, TimeUnit.HOURS);
-         workPerDay = Duration.getInstance(workPerDay.getDuration() / 60, TimeUnit.HOURS);
-         assignment.setTotalAmount(totalWork);
-         assignment.setAmountPerDay(workPerDay);
+         list.setTotalAmount(index, list.getTotalAmount(index) / 60, TimeUnit.HOURS);
+         list.setAmountPerDay(index, list.getAmountPerDay(index) / 60, TimeUnit.HOURS);
       }
    }
 }
@@ -0,0 +1,60 @@
+/*
+ * file:       ArrayFieldStore.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       06/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.common;
+
+/**
+ * Field store implementation which allocates a slot for every possible field.
+ * This provides the fastest access to field values, at the expense of
+ * memory when only a small number of fields are populated.
+ */
+public final class ArrayFieldStore implements FieldStore
+{
+   /**
+    * Constructor.
+    *
+    * @param size maximum number of fields
+    */
+   public ArrayFieldStore(int size)
+   {
+      m_array = new Object[size];
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public Object get(int index)
+   {
+      return m_array[index];
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void set(int index, Object value)
+   {
+      m_array[index] = value;
+   }
+
+   private final Object[] m_array;
+}
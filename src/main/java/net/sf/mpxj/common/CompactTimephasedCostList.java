@@ -0,0 +1,159 @@
+/*
+ * file:       CompactTimephasedCostList.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       20/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.common;
+
+import java.util.List;
+
+import net.sf.mpxj.TimephasedCost;
+
+/**
+ * Holds a list of timephased cost items in parallel arrays of primitive
+ * values, rather than as individual objects.
+ */
+public final class CompactTimephasedCostList extends CompactTimephasedList<TimephasedCost>
+{
+   /**
+    * Create a compact copy of a list of timephased cost items. If the list
+    * contains values which can't be represented exactly in compact form,
+    * the original list is returned.
+    *
+    * @param list timephased cost items
+    * @return compact list, or the original list
+    */
+   public static List<TimephasedCost> getInstance(List<TimephasedCost> list)
+   {
+      if (list instanceof CompactTimephasedCostList)
+      {
+         return list;
+      }
+
+      for (TimephasedCost item : list)
+      {
+         if (item == null || !isCompactDate(item.getStart()) || !isCompactDate(item.getFinish()) || !isCompactNumber(item.getTotalAmount()) || !isCompactNumber(item.getAmountPerDay()))
+         {
+            return list;
+         }
+      }
+
+      return new CompactTimephasedCostList(list);
+   }
+
+   /**
+    * Constructor.
+    *
+    * @param capacity initial capacity
+    */
+   public CompactTimephasedCostList(int capacity)
+   {
+      super(capacity);
+   }
+
+   /**
+    * Constructor. Creates a compact copy of a list of timephased cost items.
+    *
+    * @param list timephased cost items
+    */
+   public CompactTimephasedCostList(List<TimephasedCost> list)
+   {
+      super(list.size());
+
+      for (TimephasedCost item : list)
+      {
+         int index = appendItem(getDateValue(item.getStart()), getDateValue(item.getFinish()), item.getModified());
+         Number totalAmount = item.getTotalAmount();
+         if (totalAmount != null)
+         {
+            setTotalAmount(index, totalAmount.doubleValue());
+         }
+
+         Number amountPerDay = item.getAmountPerDay();
+         if (amountPerDay != null)
+         {
+            setAmountPerDay(index, amountPerDay.doubleValue());
+         }
+      }
+   }
+
+   /**
+    * Add an item to the end of the list. The amount per day is initially null.
+    *
+    * @param start start time
+    * @param finish finish time
+    * @param totalAmount total amount
+    * @return index of the new item
+    */
+   public int append(long start, long finish, double totalAmount)
+   {
+      int index = appendItem(start, finish, false);
+      setTotalAmount(index, totalAmount);
+      return index;
+   }
+
+   /**
+    * Set an item's total amount.
+    *
+    * @param index item index
+    * @param value total amount
+    */
+   public void setTotalAmount(int index, double value)
+   {
+      setTotalAmount(index, value, VALUE_TYPE);
+   }
+
+   /**
+    * Set an item's amount per day.
+    *
+    * @param index item index
+    * @param value amount per day
+    */
+   public void setAmountPerDay(int index, double value)
+   {
+      setAmountPerDay(index, value, VALUE_TYPE);
+   }
+
+   @Override protected TimephasedCost getItem(int index)
+   {
+      TimephasedCost item = new TimephasedCost();
+      item.setStart(getDate(getStart(index)));
+      item.setFinish(getDate(getFinish(index)));
+      item.setTotalAmount(getTotalAmountType(index) == NULL_TYPE ? null : Double.valueOf(getTotalAmount(index)));
+      item.setAmountPerDay(getAmountPerDayType(index) == NULL_TYPE ? null : Double.valueOf(getAmountPerDay(index)));
+      item.setModified(getModified(index));
+      return item;
+   }
+
+   /**
+    * Determine if a number can be represented exactly as a double value.
+    *
+    * @param value number
+    * @return true if the number can be represented as a double value
+    */
+   private static boolean isCompactNumber(Number value)
+   {
+      return value == null || value instanceof Double;
+   }
+
+   private static final byte VALUE_TYPE = 0;
+}
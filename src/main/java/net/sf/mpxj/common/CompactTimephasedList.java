@@ -0,0 +1,410 @@
+/*
+ * file:       CompactTimephasedList.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       24/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.common;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.RandomAccess;
+
+import net.sf.mpxj.TimephasedItem;
+
+/**
+ * Common implementation detail for lists of timephased items held in
+ * parallel arrays of primitive values, rather than as individual objects.
+ * Normalised timephased data typically contains one item per working day,
+ * so representing it this way substantially reduces the memory required
+ * to hold it.
+ *
+ * Through the List interface the data is read-only, and each call to get()
+ * returns a new item populated from the stored values. Callers which
+ * need to work through the data efficiently, for example the normalisers,
+ * can use the index-based accessors and mutators instead.
+ *
+ * @param <T> timephased item type
+ */
+public abstract class CompactTimephasedList<T extends TimephasedItem<?>> extends AbstractList<T> implements RandomAccess
+{
+   /**
+    * Constructor.
+    *
+    * @param capacity initial capacity
+    */
+   protected CompactTimephasedList(int capacity)
+   {
+      m_start = new long[capacity];
+      m_finish = new long[capacity];
+      m_totalAmount = new double[capacity];
+      m_amountPerDay = new double[capacity];
+      m_totalAmountType = new byte[capacity];
+      m_amountPerDayType = new byte[capacity];
+      m_modified = new boolean[capacity];
+   }
+
+   /**
+    * Copy constructor, allowing the amounts to be scaled.
+    *
+    * @param source list to copy
+    * @param totalFactor total amount factor
+    * @param perDayFactor per day factor
+    */
+   protected CompactTimephasedList(CompactTimephasedList<T> source, double totalFactor, double perDayFactor)
+   {
+      this(source.m_size);
+      m_size = source.m_size;
+      System.arraycopy(source.m_start, 0, m_start, 0, m_size);
+      System.arraycopy(source.m_finish, 0, m_finish, 0, m_size);
+      System.arraycopy(source.m_totalAmountType, 0, m_totalAmountType, 0, m_size);
+      System.arraycopy(source.m_amountPerDayType, 0, m_amountPerDayType, 0, m_size);
+      System.arraycopy(source.m_modified, 0, m_modified, 0, m_size);
+      for (int index = 0; index < m_size; index++)
+      {
+         m_totalAmount[index] = source.m_totalAmount[index] * totalFactor;
+         m_amountPerDay[index] = source.m_amountPerDay[index] * perDayFactor;
+      }
+   }
+
+   @Override public T get(int index)
+   {
+      checkIndex(index);
+      return getItem(index);
+   }
+
+   @Override public int size()
+   {
+      return m_size;
+   }
+
+   /**
+    * Retrieve the start of an item, in milliseconds.
+    *
+    * @param index item index
+    * @return start time
+    */
+   public long getStart(int index)
+   {
+      checkIndex(index);
+      return m_start[index];
+   }
+
+   /**
+    * Set the start of an item, in milliseconds.
+    *
+    * @param index item index
+    * @param value start time
+    */
+   public void setStart(int index, long value)
+   {
+      checkIndex(index);
+      m_start[index] = value;
+   }
+
+   /**
+    * Retrieve the finish of an item, in milliseconds.
+    *
+    * @param index item index
+    * @return finish time
+    */
+   public long getFinish(int index)
+   {
+      checkIndex(index);
+      return m_finish[index];
+   }
+
+   /**
+    * Set the finish of an item, in milliseconds.
+    *
+    * @param index item index
+    * @param value finish time
+    */
+   public void setFinish(int index, long value)
+   {
+      checkIndex(index);
+      m_finish[index] = value;
+   }
+
+   /**
+    * Retrieve the numeric value of an item's total amount.
+    * Zero is returned if the total amount is null.
+    *
+    * @param index item index
+    * @return total amount
+    */
+   public double getTotalAmount(int index)
+   {
+      checkIndex(index);
+      return m_totalAmount[index];
+   }
+
+   /**
+    * Retrieve the numeric value of an item's amount per day.
+    * Zero is returned if the amount per day is null.
+    *
+    * @param index item index
+    * @return amount per day
+    */
+   public double getAmountPerDay(int index)
+   {
+      checkIndex(index);
+      return m_amountPerDay[index];
+   }
+
+   /**
+    * Retrieve an item's modified flag.
+    *
+    * @param index item index
+    * @return modified flag
+    */
+   public boolean getModified(int index)
+   {
+      checkIndex(index);
+      return m_modified[index];
+   }
+
+   /**
+    * Set an item's modified flag.
+    *
+    * @param index item index
+    * @param value modified flag
+    */
+   public void setModified(int index, boolean value)
+   {
+      checkIndex(index);
+      m_modified[index] = value;
+   }
+
+   /**
+    * Overwrite one item with the values from another.
+    *
+    * @param from index of the item to copy
+    * @param to index of the item to overwrite
+    */
+   public void copy(int from, int to)
+   {
+      checkIndex(from);
+      checkIndex(to);
+      m_start[to] = m_start[from];
+      m_finish[to] = m_finish[from];
+      m_totalAmount[to] = m_totalAmount[from];
+      m_amountPerDay[to] = m_amountPerDay[from];
+      m_totalAmountType[to] = m_totalAmountType[from];
+      m_amountPerDayType[to] = m_amountPerDayType[from];
+      m_modified[to] = m_modified[from];
+   }
+
+   /**
+    * Add a copy of an item from another list to the end of this list.
+    *
+    * @param source list containing the item to copy
+    * @param index index of the item to copy
+    * @return index of the new item
+    */
+   public int append(CompactTimephasedList<T> source, int index)
+   {
+      source.checkIndex(index);
+      int result = appendItem(source.m_start[index], source.m_finish[index], source.m_modified[index]);
+      m_totalAmount[result] = source.m_totalAmount[index];
+      m_amountPerDay[result] = source.m_amountPerDay[index];
+      m_totalAmountType[result] = source.m_totalAmountType[index];
+      m_amountPerDayType[result] = source.m_amountPerDayType[index];
+      return result;
+   }
+
+   /**
+    * Discard items from the end of the list.
+    *
+    * @param size new size, which must not be greater than the current size
+    */
+   public void truncate(int size)
+   {
+      if (size < 0 || size > m_size)
+      {
+         throw new IndexOutOfBoundsException("Size: " + size + ", Current size: " + m_size);
+      }
+      m_size = size;
+      ++modCount;
+   }
+
+   /**
+    * Add an item to the end of the list. The amounts are initially null.
+    *
+    * @param start start time
+    * @param finish finish time
+    * @param modified modified flag
+    * @return index of the new item
+    */
+   protected int appendItem(long start, long finish, boolean modified)
+   {
+      if (m_size == m_start.length)
+      {
+         int capacity = Math.max(10, m_size + (m_size >> 1));
+         m_start = Arrays.copyOf(m_start, capacity);
+         m_finish = Arrays.copyOf(m_finish, capacity);
+         m_totalAmount = Arrays.copyOf(m_totalAmount, capacity);
+         m_amountPerDay = Arrays.copyOf(m_amountPerDay, capacity);
+         m_totalAmountType = Arrays.copyOf(m_totalAmountType, capacity);
+         m_amountPerDayType = Arrays.copyOf(m_amountPerDayType, capacity);
+         m_modified = Arrays.copyOf(m_modified, capacity);
+      }
+
+      int index = m_size++;
+      m_start[index] = start;
+      m_finish[index] = finish;
+      m_totalAmount[index] = 0;
+      m_amountPerDay[index] = 0;
+      m_totalAmountType[index] = NULL_TYPE;
+      m_amountPerDayType[index] = NULL_TYPE;
+      m_modified[index] = modified;
+      ++modCount;
+
+      return index;
+   }
+
+   /**
+    * Retrieve the type of an item's total amount, as defined by the subclass.
+    *
+    * @param index item index
+    * @return type, or NULL_TYPE if the total amount is null
+    */
+   protected byte getTotalAmountType(int index)
+   {
+      checkIndex(index);
+      return m_totalAmountType[index];
+   }
+
+   /**
+    * Set an item's total amount.
+    *
+    * @param index item index
+    * @param value numeric value
+    * @param type type, or NULL_TYPE if the total amount is null
+    */
+   protected void setTotalAmount(int index, double value, byte type)
+   {
+      checkIndex(index);
+      m_totalAmount[index] = type == NULL_TYPE ? 0 : value;
+      m_totalAmountType[index] = type;
+   }
+
+   /**
+    * Retrieve the type of an item's amount per day, as defined by the subclass.
+    *
+    * @param index item index
+    * @return type, or NULL_TYPE if the amount per day is null
+    */
+   protected byte getAmountPerDayType(int index)
+   {
+      checkIndex(index);
+      return m_amountPerDayType[index];
+   }
+
+   /**
+    * Set an item's amount per day.
+    *
+    * @param index item index
+    * @param value numeric value
+    * @param type type, or NULL_TYPE if the amount per day is null
+    */
+   protected void setAmountPerDay(int index, double value, byte type)
+   {
+      checkIndex(index);
+      m_amountPerDay[index] = type == NULL_TYPE ? 0 : value;
+      m_amountPerDayType[index] = type;
+   }
+
+   /**
+    * Create a new item populated from the stored values.
+    *
+    * @param index item index
+    * @return new item
+    */
+   protected abstract T getItem(int index);
+
+   /**
+    * Ensure that an index refers to an item in the list.
+    *
+    * @param index item index
+    */
+   private void checkIndex(int index)
+   {
+      if (index < 0 || index >= m_size)
+      {
+         throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + m_size);
+      }
+   }
+
+   /**
+    * Determine if a date can be represented exactly as a long value.
+    * Subclasses of Date, for example java.sql.Timestamp, are left as-is.
+    *
+    * @param date date value
+    * @return true if the date can be represented as a long value
+    */
+   static boolean isCompactDate(Date date)
+   {
+      return date == null || date.getClass() == Date.class;
+   }
+
+   /**
+    * Convert a date to a long value.
+    *
+    * @param date date value
+    * @return long value
+    */
+   static long getDateValue(Date date)
+   {
+      return date == null ? NULL_DATE : date.getTime();
+   }
+
+   /**
+    * Convert a long value to a date.
+    *
+    * @param value long value
+    * @return date value
+    */
+   static Date getDate(long value)
+   {
+      return value == NULL_DATE ? null : new Date(value);
+   }
+
+   private int m_size;
+   private long[] m_start;
+   private long[] m_finish;
+   private double[] m_totalAmount;
+   private double[] m_amountPerDay;
+   private byte[] m_totalAmountType;
+   private byte[] m_amountPerDayType;
+   private boolean[] m_modified;
+
+   /**
+    * Value used to represent a null start or finish date.
+    */
+   public static final long NULL_DATE = Long.MIN_VALUE;
+
+   /**
+    * Type value used to represent a null amount.
+    */
+   protected static final byte NULL_TYPE = -1;
+}
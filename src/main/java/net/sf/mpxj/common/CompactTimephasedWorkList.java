@@ -0,0 +1,238 @@
+/*
+ * file:       CompactTimephasedWorkList.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       20/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.common;
+
+import java.util.List;
+
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.TimephasedWork;
+
+/**
+ * Holds a list of timephased work items in parallel arrays of primitive
+ * values, rather than as individual objects.
+ */
+public final class CompactTimephasedWorkList extends CompactTimephasedList<TimephasedWork>
+{
+   /**
+    * Create a compact copy of a list of timephased work items. If the list
+    * contains values which can't be represented exactly in compact form,
+    * the original list is returned.
+    *
+    * @param list timephased work items
+    * @return compact list, or the original list
+    */
+   public static List<TimephasedWork> getInstance(List<TimephasedWork> list)
+   {
+      if (list instanceof CompactTimephasedWorkList)
+      {
+         return list;
+      }
+
+      for (TimephasedWork item : list)
+      {
+         if (item == null || !isCompactDate(item.getStart()) || !isCompactDate(item.getFinish()))
+         {
+            return list;
+         }
+      }
+
+      return new CompactTimephasedWorkList(list);
+   }
+
+   /**
+    * Constructor.
+    *
+    * @param capacity initial capacity
+    */
+   public CompactTimephasedWorkList(int capacity)
+   {
+      super(capacity);
+   }
+
+   /**
+    * Constructor. Creates a compact copy of a list of timephased work items.
+    *
+    * @param list timephased work items
+    */
+   public CompactTimephasedWorkList(List<TimephasedWork> list)
+   {
+      super(list.size());
+
+      for (TimephasedWork item : list)
+      {
+         int index = appendItem(getDateValue(item.getStart()), getDateValue(item.getFinish()), item.getModified());
+         setTotalAmount(index, item.getTotalAmount());
+         setAmountPerDay(index, item.getAmountPerDay());
+      }
+   }
+
+   /**
+    * Copy constructor, allowing scaling.
+    *
+    * @param source list to copy
+    * @param totalFactor total amount factor
+    * @param perDayFactor per day factor
+    */
+   public CompactTimephasedWorkList(CompactTimephasedWorkList source, double totalFactor, double perDayFactor)
+   {
+      super(source, totalFactor, perDayFactor);
+   }
+
+   /**
+    * Add an item to the end of the list. The amount per day is initially null.
+    *
+    * @param start start time
+    * @param finish finish time
+    * @param totalAmount total amount
+    * @param totalAmountUnits total amount units
+    * @return index of the new item
+    */
+   public int append(long start, long finish, double totalAmount, TimeUnit totalAmountUnits)
+   {
+      int index = appendItem(start, finish, false);
+      setTotalAmount(index, totalAmount, totalAmountUnits);
+      return index;
+   }
+
+   /**
+    * Retrieve the units of an item's total amount.
+    *
+    * @param index item index
+    * @return units, or null if the total amount is null
+    */
+   public TimeUnit getTotalAmountUnits(int index)
+   {
+      return getUnits(getTotalAmountType(index));
+   }
+
+   /**
+    * Set an item's total amount.
+    *
+    * @param index item index
+    * @param value numeric value
+    * @param units units, or null if the total amount is null
+    */
+   public void setTotalAmount(int index, double value, TimeUnit units)
+   {
+      setTotalAmount(index, value, getType(units));
+   }
+
+   /**
+    * Retrieve the units of an item's amount per day.
+    *
+    * @param index item index
+    * @return units, or null if the amount per day is null
+    */
+   public TimeUnit getAmountPerDayUnits(int index)
+   {
+      return getUnits(getAmountPerDayType(index));
+   }
+
+   /**
+    * Set an item's amount per day.
+    *
+    * @param index item index
+    * @param value numeric value
+    * @param units units, or null if the amount per day is null
+    */
+   public void setAmountPerDay(int index, double value, TimeUnit units)
+   {
+      setAmountPerDay(index, value, getType(units));
+   }
+
+   @Override protected TimephasedWork getItem(int index)
+   {
+      TimephasedWork item = new TimephasedWork();
+      item.setStart(getDate(getStart(index)));
+      item.setFinish(getDate(getFinish(index)));
+      item.setTotalAmount(getDuration(getTotalAmount(index), getTotalAmountUnits(index)));
+      item.setAmountPerDay(getDuration(getAmountPerDay(index), getAmountPerDayUnits(index)));
+      item.setModified(getModified(index));
+      return item;
+   }
+
+   /**
+    * Set an item's total amount from a duration.
+    *
+    * @param index item index
+    * @param duration duration value
+    */
+   private void setTotalAmount(int index, Duration duration)
+   {
+      if (duration != null)
+      {
+         setTotalAmount(index, duration.getDuration(), duration.getUnits());
+      }
+   }
+
+   /**
+    * Set an item's amount per day from a duration.
+    *
+    * @param index item index
+    * @param duration duration value
+    */
+   private void setAmountPerDay(int index, Duration duration)
+   {
+      if (duration != null)
+      {
+         setAmountPerDay(index, duration.getDuration(), duration.getUnits());
+      }
+   }
+
+   /**
+    * Convert units to the value stored in the type array.
+    *
+    * @param units units value
+    * @return type value
+    */
+   private static byte getType(TimeUnit units)
+   {
+      return units == null ? NULL_TYPE : (byte) units.getValue();
+   }
+
+   /**
+    * Convert a value from the type array to units.
+    *
+    * @param type type value
+    * @return units value
+    */
+   private static TimeUnit getUnits(byte type)
+   {
+      return type == NULL_TYPE ? null : TimeUnit.getInstance(type);
+   }
+
+   /**
+    * Recreate a duration.
+    *
+    * @param value numeric value
+    * @param units units value
+    * @return duration
+    */
+   private static Duration getDuration(double value, TimeUnit units)
+   {
+      return units == null ? null : Duration.getInstance(value, units);
+   }
+}
@@ -67,6 +67,24 @@ public final class DateHelper
       return (date);
    }
 
+   /**
+    * Returns the start of the day containing the supplied date,
+    * where both are expressed as milliseconds since the epoch.
+    *
+    * @param date date to convert
+    * @return day start date
+    */
+   public static long getDayStartDate(long date)
+   {
+      Calendar cal = Calendar.getInstance();
+      cal.setTimeInMillis(date);
+      cal.set(Calendar.HOUR_OF_DAY, 0);
+      cal.set(Calendar.MINUTE, 0);
+      cal.set(Calendar.SECOND, 0);
+      cal.set(Calendar.MILLISECOND, 0);
+      return cal.getTimeInMillis();
+   }
+
    /**
     * Returns a new Date instance whose value
     * represents the end of the day (i.e. the time of days is 11:59:59.999)
@@ -139,15 +157,31 @@ public final class DateHelper
     * @return comparison result
     */
    public static int compare(Date startDate, Date endDate, long targetDate)
+   {
+      return (compare(startDate.getTime(), endDate.getTime(), targetDate));
+   }
+
+   /**
+    * This method compares a target date with a date range. The method will
+    * return 0 if the date is within the range, less than zero if the date
+    * is before the range starts, and greater than zero if the date is after
+    * the range ends.
+    *
+    * @param startDate range start date in milliseconds
+    * @param endDate range end date in milliseconds
+    * @param targetDate target date in milliseconds
+    * @return comparison result
+    */
+   public static int compare(long startDate, long endDate, long targetDate)
    {
       int result = 0;
-      if (targetDate < startDate.getTime())
+      if (targetDate < startDate)
       {
          result = -1;
       }
       else
       {
-         if (targetDate > endDate.getTime())
+         if (targetDate > endDate)
          {
             result = 1;
          }
@@ -21,6 +21,7 @@
  * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
  */
 
+
 package net.sf.mpxj.common;
 
 import java.util.LinkedList;
@@ -45,15 +46,39 @@ public class DefaultTimephasedCostContainer implements TimephasedCostContainer
     */
    public DefaultTimephasedCostContainer(ProjectCalendar calendar, TimephasedCostNormaliser normaliser, List<TimephasedCost> data, boolean raw)
    {
-      if (data instanceof LinkedList<?>)
+      this(calendar, normaliser, data, raw, false);
+   }
+
+   /**
+    * Constructor. If the compact flag is set, the data is held in a
+    * CompactTimephasedCostList, which uses substantially less memory,
+    * but means that the list returned by getData() is read-only.
+    *
+    * @param calendar calendar to which the timephased data relates
+    * @param normaliser normaliser used to process this data
+    * @param data timephased data
+    * @param raw flag indicating if this data is raw
+    * @param compact flag indicating if this data should be held in compact form
+    */
+   public DefaultTimephasedCostContainer(ProjectCalendar calendar, TimephasedCostNormaliser normaliser, List<TimephasedCost> data, boolean raw, boolean compact)
+   {
+      if (compact)
       {
-         m_data = (LinkedList<TimephasedCost>) data;
+         m_data = CompactTimephasedCostList.getInstance(data);
       }
       else
       {
-         m_data = new LinkedList<TimephasedCost>(data);
+         if (data instanceof LinkedList<?>)
+         {
+            m_data = data;
+         }
+         else
+         {
+            m_data = new LinkedList<TimephasedCost>(data);
+         }
       }
       m_raw = raw;
+      m_compact = compact;
       m_calendar = calendar;
       m_normaliser = normaliser;
    }
@@ -65,7 +90,16 @@ public class DefaultTimephasedCostContainer implements TimephasedCostContainer
    {
       if (m_raw)
       {
-         m_normaliser.normalise(m_calendar, m_data);
+         if (m_data instanceof CompactTimephasedCostList && m_normaliser instanceof AbstractTimephasedCostNormaliser)
+         {
+            m_data = ((AbstractTimephasedCostNormaliser) m_normaliser).normalise(m_calendar, (CompactTimephasedCostList) m_data);
+         }
+         else
+         {
+            LinkedList<TimephasedCost> list = m_data instanceof LinkedList<?> ? (LinkedList<TimephasedCost>) m_data : new LinkedList<TimephasedCost>(m_data);
+            m_normaliser.normalise(m_calendar, list);
+            m_data = m_compact ? CompactTimephasedCostList.getInstance(list) : list;
+         }
          m_raw = false;
       }
       return m_data;
@@ -81,8 +115,9 @@ public class DefaultTimephasedCostContainer implements TimephasedCostContainer
       return !m_data.isEmpty();
    }
 
-   private LinkedList<TimephasedCost> m_data;
+   private List<TimephasedCost> m_data;
    private boolean m_raw;
+   private boolean m_compact;
    private TimephasedCostNormaliser m_normaliser;
    private ProjectCalendar m_calendar;
 }
@@ -21,6 +21,7 @@
  * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
  */
 
+
 package net.sf.mpxj.common;
 
 import java.util.LinkedList;
@@ -45,15 +46,39 @@ public class DefaultTimephasedWorkContainer implements TimephasedWorkContainer
     */
    public DefaultTimephasedWorkContainer(ProjectCalendar calendar, TimephasedWorkNormaliser normaliser, List<TimephasedWork> data, boolean raw)
    {
-      if (data instanceof LinkedList<?>)
+      this(calendar, normaliser, data, raw, false);
+   }
+
+   /**
+    * Constructor. If the compact flag is set, the data is held in a
+    * CompactTimephasedWorkList, which uses substantially less memory,
+    * but means that the list returned by getData() is read-only.
+    *
+    * @param calendar calendar to which the timephased data relates
+    * @param normaliser normaliser used to process this data
+    * @param data timephased data
+    * @param raw flag indicating if this data is raw
+    * @param compact flag indicating if this data should be held in compact form
+    */
+   public DefaultTimephasedWorkContainer(ProjectCalendar calendar, TimephasedWorkNormaliser normaliser, List<TimephasedWork> data, boolean raw, boolean compact)
+   {
+      if (compact)
       {
-         m_data = (LinkedList<TimephasedWork>) data;
+         m_data = CompactTimephasedWorkList.getInstance(data);
       }
       else
       {
-         m_data = new LinkedList<TimephasedWork>(data);
+         if (data instanceof LinkedList<?>)
+         {
+            m_data = data;
+         }
+         else
+         {
+            m_data = new LinkedList<TimephasedWork>(data);
+         }
       }
       m_raw = raw;
+      m_compact = compact;
       m_calendar = calendar;
       m_normaliser = normaliser;
    }
@@ -68,14 +93,22 @@ public class DefaultTimephasedWorkContainer implements TimephasedWorkContainer
     */
    public DefaultTimephasedWorkContainer(DefaultTimephasedWorkContainer source, double perDayFactor, double totalFactor)
    {
-      m_data = new LinkedList<TimephasedWork>();
       m_raw = source.m_raw;
+      m_compact = source.m_compact;
       m_calendar = source.m_calendar;
       m_normaliser = source.m_normaliser;
 
-      for (TimephasedWork sourceItem : source.m_data)
+      if (source.m_data instanceof CompactTimephasedWorkList)
+      {
+         m_data = new CompactTimephasedWorkList((CompactTimephasedWorkList) source.m_data, totalFactor, perDayFactor);
+      }
+      else
       {
-         m_data.add(new TimephasedWork(sourceItem, totalFactor, perDayFactor));
+         m_data = new LinkedList<TimephasedWork>();
+         for (TimephasedWork sourceItem : source.m_data)
+         {
+            m_data.add(new TimephasedWork(sourceItem, totalFactor, perDayFactor));
+         }
       }
    }
 
@@ -86,7 +119,16 @@ public class DefaultTimephasedWorkContainer implements TimephasedWorkContainer
    {
       if (m_raw)
       {
-         m_normaliser.normalise(m_calendar, m_data);
+         if (m_data instanceof CompactTimephasedWorkList && m_normaliser instanceof AbstractTimephasedWorkNormaliser)
+         {
+            m_data = ((AbstractTimephasedWorkNormaliser) m_normaliser).normalise(m_calendar, (CompactTimephasedWorkList) m_data);
+         }
+         else
+         {
+            LinkedList<TimephasedWork> list = m_data instanceof LinkedList<?> ? (LinkedList<TimephasedWork>) m_data : new LinkedList<TimephasedWork>(m_data);
+            m_normaliser.normalise(m_calendar, list);
+            m_data = m_compact ? CompactTimephasedWorkList.getInstance(list) : list;
+         }
          m_raw = false;
       }
       return m_data;
@@ -102,8 +144,9 @@ public class DefaultTimephasedWorkContainer implements TimephasedWorkContainer
       return !m_data.isEmpty();
    }
 
-   private LinkedList<TimephasedWork> m_data;
+   private List<TimephasedWork> m_data;
    private boolean m_raw;
+   private boolean m_compact;
    private TimephasedWorkNormaliser m_normaliser;
    private ProjectCalendar m_calendar;
 }
@@ -0,0 +1,253 @@
+/*
+ * file:       JAXBContextCache.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.common;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+
+/**
+ * Holds a single JAXBContext for each of the schema packages used by the
+ * XML based readers and writers. Creating a context is expensive, so each
+ * context is created once and shared by the reader and writer for a format.
+ *
+ * By default each context is created when the first reader or writer
+ * which needs it is loaded. Applications which are sensitive to the time
+ * taken by the first conversion can call one of the initialise methods
+ * at startup to create the contexts in parallel, in the background.
+ */
+public final class JAXBContextCache
+{
+   /**
+    * Private constructor to prevent instantiation.
+    */
+   private JAXBContextCache()
+   {
+      // Private constructor to prevent instantiation.
+   }
+
+   /**
+    * Create all contexts in the background, using a daemon thread
+    * for each context. This method returns immediately.
+    */
+   public static void initialise()
+   {
+      initialise(CONTEXT_PATHS);
+   }
+
+   /**
+    * Create the named contexts in the background, using a daemon thread
+    * for each context. This method returns immediately.
+    *
+    * @param contextPaths context paths
+    */
+   public static void initialise(List<String> contextPaths)
+   {
+      for (String contextPath : contextPaths)
+      {
+         Thread thread = new Thread(getTask(contextPath), "JAXBContextCache " + contextPath);
+         thread.setDaemon(true);
+         thread.start();
+      }
+   }
+
+   /**
+    * Create all contexts using the supplied Executor.
+    * This method returns once the work has been submitted.
+    *
+    * @param executor Executor instance
+    */
+   public static void initialise(Executor executor)
+   {
+      initialise(CONTEXT_PATHS, executor);
+   }
+
+   /**
+    * Create the named contexts using the supplied Executor.
+    * This method returns once the work has been submitted.
+    *
+    * @param contextPaths context paths
+    * @param executor Executor instance
+    */
+   public static void initialise(List<String> contextPaths, Executor executor)
+   {
+      for (String contextPath : contextPaths)
+      {
+         executor.execute(getTask(contextPath));
+      }
+   }
+
+   /**
+    * Retrieve the context for a schema package. If the context is
+    * being created by another thread, this method waits for it.
+    * If the context has not been requested before, it is created
+    * by the calling thread.
+    *
+    * @param contextPath context path
+    * @return JAXBContext instance
+    * @throws JAXBException
+    */
+   public static JAXBContext getContext(String contextPath) throws JAXBException
+   {
+      FutureTask<JAXBContext> task = getTask(contextPath);
+
+      //
+      // This does nothing if the task has already been started
+      //
+      task.run();
+
+      boolean interrupted = false;
+      try
+      {
+         while (true)
+         {
+            try
+            {
+               return task.get();
+            }
+
+            catch (InterruptedException ex)
+            {
+               interrupted = true;
+            }
+         }
+      }
+
+      catch (ExecutionException ex)
+      {
+         Throwable cause = ex.getCause();
+         if (cause instanceof JAXBException)
+         {
+            throw (JAXBException) cause;
+         }
+
+         if (cause instanceof RuntimeException)
+         {
+            throw (RuntimeException) cause;
+         }
+
+         if (cause instanceof Error)
+         {
+            throw (Error) cause;
+         }
+
+         throw new JAXBException(cause);
+      }
+
+      finally
+      {
+         if (interrupted)
+         {
+            Thread.currentThread().interrupt();
+         }
+      }
+   }
+
+   /**
+    * Retrieve the time taken to create a context in milliseconds.
+    *
+    * @param contextPath context path
+    * @return time in milliseconds, or -1 if the context has not been created
+    */
+   public static long getInitialisationTime(String contextPath)
+   {
+      Long time = TIMES.get(contextPath);
+      return time == null ? -1 : time.longValue();
+   }
+
+   /**
+    * Retrieve the time taken to create each context which
+    * has been created so far, in milliseconds.
+    *
+    * @return map of context paths to times in milliseconds
+    */
+   public static Map<String, Long> getInitialisationTimes()
+   {
+      return Collections.unmodifiableMap(TIMES);
+   }
+
+   /**
+    * Retrieve the task which creates a context.
+    *
+    * @param contextPath context path
+    * @return FutureTask instance
+    */
+   private static FutureTask<JAXBContext> getTask(final String contextPath)
+   {
+      FutureTask<JAXBContext> task = TASKS.get(contextPath);
+      if (task == null)
+      {
+         task = new FutureTask<JAXBContext>(new Callable<JAXBContext>()
+         {
+            @Override public JAXBContext call() throws JAXBException
+            {
+               long start = System.nanoTime();
+               JAXBContext context = JAXBContext.newInstance(contextPath, JAXBContextCache.class.getClassLoader());
+               TIMES.put(contextPath, Long.valueOf((System.nanoTime() - start) / 1000000));
+               return context;
+            }
+         });
+
+         FutureTask<JAXBContext> existing = TASKS.putIfAbsent(contextPath, task);
+         if (existing != null)
+         {
+            task = existing;
+         }
+      }
+      return task;
+   }
+
+   public static final String MSPDI = "net.sf.mpxj.mspdi.schema";
+   public static final String PRIMAVERA = "net.sf.mpxj.primavera.schema";
+   public static final String PLANNER = "net.sf.mpxj.planner.schema";
+   public static final String GANTTPROJECT = "net.sf.mpxj.ganttproject.schema";
+   public static final String PHOENIX = "net.sf.mpxj.phoenix.schema";
+   public static final String CONCEPTDRAW = "net.sf.mpxj.conceptdraw.schema";
+
+   /**
+    * All of the context paths used by MPXJ.
+    */
+   public static final List<String> CONTEXT_PATHS = Collections.unmodifiableList(Arrays.asList(MSPDI, PRIMAVERA, PLANNER, GANTTPROJECT, PHOENIX, CONCEPTDRAW));
+
+   private static final ConcurrentMap<String, FutureTask<JAXBContext>> TASKS = new ConcurrentHashMap<String, FutureTask<JAXBContext>>();
+   private static final ConcurrentMap<String, Long> TIMES = new ConcurrentHashMap<String, Long>();
+
+   static
+   {
+      //
+      // JAXB RI property to speed up construction
+      //
+      System.setProperty("com.sun.xml.bind.v2.runtime.JAXBContextImpl.fastBoot", "true");
+   }
+}
@@ -0,0 +1,228 @@
+/*
+ * file:       SparseFieldStore.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       06/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.common;
+
+/**
+ * Field store implementation which only holds populated fields. Field
+ * indexes and values are held in a pair of parallel arrays, addressed using
+ * open addressing with linear probing. The arrays grow as fields are
+ * populated, so the memory used is proportional to the number of non-null
+ * fields rather than the number of possible fields.
+ */
+public final class SparseFieldStore implements FieldStore
+{
+   /**
+    * Constructor.
+    *
+    * @param size maximum number of fields
+    */
+   public SparseFieldStore(int size)
+   {
+      if (size < 0 || size >= Short.MAX_VALUE)
+      {
+         throw new IllegalArgumentException(size + " is not a valid field store size");
+      }
+
+      m_keys = new short[INITIAL_CAPACITY];
+      m_values = new Object[INITIAL_CAPACITY];
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public Object get(int index)
+   {
+      int slot = findSlot(index);
+      return slot == -1 ? null : m_values[slot];
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void set(int index, Object value)
+   {
+      if (value == null)
+      {
+         remove(index);
+      }
+      else
+      {
+         put(index, value);
+      }
+   }
+
+   /**
+    * Retrieve the number of populated fields.
+    *
+    * @return populated field count
+    */
+   public int size()
+   {
+      return m_size;
+   }
+
+   /**
+    * Locate the slot holding the requested field.
+    *
+    * @param index field index
+    * @return slot index, or -1 if the field is not present
+    */
+   private int findSlot(int index)
+   {
+      int key = index + 1;
+      int mask = m_keys.length - 1;
+      int slot = hash(key) & mask;
+
+      while (true)
+      {
+         int current = m_keys[slot];
+         if (current == key)
+         {
+            return slot;
+         }
+
+         if (current == 0)
+         {
+            return -1;
+         }
+
+         slot = (slot + 1) & mask;
+      }
+   }
+
+   /**
+    * Add or replace a field value.
+    *
+    * @param index field index
+    * @param value non-null field value
+    */
+   private void put(int index, Object value)
+   {
+      int key = index + 1;
+      int mask = m_keys.length - 1;
+      int slot = hash(key) & mask;
+
+      while (true)
+      {
+         int current = m_keys[slot];
+         if (current == key)
+         {
+            m_values[slot] = value;
+            return;
+         }
+
+         if (current == 0)
+         {
+            break;
+         }
+
+         slot = (slot + 1) & mask;
+      }
+
+      if ((m_size + 1) * 4 > m_keys.length * 3)
+      {
+         grow();
+         put(index, value);
+         return;
+      }
+
+      m_keys[slot] = (short) key;
+      m_values[slot] = value;
+      ++m_size;
+   }
+
+   /**
+    * Remove a field value. Entries following the removed entry are
+    * shifted back to ensure that lookups do not terminate early.
+    *
+    * @param index field index
+    */
+   private void remove(int index)
+   {
+      int gap = findSlot(index);
+      if (gap == -1)
+      {
+         return;
+      }
+
+      int mask = m_keys.length - 1;
+      int next = (gap + 1) & mask;
+
+      while (m_keys[next] != 0)
+      {
+         int ideal = hash(m_keys[next]) & mask;
+         if (((next - ideal) & mask) >= ((next - gap) & mask))
+         {
+            m_keys[gap] = m_keys[next];
+            m_values[gap] = m_values[next];
+            gap = next;
+         }
+         next = (next + 1) & mask;
+      }
+
+      m_keys[gap] = 0;
+      m_values[gap] = null;
+      --m_size;
+   }
+
+   /**
+    * Double the capacity of the store and rehash the existing entries.
+    */
+   private void grow()
+   {
+      short[] keys = m_keys;
+      Object[] values = m_values;
+
+      m_keys = new short[keys.length * 2];
+      m_values = new Object[keys.length * 2];
+      m_size = 0;
+
+      for (int loop = 0; loop < keys.length; loop++)
+      {
+         if (keys[loop] != 0)
+         {
+            put(keys[loop] - 1, values[loop]);
+         }
+      }
+   }
+
+   /**
+    * Spread the bits of a key to reduce clustering of
+    * consecutive field indexes.
+    *
+    * @param key key value
+    * @return hash value
+    */
+   private static int hash(int key)
+   {
+      int hash = key * 0x9E3779B9;
+      return hash ^ (hash >>> 16);
+   }
+
+   private short[] m_keys;
+   private Object[] m_values;
+   private int m_size;
+
+   private static final int INITIAL_CAPACITY = 16;
+}
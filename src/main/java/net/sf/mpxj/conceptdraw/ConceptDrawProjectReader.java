@@ -66,6 +66,7 @@ import net.sf.mpxj.ResourceAssignment;
 import net.sf.mpxj.Task;
 import net.sf.mpxj.TimeUnit;
 import net.sf.mpxj.common.AlphanumComparator;
+import net.sf.mpxj.common.JAXBContextCache;
 import net.sf.mpxj.conceptdraw.schema.Document;
 import net.sf.mpxj.conceptdraw.schema.Document.Calendars.Calendar;
 import net.sf.mpxj.conceptdraw.schema.Document.Calendars.Calendar.ExceptedDays.ExceptedDay;
@@ -101,6 +102,8 @@ public final class ConceptDrawProjectReader extends AbstractProjectReader
       try
       {
          m_projectFile = new ProjectFile();
+         applyFieldStoreType(m_projectFile);
+         m_projectFile.beginBulkLoad();
          m_eventManager = m_projectFile.getEventManager();
          m_calendarMap = new HashMap<Integer, ProjectCalendar>();
          m_taskIdMap = new HashMap<Integer, Task>();
@@ -143,6 +146,8 @@ public final class ConceptDrawProjectReader extends AbstractProjectReader
          //
          config.updateUniqueCounters();
 
+         m_projectFile.endBulkLoad();
+
          return m_projectFile;
       }
 
@@ -612,15 +617,7 @@ public final class ConceptDrawProjectReader extends AbstractProjectReader
    {
       try
       {
-         //
-         // JAXB RI property to speed up construction
-         //
-         System.setProperty("com.sun.xml.bind.v2.runtime.JAXBContextImpl.fastBoot", "true");
-
-         //
-         // Construct the context
-         //
-         CONTEXT = JAXBContext.newInstance("net.sf.mpxj.conceptdraw.schema", ConceptDrawProjectReader.class.getClassLoader());
+         CONTEXT = JAXBContextCache.getContext(JAXBContextCache.CONCEPTDRAW);
       }
 
       catch (JAXBException ex)
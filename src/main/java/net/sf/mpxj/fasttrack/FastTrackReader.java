@@ -49,7 +49,7 @@ import net.sf.mpxj.common.FileHelper;
 import net.sf.mpxj.common.InputStreamHelper;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.listener.ProjectListener;
-import net.sf.mpxj.reader.ProjectReader;
+import net.sf.mpxj.reader.AbstractProjectReader;
 
 // TODO:
 // 1. Handle multiple bars per activity
@@ -64,7 +64,7 @@ import net.sf.mpxj.reader.ProjectReader;
 /**
  * Reads FastTrack FTS files.
  */
-public final class FastTrackReader implements ProjectReader
+public final class FastTrackReader extends AbstractProjectReader
 {
    /**
     * {@inheritDoc}
@@ -139,6 +139,8 @@ public final class FastTrackReader implements ProjectReader
    private ProjectFile read() throws Exception
    {
       m_project = new ProjectFile();
+      applyFieldStoreType(m_project);
+      m_project.beginBulkLoad();
       m_eventManager = m_project.getEventManager();
 
       ProjectConfig config = m_project.getProjectConfig();
@@ -161,6 +163,8 @@ public final class FastTrackReader implements ProjectReader
       processDependencies();
       processAssignments();
 
+      m_project.endBulkLoad();
+
       return m_project;
    }
 
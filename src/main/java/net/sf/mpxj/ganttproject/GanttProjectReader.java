@@ -71,6 +71,7 @@ import net.sf.mpxj.ResourceAssignment;
 import net.sf.mpxj.ResourceField;
 import net.sf.mpxj.Task;
 import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.common.JAXBContextCache;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.common.Pair;
 import net.sf.mpxj.common.ResourceFieldLists;
@@ -118,6 +119,8 @@ public final class GanttProjectReader extends AbstractProjectReader
       try
       {
          m_projectFile = new ProjectFile();
+         applyFieldStoreType(m_projectFile);
+         m_projectFile.beginBulkLoad();
          m_eventManager = m_projectFile.getEventManager();
          m_resourcePropertyDefinitions = new HashMap<String, Pair<FieldType, String>>();
          m_taskPropertyDefinitions = new HashMap<String, Pair<FieldType, String>>();
@@ -162,6 +165,8 @@ public final class GanttProjectReader extends AbstractProjectReader
          //
          config.updateUniqueCounters();
 
+         m_projectFile.endBulkLoad();
+
          return m_projectFile;
       }
 
@@ -921,15 +926,7 @@ public final class GanttProjectReader extends AbstractProjectReader
    {
       try
       {
-         //
-         // JAXB RI property to speed up construction
-         //
-         System.setProperty("com.sun.xml.bind.v2.runtime.JAXBContextImpl.fastBoot", "true");
-
-         //
-         // Construct the context
-         //
-         CONTEXT = JAXBContext.newInstance("net.sf.mpxj.ganttproject.schema", GanttProjectReader.class.getClassLoader());
+         CONTEXT = JAXBContextCache.getContext(JAXBContextCache.GANTTPROJECT);
       }
 
       catch (JAXBException ex)
@@ -79,7 +79,7 @@ import net.sf.mpxj.common.FileHelper;
 import net.sf.mpxj.common.InputStreamHelper;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.listener.ProjectListener;
-import net.sf.mpxj.reader.ProjectReader;
+import net.sf.mpxj.reader.AbstractProjectReader;
 
 /**
  * This class reads Merlin Project files. As Merlin is a Mac application, the "file"
@@ -88,7 +88,7 @@ import net.sf.mpxj.reader.ProjectReader;
  * file, or the read methods that accept a file name or a File object can be pointed at
  * the top level directory.
  */
-public final class MerlinReader implements ProjectReader
+public final class MerlinReader extends AbstractProjectReader
 {
    /**
     * {@inheritDoc}
@@ -208,6 +208,8 @@ public final class MerlinReader implements ProjectReader
    private ProjectFile read() throws Exception
    {
       m_project = new ProjectFile();
+      applyFieldStoreType(m_project);
+      m_project.beginBulkLoad();
       m_eventManager = m_project.getEventManager();
 
       ProjectConfig config = m_project.getProjectConfig();
@@ -228,6 +230,8 @@ public final class MerlinReader implements ProjectReader
       processAssignments();
       processDependencies();
 
+      m_project.endBulkLoad();
+
       return m_project;
    }
 
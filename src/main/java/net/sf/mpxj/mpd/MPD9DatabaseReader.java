@@ -38,6 +38,7 @@ import java.util.Set;
 
 import javax.sql.DataSource;
 
+import net.sf.mpxj.FieldStoreType;
 import net.sf.mpxj.MPXJException;
 import net.sf.mpxj.ProjectCalendar;
 import net.sf.mpxj.ProjectConfig;
@@ -105,6 +106,8 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
       try
       {
          m_project = new ProjectFile();
+         m_project.getProjectConfig().setFieldStoreType(m_fieldStoreType);
+         m_project.beginBulkLoad();
          m_eventManager = m_project.getEventManager();
 
          ProjectConfig config = m_project.getProjectConfig();
@@ -136,6 +139,8 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
          processSubProjects();
          postProcessing();
 
+         m_project.endBulkLoad();
+
          return (m_project);
       }
 
@@ -641,6 +646,17 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
       }
    }
 
+   /**
+    * Sets the type of field store used by tasks, resources and
+    * resource assignments in the project read.
+    *
+    * @param type field store type
+    */
+   public void setFieldStoreType(FieldStoreType type)
+   {
+      m_fieldStoreType = type;
+   }
+
    /**
     * Sets the data source used to read the project data.
     *
@@ -715,6 +731,7 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
    private ResultSet m_rs;
    private Map<String, Integer> m_meta = new HashMap<String, Integer>();
    private List<ProjectListener> m_projectListeners;
+   private FieldStoreType m_fieldStoreType;
    private boolean m_hasResourceBaselines;
    private boolean m_hasTaskBaselines;
    private boolean m_hasAssignmentBaselines;
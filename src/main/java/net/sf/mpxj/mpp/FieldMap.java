@@ -30,6 +30,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -197,6 +198,7 @@ abstract class FieldMap
 
          index += 28;
       }
+      m_containerItems.clear();
    }
 
    /**
@@ -345,6 +347,7 @@ abstract class FieldMap
 
             index += 4;
          }
+         m_containerItems.clear();
       }
    }
 
@@ -415,31 +418,58 @@ abstract class FieldMap
       {
          m_map.put(item.getType(), item);
       }
+      m_containerItems.clear();
    }
 
    /**
-    * Given a container, and a set of raw data blocks, this method extracts
-    * the field data and writes it into the container.
+    * Given a container, and the fixed data items for an entity, this method
+    * extracts the field data and writes it into the container.
     *
     * @param type expected type
     * @param container field container
     * @param id entity ID
-    * @param fixedData fixed data block
+    * @param fixedData fixed data items
     * @param varData var data block
     */
-   public void populateContainer(Class<? extends FieldType> type, FieldContainer container, Integer id, byte[][] fixedData, Var2Data varData)
+   public void populateContainer(Class<? extends FieldType> type, FieldContainer container, Integer id, FixedDataItems fixedData, Var2Data varData)
    {
       //System.out.println(container.getClass().getSimpleName()+": " + id);
-      for (FieldItem item : m_map.values())
+      for (FieldItem item : getContainerItems(type))
       {
-         if (item.getType().getClass().equals(type))
+         //System.out.println(item.m_type);
+         Object value = item.read(id, fixedData, varData);
+         //System.out.println(item.m_type.getClass().getSimpleName() + "." + item.m_type +  ": " + value);
+         container.set(item.getType(), value);
+      }
+   }
+
+   /**
+    * Retrieve the items used to populate a container of the given type.
+    * The items for each type are selected from the field map once,
+    * rather than testing every item each time a container is populated.
+    * Items whose location is not known are included, as the
+    * container field is still set to null.
+    *
+    * @param type expected type
+    * @return field items for this type
+    */
+   private FieldItem[] getContainerItems(Class<? extends FieldType> type)
+   {
+      FieldItem[] result = m_containerItems.get(type);
+      if (result == null)
+      {
+         List<FieldItem> items = new ArrayList<FieldItem>();
+         for (FieldItem item : m_map.values())
          {
-            //System.out.println(item.m_type);
-            Object value = item.read(id, fixedData, varData);
-            //System.out.println(item.m_type.getClass().getSimpleName() + "." + item.m_type +  ": " + value);
-            container.set(item.getType(), value);
+            if (item.getType().getClass().equals(type))
+            {
+               items.add(item);
+            }
          }
+         result = items.toArray(new FieldItem[items.size()]);
+         m_containerItems.put(type, result);
       }
+      return result;
    }
 
    /**
@@ -539,7 +569,7 @@ abstract class FieldMap
     * @param varData var data block
     * @return field value
     */
-   protected Object getFieldData(Integer id, FieldType type, byte[][] fixedData, Var2Data varData)
+   protected Object getFieldData(Integer id, FieldType type, FixedDataItems fixedData, Var2Data varData)
    {
       Object result = null;
 
@@ -568,6 +598,7 @@ abstract class FieldMap
    public void clear()
    {
       m_map.clear();
+      m_containerItems.clear();
       Arrays.fill(m_maxFixedDataSize, 0);
    }
 
@@ -730,6 +761,7 @@ abstract class FieldMap
          m_location = location;
          m_fixedDataBlockIndex = fixedDataBlockIndex;
          m_fixedDataOffset = fixedDataOffset;
+         m_fixedDataSize = getFixedDataFieldSize(type);
          m_varDataKey = Integer.valueOf(varDataKey);
          m_mask = mask;
          m_metaBlock = metaBlock;
@@ -743,7 +775,7 @@ abstract class FieldMap
        * @param varData var data block
        * @return field value
        */
-      public Object read(Integer id, byte[][] fixedData, Var2Data varData)
+      public Object read(Integer id, FixedDataItems fixedData, Var2Data varData)
       {
          Object result = null;
 
@@ -792,25 +824,38 @@ abstract class FieldMap
        * @param varData var data block
        * @return field value
        */
-      private Object readFixedData(Integer id, byte[][] fixedData, Var2Data varData)
+      private Object readFixedData(Integer id, FixedDataItems fixedData, Var2Data varData)
       {
          Object result = null;
-         if (m_fixedDataBlockIndex < fixedData.length)
+         if (m_fixedDataBlockIndex < fixedData.getBlockCount())
          {
-            byte[] data = fixedData[m_fixedDataBlockIndex];
-            if (data != null && m_fixedDataOffset < data.length)
+            byte[] data = fixedData.getBuffer(m_fixedDataBlockIndex);
+            int size = fixedData.getSize(m_fixedDataBlockIndex);
+            if (data != null && m_fixedDataOffset < size)
             {
+               int offset = fixedData.getOffset(m_fixedDataBlockIndex) + m_fixedDataOffset;
+
+               //
+               // If the value runs past the end of the item, read it
+               // from a copy of the item rather than the following data.
+               //
+               if (m_fixedDataOffset + m_fixedDataSize > size)
+               {
+                  data = MPPUtility.cloneSubArray(data, fixedData.getOffset(m_fixedDataBlockIndex), size);
+                  offset = m_fixedDataOffset;
+               }
+
                switch (m_type.getDataType())
                {
                   case DATE:
                   {
-                     result = MPPUtility.getTimestamp(data, m_fixedDataOffset);
+                     result = MPPUtility.getTimestamp(data, offset);
                      break;
                   }
 
                   case INTEGER:
                   {
-                     result = Integer.valueOf(MPPUtility.getInt(data, m_fixedDataOffset));
+                     result = Integer.valueOf(MPPUtility.getInt(data, offset));
                      break;
                   }
 
@@ -823,117 +868,117 @@ abstract class FieldMap
                         units = getProjectProperties().getDefaultDurationUnits();
                      }
 
-                     result = MPPUtility.getAdjustedDuration(getProjectProperties(), MPPUtility.getInt(data, m_fixedDataOffset), units);
+                     result = MPPUtility.getAdjustedDuration(getProjectProperties(), MPPUtility.getInt(data, offset), units);
                      break;
                   }
 
                   case TIME_UNITS:
                   {
-                     result = MPPUtility.getDurationTimeUnits(MPPUtility.getShort(data, m_fixedDataOffset), getProjectProperties().getDefaultDurationUnits());
+                     result = MPPUtility.getDurationTimeUnits(MPPUtility.getShort(data, offset), getProjectProperties().getDefaultDurationUnits());
                      break;
                   }
 
                   case CONSTRAINT:
                   {
-                     result = ConstraintType.getInstance(MPPUtility.getShort(data, m_fixedDataOffset));
+                     result = ConstraintType.getInstance(MPPUtility.getShort(data, offset));
                      break;
                   }
 
                   case PRIORITY:
                   {
-                     result = Priority.getInstance(MPPUtility.getShort(data, m_fixedDataOffset));
+                     result = Priority.getInstance(MPPUtility.getShort(data, offset));
                      break;
                   }
 
                   case PERCENTAGE:
                   {
-                     result = MPPUtility.getPercentage(data, m_fixedDataOffset);
+                     result = MPPUtility.getPercentage(data, offset);
                      break;
                   }
 
                   case TASK_TYPE:
                   {
-                     result = TaskType.getInstance(MPPUtility.getShort(data, m_fixedDataOffset));
+                     result = TaskType.getInstance(MPPUtility.getShort(data, offset));
                      break;
                   }
 
                   case ACCRUE:
                   {
-                     result = AccrueType.getInstance(MPPUtility.getShort(data, m_fixedDataOffset));
+                     result = AccrueType.getInstance(MPPUtility.getShort(data, offset));
                      break;
                   }
 
                   case CURRENCY:
                   case UNITS:
                   {
-                     result = NumberHelper.getDouble(MPPUtility.getDouble(data, m_fixedDataOffset) / 100);
+                     result = NumberHelper.getDouble(MPPUtility.getDouble(data, offset) / 100);
                      break;
                   }
 
                   case RATE:
                   {
-                     result = new Rate(MPPUtility.getDouble(data, m_fixedDataOffset), TimeUnit.HOURS);
+                     result = new Rate(MPPUtility.getDouble(data, offset), TimeUnit.HOURS);
                      break;
                   }
 
                   case WORK:
                   {
-                     result = Duration.getInstance(MPPUtility.getDouble(data, m_fixedDataOffset) / 60000, TimeUnit.HOURS);
+                     result = Duration.getInstance(MPPUtility.getDouble(data, offset) / 60000, TimeUnit.HOURS);
                      break;
                   }
 
                   case SHORT:
                   {
-                     result = Integer.valueOf(MPPUtility.getShort(data, m_fixedDataOffset));
+                     result = Integer.valueOf(MPPUtility.getShort(data, offset));
                      break;
                   }
 
                   case BOOLEAN:
                   {
-                     result = Boolean.valueOf(MPPUtility.getShort(data, m_fixedDataOffset) != 0);
+                     result = Boolean.valueOf(MPPUtility.getShort(data, offset) != 0);
                      break;
                   }
 
                   case DELAY:
                   {
-                     result = MPPUtility.getDuration(MPPUtility.getShort(data, m_fixedDataOffset), TimeUnit.HOURS);
+                     result = MPPUtility.getDuration(MPPUtility.getShort(data, offset), TimeUnit.HOURS);
                      break;
                   }
 
                   case WORK_UNITS:
                   {
-                     int variableRateUnitsValue = MPPUtility.getByte(data, m_fixedDataOffset);
+                     int variableRateUnitsValue = MPPUtility.getByte(data, offset);
                      result = variableRateUnitsValue == 0 ? null : MPPUtility.getWorkTimeUnits(variableRateUnitsValue);
                      break;
                   }
 
                   case WORKGROUP:
                   {
-                     result = WorkGroup.getInstance(MPPUtility.getShort(data, m_fixedDataOffset));
+                     result = WorkGroup.getInstance(MPPUtility.getShort(data, offset));
                      break;
                   }
 
                   case RATE_UNITS:
                   {
-                     result = TimeUnit.getInstance(MPPUtility.getShort(data, m_fixedDataOffset) - 1);
+                     result = TimeUnit.getInstance(MPPUtility.getShort(data, offset) - 1);
                      break;
                   }
 
                   case EARNED_VALUE_METHOD:
                   {
-                     result = EarnedValueMethod.getInstance(MPPUtility.getShort(data, m_fixedDataOffset));
+                     result = EarnedValueMethod.getInstance(MPPUtility.getShort(data, offset));
                      break;
                   }
 
                   case RESOURCE_REQUEST_TYPE:
                   {
-                     result = ResourceRequestType.getInstance(MPPUtility.getShort(data, m_fixedDataOffset));
+                     result = ResourceRequestType.getInstance(MPPUtility.getShort(data, offset));
                      break;
                   }
 
                   case GUID:
                   {
-                     result = MPPUtility.getGUID(data, m_fixedDataOffset);
+                     result = MPPUtility.getGUID(data, offset);
                      break;
                   }
 
@@ -962,7 +1007,7 @@ abstract class FieldMap
        * @param varData var data block
        * @return field value
        */
-      private Object readVarData(Integer id, byte[][] fixedData, Var2Data varData)
+      private Object readVarData(Integer id, FixedDataItems fixedData, Var2Data varData)
       {
          Object result = null;
 
@@ -1434,6 +1479,7 @@ abstract class FieldMap
       private FieldLocation m_location;
       private int m_fixedDataBlockIndex;
       private int m_fixedDataOffset;
+      private int m_fixedDataSize;
       private Integer m_varDataKey;
       private long m_mask;
       private int m_metaBlock;
@@ -1442,6 +1488,7 @@ abstract class FieldMap
    private ProjectProperties m_properties;
    protected CustomFieldContainer m_customFields;
    private Map<FieldType, FieldItem> m_map = new HashMap<FieldType, FieldItem>();
+   private Map<Class<? extends FieldType>, FieldItem[]> m_containerItems = new HashMap<Class<? extends FieldType>, FieldItem[]>();
    private int[] m_maxFixedDataSize = new int[MAX_FIXED_DATA_BLOCKS];
    private boolean m_debug;
 
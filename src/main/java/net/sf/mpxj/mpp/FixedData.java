@@ -27,6 +27,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import net.sf.mpxj.common.ByteArrayHelper;
 
@@ -36,6 +39,9 @@ import net.sf.mpxj.common.ByteArrayHelper;
  * refer to the fact that the items held in these blocks have a known maximum
  * size, rather than all of the items being identically sized records.
  *
+ * The block is held in a single buffer, with each item represented by
+ * its offset and size within that buffer.
+ *
  * Note that this class has package level access only, and is not intended
  * for use outside of this context.
  */
@@ -98,12 +104,13 @@ final class FixedData extends MPPComponent
    FixedData(FixedMeta meta, InputStream is, int maxExpectedSize, int minSize)
       throws IOException
    {
-      byte[] buffer = new byte[is.available()];
-      is.read(buffer);
+      m_buffer = new byte[is.available()];
+      is.read(m_buffer);
+      byte[] buffer = m_buffer;
 
       int itemCount = meta.getAdjustedItemCount();
-      m_array = new Object[itemCount];
       m_offset = new int[itemCount];
+      m_size = createSizeArray(itemCount);
 
       int available;
 
@@ -162,8 +169,8 @@ final class FixedData extends MPPComponent
 
          if (itemSize > 0)
          {
-            m_array[loop] = MPPUtility.cloneSubArray(buffer, itemOffset, itemSize);
             m_offset[loop] = itemOffset;
+            m_size[loop] = itemSize;
          }
       }
    }
@@ -181,12 +188,13 @@ final class FixedData extends MPPComponent
    FixedData(FixedMeta meta, int itemSize, InputStream is)
       throws IOException
    {
-      byte[] buffer = new byte[is.available()];
-      is.read(buffer);
+      m_buffer = new byte[is.available()];
+      is.read(m_buffer);
+      byte[] buffer = m_buffer;
 
       int itemCount = meta.getAdjustedItemCount();
-      m_array = new Object[itemCount];
       m_offset = new int[itemCount];
+      m_size = createSizeArray(itemCount);
 
       byte[] metaData;
       int itemOffset;
@@ -216,8 +224,8 @@ final class FixedData extends MPPComponent
             }
          }
 
-         m_array[loop] = MPPUtility.cloneSubArray(buffer, itemOffset, itemSize);
          m_offset[loop] = itemOffset;
+         m_size[loop] = itemSize;
       }
    }
 
@@ -253,34 +261,32 @@ final class FixedData extends MPPComponent
    FixedData(int itemSize, InputStream is, boolean readRemainderBlock)
       throws IOException
    {
+      m_buffer = new byte[is.available()];
+      is.read(m_buffer);
+
       int offset = 0;
-      int itemCount = is.available() / itemSize;
-      if (readRemainderBlock == true && is.available() % itemSize != 0)
+      int itemCount = m_buffer.length / itemSize;
+      if (readRemainderBlock == true && m_buffer.length % itemSize != 0)
       {
          ++itemCount;
       }
 
-      m_array = new Object[itemCount];
       m_offset = new int[itemCount];
+      m_size = new int[itemCount];
 
       for (int loop = 0; loop < itemCount; loop++)
       {
          m_offset[loop] = offset;
-
-         int currentItemSize = itemSize;
-         if (readRemainderBlock == true && is.available() < itemSize)
-         {
-            currentItemSize = is.available();
-         }
-         m_array[loop] = readByteArray(is, currentItemSize);
+         m_size[loop] = Math.min(itemSize, m_buffer.length - offset);
          offset += itemSize;
       }
    }
 
    /**
-    * This method retrieves a byte array containing the data at the
-    * given index in the block. If no data is found at the given index
-    * this method returns null.
+    * This method retrieves a byte array containing a copy of the data at
+    * the given index in the block. If no data is found at the given index
+    * this method returns null. Where only individual values are required,
+    * the offset based accessors avoid copying the data.
     *
     * @param index index of the data item to be retrieved
     * @return byte array containing the requested data
@@ -289,14 +295,124 @@ final class FixedData extends MPPComponent
    {
       byte[] result = null;
 
-      if (index >= 0 && index < m_array.length && m_array[index] != null)
+      if (index >= 0 && index < m_size.length && m_size[index] != -1)
       {
-         result = (byte[]) m_array[index];
+         result = MPPUtility.cloneSubArray(m_buffer, m_offset[index], m_size[index]);
       }
 
       return (result);
    }
 
+   /**
+    * Retrieve the size of the item at the given index in the block.
+    *
+    * @param index index of the data item
+    * @return item size, or -1 if no data is present at this index
+    */
+   public int getSize(int index)
+   {
+      return index >= 0 && index < m_size.length ? m_size[index] : -1;
+   }
+
+   /**
+    * Retrieve the position of the item at the given index within the
+    * buffer returned by getBuffer.
+    *
+    * @param index index of the data item
+    * @return item position
+    */
+   public int getOffset(int index)
+   {
+      return m_offset[index];
+   }
+
+   /**
+    * Retrieve the buffer holding the whole block. This is not a copy,
+    * and must not be modified.
+    *
+    * @return block buffer
+    */
+   public byte[] getBuffer()
+   {
+      return m_buffer;
+   }
+
+   /**
+    * Read a one byte integer from an item without copying it.
+    * The item must be present. Any part of the value which lies
+    * beyond the end of the item is read as zero.
+    *
+    * @param index index of the data item
+    * @param offset offset of the value within the item
+    * @return integer value
+    */
+   public int getByte(int index, int offset)
+   {
+      return offset + 1 <= m_size[index] ? MPPUtility.getByte(m_buffer, m_offset[index] + offset) : MPPUtility.getByte(getPaddedValue(index, offset, 1), 0);
+   }
+
+   /**
+    * Read a two byte integer from an item without copying it.
+    * The item must be present. Any part of the value which lies
+    * beyond the end of the item is read as zero.
+    *
+    * @param index index of the data item
+    * @param offset offset of the value within the item
+    * @return integer value
+    */
+   public int getShort(int index, int offset)
+   {
+      return offset + 2 <= m_size[index] ? MPPUtility.getShort(m_buffer, m_offset[index] + offset) : MPPUtility.getShort(getPaddedValue(index, offset, 2), 0);
+   }
+
+   /**
+    * Read a four byte integer from an item without copying it.
+    * The item must be present. Any part of the value which lies
+    * beyond the end of the item is read as zero.
+    *
+    * @param index index of the data item
+    * @param offset offset of the value within the item
+    * @return integer value
+    */
+   public int getInt(int index, int offset)
+   {
+      return offset + 4 <= m_size[index] ? MPPUtility.getInt(m_buffer, m_offset[index] + offset) : MPPUtility.getInt(getPaddedValue(index, offset, 4), 0);
+   }
+
+   /**
+    * Read an eight byte integer from an item without copying it.
+    * The item must be present. Any part of the value which lies
+    * beyond the end of the item is read as zero.
+    *
+    * @param index index of the data item
+    * @param offset offset of the value within the item
+    * @return long value
+    */
+   public long getLong(int index, int offset)
+   {
+      return offset + 8 <= m_size[index] ? MPPUtility.getLong(m_buffer, m_offset[index] + offset) : MPPUtility.getLong(getPaddedValue(index, offset, 8), 0);
+   }
+
+   /**
+    * Copy a value which may extend beyond the end of an item,
+    * replacing the missing bytes with zeros.
+    *
+    * @param index index of the data item
+    * @param offset offset of the value within the item
+    * @param length value length
+    * @return value bytes
+    */
+   private byte[] getPaddedValue(int index, int offset, int length)
+   {
+      byte[] result = new byte[length];
+      int count = Math.min(length, m_size[index] - offset);
+      if (count > 0)
+      {
+         System.arraycopy(m_buffer, m_offset[index] + offset, result, 0, count);
+      }
+      return result;
+   }
+
    /**
     * Accessor method used to retrieve the number of items held in
     * this fixed data block. Note that this item count is made without
@@ -306,7 +422,7 @@ final class FixedData extends MPPComponent
     */
    public int getItemCount()
    {
-      return (m_array.length);
+      return (m_size.length);
    }
 
    /**
@@ -330,7 +446,7 @@ final class FixedData extends MPPComponent
     */
    public boolean isValidOffset(int offset)
    {
-      return (offset >= 0 && offset < m_array.length);
+      return (offset >= 0 && offset < m_size.length);
    }
 
    /**
@@ -343,18 +459,31 @@ final class FixedData extends MPPComponent
     */
    public int getIndexFromOffset(int offset)
    {
-      int result = -1;
-
-      for (int loop = 0; loop < m_offset.length; loop++)
+      if (m_offsetIndex == null)
       {
-         if (m_offset[loop] == offset)
+         Map<Integer, Integer> offsetIndex = new HashMap<Integer, Integer>();
+         for (int loop = m_offset.length - 1; loop >= 0; loop--)
          {
-            result = loop;
-            break;
+            offsetIndex.put(Integer.valueOf(m_offset[loop]), Integer.valueOf(loop));
          }
+         m_offsetIndex = offsetIndex;
       }
 
-      return (result);
+      Integer result = m_offsetIndex.get(Integer.valueOf(offset));
+      return (result == null ? -1 : result.intValue());
+   }
+
+   /**
+    * Create an array of item sizes, initially marking all items as absent.
+    *
+    * @param itemCount number of items
+    * @return size array
+    */
+   private static int[] createSizeArray(int itemCount)
+   {
+      int[] result = new int[itemCount];
+      Arrays.fill(result, -1);
+      return result;
    }
 
    /**
@@ -369,10 +498,10 @@ final class FixedData extends MPPComponent
       PrintWriter pw = new PrintWriter(sw);
 
       pw.println("BEGIN FixedData");
-      for (int loop = 0; loop < m_array.length; loop++)
+      for (int loop = 0; loop < m_size.length; loop++)
       {
          pw.println("   Data at index: " + loop + " offset: " + m_offset[loop]);
-         pw.println("  " + ByteArrayHelper.hexdump((byte[]) m_array[loop], true));
+         pw.println("  " + ByteArrayHelper.hexdump(getByteArrayValue(loop), true));
       }
       pw.println("END FixedData");
 
@@ -382,13 +511,23 @@ final class FixedData extends MPPComponent
    }
 
    /**
-    * An array containing all of the items of data held in this block.
+    * Buffer containing the whole block.
     */
-   private Object[] m_array;
+   private byte[] m_buffer;
 
    /**
-    * Array containing offset values for each item in the array.
+    * Array containing offset values for each item in the block.
     */
    private int[] m_offset;
 
+   /**
+    * Array containing the size of each item in the block, -1 if the item is absent.
+    */
+   private int[] m_size;
+
+   /**
+    * Lazily created map of item offsets to item indexes.
+    */
+   private Map<Integer, Integer> m_offsetIndex;
+
 }
@@ -0,0 +1,139 @@
+/*
+ * file:       FixedDataItems.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.mpp;
+
+/**
+ * Identifies the fixed data items holding the field values for a single
+ * entity, one item from each fixed data block. Where possible, values are
+ * read directly from the buffer holding each block rather than from a
+ * copy of the item.
+ */
+final class FixedDataItems
+{
+   /**
+    * Constructor.
+    *
+    * @param blockCount number of fixed data blocks
+    */
+   public FixedDataItems(int blockCount)
+   {
+      m_buffer = new byte[blockCount][];
+      m_offset = new int[blockCount];
+      m_size = new int[blockCount];
+   }
+
+   /**
+    * Set the item to be read from a fixed data block. If the item is
+    * shorter than the minimum size, a copy padded with zeros is used.
+    *
+    * @param block block number
+    * @param data fixed data block, may be null
+    * @param index index of the item in the fixed data block
+    * @param minimumSize minimum item size
+    */
+   public void set(int block, FixedData data, int index, int minimumSize)
+   {
+      int size = data == null ? -1 : data.getSize(index);
+      if (size == -1)
+      {
+         set(block, null);
+      }
+      else
+      {
+         if (size < minimumSize)
+         {
+            byte[] copy = new byte[minimumSize];
+            System.arraycopy(data.getBuffer(), data.getOffset(index), copy, 0, size);
+            set(block, copy);
+         }
+         else
+         {
+            m_buffer[block] = data.getBuffer();
+            m_offset[block] = data.getOffset(index);
+            m_size[block] = size;
+         }
+      }
+   }
+
+   /**
+    * Set the data to be read for a block.
+    *
+    * @param block block number
+    * @param data item data, may be null
+    */
+   public void set(int block, byte[] data)
+   {
+      m_buffer[block] = data;
+      m_offset[block] = 0;
+      m_size[block] = data == null ? 0 : data.length;
+   }
+
+   /**
+    * Retrieve the number of blocks.
+    *
+    * @return block count
+    */
+   public int getBlockCount()
+   {
+      return m_buffer.length;
+   }
+
+   /**
+    * Retrieve the buffer holding the item for a block.
+    *
+    * @param block block number
+    * @return buffer, or null if no item is present
+    */
+   public byte[] getBuffer(int block)
+   {
+      return m_buffer[block];
+   }
+
+   /**
+    * Retrieve the position of the item within its buffer.
+    *
+    * @param block block number
+    * @return item position
+    */
+   public int getOffset(int block)
+   {
+      return m_offset[block];
+   }
+
+   /**
+    * Retrieve the size of the item for a block.
+    *
+    * @param block block number
+    * @return item size
+    */
+   public int getSize(int block)
+   {
+      return m_size[block];
+   }
+
+   private final byte[][] m_buffer;
+   private final int[] m_offset;
+   private final int[] m_size;
+}
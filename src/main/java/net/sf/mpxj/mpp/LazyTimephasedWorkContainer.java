@@ -0,0 +1,86 @@
+/*
+ * file:       LazyTimephasedWorkContainer.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       20/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.mpp;
+
+import java.util.List;
+
+import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.TimephasedWorkContainer;
+
+/**
+ * Holds the raw timephased work data read from an MPP file, and decodes
+ * it the first time the timephased data is requested. This avoids the cost
+ * of decoding timephased data which is never used.
+ */
+abstract class LazyTimephasedWorkContainer implements TimephasedWorkContainer
+{
+   /**
+    * Constructor.
+    *
+    * @param data raw timephased data
+    */
+   public LazyTimephasedWorkContainer(byte[] data)
+   {
+      m_data = data;
+   }
+
+   @Override public List<TimephasedWork> getData()
+   {
+      TimephasedWorkContainer container = getContainer();
+      return container == null ? null : container.getData();
+   }
+
+   @Override public boolean hasData()
+   {
+      TimephasedWorkContainer container = getContainer();
+      return container != null && container.hasData();
+   }
+
+   /**
+    * Decode the raw data on first use.
+    *
+    * @return decoded timephased data, may be null
+    */
+   private synchronized TimephasedWorkContainer getContainer()
+   {
+      if (m_data != null)
+      {
+         m_container = decode(m_data);
+         m_data = null;
+      }
+      return m_container;
+   }
+
+   /**
+    * Decode the raw timephased data.
+    *
+    * @param data raw timephased data
+    * @return decoded timephased data, may be null
+    */
+   protected abstract TimephasedWorkContainer decode(byte[] data);
+
+   private byte[] m_data;
+   private TimephasedWorkContainer m_container;
+}
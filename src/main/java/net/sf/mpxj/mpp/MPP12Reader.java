@@ -969,7 +969,7 @@ final class MPP12Reader implements MPPVariantReader
       // which contains all the tasks.
       Object[] uniqueIdArray = taskMap.keySet().toArray(); //taskVarMeta.getUniqueIdentifierArray();
       Integer offset;
-      byte[] data;
+      FixedDataItems items = new FixedDataItems(2);
       byte[] metaData;
       byte[] metaData2;
       Task task;
@@ -988,44 +988,38 @@ final class MPP12Reader implements MPPVariantReader
             continue;
          }
 
-         data = taskFixedData.getByteArrayValue(offset.intValue());
-         Integer id = Integer.valueOf(MPPUtility.getInt(data, fieldMap.getFixedDataOffset(TaskField.ID)));
+         int index = offset.intValue();
+         Integer id = Integer.valueOf(taskFixedData.getInt(index, fieldMap.getFixedDataOffset(TaskField.ID)));
 
-         if (data.length == NULL_TASK_BLOCK_SIZE)
+         if (taskFixedData.getSize(index) == NULL_TASK_BLOCK_SIZE)
          {
             task = m_file.addTask();
             task.setNull(true);
-            task.setUniqueID(Integer.valueOf(MPPUtility.getShort(data, TASK_UNIQUE_ID_FIXED_OFFSET)));
-            task.setID(Integer.valueOf(MPPUtility.getShort(data, TASK_ID_FIXED_OFFSET)));
+            task.setUniqueID(Integer.valueOf(taskFixedData.getShort(index, TASK_UNIQUE_ID_FIXED_OFFSET)));
+            task.setID(Integer.valueOf(taskFixedData.getShort(index, TASK_ID_FIXED_OFFSET)));
             m_nullTaskOrder.put(task.getID(), task.getUniqueID());
             continue;
          }
 
-         if (data.length < fieldMap.getMaxFixedDataSize(0))
+         //
+         // Short items are skipped, other than the project summary task
+         // which is padded when its fixed data items are set below.
+         //
+         if (taskFixedData.getSize(index) < fieldMap.getMaxFixedDataSize(0) && uniqueID.intValue() != 0)
          {
-            if (uniqueID.intValue() == 0)
-            {
-               byte[] newData = new byte[fieldMap.getMaxFixedDataSize(0) + 8];
-               System.arraycopy(data, 0, newData, 0, data.length);
-               data = newData;
-            }
-            else
-            {
-               continue;
-            }
+            continue;
          }
 
          //System.out.println (id+": "+ByteArrayHelper.hexdump(data, false, 16, ""));
 
-         metaData = taskFixedMeta.getByteArrayValue(offset.intValue());
+         metaData = taskFixedMeta.getByteArrayValue(index);
          //System.out.println (ByteArrayHelper.hexdump(data, false, 16, ""));
          //System.out.println (ByteArrayHelper.hexdump(metaData, false, 16, ""));
          //MPPUtility.dataDump(data, true, true, true, true, true, true, true);
          //MPPUtility.dataDump(metaData, true, true, true, true, true, true, true);
          //MPPUtility.varDataDump(taskVarData, id, true, true, true, true, true, true);
 
-         metaData2 = taskFixed2Meta.getByteArrayValue(offset.intValue());
-         byte[] data2 = taskFixed2Data.getByteArrayValue(offset.intValue());
+         metaData2 = taskFixed2Meta.getByteArrayValue(index);
          //System.out.println (ByteArrayHelper.hexdump(metaData2, false, 16, ""));
          //System.out.println (ByteArrayHelper.hexdump(data2, false, 16, ""));
 
@@ -1055,18 +1049,16 @@ final class MPP12Reader implements MPPVariantReader
 
          task.disableEvents();
 
-         fieldMap.populateContainer(TaskField.class, task, uniqueID, new byte[][]
-         {
-            data,
-            data2
-         }, taskVarData);
+         items.set(0, taskFixedData, index, fieldMap.getMaxFixedDataSize(0) + 8);
+         items.set(1, taskFixed2Data, index, 0);
+         fieldMap.populateContainer(TaskField.class, task, uniqueID, items, taskVarData);
 
-         enterpriseCustomFieldMap.populateContainer(TaskField.class, task, uniqueID, null, taskVarData);
+         enterpriseCustomFieldMap.populateContainer(TaskField.class, task, uniqueID, items, taskVarData);
 
          task.enableEvents();
 
          task.setEffortDriven((metaData[11] & 0x10) != 0);
-         task.setEstimated(getDurationEstimated(MPPUtility.getShort(data, fieldMap.getFixedDataOffset(TaskField.ACTUAL_DURATION_UNITS))));
+         task.setEstimated(getDurationEstimated(taskFixedData.getShort(index, fieldMap.getFixedDataOffset(TaskField.ACTUAL_DURATION_UNITS))));
          task.setExpanded(((metaData[12] & 0x02) == 0));
 
          Integer externalTaskID = task.getSubprojectTaskID();
@@ -1248,13 +1240,13 @@ final class MPP12Reader implements MPPVariantReader
             continue;
          }
 
-         if (data2 == null || data2.length < 24)
+         if (taskFixed2Data.getSize(index) < 24)
          {
             m_nullTaskOrder.put(task.getID(), task.getUniqueID());
          }
          else
          {
-            Long key = Long.valueOf(MPPUtility.getLong(data2, 16));
+            Long key = Long.valueOf(taskFixed2Data.getLong(index, 16));
             m_taskOrder.put(key, task.getUniqueID());
          }
 
@@ -1719,7 +1711,7 @@ final class MPP12Reader implements MPPVariantReader
       Integer[] uniqueid = rscVarMeta.getUniqueIdentifierArray();
       Integer id;
       Integer offset;
-      byte[] data;
+      FixedDataItems items = new FixedDataItems(2);
       byte[] metaData;
       Resource resource;
 
@@ -1734,9 +1726,8 @@ final class MPP12Reader implements MPPVariantReader
             continue;
          }
 
-         data = rscFixedData.getByteArrayValue(offset.intValue());
-         byte[] metaData2 = rscFixed2Meta.getByteArrayValue(offset.intValue());
-         byte[] data2 = rscFixed2Data.getByteArrayValue(offset.intValue());
+         int index = offset.intValue();
+         byte[] metaData2 = rscFixed2Meta.getByteArrayValue(index);
          //metaData = rscFixedMeta.getByteArrayValue(offset.intValue());
          //MPPUtility.dataDump(data, true, true, true, true, true, true, true);
          //MPPUtility.dataDump(metaData, true, true, true, true, true, true, true);
@@ -1745,23 +1736,21 @@ final class MPP12Reader implements MPPVariantReader
          resource = m_file.addResource();
 
          resource.disableEvents();
-         fieldMap.populateContainer(ResourceField.class, resource, id, new byte[][]
-         {
-            data,
-            data2
-         }, rscVarData);
+         items.set(0, rscFixedData, index, 0);
+         items.set(1, rscFixed2Data, index, 0);
+         fieldMap.populateContainer(ResourceField.class, resource, id, items, rscVarData);
 
-         enterpriseCustomFieldMap.populateContainer(ResourceField.class, resource, id, null, rscVarData);
+         enterpriseCustomFieldMap.populateContainer(ResourceField.class, resource, id, items, rscVarData);
 
          resource.enableEvents();
 
          resource.setBudget((metaData2[8] & 0x20) != 0);
 
-         resource.setGUID(MPPUtility.getGUID(data2, 0));
+         resource.setGUID(rscFixed2Data.getSize(index) > 15 ? MPPUtility.getGUID(rscFixed2Data.getBuffer(), rscFixed2Data.getOffset(index)) : null);
 
          processHyperlinkData(resource, rscVarData.getByteArray(id, fieldMap.getVarDataKey(ResourceField.HYPERLINK_DATA)));
 
-         resource.setID(Integer.valueOf(MPPUtility.getInt(data, 4)));
+         resource.setID(Integer.valueOf(rscFixedData.getInt(index, 4)));
 
          resource.setOutlineCode1(m_outlineCodeVarData.getUnicodeString(Integer.valueOf(rscVarData.getInt(id, 2, fieldMap.getVarDataKey(ResourceField.OUTLINE_CODE1_INDEX))), OUTLINECODE_DATA));
          resource.setOutlineCode2(m_outlineCodeVarData.getUnicodeString(Integer.valueOf(rscVarData.getInt(id, 2, fieldMap.getVarDataKey(ResourceField.OUTLINE_CODE2_INDEX))), OUTLINECODE_DATA));
@@ -1776,7 +1765,7 @@ final class MPP12Reader implements MPPVariantReader
 
          resource.setUniqueID(id);
 
-         metaData = rscFixedMeta.getByteArrayValue(offset.intValue());
+         metaData = rscFixedMeta.getByteArrayValue(index);
          resource.setFlag(1, (metaData[28] & 0x40) != 0);
          resource.setFlag(2, (metaData[28] & 0x80) != 0);
          resource.setFlag(3, (metaData[29] & 0x01) != 0);
@@ -1876,7 +1865,7 @@ final class MPP12Reader implements MPPVariantReader
       FixedData assnFixedData = new FixedData(assnFixedMeta, m_inputStreamFactory.getInstance(assnDir, "FixedData"));
       FixedData assnFixedData2 = new FixedData(48, m_inputStreamFactory.getInstance(assnDir, "Fixed2Data"));
       ResourceAssignmentFactory factory = new ResourceAssignmentFactory();
-      factory.process(m_file, fieldMap, enterpriseCustomFieldMap, m_reader.getUseRawTimephasedData(), m_reader.getPreserveNoteFormatting(), assnVarMeta, assnVarData, assnFixedMeta, assnFixedData, assnFixedData2, assnFixedMeta.getAdjustedItemCount());
+      factory.process(m_file, fieldMap, enterpriseCustomFieldMap, m_reader.getUseRawTimephasedData(), m_reader.getCompactTimephasedData(), m_reader.getPreserveNoteFormatting(), assnVarMeta, assnVarData, assnFixedMeta, assnFixedData, assnFixedData2, assnFixedMeta.getAdjustedItemCount());
    }
 
    /**
@@ -980,7 +980,7 @@ final class MPP14Reader implements MPPVariantReader
       // which contains all the tasks.
       Object[] uniqueIdArray = taskMap.keySet().toArray(); //taskVarMeta.getUniqueIdentifierArray();
       Integer offset;
-      byte[] data;
+      FixedDataItems items = new FixedDataItems(2);
       byte[] metaData;
       byte[] metaData2;
       Task task;
@@ -1016,27 +1016,20 @@ final class MPP14Reader implements MPPVariantReader
             continue;
          }
 
-         data = taskFixedData.getByteArrayValue(offset.intValue());
-         metaData = taskFixedMeta.getByteArrayValue(offset.intValue());
-         Integer id = Integer.valueOf(MPPUtility.getInt(data, fieldMap.getFixedDataOffset(TaskField.ID)));
+         int index = offset.intValue();
+         metaData = taskFixedMeta.getByteArrayValue(index);
+         Integer id = Integer.valueOf(taskFixedData.getInt(index, fieldMap.getFixedDataOffset(TaskField.ID)));
 
-         if (data.length == NULL_TASK_BLOCK_SIZE)
+         if (taskFixedData.getSize(index) == NULL_TASK_BLOCK_SIZE)
          {
             task = m_file.addTask();
             task.setNull(true);
-            task.setUniqueID(Integer.valueOf(MPPUtility.getInt(data, TASK_UNIQUE_ID_FIXED_OFFSET)));
-            task.setID(Integer.valueOf(MPPUtility.getInt(data, TASK_ID_FIXED_OFFSET)));
+            task.setUniqueID(Integer.valueOf(taskFixedData.getInt(index, TASK_UNIQUE_ID_FIXED_OFFSET)));
+            task.setID(Integer.valueOf(taskFixedData.getInt(index, TASK_ID_FIXED_OFFSET)));
             m_nullTaskOrder.put(task.getID(), task.getUniqueID());
             continue;
          }
 
-         if (data.length < fieldMap.getMaxFixedDataSize(0))
-         {
-            byte[] newData = new byte[fieldMap.getMaxFixedDataSize(0) + 8];
-            System.arraycopy(data, 0, newData, 0, data.length);
-            data = newData;
-         }
-
          //System.out.println (ByteArrayHelper.hexdump(data, false, 16, ""));
          //System.out.println (ByteArrayHelper.hexdump(data,false));
          //System.out.println (ByteArrayHelper.hexdump(metaData, false, 16, ""));
@@ -1044,8 +1037,7 @@ final class MPP14Reader implements MPPVariantReader
          //MPPUtility.dataDump(metaData, true, true, true, true, true, true, true);
          //MPPUtility.varDataDump(taskVarData, id, true, true, true, true, true, true);
 
-         metaData2 = taskFixed2Meta.getByteArrayValue(offset.intValue());
-         byte[] data2 = taskFixed2Data.getByteArrayValue(offset.intValue());
+         metaData2 = taskFixed2Meta.getByteArrayValue(index);
          //System.out.println (ByteArrayHelper.hexdump(metaData2, false, 16, ""));
          //System.out.println(ByteArrayHelper.hexdump(data2, false, 16, ""));
          //System.out.println (ByteArrayHelper.hexdump(metaData2,false));
@@ -1076,17 +1068,15 @@ final class MPP14Reader implements MPPVariantReader
 
          task.disableEvents();
 
-         fieldMap.populateContainer(TaskField.class, task, uniqueID, new byte[][]
-         {
-            data,
-            data2
-         }, taskVarData);
+         items.set(0, taskFixedData, index, fieldMap.getMaxFixedDataSize(0) + 8);
+         items.set(1, taskFixed2Data, index, 0);
+         fieldMap.populateContainer(TaskField.class, task, uniqueID, items, taskVarData);
 
-         enterpriseCustomFieldMap.populateContainer(TaskField.class, task, uniqueID, null, taskVarData);
+         enterpriseCustomFieldMap.populateContainer(TaskField.class, task, uniqueID, items, taskVarData);
 
          task.enableEvents();
 
-         task.setEstimated(getDurationEstimated(MPPUtility.getShort(data, fieldMap.getFixedDataOffset(TaskField.ACTUAL_DURATION_UNITS))));
+         task.setEstimated(getDurationEstimated(taskFixedData.getShort(index, fieldMap.getFixedDataOffset(TaskField.ACTUAL_DURATION_UNITS))));
 
          Integer externalTaskID = task.getSubprojectTaskID();
          if (externalTaskID != null && externalTaskID.intValue() != 0)
@@ -1110,7 +1100,7 @@ final class MPP14Reader implements MPPVariantReader
          task.setOutlineCode(9, getCustomFieldOutlineCodeValue(taskVarData, m_outlineCodeVarData, uniqueID, fieldMap.getVarDataKey(TaskField.OUTLINE_CODE9_INDEX)));
          task.setOutlineCode(10, getCustomFieldOutlineCodeValue(taskVarData, m_outlineCodeVarData, uniqueID, fieldMap.getVarDataKey(TaskField.OUTLINE_CODE10_INDEX)));
 
-         task.setRecurring(MPPUtility.getShort(data, 40) == 2);
+         task.setRecurring(taskFixedData.getShort(index, 40) == 2);
 
          task.setUniqueID(uniqueID);
 
@@ -1270,13 +1260,13 @@ final class MPP14Reader implements MPPVariantReader
             continue;
          }
 
-         if (data2 == null || data2.length < 24)
+         if (taskFixed2Data.getSize(index) < 24)
          {
             m_nullTaskOrder.put(task.getID(), task.getUniqueID());
          }
          else
          {
-            Long key = Long.valueOf(MPPUtility.getLong(data2, 16));
+            Long key = Long.valueOf(taskFixed2Data.getLong(index, 16));
             m_taskOrder.put(key, task.getUniqueID());
          }
 
@@ -1612,7 +1602,7 @@ final class MPP14Reader implements MPPVariantReader
       Integer[] uniqueid = rscVarMeta.getUniqueIdentifierArray();
       Integer id;
       Integer offset;
-      byte[] data;
+      FixedDataItems items = new FixedDataItems(2);
       byte[] metaData;
       Resource resource;
       String notes;
@@ -1650,9 +1640,8 @@ final class MPP14Reader implements MPPVariantReader
             continue;
          }
 
-         data = rscFixedData.getByteArrayValue(offset.intValue());
-         byte[] metaData2 = rscFixed2Meta.getByteArrayValue(offset.intValue());
-         byte[] data2 = rscFixed2Data.getByteArrayValue(offset.intValue());
+         int index = offset.intValue();
+         byte[] metaData2 = rscFixed2Meta.getByteArrayValue(index);
          //metaData = rscFixedMeta.getByteArrayValue(offset.intValue());
          //MPPUtility.dataDump(data, true, true, true, true, true, true, true);
          //MPPUtility.dataDump(metaData, true, true, true, true, true, true, true);
@@ -1662,19 +1651,17 @@ final class MPP14Reader implements MPPVariantReader
 
          resource.disableEvents();
 
-         fieldMap.populateContainer(ResourceField.class, resource, id, new byte[][]
-         {
-            data,
-            data2
-         }, rscVarData);
+         items.set(0, rscFixedData, index, 0);
+         items.set(1, rscFixed2Data, index, 0);
+         fieldMap.populateContainer(ResourceField.class, resource, id, items, rscVarData);
 
-         enterpriseCustomFieldMap.populateContainer(ResourceField.class, resource, id, null, rscVarData);
+         enterpriseCustomFieldMap.populateContainer(ResourceField.class, resource, id, items, rscVarData);
 
          resource.enableEvents();
 
          processHyperlinkData(resource, rscVarData.getByteArray(id, fieldMap.getVarDataKey(ResourceField.HYPERLINK_DATA)));
 
-         resource.setID(Integer.valueOf(MPPUtility.getInt(data, fieldMap.getFixedDataOffset(ResourceField.ID))));
+         resource.setID(Integer.valueOf(rscFixedData.getInt(index, fieldMap.getFixedDataOffset(ResourceField.ID))));
 
          resource.setOutlineCode1(m_outlineCodeVarData.getUnicodeString(Integer.valueOf(rscVarData.getInt(id, 2, fieldMap.getVarDataKey(ResourceField.OUTLINE_CODE1_INDEX))), OUTLINECODE_DATA));
          resource.setOutlineCode2(m_outlineCodeVarData.getUnicodeString(Integer.valueOf(rscVarData.getInt(id, 2, fieldMap.getVarDataKey(ResourceField.OUTLINE_CODE2_INDEX))), OUTLINECODE_DATA));
@@ -1687,7 +1674,7 @@ final class MPP14Reader implements MPPVariantReader
          resource.setOutlineCode9(m_outlineCodeVarData.getUnicodeString(Integer.valueOf(rscVarData.getInt(id, 2, fieldMap.getVarDataKey(ResourceField.OUTLINE_CODE9_INDEX))), OUTLINECODE_DATA));
          resource.setOutlineCode10(m_outlineCodeVarData.getUnicodeString(Integer.valueOf(rscVarData.getInt(id, 2, fieldMap.getVarDataKey(ResourceField.OUTLINE_CODE10_INDEX))), OUTLINECODE_DATA));
 
-         metaData = rscFixedMeta.getByteArrayValue(offset.intValue());
+         metaData = rscFixedMeta.getByteArrayValue(index);
          readBitFields(metaDataBitFlags, resource, metaData);
          readBitFields(metaData2BitFlags, resource, metaData2);
 
@@ -1773,7 +1760,7 @@ final class MPP14Reader implements MPPVariantReader
       //Props props = new Props14(new DocumentInputStream(((DocumentEntry) assnDir.getEntry("Props"))));
 
       ResourceAssignmentFactory factory = new ResourceAssignmentFactory();
-      factory.process(m_file, fieldMap, enterpriseCustomFieldMap, m_reader.getUseRawTimephasedData(), m_reader.getPreserveNoteFormatting(), assnVarMeta, assnVarData, assnFixedMeta, assnFixedData, assnFixedData2, assnFixedMeta.getItemCount());
+      factory.process(m_file, fieldMap, enterpriseCustomFieldMap, m_reader.getUseRawTimephasedData(), m_reader.getCompactTimephasedData(), m_reader.getPreserveNoteFormatting(), assnVarMeta, assnVarData, assnFixedMeta, assnFixedData, assnFixedData2, assnFixedMeta.getItemCount());
    }
 
    /**
@@ -1050,7 +1050,7 @@ final class MPP9Reader implements MPPVariantReader
       // which contains all the tasks.
       Object[] uniqueIdArray = taskMap.keySet().toArray(); //taskVarMeta.getUniqueIdentifierArray();
       Integer offset;
-      byte[] data;
+      FixedDataItems items = new FixedDataItems(1);
       byte[] metaData;
       Task task;
       boolean autoWBS = true;
@@ -1068,18 +1068,18 @@ final class MPP9Reader implements MPPVariantReader
             continue;
          }
 
-         data = taskFixedData.getByteArrayValue(offset.intValue());
-         Integer id = Integer.valueOf(MPPUtility.getInt(data, fieldMap.getFixedDataOffset(TaskField.ID)));
-         if (data.length == NULL_TASK_BLOCK_SIZE)
+         int index = offset.intValue();
+         Integer id = Integer.valueOf(taskFixedData.getInt(index, fieldMap.getFixedDataOffset(TaskField.ID)));
+         if (taskFixedData.getSize(index) == NULL_TASK_BLOCK_SIZE)
          {
             task = m_file.addTask();
             task.setNull(true);
-            task.setUniqueID(Integer.valueOf(MPPUtility.getShort(data, TASK_UNIQUE_ID_FIXED_OFFSET)));
-            task.setID(Integer.valueOf(MPPUtility.getShort(data, TASK_ID_FIXED_OFFSET)));
+            task.setUniqueID(Integer.valueOf(taskFixedData.getShort(index, TASK_UNIQUE_ID_FIXED_OFFSET)));
+            task.setID(Integer.valueOf(taskFixedData.getShort(index, TASK_ID_FIXED_OFFSET)));
             continue;
          }
 
-         if (data.length < fieldMap.getMaxFixedDataSize(0))
+         if (taskFixedData.getSize(index) < fieldMap.getMaxFixedDataSize(0))
          {
             continue;
          }
@@ -1089,7 +1089,7 @@ final class MPP9Reader implements MPPVariantReader
             continue;
          }
 
-         metaData = taskFixedMeta.getByteArrayValue(offset.intValue());
+         metaData = taskFixedMeta.getByteArrayValue(index);
          //System.out.println (ByteArrayHelper.hexdump(data, false, 16, ""));
          //System.out.println (ByteArrayHelper.hexdump(metaData, 8, 4, false));
          //MPPUtility.dataDump(data, true, true, true, true, true, true, true);
@@ -1121,15 +1121,13 @@ final class MPP9Reader implements MPPVariantReader
          task = m_file.addTask();
 
          task.disableEvents();
-         fieldMap.populateContainer(TaskField.class, task, uniqueID, new byte[][]
-         {
-            data
-         }, taskVarData);
+         items.set(0, taskFixedData, index, 0);
+         fieldMap.populateContainer(TaskField.class, task, uniqueID, items, taskVarData);
          task.enableEvents();
 
          task.setEffortDriven((metaData[11] & 0x10) != 0);
 
-         task.setEstimated(getDurationEstimated(MPPUtility.getShort(data, fieldMap.getFixedDataOffset(TaskField.ACTUAL_DURATION_UNITS))));
+         task.setEstimated(getDurationEstimated(taskFixedData.getShort(index, fieldMap.getFixedDataOffset(TaskField.ACTUAL_DURATION_UNITS))));
 
          task.setExpanded(((metaData[12] & 0x02) == 0));
          Integer externalTaskID = task.getSubprojectTaskID();
@@ -1755,7 +1753,7 @@ final class MPP9Reader implements MPPVariantReader
       Integer[] uniqueid = rscVarMeta.getUniqueIdentifierArray();
       Integer id;
       Integer offset;
-      byte[] data;
+      FixedDataItems items = new FixedDataItems(1);
       byte[] metaData;
       Resource resource;
       String notes;
@@ -1768,7 +1766,7 @@ final class MPP9Reader implements MPPVariantReader
          {
             continue;
          }
-         data = rscFixedData.getByteArrayValue(offset.intValue());
+         int index = offset.intValue();
 
          //MPPUtility.dataDump(data, true, true, true, true, true, true, true);
          //MPPUtility.varDataDump(rscVarData, id, true, true, true, true, true, true);
@@ -1776,14 +1774,12 @@ final class MPP9Reader implements MPPVariantReader
          resource = m_file.addResource();
 
          resource.disableEvents();
-         fieldMap.populateContainer(ResourceField.class, resource, id, new byte[][]
-         {
-            data
-         }, rscVarData);
+         items.set(0, rscFixedData, index, 0);
+         fieldMap.populateContainer(ResourceField.class, resource, id, items, rscVarData);
          resource.enableEvents();
 
          processHyperlinkData(resource, rscVarData.getByteArray(id, fieldMap.getVarDataKey(ResourceField.HYPERLINK_DATA)));
-         resource.setID(Integer.valueOf(MPPUtility.getInt(data, 4)));
+         resource.setID(Integer.valueOf(rscFixedData.getInt(index, 4)));
 
          resource.setOutlineCode1(m_outlineCodeVarData.getUnicodeString((Integer) resource.getCachedValue(ResourceField.OUTLINE_CODE1_INDEX), OUTLINECODE_DATA));
          resource.setOutlineCode2(m_outlineCodeVarData.getUnicodeString((Integer) resource.getCachedValue(ResourceField.OUTLINE_CODE2_INDEX), OUTLINECODE_DATA));
@@ -1798,7 +1794,7 @@ final class MPP9Reader implements MPPVariantReader
 
          resource.setUniqueID(id);
 
-         metaData = rscFixedMeta.getByteArrayValue(offset.intValue());
+         metaData = rscFixedMeta.getByteArrayValue(index);
          resource.setFlag(1, (metaData[28] & 0x40) != 0);
          resource.setFlag(2, (metaData[28] & 0x80) != 0);
          resource.setFlag(3, (metaData[29] & 0x01) != 0);
@@ -1892,7 +1888,7 @@ final class MPP9Reader implements MPPVariantReader
       }
 
       ResourceAssignmentFactory factory = new ResourceAssignmentFactory();
-      factory.process(m_file, fieldMap, null, m_reader.getUseRawTimephasedData(), m_reader.getPreserveNoteFormatting(), assnVarMeta, assnVarData, assnFixedMeta, assnFixedData, null, assnFixedMeta.getAdjustedItemCount());
+      factory.process(m_file, fieldMap, null, m_reader.getUseRawTimephasedData(), m_reader.getCompactTimephasedData(), m_reader.getPreserveNoteFormatting(), assnVarMeta, assnVarData, assnFixedMeta, assnFixedData, null, assnFixedMeta.getAdjustedItemCount());
    }
 
    /**
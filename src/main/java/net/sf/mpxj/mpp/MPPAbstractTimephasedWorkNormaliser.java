@@ -21,17 +21,17 @@
  * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
  */
 
+
 package net.sf.mpxj.mpp;
 
 import java.util.Calendar;
 import java.util.Date;
-import java.util.LinkedList;
 
 import net.sf.mpxj.Duration;
 import net.sf.mpxj.ProjectCalendar;
 import net.sf.mpxj.TimeUnit;
-import net.sf.mpxj.TimephasedWork;
 import net.sf.mpxj.common.AbstractTimephasedWorkNormaliser;
+import net.sf.mpxj.common.CompactTimephasedWorkList;
 import net.sf.mpxj.common.DateHelper;
 
 /**
@@ -47,21 +47,18 @@ public abstract class MPPAbstractTimephasedWorkNormaliser extends AbstractTimeph
     *
     * @param calendar current calendar
     * @param list list of assignment data
+    * @return normalised assignment data
     */
-   @Override public void normalise(ProjectCalendar calendar, LinkedList<TimephasedWork> list)
+   @Override public CompactTimephasedWorkList normalise(ProjectCalendar calendar, CompactTimephasedWorkList list)
    {
       if (!list.isEmpty())
       {
-         //dumpList(list);
-         splitDays(calendar, list);
-         //dumpList(list);
+         list = splitDays(calendar, list);
          mergeSameDay(calendar, list);
-         //dumpList(list);
          mergeSameWork(list);
-         //dumpList(list);
          convertToHours(list);
-         //dumpList(list);
       }
+      return list;
    }
 
    /**
@@ -69,186 +66,164 @@ public abstract class MPPAbstractTimephasedWorkNormaliser extends AbstractTimeph
     *
     * @param calendar current project calendar
     * @param list list of assignment data
+    * @return assignment data split into days
     */
-   private void splitDays(ProjectCalendar calendar, LinkedList<TimephasedWork> list)
+   private CompactTimephasedWorkList splitDays(ProjectCalendar calendar, CompactTimephasedWorkList list)
    {
-      LinkedList<TimephasedWork> result = new LinkedList<TimephasedWork>();
+      CompactTimephasedWorkList result = new CompactTimephasedWorkList(list.size());
+      CompactTimephasedWorkList assignment = new CompactTimephasedWorkList(1);
       boolean remainderInserted = false;
       Calendar cal = Calendar.getInstance();
 
-      for (TimephasedWork assignment : list)
+      for (int index = 0; index < list.size(); index++)
       {
+         //
+         // The span we're currently splitting is held as the
+         // only item in the assignment list.
+         //
+         assignment.truncate(0);
+         assignment.append(list, index);
+
          if (remainderInserted)
          {
-            cal.setTime(assignment.getStart());
+            cal.setTimeInMillis(assignment.getStart(0));
             cal.add(Calendar.DAY_OF_YEAR, 1);
-            assignment.setStart(cal.getTime());
+            assignment.setStart(0, cal.getTimeInMillis());
             remainderInserted = false;
          }
 
-         while (assignment != null)
+         while (true)
          {
-            Date startDay = DateHelper.getDayStartDate(assignment.getStart());
-            Date finishDay = DateHelper.getDayStartDate(assignment.getFinish());
+            long startDay = DateHelper.getDayStartDate(assignment.getStart(0));
+            long finishDay = DateHelper.getDayStartDate(assignment.getFinish(0));
 
             // special case - when the finishday time is midnight, it's really the previous day...
-            if (assignment.getFinish().getTime() == finishDay.getTime())
+            if (assignment.getFinish(0) == finishDay)
             {
-               cal.setTime(finishDay);
+               cal.setTimeInMillis(finishDay);
                cal.add(Calendar.DAY_OF_YEAR, -1);
-               finishDay = cal.getTime();
+               finishDay = cal.getTimeInMillis();
             }
 
-            if (startDay.getTime() == finishDay.getTime())
+            if (startDay == finishDay)
             {
-               Duration totalWork = assignment.getTotalAmount();
-               Duration assignmentWork = getAssignmentWork(calendar, assignment);
-               if ((totalWork.getDuration() - assignmentWork.getDuration()) > EQUALITY_DELTA)
+               double totalWork = assignment.getTotalAmount(0);
+               double assignmentWork = getAssignmentWork(calendar, assignment);
+               int resultIndex = result.append(assignment, 0);
+               if ((totalWork - assignmentWork) > EQUALITY_DELTA)
                {
-                  assignment.setTotalAmount(assignmentWork);
-                  result.add(assignment);
-                  Duration remainingWork = Duration.getInstance(totalWork.getDuration() - assignmentWork.getDuration(), TimeUnit.MINUTES);
+                  result.setTotalAmount(resultIndex, assignmentWork, TimeUnit.MINUTES);
 
-                  cal.setTime(finishDay);
+                  cal.setTimeInMillis(finishDay);
                   cal.add(Calendar.DAY_OF_YEAR, 1);
-                  Date remainderStart = cal.getTime();
+                  long remainderStart = cal.getTimeInMillis();
                   cal.add(Calendar.DAY_OF_YEAR, 1);
-                  Date remainderFinish = cal.getTime();
+                  long remainderFinish = cal.getTimeInMillis();
 
-                  TimephasedWork remainder = new TimephasedWork();
-                  remainder.setStart(remainderStart);
-                  remainder.setFinish(remainderFinish);
-                  remainder.setTotalAmount(remainingWork);
-                  result.add(remainder);
+                  result.append(remainderStart, remainderFinish, totalWork - assignmentWork, TimeUnit.MINUTES);
 
                   remainderInserted = true;
                }
-               else
-               {
-                  result.add(assignment);
-               }
                break;
             }
 
-            TimephasedWork[] split = splitFirstDay(calendar, assignment);
-            if (split[0] != null)
-            {
-               result.add(split[0]);
-            }
-
-            if (assignment.equals(split[1]))
+            if (!splitFirstDay(calendar, assignment, result))
             {
                break;
             }
-
-            assignment = split[1];
          }
       }
 
-      list.clear();
-      list.addAll(result);
+      return result;
    }
 
    /**
-    * This method splits the first day off of a time span.
+    * This method splits the first day off of a time span. The first day
+    * is added to the result list, and the span is updated to represent
+    * the remainder.
     *
     * @param calendar current calendar
-    * @param assignment timephased assignment span
-    * @return first day and remainder assignments
+    * @param assignment list holding the timephased assignment span
+    * @param result list of split assignment data
+    * @return true if the remainder of the span requires further processing
     */
-   private TimephasedWork[] splitFirstDay(ProjectCalendar calendar, TimephasedWork assignment)
+   private boolean splitFirstDay(ProjectCalendar calendar, CompactTimephasedWorkList assignment, CompactTimephasedWorkList result)
    {
-      TimephasedWork[] result = new TimephasedWork[2];
-
       //
       // Retrieve data used to calculate the pro-rata work split
       //
-      Date assignmentStart = assignment.getStart();
-      Date assignmentFinish = assignment.getFinish();
+      Date assignmentStart = new Date(assignment.getStart(0));
+      Date assignmentFinish = new Date(assignment.getFinish(0));
       Duration calendarWork = calendar.getWork(assignmentStart, assignmentFinish, TimeUnit.MINUTES);
-      Duration assignmentWork = assignment.getTotalAmount();
+      double assignmentWork = assignment.getTotalAmount(0);
 
-      if (calendarWork.getDuration() != 0)
+      if (calendarWork.getDuration() == 0)
       {
-         //
-         // Split the first day
-         //
-         Date splitFinish;
-         double splitMinutes;
-         if (calendar.isWorkingDate(assignmentStart))
-         {
-            Date splitStart = assignmentStart;
-            Date splitFinishTime = calendar.getFinishTime(splitStart);
-            splitFinish = DateHelper.setTime(splitStart, splitFinishTime);
-
-            Duration calendarSplitWork = calendar.getWork(splitStart, splitFinish, TimeUnit.MINUTES);
-            Duration calendarWorkPerDay = calendar.getWork(splitStart, TimeUnit.MINUTES);
-            Duration assignmentWorkPerDay = assignment.getAmountPerDay();
-            Duration splitWork;
+         return false;
+      }
 
-            if (calendarSplitWork.durationComponentEquals(calendarWorkPerDay))
-            {
-               {
-                  if (calendarSplitWork.durationComponentEquals(assignmentWorkPerDay))
-                  {
-                     splitWork = assignmentWorkPerDay;
-                     splitMinutes = splitWork.getDuration();
-                  }
-                  else
-                  {
-                     splitMinutes = assignmentWorkPerDay.getDuration();
-                     splitMinutes *= calendarSplitWork.getDuration();
-                     splitMinutes /= (8 * 60); // this appears to be a fixed value
-                     splitWork = Duration.getInstance(splitMinutes, TimeUnit.MINUTES);
-                  }
-               }
-            }
-            else
-            {
-               splitMinutes = assignmentWorkPerDay.getDuration();
-               splitMinutes *= calendarSplitWork.getDuration();
-               splitMinutes /= (8 * 60); // this appears to be a fixed value
-               splitWork = Duration.getInstance(splitMinutes, TimeUnit.MINUTES);
-            }
+      //
+      // Split the first day
+      //
+      Date splitFinish;
+      double splitMinutes;
+      if (calendar.isWorkingDate(assignmentStart))
+      {
+         Date splitStart = assignmentStart;
+         Date splitFinishTime = calendar.getFinishTime(splitStart);
+         splitFinish = DateHelper.setTime(splitStart, splitFinishTime);
 
-            TimephasedWork split = new TimephasedWork();
-            split.setStart(splitStart);
-            split.setFinish(splitFinish);
-            split.setTotalAmount(splitWork);
+         Duration calendarSplitWork = calendar.getWork(splitStart, splitFinish, TimeUnit.MINUTES);
+         Duration calendarWorkPerDay = calendar.getWork(splitStart, TimeUnit.MINUTES);
+         double assignmentWorkPerDay = assignment.getAmountPerDay(0);
+         TimeUnit splitUnits;
 
-            result[0] = split;
-         }
-         else
+         if (calendarSplitWork.durationComponentEquals(calendarWorkPerDay) && Duration.durationValueEquals(calendarSplitWork.getDuration(), assignmentWorkPerDay))
          {
-            splitFinish = assignmentStart;
-            splitMinutes = 0;
-         }
-
-         //
-         // Split the remainder
-         //
-         Date splitStart = calendar.getNextWorkStart(splitFinish);
-         splitFinish = assignmentFinish;
-         TimephasedWork split;
-         if (splitStart.getTime() > splitFinish.getTime())
-         {
-            split = null;
+            splitMinutes = assignmentWorkPerDay;
+            splitUnits = assignment.getAmountPerDayUnits(0);
          }
          else
          {
-            splitMinutes = assignmentWork.getDuration() - splitMinutes;
-            Duration splitWork = Duration.getInstance(splitMinutes, TimeUnit.MINUTES);
-
-            split = new TimephasedWork();
-            split.setStart(splitStart);
-            split.setFinish(splitFinish);
-            split.setTotalAmount(splitWork);
-            split.setAmountPerDay(assignment.getAmountPerDay());
+            splitMinutes = assignmentWorkPerDay;
+            splitMinutes *= calendarSplitWork.getDuration();
+            splitMinutes /= (8 * 60); // this appears to be a fixed value
+            splitUnits = TimeUnit.MINUTES;
          }
 
-         result[1] = split;
+         result.append(splitStart.getTime(), splitFinish.getTime(), splitMinutes, splitUnits);
       }
-      return result;
+      else
+      {
+         splitFinish = assignmentStart;
+         splitMinutes = 0;
+      }
+
+      //
+      // Split the remainder
+      //
+      Date splitStart = calendar.getNextWorkStart(splitFinish);
+      if (splitStart.getTime() > assignmentFinish.getTime())
+      {
+         return false;
+      }
+
+      splitMinutes = assignmentWork - splitMinutes;
+
+      //
+      // If the remainder is the same as the span we started with
+      // we can't make any further progress.
+      //
+      if (splitStart.getTime() == assignmentStart.getTime() && Duration.durationValueEquals(assignmentWork, splitMinutes) && assignment.getTotalAmountUnits(0) == TimeUnit.MINUTES)
+      {
+         return false;
+      }
+
+      assignment.setStart(0, splitStart.getTime());
+      assignment.setTotalAmount(0, splitMinutes, TimeUnit.MINUTES);
+      assignment.setModified(0, false);
+
+      return true;
    }
 
    /**
@@ -257,44 +232,28 @@ public abstract class MPPAbstractTimephasedWorkNormaliser extends AbstractTimeph
     * @param calendar current calendar
     * @param list assignment data
     */
-   protected abstract void mergeSameDay(ProjectCalendar calendar, LinkedList<TimephasedWork> list);
+   protected abstract void mergeSameDay(ProjectCalendar calendar, CompactTimephasedWorkList list);
 
    /**
     * Retrieves the pro-rata work carried out on a given day.
     *
     * @param calendar current calendar
-    * @param assignment current assignment.
-    * @return assignment work duration
+    * @param assignment list holding the current assignment
+    * @return assignment work in minutes
     */
-   private Duration getAssignmentWork(ProjectCalendar calendar, TimephasedWork assignment)
+   private double getAssignmentWork(ProjectCalendar calendar, CompactTimephasedWorkList assignment)
    {
-      Date assignmentStart = assignment.getStart();
-
-      Date splitStart = assignmentStart;
+      Date splitStart = new Date(assignment.getStart(0));
       Date splitFinishTime = calendar.getFinishTime(splitStart);
       Date splitFinish = DateHelper.setTime(splitStart, splitFinishTime);
 
       Duration calendarSplitWork = calendar.getWork(splitStart, splitFinish, TimeUnit.MINUTES);
-      Duration assignmentWorkPerDay = assignment.getAmountPerDay();
-      Duration splitWork;
 
-      double splitMinutes = assignmentWorkPerDay.getDuration();
+      double splitMinutes = assignment.getAmountPerDay(0);
       splitMinutes *= calendarSplitWork.getDuration();
       splitMinutes /= (8 * 60); // this appears to be a fixed value
-      splitWork = Duration.getInstance(splitMinutes, TimeUnit.MINUTES);
-      return splitWork;
+      return splitMinutes;
    }
 
-   /*
-      private void dumpList(LinkedList<TimephasedWork> list)
-      {
-         System.out.println();
-         for (TimephasedWork assignment : list)
-         {
-            System.out.println(assignment);
-         }
-      }
-   */
-
    private static final double EQUALITY_DELTA = 0.1;
 }
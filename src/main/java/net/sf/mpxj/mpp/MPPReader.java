@@ -122,6 +122,8 @@ public final class MPPReader extends AbstractProjectReader
       try
       {
          ProjectFile projectFile = new ProjectFile();
+         applyFieldStoreType(projectFile);
+         projectFile.beginBulkLoad();
          ProjectConfig config = projectFile.getProjectConfig();
 
          config.setAutoTaskID(false);
@@ -200,6 +202,8 @@ public final class MPPReader extends AbstractProjectReader
          }
          projectProperties.setFileType("MPP");
 
+         projectFile.endBulkLoad();
+
          return (projectFile);
       }
 
@@ -297,6 +301,30 @@ public final class MPPReader extends AbstractProjectReader
       m_useRawTimephasedData = useRawTimephasedData;
    }
 
+   /**
+    * If this flag is true, timephased data will be held in a compact form
+    * which substantially reduces the memory it requires. The lists of
+    * timephased data returned by resource assignments are then read-only.
+    *
+    * @return boolean flag
+    */
+   public boolean getCompactTimephasedData()
+   {
+      return m_compactTimephasedData;
+   }
+
+   /**
+    * If this flag is true, timephased data will be held in a compact form
+    * which substantially reduces the memory it requires. The lists of
+    * timephased data returned by resource assignments are then read-only.
+    *
+    * @param compactTimephasedData boolean flag
+    */
+   public void setCompactTimephasedData(boolean compactTimephasedData)
+   {
+      m_compactTimephasedData = compactTimephasedData;
+   }
+
    /**
     * Retrieves a flag which indicates whether presentation data will
     * be read from the MPP file. Not reading this data saves time and memory.
@@ -377,6 +405,7 @@ public final class MPPReader extends AbstractProjectReader
     * Setting this flag to true allows raw timephased data to be retrieved.
     */
    private boolean m_useRawTimephasedData;
+   private boolean m_compactTimephasedData;
 
    /**
     * Flag to allow time and memory to be saved by not reading
@@ -21,24 +21,24 @@
  * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
  */
 
+
 package net.sf.mpxj.mpp;
 
 import java.util.Calendar;
 import java.util.Date;
-import java.util.LinkedList;
 
 import net.sf.mpxj.Duration;
 import net.sf.mpxj.ProjectCalendar;
 import net.sf.mpxj.TimeUnit;
-import net.sf.mpxj.TimephasedCost;
+import net.sf.mpxj.common.AbstractTimephasedCostNormaliser;
+import net.sf.mpxj.common.CompactTimephasedCostList;
 import net.sf.mpxj.common.DateHelper;
 import net.sf.mpxj.common.NumberHelper;
-import net.sf.mpxj.common.TimephasedCostNormaliser;
 
 /**
  * Common implementation detail for normalisation.
  */
-public class MPPTimephasedBaselineCostNormaliser implements TimephasedCostNormaliser
+public class MPPTimephasedBaselineCostNormaliser extends AbstractTimephasedCostNormaliser
 {
    /**
     * This method converts the internal representation of timephased
@@ -47,19 +47,17 @@ public class MPPTimephasedBaselineCostNormaliser implements TimephasedCostNormal
     *
     * @param calendar current calendar
     * @param list list of assignment data
+    * @return normalised assignment data
     */
-   @Override public void normalise(ProjectCalendar calendar, LinkedList<TimephasedCost> list)
+   @Override public CompactTimephasedCostList normalise(ProjectCalendar calendar, CompactTimephasedCostList list)
    {
       if (!list.isEmpty())
       {
-         //dumpList(list);
-         splitDays(calendar, list);
-         //dumpList(list);
+         list = splitDays(calendar, list);
          mergeSameDay(list);
-         //dumpList(list);
          mergeSameCost(list);
-         //dumpList(list);
       }
+      return list;
    }
 
    /**
@@ -67,131 +65,123 @@ public class MPPTimephasedBaselineCostNormaliser implements TimephasedCostNormal
     *
     * @param calendar current project calendar
     * @param list list of assignment data
+    * @return assignment data split into days
     */
-   private void splitDays(ProjectCalendar calendar, LinkedList<TimephasedCost> list)
+   private CompactTimephasedCostList splitDays(ProjectCalendar calendar, CompactTimephasedCostList list)
    {
-      LinkedList<TimephasedCost> result = new LinkedList<TimephasedCost>();
-      boolean remainderInserted = false;
+      CompactTimephasedCostList result = new CompactTimephasedCostList(list.size());
+      CompactTimephasedCostList assignment = new CompactTimephasedCostList(1);
       Calendar cal = Calendar.getInstance();
 
-      for (TimephasedCost assignment : list)
+      for (int index = 0; index < list.size(); index++)
       {
-         if (remainderInserted)
-         {
-            cal.setTime(assignment.getStart());
-            cal.add(Calendar.DAY_OF_YEAR, 1);
-            assignment.setStart(cal.getTime());
-            remainderInserted = false;
-         }
+         //
+         // The span we're currently splitting is held as the
+         // only item in the assignment list.
+         //
+         assignment.truncate(0);
+         assignment.append(list, index);
 
-         while (assignment != null)
+         while (true)
          {
-            Date startDay = DateHelper.getDayStartDate(assignment.getStart());
-            Date finishDay = DateHelper.getDayStartDate(assignment.getFinish());
+            long startDay = DateHelper.getDayStartDate(assignment.getStart(0));
+            long finishDay = DateHelper.getDayStartDate(assignment.getFinish(0));
 
             // special case - when the finishday time is midnight, it's really the previous day...
-            if (assignment.getFinish().getTime() == finishDay.getTime())
+            if (assignment.getFinish(0) == finishDay)
             {
-               cal.setTime(finishDay);
+               cal.setTimeInMillis(finishDay);
                cal.add(Calendar.DAY_OF_YEAR, -1);
-               finishDay = cal.getTime();
+               finishDay = cal.getTimeInMillis();
             }
 
-            if (startDay.getTime() == finishDay.getTime())
+            if (startDay == finishDay)
             {
-               result.add(assignment);
+               result.append(assignment, 0);
                break;
             }
 
-            TimephasedCost[] split = splitFirstDay(calendar, assignment);
-            if (split[0] != null)
-            {
-               result.add(split[0]);
-            }
-
-            if (assignment.equals(split[1]))
+            if (!splitFirstDay(calendar, assignment, result))
             {
                break;
             }
-
-            assignment = split[1];
          }
       }
 
-      list.clear();
-      list.addAll(result);
+      return result;
    }
 
    /**
-    * This method splits the first day off of a time span.
+    * This method splits the first day off of a time span. The first day
+    * is added to the result list, and the span is updated to represent
+    * the remainder.
     *
     * @param calendar current calendar
-    * @param assignment timephased assignment span
-    * @return first day and remainder assignments
+    * @param assignment list holding the timephased assignment span
+    * @param result list of split assignment data
+    * @return true if the remainder of the span requires further processing
     */
-   private TimephasedCost[] splitFirstDay(ProjectCalendar calendar, TimephasedCost assignment)
+   private boolean splitFirstDay(ProjectCalendar calendar, CompactTimephasedCostList assignment, CompactTimephasedCostList result)
    {
-      TimephasedCost[] result = new TimephasedCost[2];
-
       //
       // Retrieve data used to calculate the pro-rata work split
       //
-      Date assignmentStart = assignment.getStart();
-      Date assignmentFinish = assignment.getFinish();
+      Date assignmentStart = new Date(assignment.getStart(0));
+      Date assignmentFinish = new Date(assignment.getFinish(0));
       Duration calendarWork = calendar.getWork(assignmentStart, assignmentFinish, TimeUnit.MINUTES);
+      double assignmentCost = assignment.getTotalAmount(0);
 
-      if (calendarWork.getDuration() != 0)
+      if (calendarWork.getDuration() == 0)
       {
-         //
-         // Split the first day
-         //
-         Date splitFinish;
-         double splitCost;
-         if (calendar.isWorkingDate(assignmentStart))
-         {
-            Date splitStart = assignmentStart;
-            Date splitFinishTime = calendar.getFinishTime(splitStart);
-            splitFinish = DateHelper.setTime(splitStart, splitFinishTime);
-            Duration calendarSplitWork = calendar.getWork(splitStart, splitFinish, TimeUnit.MINUTES);
-            splitCost = (assignment.getTotalAmount().doubleValue() * calendarSplitWork.getDuration()) / calendarWork.getDuration();
+         return false;
+      }
 
-            TimephasedCost split = new TimephasedCost();
-            split.setStart(splitStart);
-            split.setFinish(splitFinish);
-            split.setTotalAmount(Double.valueOf(splitCost));
+      //
+      // Split the first day
+      //
+      Date splitFinish;
+      double splitCost;
+      if (calendar.isWorkingDate(assignmentStart))
+      {
+         Date splitStart = assignmentStart;
+         Date splitFinishTime = calendar.getFinishTime(splitStart);
+         splitFinish = DateHelper.setTime(splitStart, splitFinishTime);
+         Duration calendarSplitWork = calendar.getWork(splitStart, splitFinish, TimeUnit.MINUTES);
+         splitCost = (assignmentCost * calendarSplitWork.getDuration()) / calendarWork.getDuration();
 
-            result[0] = split;
-         }
-         else
-         {
-            splitFinish = assignmentStart;
-            splitCost = 0;
-         }
+         result.append(splitStart.getTime(), splitFinish.getTime(), splitCost);
+      }
+      else
+      {
+         splitFinish = assignmentStart;
+         splitCost = 0;
+      }
 
-         //
-         // Split the remainder
-         //
-         Date splitStart = calendar.getNextWorkStart(splitFinish);
-         splitFinish = assignmentFinish;
-         TimephasedCost split;
-         if (splitStart.getTime() > splitFinish.getTime())
-         {
-            split = null;
-         }
-         else
-         {
-            splitCost = assignment.getTotalAmount().doubleValue() - splitCost;
+      //
+      // Split the remainder
+      //
+      Date splitStart = calendar.getNextWorkStart(splitFinish);
+      if (splitStart.getTime() > assignmentFinish.getTime())
+      {
+         return false;
+      }
 
-            split = new TimephasedCost();
-            split.setStart(splitStart);
-            split.setFinish(splitFinish);
-            split.setTotalAmount(Double.valueOf(splitCost));
-            split.setAmountPerDay(assignment.getAmountPerDay());
-         }
+      splitCost = assignmentCost - splitCost;
 
-         result[1] = split;
+      //
+      // If the remainder is the same as the span we started with
+      // we can't make any further progress.
+      //
+      if (splitStart.getTime() == assignmentStart.getTime() && Double.doubleToLongBits(splitCost) == Double.doubleToLongBits(assignmentCost))
+      {
+         return false;
       }
-      return result;
+
+      assignment.setStart(0, splitStart.getTime());
+      assignment.setTotalAmount(0, splitCost);
+      assignment.setModified(0, false);
+
+      return true;
    }
 
    /**
@@ -199,48 +189,32 @@ public class MPPTimephasedBaselineCostNormaliser implements TimephasedCostNormal
     *
     * @param list assignment data
     */
-   private void mergeSameDay(LinkedList<TimephasedCost> list)
+   private void mergeSameDay(CompactTimephasedCostList list)
    {
-      LinkedList<TimephasedCost> result = new LinkedList<TimephasedCost>();
+      int size = list.size();
+      int previous = -1;
 
-      TimephasedCost previousAssignment = null;
-      for (TimephasedCost assignment : list)
+      for (int index = 0; index < size; index++)
       {
-         if (previousAssignment == null)
+         if (previous != -1 && DateHelper.getDayStartDate(list.getStart(previous)) == DateHelper.getDayStartDate(list.getStart(index)))
          {
-            assignment.setAmountPerDay(assignment.getTotalAmount());
-            result.add(assignment);
+            double cost = list.getTotalAmount(previous);
+            cost += list.getTotalAmount(index);
+
+            list.setFinish(previous, list.getFinish(index));
+            list.setTotalAmount(previous, cost);
+            list.setModified(previous, false);
          }
          else
          {
-            Date previousAssignmentStart = previousAssignment.getStart();
-            Date previousAssignmentStartDay = DateHelper.getDayStartDate(previousAssignmentStart);
-            Date assignmentStart = assignment.getStart();
-            Date assignmentStartDay = DateHelper.getDayStartDate(assignmentStart);
-
-            if (previousAssignmentStartDay.getTime() == assignmentStartDay.getTime())
-            {
-               result.removeLast();
-
-               double cost = previousAssignment.getTotalAmount().doubleValue();
-               cost += assignment.getTotalAmount().doubleValue();
-
-               TimephasedCost merged = new TimephasedCost();
-               merged.setStart(previousAssignment.getStart());
-               merged.setFinish(assignment.getFinish());
-               merged.setTotalAmount(Double.valueOf(cost));
-               assignment = merged;
-            }
-
-            assignment.setAmountPerDay(assignment.getTotalAmount());
-            result.add(assignment);
+            ++previous;
+            list.copy(index, previous);
          }
 
-         previousAssignment = assignment;
+         list.setAmountPerDay(previous, list.getTotalAmount(previous));
       }
 
-      list.clear();
-      list.addAll(result);
+      list.truncate(previous + 1);
    }
 
    /**
@@ -248,62 +222,31 @@ public class MPPTimephasedBaselineCostNormaliser implements TimephasedCostNormal
     *
     * @param list assignment data
     */
-   protected void mergeSameCost(LinkedList<TimephasedCost> list)
+   protected void mergeSameCost(CompactTimephasedCostList list)
    {
-      LinkedList<TimephasedCost> result = new LinkedList<TimephasedCost>();
+      int size = list.size();
+      int previous = -1;
 
-      TimephasedCost previousAssignment = null;
-      for (TimephasedCost assignment : list)
+      for (int index = 0; index < size; index++)
       {
-         if (previousAssignment == null)
+         if (previous != -1 && NumberHelper.equals(list.getAmountPerDay(previous), list.getTotalAmount(index), 0.01))
          {
-            assignment.setAmountPerDay(assignment.getTotalAmount());
-            result.add(assignment);
+            double total = list.getTotalAmount(previous);
+            total += list.getTotalAmount(index);
+
+            list.setFinish(previous, list.getFinish(index));
+            list.setAmountPerDay(previous, list.getTotalAmount(index));
+            list.setTotalAmount(previous, total);
+            list.setModified(previous, false);
          }
          else
          {
-            Number previousAssignmentCost = previousAssignment.getAmountPerDay();
-            Number assignmentCost = assignment.getTotalAmount();
-
-            if (NumberHelper.equals(previousAssignmentCost.doubleValue(), assignmentCost.doubleValue(), 0.01))
-            {
-               Date assignmentStart = previousAssignment.getStart();
-               Date assignmentFinish = assignment.getFinish();
-               double total = previousAssignment.getTotalAmount().doubleValue();
-               total += assignmentCost.doubleValue();
-
-               TimephasedCost merged = new TimephasedCost();
-               merged.setStart(assignmentStart);
-               merged.setFinish(assignmentFinish);
-               merged.setAmountPerDay(assignmentCost);
-               merged.setTotalAmount(Double.valueOf(total));
-
-               result.removeLast();
-               assignment = merged;
-            }
-            else
-            {
-               assignment.setAmountPerDay(assignment.getTotalAmount());
-            }
-            result.add(assignment);
+            ++previous;
+            list.copy(index, previous);
+            list.setAmountPerDay(previous, list.getTotalAmount(previous));
          }
-
-         previousAssignment = assignment;
       }
 
-      list.clear();
-      list.addAll(result);
-   }
-
-   /*
-   private void dumpList(LinkedList<TimephasedCost> list)
-   {
-      System.out.println();
-      for (TimephasedCost assignment : list)
-      {
-         System.out.println(assignment);
-      }
+      list.truncate(previous + 1);
    }
-   */
-
 }
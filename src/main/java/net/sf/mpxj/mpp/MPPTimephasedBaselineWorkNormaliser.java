@@ -21,15 +21,12 @@
  * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
  */
 
-package net.sf.mpxj.mpp;
 
-import java.util.Date;
-import java.util.LinkedList;
+package net.sf.mpxj.mpp;
 
-import net.sf.mpxj.Duration;
 import net.sf.mpxj.ProjectCalendar;
 import net.sf.mpxj.TimeUnit;
-import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.common.CompactTimephasedWorkList;
 import net.sf.mpxj.common.DateHelper;
 
 /**
@@ -43,48 +40,31 @@ public class MPPTimephasedBaselineWorkNormaliser extends MPPAbstractTimephasedWo
     * @param calendar current calendar
     * @param list assignment data
     */
-   @Override protected void mergeSameDay(ProjectCalendar calendar, LinkedList<TimephasedWork> list)
+   @Override protected void mergeSameDay(ProjectCalendar calendar, CompactTimephasedWorkList list)
    {
-      LinkedList<TimephasedWork> result = new LinkedList<TimephasedWork>();
+      int size = list.size();
+      int previous = -1;
 
-      TimephasedWork previousAssignment = null;
-      for (TimephasedWork assignment : list)
+      for (int index = 0; index < size; index++)
       {
-         if (previousAssignment == null)
+         if (previous != -1 && DateHelper.getDayStartDate(list.getStart(previous)) == DateHelper.getDayStartDate(list.getStart(index)))
          {
-            assignment.setAmountPerDay(assignment.getTotalAmount());
-            result.add(assignment);
+            double work = list.getTotalAmount(previous);
+            work += list.getTotalAmount(index);
+
+            list.setFinish(previous, list.getFinish(index));
+            list.setTotalAmount(previous, work, TimeUnit.MINUTES);
+            list.setModified(previous, false);
          }
          else
          {
-            Date previousAssignmentStart = previousAssignment.getStart();
-            Date previousAssignmentStartDay = DateHelper.getDayStartDate(previousAssignmentStart);
-            Date assignmentStart = assignment.getStart();
-            Date assignmentStartDay = DateHelper.getDayStartDate(assignmentStart);
-
-            if (previousAssignmentStartDay.getTime() == assignmentStartDay.getTime())
-            {
-               result.removeLast();
-
-               double work = previousAssignment.getTotalAmount().getDuration();
-               work += assignment.getTotalAmount().getDuration();
-               Duration totalWork = Duration.getInstance(work, TimeUnit.MINUTES);
-
-               TimephasedWork merged = new TimephasedWork();
-               merged.setStart(previousAssignment.getStart());
-               merged.setFinish(assignment.getFinish());
-               merged.setTotalAmount(totalWork);
-               assignment = merged;
-            }
-
-            assignment.setAmountPerDay(assignment.getTotalAmount());
-            result.add(assignment);
+            ++previous;
+            list.copy(index, previous);
          }
 
-         previousAssignment = assignment;
+         list.setAmountPerDay(previous, list.getTotalAmount(previous), list.getTotalAmountUnits(previous));
       }
 
-      list.clear();
-      list.addAll(result);
+      list.truncate(previous + 1);
    }
 }
@@ -21,15 +21,14 @@
  * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
  */
 
+
 package net.sf.mpxj.mpp;
 
 import java.util.Date;
-import java.util.LinkedList;
 
-import net.sf.mpxj.Duration;
 import net.sf.mpxj.ProjectCalendar;
 import net.sf.mpxj.TimeUnit;
-import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.common.CompactTimephasedWorkList;
 import net.sf.mpxj.common.DateHelper;
 
 /**
@@ -43,80 +42,85 @@ public class MPPTimephasedWorkNormaliser extends MPPAbstractTimephasedWorkNormal
     * @param calendar current calendar
     * @param list assignment data
     */
-   @Override protected void mergeSameDay(ProjectCalendar calendar, LinkedList<TimephasedWork> list)
+   @Override protected void mergeSameDay(ProjectCalendar calendar, CompactTimephasedWorkList list)
    {
-      LinkedList<TimephasedWork> result = new LinkedList<TimephasedWork>();
+      int size = list.size();
+      int previous = -1;
 
-      TimephasedWork previousAssignment = null;
-      for (TimephasedWork assignment : list)
+      for (int index = 0; index < size; index++)
       {
-         if (previousAssignment == null)
+         int assignment;
+
+         if (previous == -1)
          {
-            assignment.setAmountPerDay(assignment.getTotalAmount());
-            result.add(assignment);
+            assignment = 0;
+            list.copy(index, assignment);
          }
          else
          {
-            Date previousAssignmentStart = previousAssignment.getStart();
-            Date previousAssignmentStartDay = DateHelper.getDayStartDate(previousAssignmentStart);
-            Date assignmentStart = assignment.getStart();
-            Date assignmentStartDay = DateHelper.getDayStartDate(assignmentStart);
+            assignment = previous + 1;
+            long assignmentStart = list.getStart(index);
 
-            if (previousAssignmentStartDay.getTime() == assignmentStartDay.getTime())
+            if (DateHelper.getDayStartDate(list.getStart(previous)) == DateHelper.getDayStartDate(assignmentStart))
             {
-               Duration previousAssignmentWork = previousAssignment.getTotalAmount();
-               Duration assignmentWork = assignment.getTotalAmount();
+               double previousAssignmentWork = list.getTotalAmount(previous);
+               double assignmentWork = list.getTotalAmount(index);
 
-               if (previousAssignmentWork.getDuration() != 0 && assignmentWork.getDuration() == 0)
+               if (previousAssignmentWork != 0 && assignmentWork == 0)
                {
                   continue;
                }
 
-               Date previousAssignmentFinish = previousAssignment.getFinish();
+               long previousAssignmentFinish = list.getFinish(previous);
 
-               if (previousAssignmentFinish.getTime() == assignmentStart.getTime() || calendar.getNextWorkStart(previousAssignmentFinish).getTime() == assignmentStart.getTime())
+               if (previousAssignmentFinish == assignmentStart || calendar.getNextWorkStart(new Date(previousAssignmentFinish)).getTime() == assignmentStart)
                {
-                  result.removeLast();
+                  //
+                  // Replace the previous assignment
+                  //
+                  assignment = previous;
 
-                  if (previousAssignmentWork.getDuration() != 0 && assignmentWork.getDuration() != 0)
+                  if (previousAssignmentWork != 0 && assignmentWork != 0)
                   {
-                     double work = previousAssignment.getTotalAmount().getDuration();
-                     work += assignment.getTotalAmount().getDuration();
-                     Duration totalWork = Duration.getInstance(work, TimeUnit.MINUTES);
-
-                     TimephasedWork merged = new TimephasedWork();
-                     merged.setStart(previousAssignment.getStart());
-                     merged.setFinish(assignment.getFinish());
-                     merged.setTotalAmount(totalWork);
-                     assignment = merged;
+                     double work = previousAssignmentWork;
+                     work += assignmentWork;
+
+                     list.setFinish(assignment, list.getFinish(index));
+                     list.setTotalAmount(assignment, work, TimeUnit.MINUTES);
+                     list.setModified(assignment, false);
                   }
                   else
                   {
-                     if (assignmentWork.getDuration() == 0)
+                     if (assignmentWork != 0)
                      {
-                        assignment = previousAssignment;
+                        list.copy(index, assignment);
                      }
                   }
                }
+               else
+               {
+                  list.copy(index, assignment);
+               }
+            }
+            else
+            {
+               list.copy(index, assignment);
             }
-
-            assignment.setAmountPerDay(assignment.getTotalAmount());
-            result.add(assignment);
          }
 
-         Duration calendarWork = calendar.getWork(assignment.getStart(), assignment.getFinish(), TimeUnit.MINUTES);
-         Duration assignmentWork = assignment.getTotalAmount();
-         if (calendarWork.getDuration() == 0 && assignmentWork.getDuration() == 0)
+         list.setAmountPerDay(assignment, list.getTotalAmount(assignment), list.getTotalAmountUnits(assignment));
+
+         double calendarWork = calendar.getWork(new Date(list.getStart(assignment)), new Date(list.getFinish(assignment)), TimeUnit.MINUTES).getDuration();
+         if (calendarWork == 0 && list.getTotalAmount(assignment) == 0)
          {
-            result.removeLast();
+            previous = assignment - 1;
          }
          else
          {
-            previousAssignment = assignment;
+            previous = assignment;
          }
       }
 
-      list.clear();
-      list.addAll(result);
+      list.truncate(previous + 1);
    }
 }
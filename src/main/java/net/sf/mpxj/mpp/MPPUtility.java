@@ -449,6 +449,22 @@ public final class MPPUtility
       return length == 0 ? "" : new String(data, offset, length, CharsetHelper.UTF16LE);
    }
 
+   /**
+    * Reads a string of two byte characters from a range of the input array.
+    * This method assumes that the string finishes either at the
+    * end of the range, or when char zero is encountered.
+    *
+    * @param data byte array of data
+    * @param offset start point of unicode string
+    * @param limit offset of the end of the range
+    * @return string value
+    */
+   public static final String getUnicodeStringInRange(byte[] data, int offset, int limit)
+   {
+      int length = getUnicodeStringLengthInBytes(data, offset, limit);
+      return length == 0 ? "" : new String(data, offset, length, CharsetHelper.UTF16LE);
+   }
+
    /**
     * Determine the length of a nul terminated UTF16LE string in bytes.
     *
@@ -457,17 +473,32 @@ public final class MPPUtility
     * @return length in bytes
     */
    private static final int getUnicodeStringLengthInBytes(byte[] data, int offset)
+   {
+      return getUnicodeStringLengthInBytes(data, offset, data == null ? 0 : data.length);
+   }
+
+   /**
+    * Determine the length of a nul terminated UTF16LE string in bytes,
+    * where the string data ends at the supplied limit rather than at
+    * the end of the array.
+    *
+    * @param data string data
+    * @param offset offset into string data
+    * @param limit offset of the end of the string data
+    * @return length in bytes
+    */
+   private static final int getUnicodeStringLengthInBytes(byte[] data, int offset, int limit)
    {
       int result;
-      if (data == null || offset >= data.length)
+      if (data == null || offset >= limit)
       {
          result = 0;
       }
       else
       {
-         result = data.length - offset;
+         result = limit - offset;
 
-         for (int loop = offset; loop < (data.length - 1); loop += 2)
+         for (int loop = offset; loop < (limit - 1); loop += 2)
          {
             if (data[loop] == 0 && data[loop + 1] == 0)
             {
@@ -490,11 +521,26 @@ public final class MPPUtility
     * @return string value
     */
    public static final String getString(byte[] data, int offset)
+   {
+      return getStringInRange(data, offset, data.length);
+   }
+
+   /**
+    * Reads a string of single byte characters from a range of the input array.
+    * This method assumes that the string finishes either at the
+    * end of the range, or when char zero is encountered.
+    *
+    * @param data byte array of data
+    * @param offset offset into the array
+    * @param limit offset of the end of the range
+    * @return string value
+    */
+   public static final String getStringInRange(byte[] data, int offset, int limit)
    {
       StringBuilder buffer = new StringBuilder();
       char c;
 
-      for (int loop = 0; offset + loop < data.length; loop++)
+      for (int loop = 0; offset + loop < limit; loop++)
       {
          c = (char) data[offset + loop];
 
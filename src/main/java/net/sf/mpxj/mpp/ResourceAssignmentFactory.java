@@ -23,6 +23,7 @@
 
 package net.sf.mpxj.mpp;
 
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
@@ -35,7 +36,9 @@ import net.sf.mpxj.ResourceAssignment;
 import net.sf.mpxj.ResourceType;
 import net.sf.mpxj.Task;
 import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.TimephasedCostContainer;
 import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.TimephasedWorkContainer;
 import net.sf.mpxj.WorkContour;
 import net.sf.mpxj.common.DefaultTimephasedWorkContainer;
 import net.sf.mpxj.common.NumberHelper;
@@ -57,6 +60,7 @@ public class ResourceAssignmentFactory
     * @param fieldMap assignment field map
     * @param enterpriseCustomFieldMap enterprise custom field map
     * @param useRawTimephasedData use raw timephased data flag
+    * @param compactTimephasedData compact timephased data flag
     * @param preserveNoteFormatting preserve note formatting flag
     * @param assnVarMeta var meta
     * @param assnVarData var data
@@ -65,7 +69,7 @@ public class ResourceAssignmentFactory
     * @param assnFixedData2 fixed data
     * @param count expected number of assignments
     */
-   public void process(ProjectFile file, FieldMap fieldMap, FieldMap enterpriseCustomFieldMap, boolean useRawTimephasedData, boolean preserveNoteFormatting, VarMeta assnVarMeta, Var2Data assnVarData, FixedMeta assnFixedMeta, FixedData assnFixedData, FixedData assnFixedData2, int count)
+   public void process(ProjectFile file, FieldMap fieldMap, FieldMap enterpriseCustomFieldMap, boolean useRawTimephasedData, boolean compactTimephasedData, boolean preserveNoteFormatting, VarMeta assnVarMeta, Var2Data assnVarData, FixedMeta assnFixedMeta, FixedData assnFixedData, FixedData assnFixedData2, int count)
    {
       Set<Integer> set = assnVarMeta.getUniqueIdentifierSet();
       TimephasedDataFactory timephasedFactory = new TimephasedDataFactory();
@@ -97,6 +101,7 @@ public class ResourceAssignmentFactory
          metaDataBitFlags = ASSIGNMENT_META_DATA_BIT_FLAGS;
       }
 
+      FixedDataItems items = new FixedDataItems(2);
       for (int loop = 0; loop < count; loop++)
       {
          byte[] meta = assnFixedMeta.getByteArrayValue(loop);
@@ -106,45 +111,31 @@ public class ResourceAssignmentFactory
          }
 
          int offset = MPPUtility.getInt(meta, 4);
-         byte[] data = assnFixedData.getByteArrayValue(assnFixedData.getIndexFromOffset(offset));
-         if (data == null)
+         int dataIndex = assnFixedData.getIndexFromOffset(offset);
+         if (assnFixedData.getSize(dataIndex) == -1)
          {
             continue;
          }
 
-         if (data.length < fieldMap.getMaxFixedDataSize(0))
-         {
-            byte[] newData = new byte[fieldMap.getMaxFixedDataSize(0)];
-            System.arraycopy(data, 0, newData, 0, data.length);
-            data = newData;
-         }
-
-         int id = MPPUtility.getInt(data, fieldMap.getFixedDataOffset(AssignmentField.UNIQUE_ID));
+         int id = assnFixedData.getInt(dataIndex, fieldMap.getFixedDataOffset(AssignmentField.UNIQUE_ID));
          final Integer varDataId = Integer.valueOf(id);
          if (set.contains(varDataId) == false)
          {
             continue;
          }
 
-         byte[] data2 = null;
-         if (assnFixedData2 != null)
-         {
-            data2 = assnFixedData2.getByteArrayValue(loop);
-         }
+         items.set(0, assnFixedData, dataIndex, fieldMap.getMaxFixedDataSize(0));
+         items.set(1, assnFixedData2, loop, 0);
 
          ResourceAssignment assignment = new ResourceAssignment(file, null);
 
          assignment.disableEvents();
 
-         fieldMap.populateContainer(AssignmentField.class, assignment, varDataId, new byte[][]
-         {
-            data,
-            data2
-         }, assnVarData);
+         fieldMap.populateContainer(AssignmentField.class, assignment, varDataId, items, assnVarData);
 
          if (enterpriseCustomFieldMap != null)
          {
-            enterpriseCustomFieldMap.populateContainer(AssignmentField.class, assignment, varDataId, null, assnVarData);
+            enterpriseCustomFieldMap.populateContainer(AssignmentField.class, assignment, varDataId, items, assnVarData);
          }
 
          assignment.enableEvents();
@@ -198,29 +189,23 @@ public class ResourceAssignmentFactory
                calendar = task.getEffectiveCalendar();
             }
 
-            assignment.setTimephasedBaselineWork(0, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE_WORK)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineWork(1, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE1_WORK)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineWork(2, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE2_WORK)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineWork(3, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE3_WORK)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineWork(4, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE4_WORK)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineWork(5, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE5_WORK)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineWork(6, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE6_WORK)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineWork(7, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE7_WORK)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineWork(8, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE8_WORK)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineWork(9, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE9_WORK)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineWork(10, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE10_WORK)), !useRawTimephasedData));
-
-            assignment.setTimephasedBaselineCost(0, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE_COST)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineCost(1, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE1_COST)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineCost(2, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE2_COST)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineCost(3, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE3_COST)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineCost(4, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE4_COST)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineCost(5, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE5_COST)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineCost(6, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE6_COST)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineCost(7, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE7_COST)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineCost(8, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE8_COST)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineCost(9, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE9_COST)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineCost(10, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE10_COST)), !useRawTimephasedData));
+            for (int index = 0; index < TIMEPHASED_BASELINE_WORK.length; index++)
+            {
+               byte[] baselineWorkData = assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(TIMEPHASED_BASELINE_WORK[index]));
+               if (baselineWorkData != null && baselineWorkData.length > 0)
+               {
+                  assignment.setTimephasedBaselineWork(index, createBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, baselineWorkData, !useRawTimephasedData, compactTimephasedData));
+               }
+            }
+
+            for (int index = 0; index < TIMEPHASED_BASELINE_COST.length; index++)
+            {
+               byte[] baselineCostData = assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(TIMEPHASED_BASELINE_COST[index]));
+               if (baselineCostData != null && baselineCostData.length > 0)
+               {
+                  assignment.setTimephasedBaselineCost(index, createBaselineCost(baselineCalendar, baselineCostNormaliser, baselineCostData, !useRawTimephasedData, compactTimephasedData));
+               }
+            }
 
             byte[] timephasedActualWorkData = assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_ACTUAL_WORK));
             byte[] timephasedWorkData = assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_WORK));
@@ -228,7 +213,6 @@ public class ResourceAssignmentFactory
 
             List<TimephasedWork> timephasedActualWork = timephasedFactory.getCompleteWork(calendar, assignment, timephasedActualWorkData);
             List<TimephasedWork> timephasedWork = timephasedFactory.getPlannedWork(calendar, assignment.getStart(), assignment.getUnits().doubleValue(), timephasedWorkData, timephasedActualWork, resourceType);
-            List<TimephasedWork> timephasedActualOvertimeWork = timephasedFactory.getCompleteWork(calendar, assignment, timephasedActualOvertimeWorkData);
 
             assignment.setActualStart(timephasedActualWork.isEmpty() ? null : assignment.getStart());
             assignment.setActualFinish((assignment.getRemainingWork().getDuration() == 0 && resource != null) ? assignment.getFinish() : null);
@@ -240,9 +224,9 @@ public class ResourceAssignmentFactory
 
             createTimephasedData(file, assignment, timephasedWork, timephasedActualWork);
 
-            assignment.setTimephasedWork(new DefaultTimephasedWorkContainer(calendar, normaliser, timephasedWork, !useRawTimephasedData));
-            assignment.setTimephasedActualWork(new DefaultTimephasedWorkContainer(calendar, normaliser, timephasedActualWork, !useRawTimephasedData));
-            assignment.setTimephasedActualOvertimeWork(new DefaultTimephasedWorkContainer(calendar, normaliser, timephasedActualOvertimeWork, !useRawTimephasedData));
+            assignment.setTimephasedWork(new DefaultTimephasedWorkContainer(calendar, normaliser, timephasedWork, !useRawTimephasedData, compactTimephasedData));
+            assignment.setTimephasedActualWork(new DefaultTimephasedWorkContainer(calendar, normaliser, timephasedActualWork, !useRawTimephasedData, compactTimephasedData));
+            assignment.setTimephasedActualOvertimeWork(createCompleteWork(calendar, assignment, normaliser, timephasedActualOvertimeWorkData, !useRawTimephasedData, compactTimephasedData));
 
             if (timephasedWorkData != null)
             {
@@ -268,6 +252,76 @@ public class ResourceAssignmentFactory
       }
    }
 
+   /**
+    * Create a container which will decode timephased baseline work on demand.
+    *
+    * @param assignment parent assignment
+    * @param calendar baseline calendar
+    * @param normaliser normaliser associated with this data
+    * @param data timephased baseline work data block
+    * @param raw flag indicating if this data is to be treated as raw
+    * @param compact flag indicating if this data is to be held in compact form
+    * @return timephased work container
+    */
+   private static TimephasedWorkContainer createBaselineWork(final ResourceAssignment assignment, final ProjectCalendar calendar, final TimephasedWorkNormaliser normaliser, byte[] data, final boolean raw, final boolean compact)
+   {
+      return new LazyTimephasedWorkContainer(data)
+      {
+         @Override protected TimephasedWorkContainer decode(byte[] data)
+         {
+            return new TimephasedDataFactory().getBaselineWork(assignment, calendar, normaliser, data, raw, compact);
+         }
+      };
+   }
+
+   /**
+    * Create a container which will decode timephased baseline cost on demand.
+    *
+    * @param calendar baseline calendar
+    * @param normaliser normaliser associated with this data
+    * @param data timephased baseline cost data block
+    * @param raw flag indicating if this data is to be treated as raw
+    * @param compact flag indicating if this data is to be held in compact form
+    * @return timephased cost container
+    */
+   private static TimephasedCostContainer createBaselineCost(final ProjectCalendar calendar, final TimephasedCostNormaliser normaliser, byte[] data, final boolean raw, final boolean compact)
+   {
+      return new LazyTimephasedCostContainer(data)
+      {
+         @Override protected TimephasedCostContainer decode(byte[] data)
+         {
+            return new TimephasedDataFactory().getBaselineCost(calendar, normaliser, data, raw, compact);
+         }
+      };
+   }
+
+   /**
+    * Create a container which will decode timephased complete work on demand.
+    *
+    * @param calendar assignment calendar
+    * @param assignment parent assignment
+    * @param normaliser normaliser associated with this data
+    * @param data timephased complete work data block
+    * @param raw flag indicating if this data is to be treated as raw
+    * @param compact flag indicating if this data is to be held in compact form
+    * @return timephased work container
+    */
+   private static TimephasedWorkContainer createCompleteWork(final ProjectCalendar calendar, final ResourceAssignment assignment, final TimephasedWorkNormaliser normaliser, byte[] data, final boolean raw, final boolean compact)
+   {
+      if (data == null)
+      {
+         return new DefaultTimephasedWorkContainer(calendar, normaliser, new LinkedList<TimephasedWork>(), raw, compact);
+      }
+
+      return new LazyTimephasedWorkContainer(data)
+      {
+         @Override protected TimephasedWorkContainer decode(byte[] data)
+         {
+            return new DefaultTimephasedWorkContainer(calendar, normaliser, new TimephasedDataFactory().getCompleteWork(calendar, assignment, data), raw, compact);
+         }
+      };
+   }
+
    /**
     * Extract assignment hyperlink data.
     *
@@ -366,6 +420,36 @@ public class ResourceAssignmentFactory
 
    private static final Integer MPP9_CREATION_DATA = Integer.valueOf(138);
 
+   private static final AssignmentField[] TIMEPHASED_BASELINE_WORK =
+   {
+      AssignmentField.TIMEPHASED_BASELINE_WORK,
+      AssignmentField.TIMEPHASED_BASELINE1_WORK,
+      AssignmentField.TIMEPHASED_BASELINE2_WORK,
+      AssignmentField.TIMEPHASED_BASELINE3_WORK,
+      AssignmentField.TIMEPHASED_BASELINE4_WORK,
+      AssignmentField.TIMEPHASED_BASELINE5_WORK,
+      AssignmentField.TIMEPHASED_BASELINE6_WORK,
+      AssignmentField.TIMEPHASED_BASELINE7_WORK,
+      AssignmentField.TIMEPHASED_BASELINE8_WORK,
+      AssignmentField.TIMEPHASED_BASELINE9_WORK,
+      AssignmentField.TIMEPHASED_BASELINE10_WORK
+   };
+
+   private static final AssignmentField[] TIMEPHASED_BASELINE_COST =
+   {
+      AssignmentField.TIMEPHASED_BASELINE_COST,
+      AssignmentField.TIMEPHASED_BASELINE1_COST,
+      AssignmentField.TIMEPHASED_BASELINE2_COST,
+      AssignmentField.TIMEPHASED_BASELINE3_COST,
+      AssignmentField.TIMEPHASED_BASELINE4_COST,
+      AssignmentField.TIMEPHASED_BASELINE5_COST,
+      AssignmentField.TIMEPHASED_BASELINE6_COST,
+      AssignmentField.TIMEPHASED_BASELINE7_COST,
+      AssignmentField.TIMEPHASED_BASELINE8_COST,
+      AssignmentField.TIMEPHASED_BASELINE9_COST,
+      AssignmentField.TIMEPHASED_BASELINE10_COST
+   };
+
    private static final MppBitFlag[] ASSIGNMENT_META_DATA_BIT_FLAGS =
    {
       new MppBitFlag(AssignmentField.FLAG1, 28, 0x00000080, Boolean.FALSE, Boolean.TRUE),
@@ -325,9 +325,10 @@ final class TimephasedDataFactory
     * @param normaliser normaliser associated with this data
     * @param data timephased baseline work data block
     * @param raw flag indicating if this data is to be treated as raw
+    * @param compact flag indicating if this data is to be held in compact form
     * @return timephased work
     */
-   public TimephasedWorkContainer getBaselineWork(ResourceAssignment assignment, ProjectCalendar calendar, TimephasedWorkNormaliser normaliser, byte[] data, boolean raw)
+   public TimephasedWorkContainer getBaselineWork(ResourceAssignment assignment, ProjectCalendar calendar, TimephasedWorkNormaliser normaliser, byte[] data, boolean raw, boolean compact)
    {
       TimephasedWorkContainer result = null;
 
@@ -384,7 +385,7 @@ final class TimephasedDataFactory
             {
                work.setFinish(assignment.getFinish());
             }
-            result = new DefaultTimephasedWorkContainer(calendar, normaliser, list, raw);
+            result = new DefaultTimephasedWorkContainer(calendar, normaliser, list, raw, compact);
          }
       }
 
@@ -400,9 +401,10 @@ final class TimephasedDataFactory
     * @param normaliser normaliser associated with this data
     * @param data timephased baseline work data block
     * @param raw flag indicating if this data is to be treated as raw
+    * @param compact flag indicating if this data is to be held in compact form
     * @return timephased work
     */
-   public TimephasedCostContainer getBaselineCost(ProjectCalendar calendar, TimephasedCostNormaliser normaliser, byte[] data, boolean raw)
+   public TimephasedCostContainer getBaselineCost(ProjectCalendar calendar, TimephasedCostNormaliser normaliser, byte[] data, boolean raw, boolean compact)
    {
       TimephasedCostContainer result = null;
 
@@ -445,7 +447,7 @@ final class TimephasedDataFactory
 
          if (list != null)
          {
-            result = new DefaultTimephasedCostContainer(calendar, normaliser, list, raw);
+            result = new DefaultTimephasedCostContainer(calendar, normaliser, list, raw, compact);
          }
       }
 
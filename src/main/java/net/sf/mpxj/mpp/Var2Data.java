@@ -23,22 +23,24 @@
 
 package net.sf.mpxj.mpp;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.Arrays;
 import java.util.Date;
-import java.util.Map;
-import java.util.TreeMap;
 
 import net.sf.mpxj.common.ByteArrayHelper;
-import net.sf.mpxj.common.StreamHelper;
 
 /**
  * This class represents a block of variable data. Each block of
  * data is represented by a 4 byte size, followed by the data itself.
  * Each Var2Data block should be associated with a MetaData block
  * which describes the layout of the data in the Var2Data block.
+ *
+ * The whole block is held in a single buffer. Each item is located
+ * by its offset and size, and values are read directly from the buffer.
  */
 final class Var2Data extends MPPComponent
 {
@@ -54,10 +56,33 @@ final class Var2Data extends MPPComponent
       throws IOException
    {
       m_meta = meta;
-      byte[] data;
+      m_buffer = new byte[is.available()];
+
+      int available = 0;
+      try
+      {
+         while (available < m_buffer.length)
+         {
+            int count = is.read(m_buffer, available, m_buffer.length - available);
+            if (count < 0)
+            {
+               break;
+            }
+            available += count;
+         }
+      }
+
+      catch (IndexOutOfBoundsException ex)
+      {
+         // POI fails to read certain MPP files with this exception:
+         // https://bz.apache.org/bugzilla/show_bug.cgi?id=61677
+         // There is no fix presently, we just have to bail out at
+         // this point - we're unable to read any more data.
+      }
 
-      int currentOffset = 0;
-      int available = is.available();
+      boolean truncated = available < m_buffer.length;
+      long[] items = new long[meta.getOffsets().length];
+      int itemCount = 0;
 
       for (int itemOffset : meta.getOffsets())
       {
@@ -66,46 +91,43 @@ final class Var2Data extends MPPComponent
             continue;
          }
 
-         if (currentOffset > itemOffset)
+         if (itemOffset + 4 > available)
          {
-            is.reset();
-            StreamHelper.skip(is, itemOffset);
-         }
-         else
-         {
-            if (currentOffset < itemOffset)
+            if (truncated)
             {
-               StreamHelper.skip(is, itemOffset - currentOffset);
+               continue;
             }
+            throw new EOFException();
          }
 
-         int size = readInt(is);
+         int size = MPPUtility.getInt(m_buffer, itemOffset);
 
-         //
-         // Try our best to handle corrupt files gracefully
-         //
-         if (size < 0 || size > is.available())
+         if (size < 0 || size > available - itemOffset - 4)
          {
             continue;
          }
 
-         try
-         {
-            data = readByteArray(is, size);
-         }
+         items[itemCount++] = ((long) itemOffset << 32) | size;
+      }
 
-         catch (IndexOutOfBoundsException ex)
+      //
+      // Sort the items by offset so we can use a binary search to find them
+      //
+      Arrays.sort(items, 0, itemCount);
+      m_offsets = new int[itemCount];
+      m_sizes = new int[itemCount];
+      int index = 0;
+      for (int loop = 0; loop < itemCount; loop++)
+      {
+         int offset = (int) (items[loop] >>> 32);
+         if (index == 0 || m_offsets[index - 1] != offset)
          {
-            // POI fails to read certain MPP files with this exception:
-            // https://bz.apache.org/bugzilla/show_bug.cgi?id=61677
-            // There is no fix presently, we just have to bail out at
-            // this point - we're unable to read any more data.
-            break;
+            m_offsets[index] = offset;
+            m_sizes[index] = (int) items[loop];
+            ++index;
          }
-
-         m_map.put(Integer.valueOf(itemOffset), data);
-         currentOffset = itemOffset + 4 + size;
       }
+      m_itemCount = index;
    }
 
    /**
@@ -120,9 +142,10 @@ final class Var2Data extends MPPComponent
    {
       byte[] result = null;
 
-      if (offset != null)
+      int index = getItemIndex(offset);
+      if (index >= 0)
       {
-         result = m_map.get(offset);
+         result = MPPUtility.cloneSubArray(m_buffer, getItemStart(index), m_sizes[index]);
       }
 
       return (result);
@@ -153,13 +176,11 @@ final class Var2Data extends MPPComponent
    {
       String result = null;
 
-      if (offset != null)
+      int index = getItemIndex(offset);
+      if (index >= 0)
       {
-         byte[] value = m_map.get(offset);
-         if (value != null)
-         {
-            result = MPPUtility.getUnicodeString(value, 0);
-         }
+         int start = getItemStart(index);
+         result = MPPUtility.getUnicodeStringInRange(m_buffer, start, start + m_sizes[index]);
       }
 
       return (result);
@@ -190,15 +211,10 @@ final class Var2Data extends MPPComponent
    {
       Date result = null;
 
-      Integer offset = m_meta.getOffset(id, type);
-
-      if (offset != null)
+      int index = getItemIndex(m_meta.getOffset(id, type));
+      if (index >= 0 && m_sizes[index] >= 4)
       {
-         byte[] value = m_map.get(offset);
-         if (value != null && value.length >= 4)
-         {
-            result = MPPUtility.getTimestamp(value, 0);
-         }
+         result = MPPUtility.getTimestamp(m_buffer, getItemStart(index));
       }
 
       return (result);
@@ -216,13 +232,11 @@ final class Var2Data extends MPPComponent
    {
       String result = null;
 
-      if (offset != null)
+      int index = getItemIndex(offset);
+      if (index >= 0)
       {
-         byte[] value = m_map.get(offset);
-         if (value != null)
-         {
-            result = MPPUtility.getString(value, 0);
-         }
+         int start = getItemStart(index);
+         result = MPPUtility.getStringInRange(m_buffer, start, start + m_sizes[index]);
       }
 
       return (result);
@@ -253,16 +267,10 @@ final class Var2Data extends MPPComponent
    {
       int result = 0;
 
-      Integer offset = m_meta.getOffset(id, type);
-
-      if (offset != null)
+      int index = getItemIndex(m_meta.getOffset(id, type));
+      if (index >= 0 && m_sizes[index] >= 2)
       {
-         byte[] value = m_map.get(offset);
-
-         if (value != null && value.length >= 2)
-         {
-            result = MPPUtility.getShort(value, 0);
-         }
+         result = MPPUtility.getShort(m_buffer, getItemStart(index));
       }
 
       return (result);
@@ -280,16 +288,10 @@ final class Var2Data extends MPPComponent
    {
       int result = 0;
 
-      Integer offset = m_meta.getOffset(id, type);
-
-      if (offset != null)
+      int index = getItemIndex(m_meta.getOffset(id, type));
+      if (index >= 0 && m_sizes[index] >= 1)
       {
-         byte[] value = m_map.get(offset);
-
-         if (value != null)
-         {
-            result = MPPUtility.getByte(value, 0);
-         }
+         result = MPPUtility.getByte(m_buffer, getItemStart(index));
       }
 
       return (result);
@@ -305,21 +307,7 @@ final class Var2Data extends MPPComponent
     */
    public int getInt(Integer id, Integer type)
    {
-      int result = 0;
-
-      Integer offset = m_meta.getOffset(id, type);
-
-      if (offset != null)
-      {
-         byte[] value = m_map.get(offset);
-
-         if (value != null && value.length >= 4)
-         {
-            result = MPPUtility.getInt(value, 0);
-         }
-      }
-
-      return (result);
+      return getInt(id, 0, type);
    }
 
    /**
@@ -337,16 +325,10 @@ final class Var2Data extends MPPComponent
    {
       int result = 0;
 
-      Integer metaOffset = m_meta.getOffset(id, type);
-
-      if (metaOffset != null)
+      int index = getItemIndex(m_meta.getOffset(id, type));
+      if (index >= 0 && m_sizes[index] >= offset + 4)
       {
-         byte[] value = m_map.get(metaOffset);
-
-         if (value != null && value.length >= offset + 4)
-         {
-            result = MPPUtility.getInt(value, offset);
-         }
+         result = MPPUtility.getInt(m_buffer, getItemStart(index) + offset);
       }
 
       return (result);
@@ -364,16 +346,10 @@ final class Var2Data extends MPPComponent
    {
       long result = 0;
 
-      Integer offset = m_meta.getOffset(id, type);
-
-      if (offset != null)
+      int index = getItemIndex(m_meta.getOffset(id, type));
+      if (index >= 0 && m_sizes[index] >= 8)
       {
-         byte[] value = m_map.get(offset);
-
-         if (value != null && value.length >= 8)
-         {
-            result = MPPUtility.getLong(value, 0);
-         }
+         result = MPPUtility.getLong(m_buffer, getItemStart(index));
       }
 
       return (result);
@@ -420,10 +396,10 @@ final class Var2Data extends MPPComponent
       PrintWriter pw = new PrintWriter(sw);
 
       pw.println("BEGIN Var2Data");
-      for (Map.Entry<Integer, byte[]> entry : m_map.entrySet())
+      for (int index = 0; index < m_itemCount; index++)
       {
-         pw.println("   Data at offset: " + entry.getKey() + " size: " + entry.getValue().length);
-         pw.println(ByteArrayHelper.hexdump(entry.getValue(), true, 16, "   "));
+         pw.println("   Data at offset: " + m_offsets[index] + " size: " + m_sizes[index]);
+         pw.println(ByteArrayHelper.hexdump(m_buffer, getItemStart(index), m_sizes[index], true, 16, "   "));
       }
 
       pw.println("END Var2Data");
@@ -448,7 +424,7 @@ final class Var2Data extends MPPComponent
       for (Integer type : m_meta.getTypes(id))
       {
          Integer offset = m_meta.getOffset(id, type);
-         byte[] data = m_map.get(offset);
+         byte[] data = getByteArray(offset);
          pw.println("   Data at offset: " + offset + " size: " + data.length);
          pw.println(ByteArrayHelper.hexdump(data, true, 16, "   "));
       }
@@ -459,9 +435,47 @@ final class Var2Data extends MPPComponent
    }
 
    /**
-    * Map containing data items indexed by offset.
+    * Find the index of the item at the given offset.
+    *
+    * @param offset item offset
+    * @return item index, or a negative value if the item is not present
+    */
+   private int getItemIndex(Integer offset)
+   {
+      return offset == null ? -1 : Arrays.binarySearch(m_offsets, 0, m_itemCount, offset.intValue());
+   }
+
+   /**
+    * Retrieve the position in the buffer of the data for an item.
+    * The data follows the four byte size which starts each item.
+    *
+    * @param index item index
+    * @return item data position
+    */
+   private int getItemStart(int index)
+   {
+      return m_offsets[index] + 4;
+   }
+
+   /**
+    * Buffer containing the whole block.
+    */
+   private final byte[] m_buffer;
+
+   /**
+    * Offsets of the items in the block, in ascending order.
+    */
+   private final int[] m_offsets;
+
+   /**
+    * Size of the data for each item.
+    */
+   private final int[] m_sizes;
+
+   /**
+    * Number of items in the block.
     */
-   private TreeMap<Integer, byte[]> m_map = new TreeMap<Integer, byte[]>();
+   private final int m_itemCount;
 
    /**
     * Reference to the meta data associated with this block.
@@ -27,6 +27,7 @@ import java.io.BufferedInputStream;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.LinkedList;
@@ -112,6 +113,8 @@ public final class MPXReader extends AbstractProjectReader
          }
 
          m_projectFile = new ProjectFile();
+         applyFieldStoreType(m_projectFile);
+         m_projectFile.beginBulkLoad();
          m_eventManager = m_projectFile.getEventManager();
 
          m_projectConfig = m_projectFile.getProjectConfig();
@@ -196,6 +199,8 @@ public final class MPXReader extends AbstractProjectReader
 
          m_projectConfig.setAutoCalendarUniqueID(false);
 
+         m_projectFile.endBulkLoad();
+
          return (m_projectFile);
       }
 
@@ -891,19 +896,26 @@ public final class MPXReader extends AbstractProjectReader
     */
    private void processDeferredRelationships() throws MPXJException
    {
+      List<Relation> relations = new ArrayList<Relation>();
       for (DeferredRelationship dr : m_deferredRelationships)
       {
-         processDeferredRelationship(dr);
+         processDeferredRelationship(relations, dr);
+      }
+
+      for (Relation relation : m_projectFile.getRelations().addAll(relations))
+      {
+         m_eventManager.fireRelationReadEvent(relation);
       }
    }
 
    /**
     * This method processes a single deferred relationship list.
     *
+    * @param relations list to which new relations are added
     * @param dr deferred relationship list data
     * @throws MPXJException
     */
-   private void processDeferredRelationship(DeferredRelationship dr) throws MPXJException
+   private void processDeferredRelationship(List<Relation> relations, DeferredRelationship dr) throws MPXJException
    {
       String data = dr.getData();
       Task task = dr.getTask();
@@ -924,7 +936,7 @@ public final class MPXReader extends AbstractProjectReader
                end = length;
             }
 
-            populateRelation(dr.getField(), task, data.substring(start, end).trim());
+            populateRelation(relations, dr.getField(), task, data.substring(start, end).trim());
 
             start = end + 1;
          }
@@ -934,12 +946,13 @@ public final class MPXReader extends AbstractProjectReader
    /**
     * Creates and populates a new task relationship.
     *
+    * @param relations list to which the new relation is added
     * @param field which task field source of data
     * @param sourceTask relationship source task
     * @param relationship relationship string
     * @throws MPXJException
     */
-   private void populateRelation(TaskField field, Task sourceTask, String relationship) throws MPXJException
+   private void populateRelation(List<Relation> relations, TaskField field, Task sourceTask, String relationship) throws MPXJException
    {
       int index = 0;
       int length = relationship.length();
@@ -1023,8 +1036,7 @@ public final class MPXReader extends AbstractProjectReader
       // is present. We'll ignore this as the schedule is otherwise valid.
       if (targetTask != null)
       {
-         Relation relation = sourceTask.addPredecessor(targetTask, type, lag);
-         m_eventManager.fireRelationReadEvent(relation);
+         relations.add(new Relation(sourceTask, targetTask, type, lag));
       }
    }
 
@@ -28,6 +28,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.math.BigInteger;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
@@ -46,6 +47,11 @@ import javax.xml.bind.ValidationEventHandler;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
 
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -91,6 +97,7 @@ import net.sf.mpxj.common.BooleanHelper;
 import net.sf.mpxj.common.CharsetHelper;
 import net.sf.mpxj.common.DefaultTimephasedWorkContainer;
 import net.sf.mpxj.common.FieldTypeHelper;
+import net.sf.mpxj.common.JAXBContextCache;
 import net.sf.mpxj.common.MPPAssignmentField;
 import net.sf.mpxj.common.MPPResourceField;
 import net.sf.mpxj.common.MPPTaskField;
@@ -171,6 +178,8 @@ public final class MSPDIReader extends AbstractProjectReader
       try
       {
          m_projectFile = new ProjectFile();
+         applyFieldStoreType(m_projectFile);
+         m_projectFile.beginBulkLoad();
          m_eventManager = m_projectFile.getEventManager();
 
          ProjectConfig config = m_projectFile.getProjectConfig();
@@ -186,50 +195,30 @@ public final class MSPDIReader extends AbstractProjectReader
 
          m_eventManager.addProjectListeners(m_projectListeners);
 
-         SAXParserFactory factory = SAXParserFactory.newInstance();
-         factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-         factory.setNamespaceAware(true);
-         SAXParser saxParser = factory.newSAXParser();
-         XMLReader xmlReader = saxParser.getXMLReader();
-
          if (CONTEXT == null)
          {
             throw CONTEXT_EXCEPTION;
          }
 
          DatatypeConverter.setParentFile(m_projectFile);
-         Unmarshaller unmarshaller = CONTEXT.createUnmarshaller();
-
-         //
-         // If we are matching the behaviour of MS project, then we need to
-         // ignore validation warnings.
-         //
-         if (m_compatibleInput == true)
-         {
-            unmarshaller.setEventHandler(new ValidationEventHandler()
-            {
-               @Override public boolean handleEvent(ValidationEvent event)
-               {
-                  return (true);
-               }
-            });
-         }
-
-         XMLFilter filter = new NamespaceFilter();
-         filter.setParent(xmlReader);
-         UnmarshallerHandler unmarshallerHandler = unmarshaller.getUnmarshallerHandler();
-         filter.setContentHandler(unmarshallerHandler);
-         filter.parse(new InputSource(new InputStreamReader(stream, getCharset())));
-         Project project = (Project) unmarshallerHandler.getResult();
 
          HashMap<BigInteger, ProjectCalendar> calendarMap = new HashMap<BigInteger, ProjectCalendar>();
+         Project project;
 
-         readProjectProperties(project);
-         readProjectExtendedAttributes(project);
-         readCalendars(project, calendarMap);
-         readResources(project, calendarMap);
-         readTasks(project);
-         readAssignments(project);
+         if (m_streaming)
+         {
+            project = readStreaming(stream, calendarMap);
+         }
+         else
+         {
+            project = readProject(stream);
+            readProjectProperties(project);
+            readProjectExtendedAttributes(project);
+            readCalendars(project, calendarMap);
+            readResources(project, calendarMap);
+            readTasks(project);
+            readAssignments(project);
+         }
 
          //
          // Ensure that the unique ID counters are correct
@@ -245,6 +234,8 @@ public final class MSPDIReader extends AbstractProjectReader
             m_projectFile.getProjectProperties().setDefaultCalendarName(defaultCalendar.getName());
          }
 
+         m_projectFile.endBulkLoad();
+
          return (m_projectFile);
       }
 
@@ -268,12 +259,102 @@ public final class MSPDIReader extends AbstractProjectReader
          throw new MPXJException("Failed to parse file", ex);
       }
 
+      catch (XMLStreamException ex)
+      {
+         throw new MPXJException("Failed to parse file", ex);
+      }
+
       finally
       {
          m_projectFile = null;
       }
    }
 
+   /**
+    * Unmarshal the complete MSPDI file into a JAXB object tree.
+    *
+    * @param stream input stream
+    * @return Root node of the MSPDI file
+    */
+   private Project readProject(InputStream stream) throws ParserConfigurationException, SAXException, JAXBException, IOException
+   {
+      SAXParserFactory factory = SAXParserFactory.newInstance();
+      factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+      factory.setNamespaceAware(true);
+      SAXParser saxParser = factory.newSAXParser();
+      XMLReader xmlReader = saxParser.getXMLReader();
+
+      XMLFilter filter = new NamespaceFilter();
+      filter.setParent(xmlReader);
+      UnmarshallerHandler unmarshallerHandler = createUnmarshaller().getUnmarshallerHandler();
+      filter.setContentHandler(unmarshallerHandler);
+      filter.parse(new InputSource(new InputStreamReader(stream, getCharset())));
+      return (Project) unmarshallerHandler.getResult();
+   }
+
+   /**
+    * Read the MSPDI file using StAX. The project properties, calendars
+    * and other small sections are unmarshalled as normal, but each task,
+    * resource and assignment is unmarshalled individually and converted
+    * immediately, so the complete JAXB object tree is never held in memory.
+    *
+    * @param stream input stream
+    * @param calendarMap Map of calendar UIDs to names
+    * @return Root node of the MSPDI file, without tasks, resources or assignments
+    */
+   private Project readStreaming(InputStream stream, HashMap<BigInteger, ProjectCalendar> calendarMap) throws JAXBException, XMLStreamException
+   {
+      XMLInputFactory factory = XMLInputFactory.newInstance();
+      factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+      factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+      XMLStreamReader xmlReader = new NamespaceStreamReader(factory.createXMLStreamReader(new InputStreamReader(stream, getCharset())));
+
+      final SectionStreamReader sectionReader = new SectionStreamReader(xmlReader, createUnmarshaller(), calendarMap);
+      Unmarshaller unmarshaller = createUnmarshaller();
+      unmarshaller.setListener(new Unmarshaller.Listener()
+      {
+         @Override public void beforeUnmarshal(Object target, Object parent)
+         {
+            if (target instanceof Project)
+            {
+               sectionReader.setProject((Project) target);
+            }
+         }
+      });
+
+      Project project = (Project) unmarshaller.unmarshal(sectionReader);
+      sectionReader.setProject(project);
+      sectionReader.finish();
+      return project;
+   }
+
+   /**
+    * Create an unmarshaller.
+    *
+    * @return Unmarshaller instance
+    */
+   private Unmarshaller createUnmarshaller() throws JAXBException
+   {
+      Unmarshaller unmarshaller = CONTEXT.createUnmarshaller();
+
+      //
+      // If we are matching the behaviour of MS project, then we need to
+      // ignore validation warnings.
+      //
+      if (m_compatibleInput == true)
+      {
+         unmarshaller.setEventHandler(new ValidationEventHandler()
+         {
+            @Override public boolean handleEvent(ValidationEvent event)
+            {
+               return (true);
+            }
+         });
+      }
+
+      return unmarshaller;
+   }
+
    /**
     * This method extracts project properties from an MSPDI file.
     *
@@ -1610,8 +1691,8 @@ public final class MSPDIReader extends AbstractProjectReader
                raw = false;
             }
 
-            DefaultTimephasedWorkContainer timephasedCompleteData = new DefaultTimephasedWorkContainer(calendar, normaliser, timephasedComplete, raw);
-            DefaultTimephasedWorkContainer timephasedPlannedData = new DefaultTimephasedWorkContainer(calendar, normaliser, timephasedPlanned, raw);
+            DefaultTimephasedWorkContainer timephasedCompleteData = new DefaultTimephasedWorkContainer(calendar, normaliser, timephasedComplete, raw, m_compactTimephasedData);
+            DefaultTimephasedWorkContainer timephasedPlannedData = new DefaultTimephasedWorkContainer(calendar, normaliser, timephasedPlanned, raw, m_compactTimephasedData);
 
             ResourceAssignment mpx = task.addResourceAssignment(resource);
 
@@ -1835,6 +1916,305 @@ public final class MSPDIReader extends AbstractProjectReader
       return (m_compatibleInput);
    }
 
+   /**
+    * Sets a flag indicating that the file should be read using StAX,
+    * converting each task, resource and assignment as it is read rather
+    * than unmarshalling the complete file first. This significantly
+    * reduces the memory required to read large files.
+    *
+    * @param flag streaming flag
+    */
+   public void setStreaming(boolean flag)
+   {
+      m_streaming = flag;
+   }
+
+   /**
+    * Retrieves a flag indicating that the file will be read using StAX.
+    *
+    * @return Boolean flag
+    */
+   public boolean getStreaming()
+   {
+      return (m_streaming);
+   }
+
+   /**
+    * Sets a flag indicating that timephased data will be held in a compact
+    * form which substantially reduces the memory it requires. The lists of
+    * timephased data returned by resource assignments are then read-only.
+    *
+    * @param flag compact timephased data flag
+    */
+   public void setCompactTimephasedData(boolean flag)
+   {
+      m_compactTimephasedData = flag;
+   }
+
+   /**
+    * Retrieves a flag indicating that timephased data will be held in a
+    * compact form.
+    *
+    * @return Boolean flag
+    */
+   public boolean getCompactTimephasedData()
+   {
+      return (m_compactTimephasedData);
+   }
+
+   /**
+    * Presents the MSPDI file to JAXB, intercepting the tasks, resources and
+    * assignments. Each of these elements is unmarshalled individually
+    * and converted immediately, so JAXB only sees empty sections.
+    */
+   private class SectionStreamReader extends StreamReaderDelegate
+   {
+      /**
+       * Constructor.
+       *
+       * @param reader parent reader
+       * @param unmarshaller unmarshaller used for individual elements
+       * @param calendarMap Map of calendar UIDs to names
+       */
+      public SectionStreamReader(XMLStreamReader reader, Unmarshaller unmarshaller, HashMap<BigInteger, ProjectCalendar> calendarMap)
+      {
+         super(reader);
+         m_unmarshaller = unmarshaller;
+         m_calendarMap = calendarMap;
+      }
+
+      /**
+       * Set the root node being populated by JAXB.
+       *
+       * @param project Root node of the MSPDI file
+       */
+      public void setProject(Project project)
+      {
+         m_project = project;
+      }
+
+      @Override public int next() throws XMLStreamException
+      {
+         int event = super.next();
+
+         while (true)
+         {
+            if (event == XMLStreamConstants.START_ELEMENT)
+            {
+               ++m_depth;
+               if (m_depth == SECTION_DEPTH)
+               {
+                  startSection(getLocalName());
+               }
+               else
+               {
+                  if (m_depth == ELEMENT_DEPTH && m_section != null)
+                  {
+                     readElement();
+                     --m_depth;
+                     event = getEventType();
+                     continue;
+                  }
+               }
+            }
+            else
+            {
+               if (event == XMLStreamConstants.END_ELEMENT)
+               {
+                  if (m_depth == SECTION_DEPTH && m_section != null)
+                  {
+                     endSection();
+                  }
+                  --m_depth;
+               }
+            }
+            break;
+         }
+
+         return event;
+      }
+
+      @Override public int nextTag() throws XMLStreamException
+      {
+         int event = next();
+         while ((event == XMLStreamConstants.CHARACTERS && isWhiteSpace()) || (event == XMLStreamConstants.CDATA && isWhiteSpace()) || event == XMLStreamConstants.SPACE || event == XMLStreamConstants.PROCESSING_INSTRUCTION || event == XMLStreamConstants.COMMENT)
+         {
+            event = next();
+         }
+
+         if (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT)
+         {
+            throw new XMLStreamException("expected start or end tag", getLocation());
+         }
+         return event;
+      }
+
+      /**
+       * Called when a child element of the root node starts. If this is one
+       * of the sections we are streaming, ensure that the preceding
+       * sections have been processed first.
+       *
+       * @param name element name
+       */
+      private void startSection(String name)
+      {
+         if (TASKS.equals(name))
+         {
+            readHeader();
+            m_section = name;
+            m_tasksWithoutIDCount = 0;
+            m_taskCount = 0;
+         }
+         else
+         {
+            if (RESOURCES.equals(name))
+            {
+               readHeader();
+               m_section = name;
+            }
+            else
+            {
+               if (ASSIGNMENTS.equals(name))
+               {
+                  readHeader();
+                  finishTasks();
+                  m_section = name;
+                  m_splitFactory = new SplitTaskFactory();
+                  m_normaliser = new MSPDITimephasedWorkNormaliser();
+               }
+            }
+         }
+      }
+
+      /**
+       * Called when a section we are streaming ends.
+       */
+      private void endSection()
+      {
+         if (TASKS.equals(m_section))
+         {
+            finishTasks();
+         }
+         m_section = null;
+      }
+
+      /**
+       * Unmarshal and convert a single task, resource or assignment.
+       */
+      private void readElement() throws XMLStreamException
+      {
+         try
+         {
+            if (TASKS.equals(m_section))
+            {
+               Project.Tasks.Task xml = m_unmarshaller.unmarshal(getParent(), Project.Tasks.Task.class).getValue();
+               Task task = readTask(xml);
+               ++m_taskCount;
+               if (task.getID() == null)
+               {
+                  ++m_tasksWithoutIDCount;
+               }
+
+               if (xml.getUID() != null && !xml.getPredecessorLink().isEmpty())
+               {
+                  m_predecessors.add(new Pair<Integer, List<Project.Tasks.Task.PredecessorLink>>(xml.getUID(), xml.getPredecessorLink()));
+               }
+            }
+            else
+            {
+               if (RESOURCES.equals(m_section))
+               {
+                  readResource(m_unmarshaller.unmarshal(getParent(), Project.Resources.Resource.class).getValue(), m_calendarMap);
+               }
+               else
+               {
+                  readAssignment(m_unmarshaller.unmarshal(getParent(), Project.Assignments.Assignment.class).getValue(), m_splitFactory, m_normaliser);
+               }
+            }
+         }
+
+         catch (JAXBException ex)
+         {
+            throw new XMLStreamException(ex);
+         }
+      }
+
+      /**
+       * Process the project properties, extended attributes and calendars,
+       * which precede the sections we are streaming.
+       */
+      private void readHeader()
+      {
+         if (!m_headerRead)
+         {
+            m_headerRead = true;
+            readProjectProperties(m_project);
+            readProjectExtendedAttributes(m_project);
+            readCalendars(m_project, m_calendarMap);
+         }
+      }
+
+      /**
+       * Once all tasks have been read, add the predecessors
+       * and update the task structure.
+       */
+      private void finishTasks()
+      {
+         if (!m_tasksRead)
+         {
+            m_tasksRead = true;
+
+            for (Pair<Integer, List<Project.Tasks.Task.PredecessorLink>> pair : m_predecessors)
+            {
+               Task currTask = m_projectFile.getTaskByUniqueID(pair.getFirst());
+               if (currTask != null)
+               {
+                  for (Project.Tasks.Task.PredecessorLink link : pair.getSecond())
+                  {
+                     readPredecessor(currTask, link);
+                  }
+               }
+            }
+            m_predecessors.clear();
+
+            //
+            // MS Project will happily read tasks from an MSPDI file without IDs,
+            // it will just generate ID values based on the task order in the file.
+            // If we find that there are no ID values present, we'll do the same.
+            //
+            if (m_tasksWithoutIDCount == m_taskCount)
+            {
+               m_projectFile.getTasks().renumberIDs();
+            }
+
+            m_projectFile.updateStructure();
+         }
+      }
+
+      /**
+       * Called once JAXB has finished reading the file, to ensure that
+       * all sections have been processed, even if they were not present.
+       */
+      public void finish()
+      {
+         readHeader();
+         finishTasks();
+      }
+
+      private final Unmarshaller m_unmarshaller;
+      private final HashMap<BigInteger, ProjectCalendar> m_calendarMap;
+      private final List<Pair<Integer, List<Project.Tasks.Task.PredecessorLink>>> m_predecessors = new ArrayList<Pair<Integer, List<Project.Tasks.Task.PredecessorLink>>>();
+      private Project m_project;
+      private int m_depth;
+      private String m_section;
+      private boolean m_headerRead;
+      private boolean m_tasksRead;
+      private int m_taskCount;
+      private int m_tasksWithoutIDCount;
+      private SplitTaskFactory m_splitFactory;
+      private TimephasedWorkNormaliser m_normaliser;
+   }
+
    /**
     * Cached context to minimise construction cost.
     */
@@ -1849,15 +2229,7 @@ public final class MSPDIReader extends AbstractProjectReader
    {
       try
       {
-         //
-         // JAXB RI property to speed up construction
-         //
-         System.setProperty("com.sun.xml.bind.v2.runtime.JAXBContextImpl.fastBoot", "true");
-
-         //
-         // Construct the context
-         //
-         CONTEXT = JAXBContext.newInstance("net.sf.mpxj.mspdi.schema", MSPDIReader.class.getClassLoader());
+         CONTEXT = JAXBContextCache.getContext(JAXBContextCache.MSPDI);
       }
 
       catch (JAXBException ex)
@@ -1868,12 +2240,20 @@ public final class MSPDIReader extends AbstractProjectReader
    }
 
    private boolean m_compatibleInput = true;
+   private boolean m_streaming;
+   private boolean m_compactTimephasedData;
    private String m_encoding;
    private Charset m_charset;
    private ProjectFile m_projectFile;
    private EventManager m_eventManager;
    private List<ProjectListener> m_projectListeners;
 
+   private static final int SECTION_DEPTH = 2;
+   private static final int ELEMENT_DEPTH = 3;
+   private static final String TASKS = "Tasks";
+   private static final String RESOURCES = "Resources";
+   private static final String ASSIGNMENTS = "Assignments";
+
    private static final RecurrenceType[] RECURRENCE_TYPES =
    {
       null,
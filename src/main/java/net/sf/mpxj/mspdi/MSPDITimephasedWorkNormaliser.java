@@ -21,17 +21,17 @@
  * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
  */
 
+
 package net.sf.mpxj.mspdi;
 
 import java.util.Calendar;
 import java.util.Date;
-import java.util.LinkedList;
 
 import net.sf.mpxj.Duration;
 import net.sf.mpxj.ProjectCalendar;
 import net.sf.mpxj.TimeUnit;
-import net.sf.mpxj.TimephasedWork;
 import net.sf.mpxj.common.AbstractTimephasedWorkNormaliser;
+import net.sf.mpxj.common.CompactTimephasedWorkList;
 import net.sf.mpxj.common.DateHelper;
 import net.sf.mpxj.common.NumberHelper;
 
@@ -48,152 +48,135 @@ public class MSPDITimephasedWorkNormaliser extends AbstractTimephasedWorkNormali
     *
     * @param calendar current calendar
     * @param list list of assignment data
+    * @return normalised assignment data
     */
-   @Override public void normalise(ProjectCalendar calendar, LinkedList<TimephasedWork> list)
+   @Override public CompactTimephasedWorkList normalise(ProjectCalendar calendar, CompactTimephasedWorkList list)
    {
-      //dumpList("raw", result);
-      splitDays(calendar, list);
-      //dumpList("split days", result);
+      list = splitDays(calendar, list);
       mergeSameDay(calendar, list);
-      //dumpList("mergeSameDay", result);
       mergeSameWork(list);
-      //dumpList("mergeSameWork", result);
       validateSameDay(calendar, list);
       convertToHours(list);
+      return list;
    }
 
-   /*
-      private void dumpList(String label, LinkedList<TimephasedWork> list)
-      {
-         System.out.println(label);
-         for (TimephasedWork assignment : list)
-         {
-            System.out.println(assignment);
-         }
-      }
-      */
-
    /**
     * This method breaks down spans of time into individual days.
     *
     * @param calendar current project calendar
     * @param list list of assignment data
+    * @return assignment data split into days
     */
-   private void splitDays(ProjectCalendar calendar, LinkedList<TimephasedWork> list)
+   private CompactTimephasedWorkList splitDays(ProjectCalendar calendar, CompactTimephasedWorkList list)
    {
-      LinkedList<TimephasedWork> result = new LinkedList<TimephasedWork>();
+      CompactTimephasedWorkList result = new CompactTimephasedWorkList(list.size());
+      CompactTimephasedWorkList assignment = new CompactTimephasedWorkList(1);
       Calendar cal = Calendar.getInstance();
 
-      for (TimephasedWork assignment : list)
+      for (int index = 0; index < list.size(); index++)
       {
-         while (assignment != null)
+         //
+         // The span we're currently splitting is held as the
+         // only item in the assignment list.
+         //
+         assignment.truncate(0);
+         assignment.append(list, index);
+
+         while (true)
          {
-            Date startDay = DateHelper.getDayStartDate(assignment.getStart());
-            Date finishDay = DateHelper.getDayStartDate(assignment.getFinish());
+            long startDay = DateHelper.getDayStartDate(assignment.getStart(0));
+            long finishDay = DateHelper.getDayStartDate(assignment.getFinish(0));
 
             // special case - when the finishday time is midnight, it's really the previous day...
-            if (assignment.getFinish().getTime() == finishDay.getTime())
+            if (assignment.getFinish(0) == finishDay)
             {
-               cal.setTime(finishDay);
+               cal.setTimeInMillis(finishDay);
                cal.add(Calendar.DAY_OF_YEAR, -1);
-               finishDay = cal.getTime();
+               finishDay = cal.getTimeInMillis();
             }
 
-            if (startDay.getTime() == finishDay.getTime())
+            if (startDay == finishDay)
             {
-               result.add(assignment);
+               result.append(assignment, 0);
                break;
             }
 
-            TimephasedWork[] split = splitFirstDay(calendar, assignment);
-            if (split[0] != null)
+            if (!splitFirstDay(calendar, assignment, result))
             {
-               result.add(split[0]);
+               break;
             }
-            assignment = split[1];
          }
       }
 
-      list.clear();
-      list.addAll(result);
+      return result;
    }
 
    /**
-    * This method splits the first day off of a time span.
+    * This method splits the first day off of a time span. The first day
+    * is added to the result list, and the span is updated to represent
+    * the remainder.
     *
     * @param calendar current calendar
-    * @param assignment timephased assignment span
-    * @return first day and remainder assignments
+    * @param assignment list holding the timephased assignment span
+    * @param result list of split assignment data
+    * @return true if there is a remainder which requires further processing
     */
-   private TimephasedWork[] splitFirstDay(ProjectCalendar calendar, TimephasedWork assignment)
+   private boolean splitFirstDay(ProjectCalendar calendar, CompactTimephasedWorkList assignment, CompactTimephasedWorkList result)
    {
-      TimephasedWork[] result = new TimephasedWork[2];
-
       //
       // Retrieve data used to calculate the pro-rata work split
       //
-      Date assignmentStart = assignment.getStart();
-      Date assignmentFinish = assignment.getFinish();
+      Date assignmentStart = new Date(assignment.getStart(0));
+      Date assignmentFinish = new Date(assignment.getFinish(0));
       Duration calendarWork = calendar.getWork(assignmentStart, assignmentFinish, TimeUnit.MINUTES);
-      Duration assignmentWork = assignment.getTotalAmount();
+      double assignmentWork = assignment.getTotalAmount(0);
 
-      if (calendarWork.getDuration() != 0)
+      if (calendarWork.getDuration() == 0)
       {
-         //
-         // Split the first day
-         //
-         Date splitFinish;
-         double splitMinutes;
-         if (calendar.isWorkingDate(assignmentStart))
-         {
-            Date splitStart = assignmentStart;
-            Date splitFinishTime = calendar.getFinishTime(splitStart);
-            splitFinish = DateHelper.setTime(splitStart, splitFinishTime);
-            splitMinutes = calendar.getWork(splitStart, splitFinish, TimeUnit.MINUTES).getDuration();
+         return false;
+      }
 
-            splitMinutes *= assignmentWork.getDuration();
-            splitMinutes /= calendarWork.getDuration();
-            splitMinutes = NumberHelper.round(splitMinutes, 2);
+      //
+      // Split the first day
+      //
+      Date splitFinish;
+      double splitMinutes;
+      if (calendar.isWorkingDate(assignmentStart))
+      {
+         Date splitStart = assignmentStart;
+         Date splitFinishTime = calendar.getFinishTime(splitStart);
+         splitFinish = DateHelper.setTime(splitStart, splitFinishTime);
+         splitMinutes = calendar.getWork(splitStart, splitFinish, TimeUnit.MINUTES).getDuration();
 
-            Duration splitWork = Duration.getInstance(splitMinutes, TimeUnit.MINUTES);
+         splitMinutes *= assignmentWork;
+         splitMinutes /= calendarWork.getDuration();
+         splitMinutes = NumberHelper.round(splitMinutes, 2);
 
-            TimephasedWork split = new TimephasedWork();
-            split.setStart(splitStart);
-            split.setFinish(splitFinish);
-            split.setTotalAmount(splitWork);
+         result.append(splitStart.getTime(), splitFinish.getTime(), splitMinutes, TimeUnit.MINUTES);
+      }
+      else
+      {
+         splitFinish = assignmentStart;
+         splitMinutes = 0;
+      }
 
-            result[0] = split;
-         }
-         else
-         {
-            splitFinish = assignmentStart;
-            splitMinutes = 0;
-         }
+      //
+      // Split the remainder
+      //
+      Date splitStart = calendar.getNextWorkStart(splitFinish);
+      if (splitStart.getTime() > assignmentFinish.getTime())
+      {
+         return false;
+      }
 
-         //
-         // Split the remainder
-         //
-         Date splitStart = calendar.getNextWorkStart(splitFinish);
-         splitFinish = assignmentFinish;
-         TimephasedWork split;
-         if (splitStart.getTime() > splitFinish.getTime())
-         {
-            split = null;
-         }
-         else
-         {
-            splitMinutes = assignmentWork.getDuration() - splitMinutes;
-            Duration splitWork = Duration.getInstance(splitMinutes, TimeUnit.MINUTES);
+      splitMinutes = assignmentWork - splitMinutes;
 
-            split = new TimephasedWork();
-            split.setStart(splitStart);
-            split.setFinish(splitFinish);
-            split.setTotalAmount(splitWork);
-         }
+      assignment.setStart(0, splitStart.getTime());
+      assignment.setTotalAmount(0, splitMinutes, TimeUnit.MINUTES);
+      assignment.setAmountPerDay(0, 0, null);
+      assignment.setModified(0, false);
 
-         result[1] = split;
-      }
-      return result;
+      return true;
    }
 
    /**
@@ -202,76 +185,76 @@ public class MSPDITimephasedWorkNormaliser extends AbstractTimephasedWorkNormali
     * @param calendar current calendar
     * @param list assignment data
     */
-   private void mergeSameDay(ProjectCalendar calendar, LinkedList<TimephasedWork> list)
+   private void mergeSameDay(ProjectCalendar calendar, CompactTimephasedWorkList list)
    {
-      LinkedList<TimephasedWork> result = new LinkedList<TimephasedWork>();
+      int size = list.size();
+      int previous = -1;
 
-      TimephasedWork previousAssignment = null;
-      for (TimephasedWork assignment : list)
+      for (int index = 0; index < size; index++)
       {
-         if (previousAssignment == null)
+         int assignment;
+
+         if (previous == -1)
          {
-            assignment.setAmountPerDay(assignment.getTotalAmount());
-            result.add(assignment);
+            assignment = 0;
+            list.copy(index, assignment);
          }
          else
          {
-            Date previousAssignmentStart = previousAssignment.getStart();
-            Date previousAssignmentStartDay = DateHelper.getDayStartDate(previousAssignmentStart);
-            Date assignmentStart = assignment.getStart();
-            Date assignmentStartDay = DateHelper.getDayStartDate(assignmentStart);
+            assignment = previous + 1;
 
-            if (previousAssignmentStartDay.getTime() == assignmentStartDay.getTime())
+            if (DateHelper.getDayStartDate(list.getStart(previous)) == DateHelper.getDayStartDate(list.getStart(index)))
             {
-               Duration previousAssignmentWork = previousAssignment.getTotalAmount();
-               Duration assignmentWork = assignment.getTotalAmount();
+               double previousAssignmentWork = list.getTotalAmount(previous);
+               double assignmentWork = list.getTotalAmount(index);
 
-               if (previousAssignmentWork.getDuration() != 0 && assignmentWork.getDuration() == 0)
+               if (previousAssignmentWork != 0 && assignmentWork == 0)
                {
                   continue;
                }
 
-               result.removeLast();
+               //
+               // Replace the previous assignment
+               //
+               assignment = previous;
 
-               if (previousAssignmentWork.getDuration() != 0 && assignmentWork.getDuration() != 0)
+               if (previousAssignmentWork != 0 && assignmentWork != 0)
                {
-                  double work = previousAssignment.getTotalAmount().getDuration();
-                  work += assignment.getTotalAmount().getDuration();
-                  Duration totalWork = Duration.getInstance(work, TimeUnit.MINUTES);
-
-                  TimephasedWork merged = new TimephasedWork();
-                  merged.setStart(previousAssignment.getStart());
-                  merged.setFinish(assignment.getFinish());
-                  merged.setTotalAmount(totalWork);
-                  assignment = merged;
+                  double work = previousAssignmentWork;
+                  work += assignmentWork;
+
+                  list.setFinish(assignment, list.getFinish(index));
+                  list.setTotalAmount(assignment, work, TimeUnit.MINUTES);
+                  list.setModified(assignment, false);
                }
                else
                {
-                  if (assignmentWork.getDuration() == 0)
+                  if (assignmentWork != 0)
                   {
-                     assignment = previousAssignment;
+                     list.copy(index, assignment);
                   }
                }
             }
-
-            assignment.setAmountPerDay(assignment.getTotalAmount());
-            result.add(assignment);
+            else
+            {
+               list.copy(index, assignment);
+            }
          }
 
-         Duration calendarWork = calendar.getWork(assignment.getStart(), assignment.getFinish(), TimeUnit.MINUTES);
-         Duration assignmentWork = assignment.getTotalAmount();
-         if (calendarWork.getDuration() == 0 && assignmentWork.getDuration() == 0)
+         list.setAmountPerDay(assignment, list.getTotalAmount(assignment), list.getTotalAmountUnits(assignment));
+
+         double calendarWork = calendar.getWork(new Date(list.getStart(assignment)), new Date(list.getFinish(assignment)), TimeUnit.MINUTES).getDuration();
+         if (calendarWork == 0 && list.getTotalAmount(assignment) == 0)
          {
-            result.removeLast();
+            previous = assignment - 1;
          }
          else
          {
-            previousAssignment = assignment;
+            previous = assignment;
          }
       }
 
-      list.clear();
-      list.addAll(result);
+      list.truncate(previous + 1);
    }
 
    /**
@@ -281,24 +264,24 @@ public class MSPDITimephasedWorkNormaliser extends AbstractTimephasedWorkNormali
     * @param calendar current calendar
     * @param list assignment data
     */
-   private void validateSameDay(ProjectCalendar calendar, LinkedList<TimephasedWork> list)
+   private void validateSameDay(ProjectCalendar calendar, CompactTimephasedWorkList list)
    {
-      for (TimephasedWork assignment : list)
+      for (int index = 0; index < list.size(); index++)
       {
-         Date assignmentStart = assignment.getStart();
+         Date assignmentStart = new Date(list.getStart(index));
          Date calendarStartTime = calendar.getStartTime(assignmentStart);
          Date assignmentStartTime = DateHelper.getCanonicalTime(assignmentStart);
-         Date assignmentFinish = assignment.getFinish();
+         Date assignmentFinish = new Date(list.getFinish(index));
          Date calendarFinishTime = calendar.getFinishTime(assignmentFinish);
          Date assignmentFinishTime = DateHelper.getCanonicalTime(assignmentFinish);
-         double totalWork = assignment.getTotalAmount().getDuration();
+         double totalWork = list.getTotalAmount(index);
 
          if (assignmentStartTime != null && calendarStartTime != null)
          {
             if ((totalWork == 0 && assignmentStartTime.getTime() != calendarStartTime.getTime()) || (assignmentStartTime.getTime() < calendarStartTime.getTime()))
             {
                assignmentStart = DateHelper.setTime(assignmentStart, calendarStartTime);
-               assignment.setStart(assignmentStart);
+               list.setStart(index, assignmentStart.getTime());
             }
          }
 
@@ -307,7 +290,7 @@ public class MSPDITimephasedWorkNormaliser extends AbstractTimephasedWorkNormali
             if ((totalWork == 0 && assignmentFinishTime.getTime() != calendarFinishTime.getTime()) || (assignmentFinishTime.getTime() > calendarFinishTime.getTime()))
             {
                assignmentFinish = DateHelper.setTime(assignmentFinish, calendarFinishTime);
-               assignment.setFinish(assignmentFinish);
+               list.setFinish(index, assignmentFinish.getTime());
             }
          }
       }
@@ -26,6 +26,7 @@ package net.sf.mpxj.mspdi;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.math.BigInteger;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -75,6 +76,7 @@ import net.sf.mpxj.TimephasedWork;
 import net.sf.mpxj.common.AssignmentFieldLists;
 import net.sf.mpxj.common.DateHelper;
 import net.sf.mpxj.common.FieldTypeHelper;
+import net.sf.mpxj.common.JAXBContextCache;
 import net.sf.mpxj.common.MPPAssignmentField;
 import net.sf.mpxj.common.MPPResourceField;
 import net.sf.mpxj.common.MPPTaskField;
@@ -163,6 +165,31 @@ public final class MSPDIWriter extends AbstractProjectWriter
       return m_saveVersion;
    }
 
+   /**
+    * Sets a flag indicating that calendars, resources, tasks and assignments
+    * should be converted as they are written, rather than building the
+    * complete MSPDI structure in memory before writing it. This significantly
+    * reduces the memory required to write large projects. The output is
+    * identical in either case.
+    *
+    * @param flag streaming flag
+    */
+   public void setStreaming(boolean flag)
+   {
+      m_streaming = flag;
+   }
+
+   /**
+    * Retrieves a flag indicating that the file will be written
+    * without building the complete MSPDI structure in memory.
+    *
+    * @return Boolean flag
+    */
+   public boolean getStreaming()
+   {
+      return m_streaming;
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -189,11 +216,28 @@ public final class MSPDIWriter extends AbstractProjectWriter
          Project project = m_factory.createProject();
 
          writeProjectProperties(project);
-         writeCalendars(project);
-         writeResources(project);
-         writeTasks(project);
-         writeAssignments(project);
-         writeProjectExtendedAttributes(project);
+
+         if (m_streaming)
+         {
+            //
+            // The extended attributes precede the other sections in the file,
+            // so we need to know which are in use before writing them.
+            //
+            collectExtendedAttributesInUse();
+            writeProjectExtendedAttributes(project);
+            project.setCalendars(new StreamingCalendars(new CalendarList()));
+            project.setResources(new StreamingResources(new ResourceList()));
+            project.setTasks(new StreamingTasks(new TaskList()));
+            project.setAssignments(new StreamingAssignments(new AssignmentList()));
+         }
+         else
+         {
+            writeCalendars(project);
+            writeResources(project);
+            writeTasks(project);
+            writeAssignments(project);
+            writeProjectExtendedAttributes(project);
+         }
 
          marshaller.marshal(project, stream);
       }
@@ -323,6 +367,47 @@ public final class MSPDIWriter extends AbstractProjectWriter
       }
    }
 
+   /**
+    * Determine which extended attributes are in use without writing
+    * resources, tasks or assignments. This populates the set of extended
+    * attributes in the same order as writing the entities would.
+    */
+   private void collectExtendedAttributesInUse()
+   {
+      for (Resource resource : m_projectFile.getResources())
+      {
+         for (ResourceField field : getAllResourceExtendedAttributes())
+         {
+            if (FieldTypeHelper.valueIsNotDefault(field, resource.getCachedValue(field)))
+            {
+               m_extendedAttributesInUse.add(field);
+            }
+         }
+      }
+
+      for (Task task : m_projectFile.getTasks())
+      {
+         for (TaskField field : getAllTaskExtendedAttributes())
+         {
+            if (FieldTypeHelper.valueIsNotDefault(field, task.getCachedValue(field)))
+            {
+               m_extendedAttributesInUse.add(field);
+            }
+         }
+      }
+
+      for (ResourceAssignment assignment : m_projectFile.getResourceAssignments())
+      {
+         for (AssignmentField field : getAllAssignmentExtendedAttributes())
+         {
+            if (FieldTypeHelper.valueIsNotDefault(field, assignment.getCachedValue(field)))
+            {
+               m_extendedAttributesInUse.add(field);
+            }
+         }
+      }
+   }
+
    /**
     * This method writes calendar data to an MSPDI file.
     *
@@ -1435,6 +1520,34 @@ public final class MSPDIWriter extends AbstractProjectWriter
       // write a dummy resource assignment record to ensure that the MSPDI
       // file shows the correct percent complete amount for the task.
       //
+      for (Task task : m_projectFile.getTasks())
+      {
+         if (requiresDummyAssignment(task))
+         {
+            list.add(writeAssignment(createDummyAssignment(task)));
+         }
+      }
+   }
+
+   /**
+    * Determine if a dummy assignment is required for a task.
+    *
+    * @param task task to test
+    * @return true if a dummy assignment is required
+    */
+   private boolean requiresDummyAssignment(Task task)
+   {
+      return NumberHelper.getDouble(task.getPercentageComplete()) != 0 && task.getResourceAssignments().isEmpty();
+   }
+
+   /**
+    * Create a dummy resource assignment to represent a task's percent complete.
+    *
+    * @param task parent task
+    * @return dummy resource assignment
+    */
+   private ResourceAssignment createDummyAssignment(Task task)
+   {
       ProjectConfig config = m_projectFile.getProjectConfig();
       boolean autoUniqueID = config.getAutoAssignmentUniqueID();
       if (!autoUniqueID)
@@ -1442,32 +1555,27 @@ public final class MSPDIWriter extends AbstractProjectWriter
          config.setAutoAssignmentUniqueID(true);
       }
 
-      for (Task task : m_projectFile.getTasks())
-      {
-         double percentComplete = NumberHelper.getDouble(task.getPercentageComplete());
-         if (percentComplete != 0 && task.getResourceAssignments().isEmpty() == true)
-         {
-            ResourceAssignment dummy = new ResourceAssignment(m_projectFile, task);
-            Duration duration = task.getDuration();
-            if (duration == null)
-            {
-               duration = Duration.getInstance(0, TimeUnit.HOURS);
-            }
-            double durationValue = duration.getDuration();
-            TimeUnit durationUnits = duration.getUnits();
-            double actualWork = (durationValue * percentComplete) / 100;
-            double remainingWork = durationValue - actualWork;
+      ResourceAssignment dummy = new ResourceAssignment(m_projectFile, task);
 
-            dummy.setResourceUniqueID(NULL_RESOURCE_ID);
-            dummy.setWork(duration);
-            dummy.setActualWork(Duration.getInstance(actualWork, durationUnits));
-            dummy.setRemainingWork(Duration.getInstance(remainingWork, durationUnits));
+      config.setAutoAssignmentUniqueID(autoUniqueID);
 
-            list.add(writeAssignment(dummy));
-         }
+      double percentComplete = NumberHelper.getDouble(task.getPercentageComplete());
+      Duration duration = task.getDuration();
+      if (duration == null)
+      {
+         duration = Duration.getInstance(0, TimeUnit.HOURS);
       }
+      double durationValue = duration.getDuration();
+      TimeUnit durationUnits = duration.getUnits();
+      double actualWork = (durationValue * percentComplete) / 100;
+      double remainingWork = durationValue - actualWork;
 
-      config.setAutoAssignmentUniqueID(autoUniqueID);
+      dummy.setResourceUniqueID(NULL_RESOURCE_ID);
+      dummy.setWork(duration);
+      dummy.setActualWork(Duration.getInstance(actualWork, durationUnits));
+      dummy.setRemainingWork(Duration.getInstance(remainingWork, durationUnits));
+
+      return dummy;
    }
 
    /**
@@ -1970,6 +2078,157 @@ public final class MSPDIWriter extends AbstractProjectWriter
       return (m_projectFile);
    }
 
+   /**
+    * Presents the project's calendars to JAXB, converting
+    * each one as it is requested.
+    */
+   private class CalendarList extends AbstractList<Project.Calendars.Calendar>
+   {
+      @Override public Project.Calendars.Calendar get(int index)
+      {
+         return writeCalendar(m_projectFile.getCalendars().get(index));
+      }
+
+      @Override public int size()
+      {
+         return m_projectFile.getCalendars().size();
+      }
+   }
+
+   /**
+    * Presents the project's resources to JAXB, converting
+    * each one as it is requested.
+    */
+   private class ResourceList extends AbstractList<Project.Resources.Resource>
+   {
+      @Override public Project.Resources.Resource get(int index)
+      {
+         return writeResource(m_projectFile.getResources().get(index));
+      }
+
+      @Override public int size()
+      {
+         return m_projectFile.getResources().size();
+      }
+   }
+
+   /**
+    * Presents the project's tasks to JAXB, converting
+    * each one as it is requested.
+    */
+   private class TaskList extends AbstractList<Project.Tasks.Task>
+   {
+      @Override public Project.Tasks.Task get(int index)
+      {
+         return writeTask(m_projectFile.getTasks().get(index));
+      }
+
+      @Override public int size()
+      {
+         return m_projectFile.getTasks().size();
+      }
+   }
+
+   /**
+    * Presents the project's resource assignments to JAXB, converting
+    * each one as it is requested. These are followed by any
+    * dummy assignments required to represent task percent complete.
+    */
+   private class AssignmentList extends AbstractList<Project.Assignments.Assignment>
+   {
+      /**
+       * Constructor.
+       */
+      public AssignmentList()
+      {
+         for (Task task : m_projectFile.getTasks())
+         {
+            if (requiresDummyAssignment(task))
+            {
+               m_dummyAssignmentTasks.add(task);
+            }
+         }
+      }
+
+      @Override public Project.Assignments.Assignment get(int index)
+      {
+         List<ResourceAssignment> assignments = m_projectFile.getResourceAssignments();
+         ResourceAssignment assignment;
+         if (index < assignments.size())
+         {
+            assignment = assignments.get(index);
+         }
+         else
+         {
+            assignment = createDummyAssignment(m_dummyAssignmentTasks.get(index - assignments.size()));
+         }
+         return writeAssignment(assignment);
+      }
+
+      @Override public int size()
+      {
+         return m_projectFile.getResourceAssignments().size() + m_dummyAssignmentTasks.size();
+      }
+
+      private final List<Task> m_dummyAssignmentTasks = new ArrayList<Task>();
+   }
+
+   /**
+    * The following classes allow us to supply our own lists to JAXB.
+    * JAXB treats them as the generated classes they extend.
+    */
+   private static class StreamingCalendars extends Project.Calendars
+   {
+      /**
+       * Constructor.
+       *
+       * @param list calendar list
+       */
+      public StreamingCalendars(List<Project.Calendars.Calendar> list)
+      {
+         calendar = list;
+      }
+   }
+
+   private static class StreamingResources extends Project.Resources
+   {
+      /**
+       * Constructor.
+       *
+       * @param list resource list
+       */
+      public StreamingResources(List<Project.Resources.Resource> list)
+      {
+         resource = list;
+      }
+   }
+
+   private static class StreamingTasks extends Project.Tasks
+   {
+      /**
+       * Constructor.
+       *
+       * @param list task list
+       */
+      public StreamingTasks(List<Project.Tasks.Task> list)
+      {
+         task = list;
+      }
+   }
+
+   private static class StreamingAssignments extends Project.Assignments
+   {
+      /**
+       * Constructor.
+       *
+       * @param list assignment list
+       */
+      public StreamingAssignments(List<Project.Assignments.Assignment> list)
+      {
+         assignment = list;
+      }
+   }
+
    /**
     * Cached context to minimise construction cost.
     */
@@ -1984,15 +2243,7 @@ public final class MSPDIWriter extends AbstractProjectWriter
    {
       try
       {
-         //
-         // JAXB RI property to speed up construction
-         //
-         System.setProperty("com.sun.xml.bind.v2.runtime.JAXBContextImpl.fastBoot", "true");
-
-         //
-         // Construct the context
-         //
-         CONTEXT = JAXBContext.newInstance("net.sf.mpxj.mspdi.schema", MSPDIWriter.class.getClassLoader());
+         CONTEXT = JAXBContextCache.getContext(JAXBContextCache.MSPDI);
       }
 
       catch (JAXBException ex)
@@ -2029,6 +2280,8 @@ public final class MSPDIWriter extends AbstractProjectWriter
 
    private SaveVersion m_saveVersion = SaveVersion.Project2016;
 
+   private boolean m_streaming;
+
    private static final BigInteger BIGINTEGER_ZERO = BigInteger.valueOf(0);
 
    private static final Integer NULL_RESOURCE_ID = Integer.valueOf(-65535);
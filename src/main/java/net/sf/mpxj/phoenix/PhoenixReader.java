@@ -65,6 +65,7 @@ import net.sf.mpxj.TaskField;
 import net.sf.mpxj.TimeUnit;
 import net.sf.mpxj.common.AlphanumComparator;
 import net.sf.mpxj.common.DateHelper;
+import net.sf.mpxj.common.JAXBContextCache;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.listener.ProjectListener;
 import net.sf.mpxj.phoenix.schema.Project;
@@ -109,6 +110,8 @@ public final class PhoenixReader extends AbstractProjectReader
       try
       {
          m_projectFile = new ProjectFile();
+         applyFieldStoreType(m_projectFile);
+         m_projectFile.beginBulkLoad();
          m_activityMap = new HashMap<String, Task>();
          m_activityCodeValues = new HashMap<UUID, String>();
          m_activityCodeSequence = new HashMap<UUID, Integer>();
@@ -155,6 +158,8 @@ public final class PhoenixReader extends AbstractProjectReader
          //
          config.updateUniqueCounters();
 
+         m_projectFile.endBulkLoad();
+
          return (m_projectFile);
       }
 
@@ -835,15 +840,7 @@ public final class PhoenixReader extends AbstractProjectReader
    {
       try
       {
-         //
-         // JAXB RI property to speed up construction
-         //
-         System.setProperty("com.sun.xml.bind.v2.runtime.JAXBContextImpl.fastBoot", "true");
-
-         //
-         // Construct the context
-         //
-         CONTEXT = JAXBContext.newInstance("net.sf.mpxj.phoenix.schema", PhoenixReader.class.getClassLoader());
+         CONTEXT = JAXBContextCache.getContext(JAXBContextCache.PHOENIX);
       }
 
       catch (JAXBException ex)
@@ -71,6 +71,7 @@ import net.sf.mpxj.ResourceType;
 import net.sf.mpxj.Task;
 import net.sf.mpxj.TaskType;
 import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.common.JAXBContextCache;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.listener.ProjectListener;
 import net.sf.mpxj.planner.schema.Allocation;
@@ -114,6 +115,8 @@ public final class PlannerReader extends AbstractProjectReader
       try
       {
          m_projectFile = new ProjectFile();
+         applyFieldStoreType(m_projectFile);
+         m_projectFile.beginBulkLoad();
          m_eventManager = m_projectFile.getEventManager();
 
          ProjectConfig config = m_projectFile.getProjectConfig();
@@ -155,6 +158,8 @@ public final class PlannerReader extends AbstractProjectReader
          //
          config.updateUniqueCounters();
 
+         m_projectFile.endBulkLoad();
+
          return (m_projectFile);
       }
 
@@ -999,15 +1004,7 @@ public final class PlannerReader extends AbstractProjectReader
    {
       try
       {
-         //
-         // JAXB RI property to speed up construction
-         //
-         System.setProperty("com.sun.xml.bind.v2.runtime.JAXBContextImpl.fastBoot", "true");
-
-         //
-         // Construct the context
-         //
-         CONTEXT = JAXBContext.newInstance("net.sf.mpxj.planner.schema", PlannerReader.class.getClassLoader());
+         CONTEXT = JAXBContextCache.getContext(JAXBContextCache.PLANNER);
       }
 
       catch (JAXBException ex)
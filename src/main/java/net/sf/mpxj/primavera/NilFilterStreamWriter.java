@@ -0,0 +1,463 @@
+/*
+ * file:       NilFilterStreamWriter.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.primavera;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * The Primavera schema defines elements as nillable, which by default
+ * results in JAXB generating elements like this: {@code <element xsi:nil="true"/>}
+ * whereas Primavera itself simply omits these elements.
+ *
+ * This class sits between JAXB and the XMLStreamWriter producing the file.
+ * Each start element is held back until we know whether it is nil, in
+ * which case the element and its content are omitted. The output is
+ * also indented as it is written.
+ */
+class NilFilterStreamWriter implements XMLStreamWriter
+{
+   /**
+    * Constructor.
+    *
+    * @param writer writer producing the file
+    * @param encoding encoding used for the file
+    */
+   public NilFilterStreamWriter(XMLStreamWriter writer, String encoding)
+   {
+      m_writer = writer;
+      m_encoding = encoding;
+   }
+
+   @Override public void writeStartElement(String localName) throws XMLStreamException
+   {
+      writeStartElement(XMLConstants.DEFAULT_NS_PREFIX, localName, null);
+   }
+
+   @Override public void writeStartElement(String namespaceURI, String localName) throws XMLStreamException
+   {
+      writeStartElement(null, localName, namespaceURI);
+   }
+
+   @Override public void writeStartElement(String prefix, String localName, String namespaceURI) throws XMLStreamException
+   {
+      if (m_skipDepth != 0)
+      {
+         ++m_skipDepth;
+         return;
+      }
+
+      writePendingElement(false);
+      m_pending = true;
+      m_pendingPrefix = prefix;
+      m_pendingLocalName = localName;
+      m_pendingNamespaceURI = namespaceURI;
+   }
+
+   @Override public void writeEmptyElement(String localName) throws XMLStreamException
+   {
+      writeStartElement(localName);
+      writeEndElement();
+   }
+
+   @Override public void writeEmptyElement(String namespaceURI, String localName) throws XMLStreamException
+   {
+      writeStartElement(namespaceURI, localName);
+      writeEndElement();
+   }
+
+   @Override public void writeEmptyElement(String prefix, String localName, String namespaceURI) throws XMLStreamException
+   {
+      writeStartElement(prefix, localName, namespaceURI);
+      writeEndElement();
+   }
+
+   @Override public void writeEndElement() throws XMLStreamException
+   {
+      if (m_skipDepth != 0)
+      {
+         --m_skipDepth;
+         return;
+      }
+
+      if (m_pending)
+      {
+         writePendingElement(true);
+      }
+      else
+      {
+         --m_depth;
+         if (m_hasChildElements[m_depth])
+         {
+            writeIndent(m_depth);
+         }
+         m_writer.writeEndElement();
+      }
+   }
+
+   @Override public void writeEndDocument() throws XMLStreamException
+   {
+      writePendingElement(false);
+      m_writer.writeEndDocument();
+      m_writer.writeCharacters(NEW_LINE);
+   }
+
+   @Override public void close() throws XMLStreamException
+   {
+      m_writer.close();
+   }
+
+   @Override public void flush() throws XMLStreamException
+   {
+      m_writer.flush();
+   }
+
+   @Override public void writeAttribute(String localName, String value) throws XMLStreamException
+   {
+      writeAttribute(null, null, localName, value);
+   }
+
+   @Override public void writeAttribute(String namespaceURI, String localName, String value) throws XMLStreamException
+   {
+      writeAttribute(null, namespaceURI, localName, value);
+   }
+
+   @Override public void writeAttribute(String prefix, String namespaceURI, String localName, String value) throws XMLStreamException
+   {
+      if (m_skipDepth != 0)
+      {
+         return;
+      }
+
+      if (m_pending)
+      {
+         if (XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI.equals(namespaceURI) && NIL.equals(localName) && TRUE.equals(value))
+         {
+            m_pending = false;
+            m_pendingNamespaces.clear();
+            m_pendingAttributes.clear();
+            m_skipDepth = 1;
+         }
+         else
+         {
+            m_pendingAttributes.add(new String[]
+            {
+               prefix,
+               namespaceURI,
+               localName,
+               value
+            });
+         }
+      }
+      else
+      {
+         writeAttribute(m_writer, prefix, namespaceURI, localName, value);
+      }
+   }
+
+   @Override public void writeNamespace(String prefix, String namespaceURI) throws XMLStreamException
+   {
+      if (m_skipDepth != 0)
+      {
+         return;
+      }
+
+      if (m_pending)
+      {
+         // The default namespace is declared first
+         String[] namespace = new String[]
+         {
+            prefix,
+            namespaceURI
+         };
+
+         if (prefix == null || prefix.length() == 0)
+         {
+            m_pendingNamespaces.add(0, namespace);
+         }
+         else
+         {
+            m_pendingNamespaces.add(namespace);
+         }
+      }
+      else
+      {
+         m_writer.writeNamespace(prefix, namespaceURI);
+      }
+   }
+
+   @Override public void writeDefaultNamespace(String namespaceURI) throws XMLStreamException
+   {
+      writeNamespace(XMLConstants.DEFAULT_NS_PREFIX, namespaceURI);
+   }
+
+   @Override public void writeComment(String data) throws XMLStreamException
+   {
+      if (m_skipDepth == 0)
+      {
+         writePendingElement(false);
+         m_writer.writeComment(data);
+      }
+   }
+
+   @Override public void writeProcessingInstruction(String target) throws XMLStreamException
+   {
+      if (m_skipDepth == 0)
+      {
+         writePendingElement(false);
+         m_writer.writeProcessingInstruction(target);
+      }
+   }
+
+   @Override public void writeProcessingInstruction(String target, String data) throws XMLStreamException
+   {
+      if (m_skipDepth == 0)
+      {
+         writePendingElement(false);
+         m_writer.writeProcessingInstruction(target, data);
+      }
+   }
+
+   @Override public void writeCData(String data) throws XMLStreamException
+   {
+      if (m_skipDepth == 0)
+      {
+         writePendingElement(false);
+         m_writer.writeCData(data);
+      }
+   }
+
+   @Override public void writeDTD(String dtd) throws XMLStreamException
+   {
+      m_writer.writeDTD(dtd);
+   }
+
+   @Override public void writeEntityRef(String name) throws XMLStreamException
+   {
+      if (m_skipDepth == 0)
+      {
+         writePendingElement(false);
+         m_writer.writeEntityRef(name);
+      }
+   }
+
+   @Override public void writeStartDocument() throws XMLStreamException
+   {
+      m_writer.writeStartDocument(m_encoding, VERSION);
+   }
+
+   @Override public void writeStartDocument(String version) throws XMLStreamException
+   {
+      m_writer.writeStartDocument(m_encoding, version);
+   }
+
+   @Override public void writeStartDocument(String encoding, String version) throws XMLStreamException
+   {
+      m_writer.writeStartDocument(encoding, version);
+   }
+
+   @Override public void writeCharacters(String text) throws XMLStreamException
+   {
+      // Empty text is ignored so that the element is written as an empty element
+      if (m_skipDepth == 0 && text.length() != 0)
+      {
+         writePendingElement(false);
+         m_writer.writeCharacters(text);
+      }
+   }
+
+   @Override public void writeCharacters(char[] text, int start, int len) throws XMLStreamException
+   {
+      if (m_skipDepth == 0 && len != 0)
+      {
+         writePendingElement(false);
+         m_writer.writeCharacters(text, start, len);
+      }
+   }
+
+   @Override public String getPrefix(String uri) throws XMLStreamException
+   {
+      return m_writer.getPrefix(uri);
+   }
+
+   @Override public void setPrefix(String prefix, String uri) throws XMLStreamException
+   {
+      m_writer.setPrefix(prefix, uri);
+   }
+
+   @Override public void setDefaultNamespace(String uri) throws XMLStreamException
+   {
+      m_writer.setDefaultNamespace(uri);
+   }
+
+   @Override public void setNamespaceContext(NamespaceContext context) throws XMLStreamException
+   {
+      m_writer.setNamespaceContext(context);
+   }
+
+   @Override public NamespaceContext getNamespaceContext()
+   {
+      return m_writer.getNamespaceContext();
+   }
+
+   @Override public Object getProperty(String name)
+   {
+      return m_writer.getProperty(name);
+   }
+
+   /**
+    * Write the start element we have been holding back, along with
+    * its namespaces and attributes.
+    *
+    * @param empty true if the element has no content
+    */
+   private void writePendingElement(boolean empty) throws XMLStreamException
+   {
+      if (!m_pending)
+      {
+         return;
+      }
+      m_pending = false;
+
+      if (m_depth != 0)
+      {
+         m_hasChildElements[m_depth - 1] = true;
+         writeIndent(m_depth);
+      }
+
+      String prefix = m_pendingPrefix == null ? XMLConstants.DEFAULT_NS_PREFIX : m_pendingPrefix;
+      String namespaceURI = m_pendingNamespaceURI == null ? XMLConstants.NULL_NS_URI : m_pendingNamespaceURI;
+
+      if (empty)
+      {
+         m_writer.writeEmptyElement(prefix, m_pendingLocalName, namespaceURI);
+      }
+      else
+      {
+         m_writer.writeStartElement(prefix, m_pendingLocalName, namespaceURI);
+      }
+
+      for (String[] namespace : m_pendingNamespaces)
+      {
+         if (namespace[0] == null || namespace[0].length() == 0)
+         {
+            m_writer.writeDefaultNamespace(namespace[1]);
+         }
+         else
+         {
+            m_writer.writeNamespace(namespace[0], namespace[1]);
+         }
+      }
+      m_pendingNamespaces.clear();
+
+      for (String[] attribute : m_pendingAttributes)
+      {
+         writeAttribute(m_writer, attribute[0], attribute[1], attribute[2], attribute[3]);
+      }
+      m_pendingAttributes.clear();
+
+      if (!empty)
+      {
+         if (m_depth == m_hasChildElements.length)
+         {
+            boolean[] hasChildElements = new boolean[m_depth * 2];
+            System.arraycopy(m_hasChildElements, 0, hasChildElements, 0, m_depth);
+            m_hasChildElements = hasChildElements;
+         }
+         m_hasChildElements[m_depth] = false;
+         ++m_depth;
+      }
+   }
+
+   /**
+    * Write an attribute using the most appropriate method.
+    *
+    * @param writer target writer
+    * @param prefix attribute prefix
+    * @param namespaceURI attribute namespace
+    * @param localName attribute name
+    * @param value attribute value
+    */
+   private void writeAttribute(XMLStreamWriter writer, String prefix, String namespaceURI, String localName, String value) throws XMLStreamException
+   {
+      if (namespaceURI == null || namespaceURI.length() == 0)
+      {
+         writer.writeAttribute(localName, value);
+      }
+      else
+      {
+         if (prefix == null)
+         {
+            writer.writeAttribute(namespaceURI, localName, value);
+         }
+         else
+         {
+            writer.writeAttribute(prefix, namespaceURI, localName, value);
+         }
+      }
+   }
+
+   /**
+    * Start a new line, indented to the current depth.
+    *
+    * @param depth current depth
+    */
+   private void writeIndent(int depth) throws XMLStreamException
+   {
+      int length = 1 + (depth * INDENT);
+      if (m_indent.length < length)
+      {
+         char[] indent = new char[length * 2];
+         Arrays.fill(indent, ' ');
+         indent[0] = '\n';
+         m_indent = indent;
+      }
+      m_writer.writeCharacters(m_indent, 0, length);
+   }
+
+   private final XMLStreamWriter m_writer;
+   private final String m_encoding;
+   private int m_depth;
+   private int m_skipDepth;
+   private boolean[] m_hasChildElements = new boolean[16];
+   private char[] m_indent = new char[0];
+   private boolean m_pending;
+   private String m_pendingPrefix;
+   private String m_pendingLocalName;
+   private String m_pendingNamespaceURI;
+   private final List<String[]> m_pendingNamespaces = new ArrayList<String[]>();
+   private final List<String[]> m_pendingAttributes = new ArrayList<String[]>();
+
+   private static final String VERSION = "1.0";
+   private static final String NIL = "nil";
+   private static final String TRUE = "true";
+   private static final String NEW_LINE = "\n";
+   private static final int INDENT = 2;
+}
@@ -46,13 +46,13 @@ import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.ProjectProperties;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.listener.ProjectListener;
-import net.sf.mpxj.reader.ProjectReader;
+import net.sf.mpxj.reader.AbstractProjectReader;
 
 /**
  * This class provides a generic front end to read project data from
  * a database.
  */
-public final class PrimaveraDatabaseReader implements ProjectReader
+public final class PrimaveraDatabaseReader extends AbstractProjectReader
 {
    /**
     * {@inheritDoc}
@@ -108,7 +108,9 @@ public final class PrimaveraDatabaseReader implements ProjectReader
       {
          m_reader = new PrimaveraReader(m_taskUdfCounters, m_resourceUdfCounters, m_assignmentUdfCounters, m_resourceFields, m_wbsFields, m_taskFields, m_assignmentFields, m_aliases, m_matchPrimaveraWBS);
          ProjectFile project = m_reader.getProject();
+         applyFieldStoreType(project);
          project.getEventManager().addProjectListeners(m_projectListeners);
+         project.beginBulkLoad();
 
          processAnalytics();
          processProjectProperties();
@@ -124,6 +126,8 @@ public final class PrimaveraDatabaseReader implements ProjectReader
          m_reader = null;
          project.updateStructure();
 
+         project.endBulkLoad();
+
          return (project);
       }
 
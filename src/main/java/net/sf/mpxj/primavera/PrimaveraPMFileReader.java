@@ -23,9 +23,9 @@
 
 package net.sf.mpxj.primavera;
 
-import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -38,15 +38,11 @@ import java.util.Set;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
-import javax.xml.bind.UnmarshallerHandler;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
-
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
-import org.xml.sax.XMLFilter;
-import org.xml.sax.XMLReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
 
 import net.sf.mpxj.ActivityCode;
 import net.sf.mpxj.ActivityCodeContainer;
@@ -79,6 +75,7 @@ import net.sf.mpxj.TaskField;
 import net.sf.mpxj.TimeUnit;
 import net.sf.mpxj.common.BooleanHelper;
 import net.sf.mpxj.common.DateHelper;
+import net.sf.mpxj.common.JAXBContextCache;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.listener.ProjectListener;
 import net.sf.mpxj.mpp.CustomFieldValueItem;
@@ -121,14 +118,241 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
       m_projectListeners.add(listener);
    }
 
+   /**
+    * Restrict the projects read from the file. Projects whose object IDs
+    * are not listed here are skipped as the file is read, without their
+    * WBS, activities, relationships or assignments being unmarshalled.
+    * The read and readAll methods will only see the selected projects.
+    * Pass null to read all projects.
+    *
+    * @param projectIDs object IDs of the projects to read
+    */
+   public void setProjectFilter(Collection<Integer> projectIDs)
+   {
+      m_projectFilter = projectIDs == null ? null : new HashSet<Integer>(projectIDs);
+   }
+
    /**
     * {@inheritDoc}
     */
    @Override public ProjectFile read(InputStream stream) throws MPXJException
+   {
+      List<ProjectFile> projects = new ArrayList<ProjectFile>(1);
+      int projectCount = readProjects(stream, new ProjectListHandler(projects), false);
+      if (projects.isEmpty())
+      {
+         throw new MPXJException("Unable to locate any non-external projects in a list of " + projectCount + " projects");
+      }
+      return projects.get(0);
+   }
+
+   /**
+    * This is a convenience method which allows all projects in a
+    * PMXML file to be read in a single pass. External projects are ignored.
+    *
+    * @param stream input stream
+    * @return list of ProjectFile instances
+    * @throws MPXJException
+    */
+   public List<ProjectFile> readAll(InputStream stream) throws MPXJException
+   {
+      List<ProjectFile> projects = new ArrayList<ProjectFile>();
+      readProjects(stream, new ProjectListHandler(projects), true);
+      return projects;
+   }
+
+   /**
+    * Read all projects in a PMXML file, passing each project to the
+    * supplied handler as soon as it has been read. The file is read one
+    * project at a time, so provided the handler does not retain the
+    * projects, memory use depends on the size of the largest project
+    * rather than the size of the whole file. External projects are ignored.
+    *
+    * @param stream input stream
+    * @param handler handler which receives each project
+    * @throws MPXJException
+    */
+   public void readAll(InputStream stream, PrimaveraPMProjectHandler handler) throws MPXJException
+   {
+      readProjects(stream, handler, true);
+   }
+
+   /**
+    * Read the PMXML file using StAX. Only the children of the root element
+    * required to create a project are unmarshalled, and each of these is
+    * unmarshalled individually. The Calendar, Resource and other shared
+    * elements precede the Project elements, so each project can be
+    * processed as soon as it has been unmarshalled.
+    *
+    * @param stream input stream
+    * @param handler handler which receives each project
+    * @param readAll true to read all projects, false to stop after the first
+    * @return number of Project elements seen
+    */
+   private int readProjects(InputStream stream, PrimaveraPMProjectHandler handler, boolean readAll) throws MPXJException
+   {
+      try
+      {
+         if (CONTEXT == null)
+         {
+            throw CONTEXT_EXCEPTION;
+         }
+
+         XMLInputFactory factory = XMLInputFactory.newInstance();
+         factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+         factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+         XMLStreamReader reader = new NamespaceStreamReader(factory.createXMLStreamReader(stream));
+
+         Unmarshaller unmarshaller = CONTEXT.createUnmarshaller();
+         APIBusinessObjects apibo = new APIBusinessObjects();
+         int projectCount = 0;
+
+         //
+         // Move to the first child of the root element
+         //
+         reader.nextTag();
+         reader.next();
+
+         while (nextTag(reader) == XMLStreamConstants.START_ELEMENT)
+         {
+            String name = reader.getLocalName();
+            if (PROJECT.equals(name))
+            {
+               ++projectCount;
+               ProjectStreamReader projectReader = new ProjectStreamReader(reader);
+               ProjectType project = unmarshaller.unmarshal(projectReader, ProjectType.class).getValue();
+               if (projectReader.getSelected())
+               {
+                  handler.handleProject(processProject(apibo, project));
+                  if (!readAll)
+                  {
+                     break;
+                  }
+               }
+            }
+            else
+            {
+               readSharedElement(reader, unmarshaller, apibo, name);
+            }
+         }
+
+         return projectCount;
+      }
+
+      catch (JAXBException ex)
+      {
+         throw new MPXJException("Failed to parse file", ex);
+      }
+
+      catch (XMLStreamException ex)
+      {
+         throw new MPXJException("Failed to parse file", ex);
+      }
+   }
+
+   /**
+    * Unmarshal a child of the root element which is shared by all projects
+    * and add it to the root object. Elements we don't use are skipped.
+    *
+    * @param reader XML stream reader
+    * @param unmarshaller unmarshaller
+    * @param apibo root object
+    * @param name element name
+    */
+   private void readSharedElement(XMLStreamReader reader, Unmarshaller unmarshaller, APIBusinessObjects apibo, String name) throws JAXBException, XMLStreamException
+   {
+      if ("UDFType".equals(name))
+      {
+         apibo.getUDFType().add(unmarshaller.unmarshal(reader, UDFTypeType.class).getValue());
+      }
+      else if ("GlobalPreferences".equals(name))
+      {
+         apibo.getGlobalPreferences().add(unmarshaller.unmarshal(reader, GlobalPreferencesType.class).getValue());
+      }
+      else if ("Currency".equals(name))
+      {
+         apibo.getCurrency().add(unmarshaller.unmarshal(reader, CurrencyType.class).getValue());
+      }
+      else if ("ActivityCodeType".equals(name))
+      {
+         apibo.getActivityCodeType().add(unmarshaller.unmarshal(reader, ActivityCodeTypeType.class).getValue());
+      }
+      else if ("ActivityCode".equals(name))
+      {
+         apibo.getActivityCode().add(unmarshaller.unmarshal(reader, ActivityCodeType.class).getValue());
+      }
+      else if ("Calendar".equals(name))
+      {
+         apibo.getCalendar().add(unmarshaller.unmarshal(reader, CalendarType.class).getValue());
+      }
+      else if ("Resource".equals(name))
+      {
+         apibo.getResource().add(unmarshaller.unmarshal(reader, ResourceType.class).getValue());
+      }
+      else
+      {
+         skipElement(reader);
+      }
+   }
+
+   /**
+    * Move to the next start or end element, unless we are already
+    * positioned on one.
+    *
+    * @param reader XML stream reader
+    * @return event type
+    */
+   private int nextTag(XMLStreamReader reader) throws XMLStreamException
+   {
+      int event = reader.getEventType();
+      while (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT)
+      {
+         event = reader.next();
+      }
+      return event;
+   }
+
+   /**
+    * Skip the current element and its content, leaving the reader
+    * positioned on the event following the end element.
+    *
+    * @param reader XML stream reader
+    */
+   private static void skipElement(XMLStreamReader reader) throws XMLStreamException
+   {
+      int depth = 1;
+      while (depth != 0)
+      {
+         int event = reader.next();
+         if (event == XMLStreamConstants.START_ELEMENT)
+         {
+            ++depth;
+         }
+         else
+         {
+            if (event == XMLStreamConstants.END_ELEMENT)
+            {
+               --depth;
+            }
+         }
+      }
+      reader.next();
+   }
+
+   /**
+    * Create a ProjectFile instance from a Project element.
+    *
+    * @param apibo shared data
+    * @param project Project element
+    * @return ProjectFile instance
+    */
+   private ProjectFile processProject(APIBusinessObjects apibo, ProjectType project)
    {
       try
       {
          m_projectFile = new ProjectFile();
+         applyFieldStoreType(m_projectFile);
+         m_projectFile.beginBulkLoad();
          m_eventManager = m_projectFile.getEventManager();
 
          ProjectConfig config = m_projectFile.getProjectConfig();
@@ -146,41 +370,6 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
 
          m_eventManager.addProjectListeners(m_projectListeners);
 
-         SAXParserFactory factory = SAXParserFactory.newInstance();
-         factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-         factory.setNamespaceAware(true);
-         SAXParser saxParser = factory.newSAXParser();
-         XMLReader xmlReader = saxParser.getXMLReader();
-
-         if (CONTEXT == null)
-         {
-            throw CONTEXT_EXCEPTION;
-         }
-
-         Unmarshaller unmarshaller = CONTEXT.createUnmarshaller();
-         XMLFilter filter = new NamespaceFilter();
-         filter.setParent(xmlReader);
-         UnmarshallerHandler unmarshallerHandler = unmarshaller.getUnmarshallerHandler();
-         filter.setContentHandler(unmarshallerHandler);
-         filter.parse(new InputSource(stream));
-         APIBusinessObjects apibo = (APIBusinessObjects) unmarshallerHandler.getResult();
-
-         List<ProjectType> projects = apibo.getProject();
-         ProjectType project = null;
-         for (ProjectType currentProject : projects)
-         {
-            if (!BooleanHelper.getBoolean(currentProject.isExternal()))
-            {
-               project = currentProject;
-               break;
-            }
-         }
-
-         if (project == null)
-         {
-            throw new MPXJException("Unable to locate any non-external projects in a list of " + projects.size() + " projects");
-         }
-
          processProjectUDFs(apibo);
          processProjectProperties(apibo, project);
          processActivityCodes(apibo, project);
@@ -195,32 +384,15 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
          //
          config.updateUniqueCounters();
 
-         return (m_projectFile);
-      }
-
-      catch (ParserConfigurationException ex)
-      {
-         throw new MPXJException("Failed to parse file", ex);
-      }
-
-      catch (JAXBException ex)
-      {
-         throw new MPXJException("Failed to parse file", ex);
-      }
+         m_projectFile.endBulkLoad();
 
-      catch (SAXException ex)
-      {
-         throw new MPXJException("Failed to parse file", ex);
-      }
-
-      catch (IOException ex)
-      {
-         throw new MPXJException("Failed to parse file", ex);
+         return (m_projectFile);
       }
 
       finally
       {
          m_projectFile = null;
+         m_eventManager = null;
          m_clashMap.clear();
          m_calMap.clear();
          m_activityCodeMap.clear();
@@ -996,15 +1168,7 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
    {
       try
       {
-         //
-         // JAXB RI property to speed up construction
-         //
-         System.setProperty("com.sun.xml.bind.v2.runtime.JAXBContextImpl.fastBoot", "true");
-
-         //
-         // Construct the context
-         //
-         CONTEXT = JAXBContext.newInstance("net.sf.mpxj.primavera.schema", PrimaveraPMFileReader.class.getClassLoader());
+         CONTEXT = JAXBContextCache.getContext(JAXBContextCache.PRIMAVERA);
       }
 
       catch (JAXBException ex)
@@ -1030,8 +1194,159 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
       return (mappedID);
    }
 
+   /**
+    * Presents a single Project element to JAXB. Once the ObjectId and
+    * External elements show that we don't need this project, the
+    * remaining child elements are skipped, so the WBS, activities
+    * and other project data are never unmarshalled.
+    */
+   private class ProjectStreamReader extends StreamReaderDelegate
+   {
+      /**
+       * Constructor.
+       *
+       * @param reader parent reader, positioned on the Project start element
+       */
+      public ProjectStreamReader(XMLStreamReader reader)
+      {
+         super(reader);
+      }
+
+      /**
+       * Returns true if this project should be processed.
+       *
+       * @return true if the project is selected
+       */
+      public boolean getSelected()
+      {
+         return m_included && !m_external;
+      }
+
+      @Override public int next() throws XMLStreamException
+      {
+         int event = super.next();
+
+         while (true)
+         {
+            if (event == XMLStreamConstants.START_ELEMENT)
+            {
+               ++m_depth;
+               if (m_depth == CHILD_DEPTH)
+               {
+                  if (!getSelected())
+                  {
+                     skipElement(getParent());
+                     --m_depth;
+                     event = getEventType();
+                     continue;
+                  }
+                  m_elementName = getLocalName();
+                  m_text.setLength(0);
+               }
+            }
+            else
+            {
+               if (event == XMLStreamConstants.CHARACTERS && m_depth == CHILD_DEPTH)
+               {
+                  m_text.append(getTextCharacters(), getTextStart(), getTextLength());
+               }
+               else
+               {
+                  if (event == XMLStreamConstants.END_ELEMENT)
+                  {
+                     if (m_depth == CHILD_DEPTH)
+                     {
+                        endChildElement();
+                     }
+                     --m_depth;
+                  }
+               }
+            }
+            break;
+         }
+
+         return event;
+      }
+
+      @Override public int nextTag() throws XMLStreamException
+      {
+         int event = next();
+         while ((event == XMLStreamConstants.CHARACTERS && isWhiteSpace()) || (event == XMLStreamConstants.CDATA && isWhiteSpace()) || event == XMLStreamConstants.SPACE || event == XMLStreamConstants.PROCESSING_INSTRUCTION || event == XMLStreamConstants.COMMENT)
+         {
+            event = next();
+         }
+
+         if (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT)
+         {
+            throw new XMLStreamException("expected start or end tag", getLocation());
+         }
+         return event;
+      }
+
+      /**
+       * Called at the end of each child of the Project element to determine
+       * if we are still interested in this project.
+       */
+      private void endChildElement()
+      {
+         String text = m_text.toString().trim();
+
+         if ("External".equals(m_elementName))
+         {
+            m_external = "true".equals(text) || "1".equals(text);
+         }
+         else
+         {
+            if ("ObjectId".equals(m_elementName) && m_projectFilter != null)
+            {
+               try
+               {
+                  m_included = m_projectFilter.contains(Integer.valueOf(text));
+               }
+
+               catch (NumberFormatException ex)
+               {
+                  m_included = false;
+               }
+            }
+         }
+
+         m_elementName = null;
+      }
+
+      private int m_depth = 1;
+      private boolean m_included = true;
+      private boolean m_external;
+      private String m_elementName;
+      private final StringBuilder m_text = new StringBuilder();
+   }
+
+   /**
+    * Collects the projects read from a file.
+    */
+   private static class ProjectListHandler implements PrimaveraPMProjectHandler
+   {
+      /**
+       * Constructor.
+       *
+       * @param projects list to receive the projects
+       */
+      public ProjectListHandler(List<ProjectFile> projects)
+      {
+         m_projects = projects;
+      }
+
+      @Override public void handleProject(ProjectFile project)
+      {
+         m_projects.add(project);
+      }
+
+      private final List<ProjectFile> m_projects;
+   }
+
    private ProjectFile m_projectFile;
    private EventManager m_eventManager;
+   private Set<Integer> m_projectFilter;
    private List<ProjectListener> m_projectListeners;
    private Map<Integer, Integer> m_clashMap = new HashMap<Integer, Integer>();
    private Map<Integer, ProjectCalendar> m_calMap = new HashMap<Integer, ProjectCalendar>();
@@ -1113,4 +1428,7 @@ public final class PrimaveraPMFileReader extends AbstractProjectReader
    }
 
    private static final WbsRowComparatorPMXML WBS_ROW_COMPARATOR = new WbsRowComparatorPMXML();
+
+   private static final String PROJECT = "Project";
+   private static final int CHILD_DEPTH = 2;
 }
@@ -23,9 +23,9 @@
 
 package net.sf.mpxj.primavera;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
@@ -38,14 +38,9 @@ import java.util.UUID;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.sax.SAXTransformerFactory;
-import javax.xml.transform.sax.TransformerHandler;
-import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 import net.sf.mpxj.ConstraintType;
 import net.sf.mpxj.CurrencySymbolPosition;
@@ -71,6 +66,7 @@ import net.sf.mpxj.TaskField;
 import net.sf.mpxj.TimeUnit;
 import net.sf.mpxj.common.BooleanHelper;
 import net.sf.mpxj.common.FieldTypeHelper;
+import net.sf.mpxj.common.JAXBContextCache;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.primavera.schema.APIBusinessObjects;
 import net.sf.mpxj.primavera.schema.ActivityType;
@@ -134,34 +130,6 @@ public final class PrimaveraPMFileWriter extends AbstractProjectWriter
             throw CONTEXT_EXCEPTION;
          }
 
-         //
-         // The Primavera schema defines elements as nillable, which by
-         // default results in
-         // JAXB generating elements like this <element xsl:nil="true"/>
-         // whereas Primavera itself simply omits these elements.
-         //
-         // The XSLT stylesheet below transforms the XML generated by JAXB on
-         // the fly to remove any nil elements.
-         //
-         TransformerFactory transFact = TransformerFactory.newInstance();
-         TransformerHandler handler = ((SAXTransformerFactory) transFact).newTransformerHandler(new StreamSource(new ByteArrayInputStream(NILLABLE_STYLESHEET.getBytes())));
-         handler.setResult(new StreamResult(stream));
-         Transformer transformer = handler.getTransformer();
-
-         try
-         {
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
-         }
-
-         catch (Exception ex)
-         {
-            // https://sourceforge.net/p/mpxj/bugs/291/
-            // Output indentation is a nice to have.
-            // If we're working with a transformer which doesn't
-            // support it, swallow any errors raised trying to configure it.
-         }
-
          m_projectFile = projectFile;
          m_calendar = Calendar.getInstance();
 
@@ -170,7 +138,7 @@ public final class PrimaveraPMFileWriter extends AbstractProjectWriter
          marshaller.setProperty(Marshaller.JAXB_SCHEMA_LOCATION, "");
 
          m_factory = new ObjectFactory();
-         m_apibo = m_factory.createAPIBusinessObjects();
+         m_apibo = new StreamingBusinessObjects();
 
          writeCurrency();
          writeUserFieldDefinitions();
@@ -180,7 +148,16 @@ public final class PrimaveraPMFileWriter extends AbstractProjectWriter
          writeTasks();
          writeAssignments();
 
-         marshaller.marshal(m_apibo, handler);
+         //
+         // Rather than building a complete tree of JAXB objects, the lists
+         // of calendars, resources, WBS entries, activities, relationships
+         // and assignments populated above convert each item as JAXB asks
+         // for it. The writer below omits any nil elements as they are
+         // written, and indents the output.
+         //
+         XMLStreamWriter writer = new NilFilterStreamWriter(XMLOutputFactory.newInstance().createXMLStreamWriter(stream, ENCODING), ENCODING);
+         marshaller.marshal(m_apibo, writer);
+         writer.flush();
       }
 
       catch (JAXBException ex)
@@ -188,7 +165,7 @@ public final class PrimaveraPMFileWriter extends AbstractProjectWriter
          throw new IOException(ex.toString());
       }
 
-      catch (TransformerConfigurationException ex)
+      catch (XMLStreamException ex)
       {
          throw new IOException(ex.toString());
       }
@@ -199,8 +176,6 @@ public final class PrimaveraPMFileWriter extends AbstractProjectWriter
          m_factory = null;
          m_apibo = null;
          m_project = null;
-         m_wbsSequence = 0;
-         m_relationshipObjectID = 0;
          m_calendar = null;
       }
    }
@@ -328,7 +303,7 @@ public final class PrimaveraPMFileWriter extends AbstractProjectWriter
     */
    private void writeProjectProperties()
    {
-      m_project = m_factory.createProjectType();
+      m_project = new StreamingProject();
       m_apibo.getProject().add(m_project);
 
       ProjectProperties mpxj = m_projectFile.getProjectProperties();
@@ -397,21 +372,24 @@ public final class PrimaveraPMFileWriter extends AbstractProjectWriter
     */
    private void writeCalendars()
    {
-      for (ProjectCalendar calendar : m_projectFile.getCalendars())
+      m_apibo.setCalendars(new ConversionList<ProjectCalendar, CalendarType>(m_projectFile.getCalendars())
       {
-         writeCalendar(calendar);
-      }
+         @Override protected CalendarType convert(int index, ProjectCalendar calendar)
+         {
+            return writeCalendar(calendar);
+         }
+      });
    }
 
    /**
     * This method writes data for an individual calendar to a PM XML file.
     *
     * @param mpxj ProjectCalander instance
+    * @return CalendarType instance
     */
-   private void writeCalendar(ProjectCalendar mpxj)
+   private CalendarType writeCalendar(ProjectCalendar mpxj)
    {
       CalendarType xml = m_factory.createCalendarType();
-      m_apibo.getCalendar().add(xml);
       String type = mpxj.getResource() == null ? "Global" : "Resource";
 
       xml.setBaseCalendarObjectId(getCalendarUniqueID(mpxj.getParent()));
@@ -470,6 +448,8 @@ public final class PrimaveraPMFileWriter extends AbstractProjectWriter
             }
          }
       }
+
+      return xml;
    }
 
    /**
@@ -477,24 +457,33 @@ public final class PrimaveraPMFileWriter extends AbstractProjectWriter
     */
    private void writeResources()
    {
+      List<Resource> resources = new ArrayList<Resource>();
       for (Resource resource : m_projectFile.getResources())
       {
          if (resource.getUniqueID().intValue() != 0)
          {
-            writeResource(resource);
+            resources.add(resource);
          }
       }
+
+      m_apibo.setResources(new ConversionList<Resource, ResourceType>(resources)
+      {
+         @Override protected ResourceType convert(int index, Resource resource)
+         {
+            return writeResource(resource);
+         }
+      });
    }
 
    /**
     * Write a single resource.
     *
     * @param mpxj Resource instance
+    * @return ResourceType instance
     */
-   private void writeResource(Resource mpxj)
+   private ResourceType writeResource(Resource mpxj)
    {
       ResourceType xml = m_factory.createResourceType();
-      m_apibo.getResource().add(xml);
 
       xml.setAutoComputeActuals(Boolean.TRUE);
       xml.setCalculateCostFromUnits(Boolean.TRUE);
@@ -512,51 +501,79 @@ public final class PrimaveraPMFileWriter extends AbstractProjectWriter
       xml.setResourceNotes(mpxj.getNotes());
       xml.setResourceType(getResourceType(mpxj));
       xml.getUDF().addAll(writeUDFType(FieldTypeClass.RESOURCE, mpxj));
+      return xml;
    }
 
    /**
     * This method writes task data to a PM XML file.
-    *
     */
    private void writeTasks()
    {
+      List<Task> wbs = new ArrayList<Task>();
+      List<Task> activities = new ArrayList<Task>();
+      List<Relation> relations = new ArrayList<Relation>();
+
       for (Task task : m_projectFile.getChildTasks())
       {
-         writeTask(task);
+         collectTask(task, wbs, activities, relations);
       }
-   }
 
-   /**
-    * Used to write the child tasks of a parent task to the PM XML file.
-    *
-    * @param parent parent Task instance
-    */
-   private void writeChildTasks(Task parent)
-   {
-      for (Task task : parent.getChildTasks())
+      m_project.setWBS(new ConversionList<Task, WBSType>(wbs)
       {
-         writeTask(task);
-      }
+         @Override protected WBSType convert(int index, Task task)
+         {
+            return writeWBS(task, index);
+         }
+      });
+
+      m_project.setActivities(new ConversionList<Task, ActivityType>(activities)
+      {
+         @Override protected ActivityType convert(int index, Task task)
+         {
+            return writeActivity(task);
+         }
+      });
+
+      m_project.setRelationships(new ConversionList<Relation, RelationshipType>(relations)
+      {
+         @Override protected RelationshipType convert(int index, Relation relation)
+         {
+            return writeRelation(relation, index + 1);
+         }
+      });
    }
 
    /**
-    * Given a Task instance, this task determines if it should be written to the
-    * PM XML file as an activity or as a WBS item, and calls the appropriate
-    * method.
+    * Given a Task instance, this method determines if it should be written to the
+    * PM XML file as an activity or as a WBS item, and adds it to the appropriate
+    * list. Child tasks of WBS items are processed recursively, and the predecessors
+    * of each activity are gathered to be written as relationships.
     *
     * @param task Task instance
+    * @param wbs tasks to be written as WBS items
+    * @param activities tasks to be written as activities
+    * @param relations relations to be written as relationships
     */
-   private void writeTask(Task task)
+   private void collectTask(Task task, List<Task> wbs, List<Task> activities, List<Relation> relations)
    {
       if (!task.getNull())
       {
          if (task.getSummary())
          {
-            writeWBS(task);
+            if (task.getUniqueID().intValue() != 0)
+            {
+               wbs.add(task);
+            }
+
+            for (Task child : task.getChildTasks())
+            {
+               collectTask(child, wbs, activities, relations);
+            }
          }
          else
          {
-            writeActivity(task);
+            activities.add(task);
+            relations.addAll(task.getPredecessors());
          }
       }
    }
@@ -565,43 +582,41 @@ public final class PrimaveraPMFileWriter extends AbstractProjectWriter
     * Writes a WBS entity to the PM XML file.
     *
     * @param mpxj MPXJ Task entity
+    * @param sequence WBS sequence number
+    * @return WBSType instance
     */
-   private void writeWBS(Task mpxj)
+   private WBSType writeWBS(Task mpxj, int sequence)
    {
-      if (mpxj.getUniqueID().intValue() != 0)
-      {
-         WBSType xml = m_factory.createWBSType();
-         m_project.getWBS().add(xml);
-         String code = mpxj.getWBS();
-         code = code == null || code.length() == 0 ? DEFAULT_WBS_CODE : code;
+      WBSType xml = m_factory.createWBSType();
+      String code = mpxj.getWBS();
+      code = code == null || code.length() == 0 ? DEFAULT_WBS_CODE : code;
 
-         Task parentTask = mpxj.getParentTask();
-         Integer parentObjectID = parentTask == null ? null : parentTask.getUniqueID();
+      Task parentTask = mpxj.getParentTask();
+      Integer parentObjectID = parentTask == null ? null : parentTask.getUniqueID();
 
-         xml.setCode(code);
-         xml.setGUID(DatatypeConverter.printUUID(mpxj.getGUID()));
-         xml.setName(mpxj.getName());
+      xml.setCode(code);
+      xml.setGUID(DatatypeConverter.printUUID(mpxj.getGUID()));
+      xml.setName(mpxj.getName());
 
-         xml.setObjectId(mpxj.getUniqueID());
-         xml.setParentObjectId(parentObjectID);
-         xml.setProjectObjectId(PROJECT_OBJECT_ID);
-         xml.setSequenceNumber(Integer.valueOf(m_wbsSequence++));
+      xml.setObjectId(mpxj.getUniqueID());
+      xml.setParentObjectId(parentObjectID);
+      xml.setProjectObjectId(PROJECT_OBJECT_ID);
+      xml.setSequenceNumber(Integer.valueOf(sequence));
 
-         xml.setStatus("Active");
-      }
+      xml.setStatus("Active");
 
-      writeChildTasks(mpxj);
+      return xml;
    }
 
    /**
     * Writes an activity to a PM XML file.
     *
     * @param mpxj MPXJ Task instance
+    * @return ActivityType instance
     */
-   private void writeActivity(Task mpxj)
+   private ActivityType writeActivity(Task mpxj)
    {
       ActivityType xml = m_factory.createActivityType();
-      m_project.getActivity().add(xml);
 
       Task parentTask = mpxj.getParentTask();
       Integer parentObjectID = parentTask == null ? null : parentTask.getUniqueID();
@@ -638,7 +653,7 @@ public final class PrimaveraPMFileWriter extends AbstractProjectWriter
       xml.setWBSObjectId(parentObjectID);
       xml.getUDF().addAll(writeUDFType(FieldTypeClass.TASK, mpxj));
 
-      writePredecessors(mpxj);
+      return xml;
    }
 
    /**
@@ -646,6 +661,7 @@ public final class PrimaveraPMFileWriter extends AbstractProjectWriter
     */
    private void writeAssignments()
    {
+      List<ResourceAssignment> assignments = new ArrayList<ResourceAssignment>();
       for (ResourceAssignment assignment : m_projectFile.getResourceAssignments())
       {
          Resource resource = assignment.getResource();
@@ -654,21 +670,29 @@ public final class PrimaveraPMFileWriter extends AbstractProjectWriter
             Task task = assignment.getTask();
             if (task != null && task.getUniqueID().intValue() != 0 && !task.getSummary())
             {
-               writeAssignment(assignment);
+               assignments.add(assignment);
             }
          }
       }
+
+      m_project.setResourceAssignments(new ConversionList<ResourceAssignment, ResourceAssignmentType>(assignments)
+      {
+         @Override protected ResourceAssignmentType convert(int index, ResourceAssignment assignment)
+         {
+            return writeAssignment(assignment);
+         }
+      });
    }
 
    /**
     * Writes a resource assignment to a PM XML file.
     *
     * @param mpxj MPXJ ResourceAssignment instance
+    * @return ResourceAssignmentType instance
     */
-   private void writeAssignment(ResourceAssignment mpxj)
+   private ResourceAssignmentType writeAssignment(ResourceAssignment mpxj)
    {
       ResourceAssignmentType xml = m_factory.createResourceAssignmentType();
-      m_project.getResourceAssignment().add(xml);
       Task task = mpxj.getTask();
       Task parentTask = task.getParentTask();
       Integer parentTaskUniqueID = parentTask == null ? null : parentTask.getUniqueID();
@@ -702,29 +726,29 @@ public final class PrimaveraPMFileWriter extends AbstractProjectWriter
       xml.setStartDate(mpxj.getStart());
       xml.setWBSObjectId(parentTaskUniqueID);
       xml.getUDF().addAll(writeUDFType(FieldTypeClass.ASSIGNMENT, mpxj));
+      return xml;
    }
 
    /**
-    * Writes task predecessor links to a PM XML file.
+    * Writes a task predecessor link to a PM XML file.
     *
-    * @param task MPXJ Task instance
+    * @param mpxj MPXJ Relation instance
+    * @param objectID relationship object ID
+    * @return RelationshipType instance
     */
-   private void writePredecessors(Task task)
+   private RelationshipType writeRelation(Relation mpxj, int objectID)
    {
-      List<Relation> relations = task.getPredecessors();
-      for (Relation mpxj : relations)
-      {
-         RelationshipType xml = m_factory.createRelationshipType();
-         m_project.getRelationship().add(xml);
-
-         xml.setLag(getDuration(mpxj.getLag()));
-         xml.setObjectId(Integer.valueOf(++m_relationshipObjectID));
-         xml.setPredecessorActivityObjectId(mpxj.getTargetTask().getUniqueID());
-         xml.setSuccessorActivityObjectId(mpxj.getSourceTask().getUniqueID());
-         xml.setPredecessorProjectObjectId(PROJECT_OBJECT_ID);
-         xml.setSuccessorProjectObjectId(PROJECT_OBJECT_ID);
-         xml.setType(RELATION_TYPE_MAP.get(mpxj.getType()));
-      }
+      RelationshipType xml = m_factory.createRelationshipType();
+
+      xml.setLag(getDuration(mpxj.getLag()));
+      xml.setObjectId(Integer.valueOf(objectID));
+      xml.setPredecessorActivityObjectId(mpxj.getTargetTask().getUniqueID());
+      xml.setSuccessorActivityObjectId(mpxj.getSourceTask().getUniqueID());
+      xml.setPredecessorProjectObjectId(PROJECT_OBJECT_ID);
+      xml.setSuccessorProjectObjectId(PROJECT_OBJECT_ID);
+      xml.setType(RELATION_TYPE_MAP.get(mpxj.getType()));
+
+      return xml;
    }
 
    /**
@@ -1024,6 +1048,117 @@ public final class PrimaveraPMFileWriter extends AbstractProjectWriter
       return (m_projectFile);
    }
 
+   /**
+    * Presents a list of MPXJ entities to JAXB, converting
+    * each one as it is requested.
+    *
+    * @param <S> MPXJ entity type
+    * @param <T> JAXB type
+    */
+   private abstract static class ConversionList<S, T> extends AbstractList<T>
+   {
+      /**
+       * Constructor.
+       *
+       * @param source MPXJ entities
+       */
+      public ConversionList(List<S> source)
+      {
+         m_source = source;
+      }
+
+      @Override public T get(int index)
+      {
+         return convert(index, m_source.get(index));
+      }
+
+      @Override public int size()
+      {
+         return m_source.size();
+      }
+
+      /**
+       * Convert an MPXJ entity to its JAXB equivalent.
+       *
+       * @param index index of the entity in the list
+       * @param item MPXJ entity
+       * @return JAXB object
+       */
+      protected abstract T convert(int index, S item);
+
+      private final List<S> m_source;
+   }
+
+   /**
+    * The following classes allow us to supply our own lists to JAXB.
+    * JAXB treats them as the generated classes they extend.
+    */
+   private static class StreamingBusinessObjects extends APIBusinessObjects
+   {
+      /**
+       * Set the calendar list.
+       *
+       * @param list calendar list
+       */
+      public void setCalendars(List<CalendarType> list)
+      {
+         calendar = list;
+      }
+
+      /**
+       * Set the resource list.
+       *
+       * @param list resource list
+       */
+      public void setResources(List<ResourceType> list)
+      {
+         resource = list;
+      }
+   }
+
+   private static class StreamingProject extends ProjectType
+   {
+      /**
+       * Set the WBS list.
+       *
+       * @param list WBS list
+       */
+      public void setWBS(List<WBSType> list)
+      {
+         wbs = list;
+      }
+
+      /**
+       * Set the activity list.
+       *
+       * @param list activity list
+       */
+      public void setActivities(List<ActivityType> list)
+      {
+         activity = list;
+      }
+
+      /**
+       * Set the relationship list.
+       *
+       * @param list relationship list
+       */
+      public void setRelationships(List<RelationshipType> list)
+      {
+         relationship = list;
+      }
+
+      /**
+       * Set the resource assignment list.
+       *
+       * @param list resource assignment list
+       */
+      public void setResourceAssignments(List<ResourceAssignmentType> list)
+      {
+         resourceAssignment = list;
+      }
+   }
+
    /**
     * Cached context to minimise construction cost.
     */
@@ -1038,15 +1173,7 @@ public final class PrimaveraPMFileWriter extends AbstractProjectWriter
    {
       try
       {
-         //
-         // JAXB RI property to speed up construction
-         //
-         System.setProperty("com.sun.xml.bind.v2.runtime.JAXBContextImpl.fastBoot", "true");
-
-         //
-         // Construct the context
-         //
-         CONTEXT = JAXBContext.newInstance("net.sf.mpxj.primavera.schema", PrimaveraPMFileWriter.class.getClassLoader());
+         CONTEXT = JAXBContextCache.getContext(JAXBContextCache.PRIMAVERA);
       }
 
       catch (JAXBException ex)
@@ -1056,7 +1183,7 @@ public final class PrimaveraPMFileWriter extends AbstractProjectWriter
       }
    }
 
-   private static final String NILLABLE_STYLESHEET = "<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"><xsl:output method=\"xml\" indent=\"yes\"/><xsl:template match=\"node()[not(@xsi:nil = 'true')]|@*\"><xsl:copy><xsl:apply-templates select=\"node()|@*\"/></xsl:copy></xsl:template></xsl:stylesheet>";
+   private static final String ENCODING = "UTF-8";
    private static final Integer PROJECT_OBJECT_ID = Integer.valueOf(1);
    private static final String PROJECT_ID = "PROJECT";
    private static final String RESOURCE_ID_PREFIX = "RESOURCE-";
@@ -1098,10 +1225,8 @@ public final class PrimaveraPMFileWriter extends AbstractProjectWriter
 
    private ProjectFile m_projectFile;
    private ObjectFactory m_factory;
-   private APIBusinessObjects m_apibo;
-   private ProjectType m_project;
-   private int m_wbsSequence;
-   private int m_relationshipObjectID;
+   private StreamingBusinessObjects m_apibo;
+   private StreamingProject m_project;
    private Calendar m_calendar;
    private TaskField m_activityIDField = TaskField.WBS;
 }
@@ -0,0 +1,42 @@
+/*
+ * file:       PrimaveraPMProjectHandler.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.primavera;
+
+import net.sf.mpxj.MPXJException;
+import net.sf.mpxj.ProjectFile;
+
+/**
+ * Implementations of this interface receive each project read from a
+ * PMXML file by PrimaveraPMFileReader as soon as it is complete.
+ */
+public interface PrimaveraPMProjectHandler
+{
+   /**
+    * Called when a project has been read.
+    *
+    * @param project ProjectFile instance
+    * @throws MPXJException
+    */
+   public void handleProject(ProjectFile project) throws MPXJException;
+}
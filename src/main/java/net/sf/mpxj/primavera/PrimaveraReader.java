@@ -1212,6 +1212,7 @@ final class PrimaveraReader
     */
    public void processPredecessors(List<Row> rows)
    {
+      List<Relation> relations = new ArrayList<Relation>(rows.size());
       for (Row row : rows)
       {
          Integer currentID = mapTaskID(row.getInteger("task_id"));
@@ -1225,9 +1226,9 @@ final class PrimaveraReader
             Integer uniqueID = row.getInteger("task_pred_id");
             if (predecessorTask != null)
             {
-               Relation relation = currentTask.addPredecessor(predecessorTask, type, lag);
+               Relation relation = new Relation(currentTask, predecessorTask, type, lag);
                relation.setUniqueID(uniqueID);
-               m_eventManager.fireRelationReadEvent(relation);
+               relations.add(relation);
             }
             else
             {
@@ -1238,6 +1239,11 @@ final class PrimaveraReader
             }
          }
       }
+
+      for (Relation relation : m_project.getRelations().addAll(relations))
+      {
+         m_eventManager.fireRelationReadEvent(relation);
+      }
    }
 
    /**
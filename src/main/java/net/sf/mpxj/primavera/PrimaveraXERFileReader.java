@@ -33,6 +33,7 @@ import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -40,6 +41,10 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import net.sf.mpxj.FieldType;
 import net.sf.mpxj.MPXJException;
@@ -48,7 +53,6 @@ import net.sf.mpxj.Relation;
 import net.sf.mpxj.Task;
 import net.sf.mpxj.common.CharsetHelper;
 import net.sf.mpxj.common.MultiDateFormat;
-import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.common.ReaderTokenizer;
 import net.sf.mpxj.common.Tokenizer;
 import net.sf.mpxj.listener.ProjectListener;
@@ -72,7 +76,10 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
    }
 
    /**
-    * Set the ID of the project to be read.
+    * Set the ID of the project to be read. Unless a project filter has
+    * been supplied, rows belonging to other projects are discarded as the
+    * file is read by the read method, as they are not required. The
+    * readAll and listProjects methods are not affected.
     *
     * @param projectID project ID
     */
@@ -81,6 +88,47 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       m_projectID = Integer.valueOf(projectID);
    }
 
+   /**
+    * Restrict the projects read from the file. Rows in project-specific
+    * tables (for example tasks, WBS, relationships and assignments) which
+    * belong to other projects are discarded as the file is read, so memory
+    * use depends on the size of the selected projects rather than the size
+    * of the whole file. The read, readAll and listProjects methods will only
+    * see the selected projects. Pass null to read all projects.
+    *
+    * @param projectIDs IDs of the projects to read
+    */
+   public void setProjectFilter(Collection<Integer> projectIDs)
+   {
+      m_projectFilter = projectIDs == null ? null : new HashSet<Integer>(projectIDs);
+   }
+
+   /**
+    * Restrict the tables read from the file. Tables which are not named
+    * here are skipped as the file is read. The PROJECT and CURRTYPE tables
+    * are always read as they are required to process the remaining data.
+    * Pass null to read all tables.
+    *
+    * @param tableNames names of the tables to read
+    */
+   public void setTableFilter(Collection<String> tableNames)
+   {
+      if (tableNames == null)
+      {
+         m_tableFilter = null;
+      }
+      else
+      {
+         m_tableFilter = new HashSet<String>();
+         for (String tableName : tableNames)
+         {
+            m_tableFilter.add(tableName.toLowerCase());
+         }
+         m_tableFilter.add("project");
+         m_tableFilter.add("currtype");
+      }
+   }
+
    /**
     * Sets the character encoding used when reading an XER file.
     *
@@ -109,41 +157,61 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
    {
       try
       {
-         m_tables = new HashMap<String, List<Row>>();
+         m_tables = new HashMap<String, XerTable>();
          m_numberFormat = new DecimalFormat();
 
-         processFile(is);
+         //
+         // If a project has been selected, we only need
+         // to hold the rows belonging to that project.
+         //
+         Set<Integer> projectFilter = m_projectFilter;
+         if (m_projectID != null && projectFilter == null)
+         {
+            m_projectFilter = Collections.singleton(m_projectID);
+         }
 
-         m_reader = new PrimaveraReader(m_taskUdfCounters, m_resourceUdfCounters, m_assignmentUdfCounters, m_resourceFields, m_wbsFields, m_taskFields, m_assignmentFields, m_aliases, m_matchPrimaveraWBS);
-         ProjectFile project = m_reader.getProject();
+         try
+         {
+            processFile(is);
+         }
+
+         finally
+         {
+            m_projectFilter = projectFilter;
+         }
+
+         PrimaveraReader reader = createPrimaveraReader();
+         ProjectFile project = reader.getProject();
          project.getProjectProperties().setFileApplication("Primavera");
          project.getProjectProperties().setFileType("XER");
          project.getEventManager().addProjectListeners(m_projectListeners);
+         project.beginBulkLoad();
 
          processProjectID();
-         processProjectProperties();
-         processActivityCodes();
-         processUserDefinedFields();
-         processCalendars();
-         processResources();
-         processResourceRates();
-         processTasks();
-         processPredecessors();
-         processAssignments();
-
-         m_reader = null;
+         processProjectProperties(reader, m_projectID);
+         processActivityCodes(reader);
+         processUserDefinedFields(reader);
+         processCalendars(reader);
+         processResources(reader);
+         processResourceRates(reader);
+         processTasks(reader, m_projectID);
+         processPredecessors(reader, m_projectID);
+         processAssignments(reader, m_projectID);
+
          project.updateStructure();
 
+         project.endBulkLoad();
+
          return (project);
       }
 
       finally
       {
-         m_reader = null;
          m_tables = null;
          m_currentTableName = null;
          m_currentTable = null;
          m_currentFieldNames = null;
+         m_currentFieldTypes = null;
          m_defaultCurrencyName = null;
          m_currencyMap.clear();
          m_numberFormat = null;
@@ -175,61 +243,57 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
     * @throws MPXJException
     */
    public List<ProjectFile> readAll(InputStream is, boolean linkCrossProjectRelations) throws MPXJException
+   {
+      return readAll(is, linkCrossProjectRelations, null);
+   }
+
+   /**
+    * This is a convenience method which allows all projects in an
+    * XER file to be read in a single pass. If an ExecutorService is
+    * supplied, the file is parsed once, then each project is read
+    * as a separate task using the executor. Note that in this case any
+    * project listeners will be called from multiple threads.
+    *
+    * @param is input stream
+    * @param linkCrossProjectRelations add Relation links that cross ProjectFile boundaries
+    * @param executor optional ExecutorService used to read projects concurrently
+    * @return list of ProjectFile instances
+    * @throws MPXJException
+    */
+   public List<ProjectFile> readAll(InputStream is, boolean linkCrossProjectRelations, ExecutorService executor) throws MPXJException
    {
       try
       {
-         m_tables = new HashMap<String, List<Row>>();
+         m_tables = new HashMap<String, XerTable>();
          m_numberFormat = new DecimalFormat();
 
          processFile(is);
 
          List<Row> rows = getRows("project", null, null);
-         List<ProjectFile> result = new ArrayList<ProjectFile>(rows.size());
-         List<ExternalPredecessorRelation> externalPredecessors = new ArrayList<ExternalPredecessorRelation>();
-         for (Row row : rows)
+         List<PrimaveraReader> readers = new ArrayList<PrimaveraReader>(rows.size());
+         if (executor == null)
          {
-            setProjectID(row.getInt("proj_id"));
-
-            m_reader = new PrimaveraReader(m_taskUdfCounters, m_resourceUdfCounters, m_assignmentUdfCounters, m_resourceFields, m_wbsFields, m_taskFields, m_assignmentFields, m_aliases, m_matchPrimaveraWBS);
-            ProjectFile project = m_reader.getProject();
-            project.getEventManager().addProjectListeners(m_projectListeners);
-
-            processProjectProperties();
-            processUserDefinedFields();
-            processCalendars();
-            processResources();
-            processResourceRates();
-            processTasks();
-            processPredecessors();
-            processAssignments();
-
-            externalPredecessors.addAll(m_reader.getExternalPredecessors());
-
-            m_reader = null;
-            project.updateStructure();
+            for (Row row : rows)
+            {
+               readers.add(readProject(row.getInteger("proj_id")));
+            }
+         }
+         else
+         {
+            readers.addAll(readProjects(rows, executor));
+         }
 
-            result.add(project);
+         List<ProjectFile> result = new ArrayList<ProjectFile>(readers.size());
+         List<ExternalPredecessorRelation> externalPredecessors = new ArrayList<ExternalPredecessorRelation>();
+         for (PrimaveraReader reader : readers)
+         {
+            result.add(reader.getProject());
+            externalPredecessors.addAll(reader.getExternalPredecessors());
          }
 
          if (linkCrossProjectRelations)
          {
-            for (ExternalPredecessorRelation externalRelation : externalPredecessors)
-            {
-               Task predecessorTask;
-               // we could aggregate the project task id maps but that's likely more work
-               // than just looping through the projects
-               for (ProjectFile proj : result)
-               {
-                  predecessorTask = proj.getTaskByUniqueID(externalRelation.getSourceUniqueID());
-                  if (predecessorTask != null)
-                  {
-                     Relation relation = externalRelation.getTargetTask().addPredecessor(predecessorTask, externalRelation.getType(), externalRelation.getLag());
-                     relation.setUniqueID(externalRelation.getUniqueID());
-                     break;
-                  }
-               }
-               // if predecessorTask not found the external task is outside of the file so ignore
-            }
+            linkCrossProjectRelations(result, externalPredecessors);
          }
 
          return result;
@@ -237,11 +301,11 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
 
       finally
       {
-         m_reader = null;
          m_tables = null;
          m_currentTableName = null;
          m_currentTable = null;
          m_currentFieldNames = null;
+         m_currentFieldTypes = null;
          m_defaultCurrencyName = null;
          m_currencyMap.clear();
          m_numberFormat = null;
@@ -249,6 +313,157 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       }
    }
 
+   /**
+    * Read each project using the supplied ExecutorService.
+    * The results are returned in the same order as the project rows.
+    *
+    * @param rows project rows
+    * @param executor ExecutorService instance
+    * @return list of PrimaveraReader instances, one per project
+    * @throws MPXJException
+    */
+   private List<PrimaveraReader> readProjects(List<Row> rows, ExecutorService executor) throws MPXJException
+   {
+      List<Future<PrimaveraReader>> futures = new ArrayList<Future<PrimaveraReader>>(rows.size());
+      for (Row row : rows)
+      {
+         final Integer projectID = row.getInteger("proj_id");
+         futures.add(executor.submit(new Callable<PrimaveraReader>()
+         {
+            @Override public PrimaveraReader call()
+            {
+               return readProject(projectID);
+            }
+         }));
+      }
+
+      List<PrimaveraReader> result = new ArrayList<PrimaveraReader>(futures.size());
+      try
+      {
+         for (Future<PrimaveraReader> future : futures)
+         {
+            result.add(future.get());
+         }
+      }
+
+      catch (InterruptedException ex)
+      {
+         Thread.currentThread().interrupt();
+         throw new MPXJException(MPXJException.READ_ERROR, ex);
+      }
+
+      catch (ExecutionException ex)
+      {
+         //
+         // Projects are read without checked exceptions,
+         // so the cause is either a runtime exception or an error.
+         //
+         if (ex.getCause() instanceof Error)
+         {
+            throw (Error) ex.getCause();
+         }
+         throw new MPXJException(MPXJException.READ_ERROR, (Exception) ex.getCause());
+      }
+
+      finally
+      {
+         for (Future<PrimaveraReader> future : futures)
+         {
+            future.cancel(true);
+         }
+      }
+
+      return result;
+   }
+
+   /**
+    * Read a single project from the parsed tables. This method only reads
+    * the shared table data, so it may be called concurrently for
+    * different projects.
+    *
+    * @param projectID ID of the project to read
+    * @return PrimaveraReader instance holding the project
+    */
+   private PrimaveraReader readProject(Integer projectID)
+   {
+      PrimaveraReader reader = createPrimaveraReader();
+      ProjectFile project = reader.getProject();
+      project.getEventManager().addProjectListeners(m_projectListeners);
+      project.beginBulkLoad();
+
+      processProjectProperties(reader, projectID);
+      processUserDefinedFields(reader);
+      processCalendars(reader);
+      processResources(reader);
+      processResourceRates(reader);
+      processTasks(reader, projectID);
+      processPredecessors(reader, projectID);
+      processAssignments(reader, projectID);
+
+      project.updateStructure();
+
+      project.endBulkLoad();
+
+      return reader;
+   }
+
+   /**
+    * Create a PrimaveraReader instance configured using the
+    * settings from this reader. Each instance receives its own
+    * user defined field counters.
+    *
+    * @return PrimaveraReader instance
+    */
+   private PrimaveraReader createPrimaveraReader()
+   {
+      PrimaveraReader reader = new PrimaveraReader(new UserFieldCounters(m_taskUdfCounters), new UserFieldCounters(m_resourceUdfCounters), new UserFieldCounters(m_assignmentUdfCounters), m_resourceFields, m_wbsFields, m_taskFields, m_assignmentFields, m_aliases, m_matchPrimaveraWBS);
+      applyFieldStoreType(reader.getProject());
+      return reader;
+   }
+
+   /**
+    * Add Relation instances for predecessors which are found in
+    * a different project to their successor. External predecessors
+    * which are not found in any of the projects are ignored.
+    *
+    * @param projects projects read from the file
+    * @param externalPredecessors external predecessor relationships
+    */
+   private void linkCrossProjectRelations(List<ProjectFile> projects, List<ExternalPredecessorRelation> externalPredecessors)
+   {
+      if (externalPredecessors.isEmpty())
+      {
+         return;
+      }
+
+      //
+      // Index tasks by unique ID across all projects. Where the same unique
+      // ID appears in more than one project, the first project wins.
+      //
+      Map<Integer, Task> taskMap = new HashMap<Integer, Task>();
+      for (ProjectFile project : projects)
+      {
+         for (Task task : project.getTasks())
+         {
+            Integer uniqueID = task.getUniqueID();
+            if (!taskMap.containsKey(uniqueID))
+            {
+               taskMap.put(uniqueID, project.getTaskByUniqueID(uniqueID));
+            }
+         }
+      }
+
+      for (ExternalPredecessorRelation externalRelation : externalPredecessors)
+      {
+         Task predecessorTask = taskMap.get(externalRelation.getSourceUniqueID());
+         if (predecessorTask != null)
+         {
+            Relation relation = externalRelation.getTargetTask().addPredecessor(predecessorTask, externalRelation.getType(), externalRelation.getLag());
+            relation.setUniqueID(externalRelation.getUniqueID());
+         }
+      }
+   }
+
    /**
     * Reads the XER file table and row structure ready for processing.
     *
@@ -374,7 +589,7 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
    {
       try
       {
-         m_tables = new HashMap<String, List<Row>>();
+         m_tables = new HashMap<String, XerTable>();
          processFile(is);
 
          Map<Integer, String> result = new HashMap<Integer, String>();
@@ -395,49 +610,58 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
          m_tables = null;
          m_currentTable = null;
          m_currentFieldNames = null;
+         m_currentFieldTypes = null;
       }
    }
 
    /**
     * Process project properties.
+    *
+    * @param reader PrimaveraReader instance
+    * @param projectID ID of the project to read
     */
-   private void processProjectProperties()
+   private void processProjectProperties(PrimaveraReader reader, Integer projectID)
    {
       //
       // Process common attributes
       //
-      List<Row> rows = getRows("project", "proj_id", m_projectID);
-      m_reader.processProjectProperties(rows, m_projectID);
+      List<Row> rows = getRows("project", "proj_id", projectID);
+      reader.processProjectProperties(rows, projectID);
 
       //
       // Process XER-specific attributes
       //
       if (m_defaultCurrencyData != null)
       {
-         m_reader.processDefaultCurrency(m_defaultCurrencyData);
+         reader.processDefaultCurrency(m_defaultCurrencyData);
       }
 
-      processScheduleOptions();
+      processScheduleOptions(reader, projectID);
    }
 
    /**
     * Process activity code data.
+    *
+    * @param reader PrimaveraReader instance
     */
-   private void processActivityCodes()
+   private void processActivityCodes(PrimaveraReader reader)
    {
       List<Row> types = getRows("actvtype", null, null);
       List<Row> typeValues = getRows("actvcode", null, null);
       List<Row> assignments = getRows("taskactv", null, null);
-      m_reader.processActivityCodes(types, typeValues, assignments);
+      reader.processActivityCodes(types, typeValues, assignments);
    }
 
    /**
     * Process schedule options from SCHEDOPTIONS. This table only seems to exist
     * in XER files, not P6 databases.
+    *
+    * @param reader PrimaveraReader instance
+    * @param projectID ID of the project to read
     */
-   private void processScheduleOptions()
+   private void processScheduleOptions(PrimaveraReader reader, Integer projectID)
    {
-      List<Row> rows = getRows("schedoptions", "proj_id", m_projectID);
+      List<Row> rows = getRows("schedoptions", "proj_id", projectID);
       if (rows.isEmpty() == false)
       {
          Row row = rows.get(0);
@@ -447,76 +671,93 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
          customProperties.put("ProgressOverride", Boolean.valueOf(row.getBoolean("sched_progress_override")));
          customProperties.put("IgnoreOtherProjectRelationships", row.getString("sched_outer_depend_type"));
          customProperties.put("StartToStartLagCalculationType", Boolean.valueOf(row.getBoolean("sched_lag_early_start_flag")));
-         m_reader.getProject().getProjectProperties().setCustomProperties(customProperties);
+         reader.getProject().getProjectProperties().setCustomProperties(customProperties);
       }
    }
 
    /**
     * Process user defined fields.
+    *
+    * @param reader PrimaveraReader instance
     */
-   private void processUserDefinedFields()
+   private void processUserDefinedFields(PrimaveraReader reader)
    {
       List<Row> fields = getRows("udftype", null, null);
       List<Row> values = getRows("udfvalue", null, null);
-      m_reader.processUserDefinedFields(fields, values);
+      reader.processUserDefinedFields(fields, values);
    }
 
    /**
     * Process project calendars.
+    *
+    * @param reader PrimaveraReader instance
     */
-   private void processCalendars()
+   private void processCalendars(PrimaveraReader reader)
    {
       List<Row> rows = getRows("calendar", null, null);
-      m_reader.processCalendars(rows);
+      reader.processCalendars(rows);
    }
 
    /**
     * Process resources.
+    *
+    * @param reader PrimaveraReader instance
     */
-   private void processResources()
+   private void processResources(PrimaveraReader reader)
    {
       List<Row> rows = getRows("rsrc", null, null);
-      m_reader.processResources(rows);
+      reader.processResources(rows);
    }
 
    /**
     * Process resource rates.
+    *
+    * @param reader PrimaveraReader instance
     */
-   private void processResourceRates()
+   private void processResourceRates(PrimaveraReader reader)
    {
-      List<Row> rows = getRows("rsrcrate", null, null);
-      m_reader.processResourceRates(rows);
+      List<Row> rows = new ArrayList<Row>(getRows("rsrcrate", null, null));
+      reader.processResourceRates(rows);
    }
 
    /**
     * Process tasks.
+    *
+    * @param reader PrimaveraReader instance
+    * @param projectID ID of the project to read
     */
-   private void processTasks()
+   private void processTasks(PrimaveraReader reader, Integer projectID)
    {
-      List<Row> wbs = getRows("projwbs", "proj_id", m_projectID);
-      List<Row> tasks = getRows("task", "proj_id", m_projectID);
-      //List<Row> wbsmemos = getRows("wbsmemo", "proj_id", m_projectID);
-      //List<Row> taskmemos = getRows("taskmemo", "proj_id", m_projectID);
+      List<Row> wbs = getRows("projwbs", "proj_id", projectID);
+      List<Row> tasks = getRows("task", "proj_id", projectID);
+      //List<Row> wbsmemos = getRows("wbsmemo", "proj_id", projectID);
+      //List<Row> taskmemos = getRows("taskmemo", "proj_id", projectID);
       Collections.sort(wbs, WBS_ROW_COMPARATOR);
-      m_reader.processTasks(wbs, tasks/*, wbsmemos, taskmemos*/);
+      reader.processTasks(wbs, tasks/*, wbsmemos, taskmemos*/);
    }
 
    /**
     * Process predecessors.
+    *
+    * @param reader PrimaveraReader instance
+    * @param projectID ID of the project to read
     */
-   private void processPredecessors()
+   private void processPredecessors(PrimaveraReader reader, Integer projectID)
    {
-      List<Row> rows = getRows("taskpred", "proj_id", m_projectID);
-      m_reader.processPredecessors(rows);
+      List<Row> rows = getRows("taskpred", "proj_id", projectID);
+      reader.processPredecessors(rows);
    }
 
    /**
     * Process resource assignments.
+    *
+    * @param reader PrimaveraReader instance
+    * @param projectID ID of the project to read
     */
-   private void processAssignments()
+   private void processAssignments(PrimaveraReader reader, Integer projectID)
    {
-      List<Row> rows = getRows("taskrsrc", "proj_id", m_projectID);
-      m_reader.processAssignments(rows);
+      List<Row> rows = getRows("taskrsrc", "proj_id", projectID);
+      reader.processAssignments(rows);
    }
 
    /**
@@ -564,16 +805,9 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
          case TABLE:
          {
             m_currentTableName = record.get(1).toLowerCase();
-            m_skipTable = !REQUIRED_TABLES.contains(m_currentTableName);
-            if (m_skipTable)
-            {
-               m_currentTable = null;
-            }
-            else
-            {
-               m_currentTable = new LinkedList<Row>();
-               m_tables.put(m_currentTableName, m_currentTable);
-            }
+            m_skipTable = !REQUIRED_TABLES.contains(m_currentTableName) || (m_tableFilter != null && !m_tableFilter.contains(m_currentTableName));
+            m_currentTable = null;
+            m_currentProjectIDIndex = -1;
             break;
          }
 
@@ -586,28 +820,35 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
             else
             {
                m_currentFieldNames = record.toArray(new String[record.size()]);
+               m_currentFieldTypes = new XerFieldType[m_currentFieldNames.length];
                for (int loop = 0; loop < m_currentFieldNames.length; loop++)
                {
-                  m_currentFieldNames[loop] = m_currentFieldNames[loop].toLowerCase();
+                  String fieldName = m_currentFieldNames[loop].toLowerCase();
+                  XerFieldType fieldType = FIELD_TYPE_MAP.get(fieldName);
+                  m_currentFieldNames[loop] = fieldName;
+                  m_currentFieldTypes[loop] = fieldType == null ? XerFieldType.STRING : fieldType;
+
+                  if (m_projectFilter != null && fieldName.equals("proj_id") && PROJECT_TABLES.contains(m_currentTableName))
+                  {
+                     m_currentProjectIDIndex = loop;
+                  }
                }
+
+               m_currentTable = new XerTable(m_currentFieldNames, m_currentFieldTypes);
+               m_tables.put(m_currentTableName, m_currentTable);
             }
             break;
          }
 
          case DATA:
          {
-            if (!m_skipTable)
+            if (!m_skipTable && isSelectedProject(record))
             {
-               Map<String, Object> map = new HashMap<String, Object>();
+               Object[] values = new Object[m_currentFieldNames.length];
                for (int loop = 1; loop < record.size(); loop++)
                {
-                  String fieldName = m_currentFieldNames[loop];
                   String fieldValue = record.get(loop);
-                  XerFieldType fieldType = FIELD_TYPE_MAP.get(fieldName);
-                  if (fieldType == null)
-                  {
-                     fieldType = XerFieldType.STRING;
-                  }
+                  XerFieldType fieldType = m_currentFieldTypes[loop];
 
                   Object objectValue;
                   if (fieldValue.length() == 0)
@@ -663,11 +904,10 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
                      }
                   }
 
-                  map.put(fieldName, objectValue);
+                  values[loop] = objectValue;
                }
 
-               Row currentRow = new MapRow(map);
-               m_currentTable.add(currentRow);
+               Row currentRow = m_currentTable.addRow(values);
 
                //
                // Special case - we need to know the default currency format
@@ -697,6 +937,24 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       return done;
    }
 
+   /**
+    * Determine if a data record should be kept when a project filter is in
+    * use. Records from tables which are not project-specific are always kept.
+    *
+    * @param record data record
+    * @return true if the record should be kept
+    */
+   private boolean isSelectedProject(List<String> record)
+   {
+      boolean result = true;
+      if (m_currentProjectIDIndex != -1)
+      {
+         String value = m_currentProjectIDIndex < record.size() ? record.get(m_currentProjectIDIndex).trim() : "";
+         result = value.length() != 0 && m_projectFilter.contains(Integer.valueOf(value));
+      }
+      return result;
+   }
+
    /**
     * Extract any useful attributes from the header record.
     *
@@ -803,7 +1061,7 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
    private List<Row> getRows(String tableName, String columnName, Integer id)
    {
       List<Row> result;
-      List<Row> table = m_tables.get(tableName);
+      XerTable table = m_tables.get(tableName);
       if (table == null)
       {
          result = Collections.<Row> emptyList();
@@ -812,18 +1070,11 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       {
          if (columnName == null)
          {
-            result = table;
+            result = table.getRows();
          }
          else
          {
-            result = new LinkedList<Row>();
-            for (Row row : table)
-            {
-               if (NumberHelper.equals(id, row.getInteger(columnName)))
-               {
-                  result.add(row);
-               }
-            }
+            result = table.getRows(columnName, id);
          }
       }
       return result;
@@ -855,13 +1106,16 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
 
    private String m_encoding;
    private Charset m_charset;
-   private PrimaveraReader m_reader;
    private Integer m_projectID;
    boolean m_skipTable;
-   private Map<String, List<Row>> m_tables;
+   private Map<String, XerTable> m_tables;
    private String m_currentTableName;
-   private List<Row> m_currentTable;
+   private XerTable m_currentTable;
    private String[] m_currentFieldNames;
+   private XerFieldType[] m_currentFieldTypes;
+   private int m_currentProjectIDIndex = -1;
+   private Set<Integer> m_projectFilter;
+   private Set<String> m_tableFilter;
    private String m_defaultCurrencyName;
    private Map<String, DecimalFormat> m_currencyMap = new HashMap<String, DecimalFormat>();
    private DecimalFormat m_numberFormat;
@@ -890,19 +1144,6 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       END
    }
 
-   /**
-    * Represents column data types.
-    */
-   private enum XerFieldType
-   {
-      STRING,
-      INTEGER,
-      DOUBLE,
-      DATE,
-      DURATION,
-      CURRENCY
-   }
-
    /**
     * Maps record type text to record types.
     */
@@ -1048,5 +1289,19 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       REQUIRED_TABLES.add("taskactv");
    }
 
+   /**
+    * Tables whose rows are selected by project ID.
+    */
+   private static final Set<String> PROJECT_TABLES = new HashSet<String>();
+   static
+   {
+      PROJECT_TABLES.add("project");
+      PROJECT_TABLES.add("schedoptions");
+      PROJECT_TABLES.add("projwbs");
+      PROJECT_TABLES.add("task");
+      PROJECT_TABLES.add("taskpred");
+      PROJECT_TABLES.add("taskrsrc");
+   }
+
    private static final WbsRowComparatorXER WBS_ROW_COMPARATOR = new WbsRowComparatorXER();
 }
@@ -0,0 +1,454 @@
+/*
+ * file:       XerTable.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       18/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.primavera;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the rows of a single table read from an XER file. Rather than
+ * creating a map for each row, the values are held column by column,
+ * with numeric and date columns stored as arrays of primitive values.
+ * Each row is exposed through the Row interface as a lightweight view
+ * onto the column data.
+ *
+ * Rows can be retrieved by the value of a key column, for example
+ * proj_id. The index for each key column is built on first use.
+ */
+final class XerTable
+{
+   /**
+    * Constructor.
+    *
+    * @param columnNames column names
+    * @param columnTypes column types
+    */
+   public XerTable(String[] columnNames, XerFieldType[] columnTypes)
+   {
+      m_columnIndex = new HashMap<String, Integer>();
+      m_columns = new Column[columnNames.length];
+      for (int index = 0; index < columnNames.length; index++)
+      {
+         m_columnIndex.put(columnNames[index], Integer.valueOf(index));
+         m_columns[index] = createColumn(columnTypes[index]);
+      }
+   }
+
+   /**
+    * Add a row to the table. Any value may be null.
+    *
+    * @param values row values, in column order
+    * @return Row instance representing the new row
+    */
+   public Row addRow(Object[] values)
+   {
+      int rowIndex = m_rows.size();
+      for (int index = 0; index < values.length; index++)
+      {
+         Object value = values[index];
+         if (value != null)
+         {
+            m_columns[index].set(rowIndex, value);
+         }
+      }
+
+      Row row = new XerRow(rowIndex);
+      m_rows.add(row);
+      m_indexes.clear();
+      return row;
+   }
+
+   /**
+    * Retrieve all rows in this table. The returned list is read only.
+    *
+    * @return list of rows
+    */
+   public List<Row> getRows()
+   {
+      return Collections.unmodifiableList(m_rows);
+   }
+
+   /**
+    * Retrieve the rows where the named column has the supplied value.
+    * The returned list is a new list and may be modified by the caller.
+    * This method may be called from multiple threads once the table
+    * has been populated.
+    *
+    * @param columnName key column name
+    * @param value key value
+    * @return list of matching rows
+    */
+   public synchronized List<Row> getRows(String columnName, Integer value)
+   {
+      Map<Integer, List<Row>> index = m_indexes.get(columnName);
+      if (index == null)
+      {
+         index = createIndex(columnName);
+         m_indexes.put(columnName, index);
+      }
+
+      List<Row> rows = index.get(value);
+      return rows == null ? new ArrayList<Row>() : new ArrayList<Row>(rows);
+   }
+
+   /**
+    * Build an index of rows for the named column.
+    *
+    * @param columnName key column name
+    * @return map of key values to rows
+    */
+   private Map<Integer, List<Row>> createIndex(String columnName)
+   {
+      Map<Integer, List<Row>> index = new HashMap<Integer, List<Row>>();
+      for (Row row : m_rows)
+      {
+         Integer key = row.getInteger(columnName);
+         List<Row> rows = index.get(key);
+         if (rows == null)
+         {
+            rows = new ArrayList<Row>();
+            index.put(key, rows);
+         }
+         rows.add(row);
+      }
+      return index;
+   }
+
+   /**
+    * Retrieve a value from the table.
+    *
+    * @param rowIndex row index
+    * @param columnName column name
+    * @return column value, or null if the column is not present
+    */
+   Object getValue(int rowIndex, String columnName)
+   {
+      Integer columnIndex = m_columnIndex.get(columnName);
+      return columnIndex == null ? null : m_columns[columnIndex.intValue()].get(rowIndex);
+   }
+
+   /**
+    * Create storage for a column of the given type.
+    *
+    * @param type column type
+    * @return Column instance
+    */
+   private Column createColumn(XerFieldType type)
+   {
+      Column column;
+      switch (type)
+      {
+         case INTEGER:
+         {
+            column = new IntegerColumn();
+            break;
+         }
+
+         case DOUBLE:
+         case DURATION:
+         case CURRENCY:
+         {
+            column = new DoubleColumn();
+            break;
+         }
+
+         case DATE:
+         {
+            column = new DateColumn();
+            break;
+         }
+
+         default:
+         {
+            column = new ObjectColumn();
+            break;
+         }
+      }
+      return column;
+   }
+
+   /**
+    * Row implementation which retrieves its values from the table.
+    */
+   private final class XerRow extends AbstractRow
+   {
+      /**
+       * Constructor.
+       *
+       * @param rowIndex row index
+       */
+      public XerRow(int rowIndex)
+      {
+         m_rowIndex = rowIndex;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override protected Object getObject(String name)
+      {
+         return getValue(m_rowIndex, name);
+      }
+
+      private final int m_rowIndex;
+   }
+
+   /**
+    * Storage for the values in a single column.
+    */
+   private static abstract class Column
+   {
+      /**
+       * Set a value.
+       *
+       * @param rowIndex row index
+       * @param value non-null value
+       */
+      public abstract void set(int rowIndex, Object value);
+
+      /**
+       * Retrieve a value.
+       *
+       * @param rowIndex row index
+       * @return value or null
+       */
+      public abstract Object get(int rowIndex);
+
+      /**
+       * Determine the capacity required to hold the given row.
+       *
+       * @param currentCapacity current capacity
+       * @param rowIndex row index
+       * @return new capacity
+       */
+      protected int getCapacity(int currentCapacity, int rowIndex)
+      {
+         int capacity = currentCapacity == 0 ? INITIAL_CAPACITY : currentCapacity;
+         while (capacity <= rowIndex)
+         {
+            capacity *= 2;
+         }
+         return capacity;
+      }
+   }
+
+   /**
+    * Column holding arbitrary values. Short strings are shared between rows
+    * as they typically represent flags and codes which are repeated many times.
+    */
+   private static final class ObjectColumn extends Column
+   {
+      @Override public void set(int rowIndex, Object value)
+      {
+         if (rowIndex >= m_values.length)
+         {
+            m_values = Arrays.copyOf(m_values, getCapacity(m_values.length, rowIndex));
+         }
+
+         if (value instanceof String && ((String) value).length() <= MAX_SHARED_STRING_LENGTH)
+         {
+            String sharedValue = m_strings.get(value);
+            if (sharedValue == null)
+            {
+               m_strings.put((String) value, (String) value);
+            }
+            else
+            {
+               value = sharedValue;
+            }
+         }
+
+         m_values[rowIndex] = value;
+      }
+
+      @Override public Object get(int rowIndex)
+      {
+         return rowIndex < m_values.length ? m_values[rowIndex] : null;
+      }
+
+      private Object[] m_values = new Object[0];
+      private final Map<String, String> m_strings = new HashMap<String, String>();
+   }
+
+   /**
+    * Base class for columns holding primitive values. Values which are not
+    * of the expected type, for example text which could not be parsed,
+    * are held separately.
+    */
+   private static abstract class PrimitiveColumn extends Column
+   {
+      @Override public final void set(int rowIndex, Object value)
+      {
+         if (isPrimitive(value))
+         {
+            setPrimitive(rowIndex, value);
+            m_present.set(rowIndex);
+         }
+         else
+         {
+            if (m_otherValues == null)
+            {
+               m_otherValues = new HashMap<Integer, Object>();
+            }
+            m_otherValues.put(Integer.valueOf(rowIndex), value);
+         }
+      }
+
+      @Override public final Object get(int rowIndex)
+      {
+         Object result;
+         if (m_present.get(rowIndex))
+         {
+            result = getPrimitive(rowIndex);
+         }
+         else
+         {
+            result = m_otherValues == null ? null : m_otherValues.get(Integer.valueOf(rowIndex));
+         }
+         return result;
+      }
+
+      /**
+       * Determine if a value can be stored as a primitive.
+       *
+       * @param value value
+       * @return true if the value can be stored as a primitive
+       */
+      protected abstract boolean isPrimitive(Object value);
+
+      /**
+       * Store a primitive value.
+       *
+       * @param rowIndex row index
+       * @param value value
+       */
+      protected abstract void setPrimitive(int rowIndex, Object value);
+
+      /**
+       * Retrieve a primitive value.
+       *
+       * @param rowIndex row index
+       * @return value
+       */
+      protected abstract Object getPrimitive(int rowIndex);
+
+      private final BitSet m_present = new BitSet();
+      private Map<Integer, Object> m_otherValues;
+   }
+
+   /**
+    * Column holding integer values.
+    */
+   private static final class IntegerColumn extends PrimitiveColumn
+   {
+      @Override protected boolean isPrimitive(Object value)
+      {
+         return value instanceof Integer;
+      }
+
+      @Override protected void setPrimitive(int rowIndex, Object value)
+      {
+         if (rowIndex >= m_values.length)
+         {
+            m_values = Arrays.copyOf(m_values, getCapacity(m_values.length, rowIndex));
+         }
+         m_values[rowIndex] = ((Integer) value).intValue();
+      }
+
+      @Override protected Object getPrimitive(int rowIndex)
+      {
+         return Integer.valueOf(m_values[rowIndex]);
+      }
+
+      private int[] m_values = new int[0];
+   }
+
+   /**
+    * Column holding floating point values.
+    */
+   private static final class DoubleColumn extends PrimitiveColumn
+   {
+      @Override protected boolean isPrimitive(Object value)
+      {
+         return value instanceof Double;
+      }
+
+      @Override protected void setPrimitive(int rowIndex, Object value)
+      {
+         if (rowIndex >= m_values.length)
+         {
+            m_values = Arrays.copyOf(m_values, getCapacity(m_values.length, rowIndex));
+         }
+         m_values[rowIndex] = ((Double) value).doubleValue();
+      }
+
+      @Override protected Object getPrimitive(int rowIndex)
+      {
+         return Double.valueOf(m_values[rowIndex]);
+      }
+
+      private double[] m_values = new double[0];
+   }
+
+   /**
+    * Column holding date values.
+    */
+   private static final class DateColumn extends PrimitiveColumn
+   {
+      @Override protected boolean isPrimitive(Object value)
+      {
+         return value instanceof Date;
+      }
+
+      @Override protected void setPrimitive(int rowIndex, Object value)
+      {
+         if (rowIndex >= m_values.length)
+         {
+            m_values = Arrays.copyOf(m_values, getCapacity(m_values.length, rowIndex));
+         }
+         m_values[rowIndex] = ((Date) value).getTime();
+      }
+
+      @Override protected Object getPrimitive(int rowIndex)
+      {
+         return new Date(m_values[rowIndex]);
+      }
+
+      private long[] m_values = new long[0];
+   }
+
+   private final Map<String, Integer> m_columnIndex;
+   private final Column[] m_columns;
+   private final List<Row> m_rows = new ArrayList<Row>();
+   private final Map<String, Map<Integer, List<Row>>> m_indexes = new HashMap<String, Map<Integer, List<Row>>>();
+
+   private static final int INITIAL_CAPACITY = 16;
+   private static final int MAX_SHARED_STRING_LENGTH = 32;
+}
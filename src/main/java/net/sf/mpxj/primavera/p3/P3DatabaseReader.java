@@ -41,6 +41,7 @@ import net.sf.mpxj.ConstraintType;
 import net.sf.mpxj.Duration;
 import net.sf.mpxj.EventManager;
 import net.sf.mpxj.FieldContainer;
+import net.sf.mpxj.FieldStoreType;
 import net.sf.mpxj.FieldType;
 import net.sf.mpxj.MPXJException;
 import net.sf.mpxj.ProjectConfig;
@@ -56,12 +57,12 @@ import net.sf.mpxj.common.DateHelper;
 import net.sf.mpxj.listener.ProjectListener;
 import net.sf.mpxj.primavera.common.MapRow;
 import net.sf.mpxj.primavera.common.Table;
-import net.sf.mpxj.reader.ProjectReader;
+import net.sf.mpxj.reader.AbstractProjectReader;
 
 /**
  * Reads schedule data from a P3 multi-file Btrieve database in a directory.
  */
-public final class P3DatabaseReader implements ProjectReader
+public final class P3DatabaseReader extends AbstractProjectReader
 {
    /**
     * Convenience method which locates the first P3 database in a directory
@@ -85,6 +86,19 @@ public final class P3DatabaseReader implements ProjectReader
     * @return ProjectFile instance
     */
    public static final ProjectFile setProjectNameAndRead(File directory) throws MPXJException
+   {
+      return setProjectNameAndRead(directory, FieldStoreType.ARRAY);
+   }
+
+   /**
+    * Convenience method which locates the first P3 database in a directory
+    * and opens it, using the given field store type.
+    *
+    * @param directory directory containing a P3 database
+    * @param fieldStoreType field store type
+    * @return ProjectFile instance
+    */
+   public static final ProjectFile setProjectNameAndRead(File directory, FieldStoreType fieldStoreType) throws MPXJException
    {
       List<String> projects = listProjectNames(directory);
 
@@ -92,6 +106,7 @@ public final class P3DatabaseReader implements ProjectReader
       {
          P3DatabaseReader reader = new P3DatabaseReader();
          reader.setProjectName(projects.get(0));
+         reader.setFieldStoreType(fieldStoreType);
          return reader.read(directory);
       }
 
@@ -195,6 +210,8 @@ public final class P3DatabaseReader implements ProjectReader
       try
       {
          m_projectFile = new ProjectFile();
+         applyFieldStoreType(m_projectFile);
+         m_projectFile.beginBulkLoad();
          m_eventManager = m_projectFile.getEventManager();
 
          ProjectConfig config = m_projectFile.getProjectConfig();
@@ -226,6 +243,8 @@ public final class P3DatabaseReader implements ProjectReader
          readRelationships();
          readResourceAssignments();
 
+         m_projectFile.endBulkLoad();
+
          return m_projectFile;
       }
 
@@ -72,13 +72,13 @@ public final class P3PRXFileReader extends AbstractProjectReader
          // Normally we'd expect a PRX file to contains a P3 database...
          if (!P3DatabaseReader.listProjectNames(tempDir).isEmpty())
          {
-            return P3DatabaseReader.setProjectNameAndRead(tempDir);
+            return P3DatabaseReader.setProjectNameAndRead(tempDir, getFieldStoreType());
          }
 
          // But I have found PRX files which contain a SureTrak database
          if (!SureTrakDatabaseReader.listProjectNames(tempDir).isEmpty())
          {
-            return SureTrakDatabaseReader.setProjectNameAndRead(tempDir);
+            return SureTrakDatabaseReader.setProjectNameAndRead(tempDir, getFieldStoreType());
          }
 
          return null;
@@ -44,6 +44,7 @@ import net.sf.mpxj.Day;
 import net.sf.mpxj.Duration;
 import net.sf.mpxj.EventManager;
 import net.sf.mpxj.FieldContainer;
+import net.sf.mpxj.FieldStoreType;
 import net.sf.mpxj.FieldType;
 import net.sf.mpxj.MPXJException;
 import net.sf.mpxj.ProjectCalendar;
@@ -64,12 +65,12 @@ import net.sf.mpxj.common.DateHelper;
 import net.sf.mpxj.listener.ProjectListener;
 import net.sf.mpxj.primavera.common.MapRow;
 import net.sf.mpxj.primavera.common.Table;
-import net.sf.mpxj.reader.ProjectReader;
+import net.sf.mpxj.reader.AbstractProjectReader;
 
 /**
  * Reads schedule data from a SureTrak multi-file database in a directory.
  */
-public final class SureTrakDatabaseReader implements ProjectReader
+public final class SureTrakDatabaseReader extends AbstractProjectReader
 {
    /**
     * Convenience method which locates the first SureTrak database in a directory
@@ -93,6 +94,19 @@ public final class SureTrakDatabaseReader implements ProjectReader
     * @return ProjectFile instance
     */
    public static final ProjectFile setProjectNameAndRead(File directory) throws MPXJException
+   {
+      return setProjectNameAndRead(directory, FieldStoreType.ARRAY);
+   }
+
+   /**
+    * Convenience method which locates the first SureTrak database in a directory
+    * and opens it, using the given field store type.
+    *
+    * @param directory directory containing a SureTrak database
+    * @param fieldStoreType field store type
+    * @return ProjectFile instance
+    */
+   public static final ProjectFile setProjectNameAndRead(File directory, FieldStoreType fieldStoreType) throws MPXJException
    {
       List<String> projects = listProjectNames(directory);
 
@@ -100,6 +114,7 @@ public final class SureTrakDatabaseReader implements ProjectReader
       {
          SureTrakDatabaseReader reader = new SureTrakDatabaseReader();
          reader.setProjectName(projects.get(0));
+         reader.setFieldStoreType(fieldStoreType);
          return reader.read(directory);
       }
 
@@ -203,6 +218,8 @@ public final class SureTrakDatabaseReader implements ProjectReader
       try
       {
          m_projectFile = new ProjectFile();
+         applyFieldStoreType(m_projectFile);
+         m_projectFile.beginBulkLoad();
          m_eventManager = m_projectFile.getEventManager();
 
          ProjectConfig config = m_projectFile.getProjectConfig();
@@ -243,6 +260,8 @@ public final class SureTrakDatabaseReader implements ProjectReader
          readRelationships();
          readResourceAssignments();
 
+         m_projectFile.endBulkLoad();
+
          return m_projectFile;
       }
 
@@ -68,7 +68,7 @@ public final class SureTrakSTXFileReader extends AbstractProjectReader
             extractFile(stream, tempDir);
          }
 
-         return SureTrakDatabaseReader.setProjectNameAndRead(tempDir);
+         return SureTrakDatabaseReader.setProjectNameAndRead(tempDir, getFieldStoreType());
       }
 
       catch (IOException ex)
@@ -51,6 +51,7 @@ public class ProjectLibreReader extends AbstractProjectReader
 
       try
       {
+         m_reader.setFieldStoreType(getFieldStoreType());
          ProjectFile file = m_reader.read(is);
          file.getProjectProperties().setFileApplication("ProjectLibre");
          file.getProjectProperties().setFileType("POD");
@@ -27,6 +27,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 
+import net.sf.mpxj.FieldStoreType;
 import net.sf.mpxj.MPXJException;
 import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.common.StreamHelper;
@@ -37,6 +38,28 @@ import net.sf.mpxj.common.StreamHelper;
  */
 public abstract class AbstractProjectReader implements ProjectReader
 {
+   /**
+    * Set the type of field store used by tasks, resources and resource
+    * assignments in projects created by this reader.
+    *
+    * @param type field store type, defaults to FieldStoreType.ARRAY
+    */
+   public void setFieldStoreType(FieldStoreType type)
+   {
+      m_fieldStoreType = type == null ? FieldStoreType.ARRAY : type;
+   }
+
+   /**
+    * Retrieve the type of field store used by tasks, resources and
+    * resource assignments in projects created by this reader.
+    *
+    * @return field store type
+    */
+   public FieldStoreType getFieldStoreType()
+   {
+      return m_fieldStoreType;
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -89,4 +112,17 @@ public abstract class AbstractProjectReader implements ProjectReader
          StreamHelper.closeQuietly(fis);
       }
    }
+
+   /**
+    * Apply the field store type to a newly created project. This must
+    * be called before any tasks, resources or assignments are added.
+    *
+    * @param project project created by this reader
+    */
+   protected void applyFieldStoreType(ProjectFile project)
+   {
+      project.getProjectConfig().setFieldStoreType(m_fieldStoreType);
+   }
+
+   private FieldStoreType m_fieldStoreType = FieldStoreType.ARRAY;
 }
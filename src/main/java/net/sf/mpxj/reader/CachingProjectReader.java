@@ -0,0 +1,597 @@
+/*
+ * file:       CachingProjectReader.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.reader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.sf.mpxj.MPXJException;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.listener.ProjectListener;
+import net.sf.mpxj.snapshot.SnapshotReader;
+import net.sf.mpxj.snapshot.SnapshotWriter;
+
+/**
+ * This class wraps the universal project reader, caching the projects
+ * it reads. Projects are keyed by a hash of the file content, so reading
+ * the same file again, under any name, returns the project already read
+ * rather than parsing the file a second time.
+ *
+ * Projects returned by this reader are frozen, and the same instance is
+ * shared by every caller reading the same content. The most recently
+ * used projects are held in memory. The number of projects held is
+ * bounded, but their size is not: a single large schedule may need
+ * considerably more memory than many small ones, so the maximum number
+ * of entries should be chosen with the expected file sizes in mind.
+ *
+ * Where a directory has been supplied, a snapshot of each project is also
+ * written to that directory, allowing projects evicted from memory, or read
+ * by another instance of this class, to be reloaded without parsing the
+ * original file. A snapshot is only kept if the snapshot writer reports
+ * that nothing was omitted, so projects which a snapshot can't represent
+ * in full are always parsed from the original file once they have been
+ * evicted from memory.
+ *
+ * A single instance of this class may be used by multiple threads.
+ * Where several threads read the same content at the same time, the
+ * content is only parsed once. Project listeners only receive events
+ * when a project is actually read, not when it is retrieved from memory.
+ */
+public final class CachingProjectReader extends AbstractProjectReader
+{
+   /**
+    * Default constructor.
+    */
+   public CachingProjectReader()
+   {
+      this(DEFAULT_MAX_ENTRIES);
+   }
+
+   /**
+    * Constructor.
+    *
+    * @param maxEntries maximum number of projects held in memory
+    */
+   public CachingProjectReader(int maxEntries)
+   {
+      if (maxEntries < 1)
+      {
+         throw new IllegalArgumentException("maxEntries must be at least 1");
+      }
+      m_maxEntries = maxEntries;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public synchronized void addProjectListener(ProjectListener listener)
+   {
+      if (m_projectListeners == null)
+      {
+         m_projectListeners = new LinkedList<ProjectListener>();
+      }
+      m_projectListeners.add(listener);
+   }
+
+   /**
+    * Sets the directory used to hold project snapshots. If this is null,
+    * projects are only held in memory.
+    *
+    * @param directory snapshot directory
+    */
+   public void setDirectory(File directory)
+   {
+      m_directory = directory;
+   }
+
+   /**
+    * Retrieves the directory used to hold project snapshots.
+    *
+    * @return snapshot directory
+    */
+   public File getDirectory()
+   {
+      return m_directory;
+   }
+
+   /**
+    * Retrieve the maximum number of projects held in memory.
+    * Note that this limits the number of projects, not their size.
+    *
+    * @return maximum number of projects
+    */
+   public int getMaxEntries()
+   {
+      return m_maxEntries;
+   }
+
+   /**
+    * Retrieve the number of projects currently held in memory.
+    *
+    * @return number of projects
+    */
+   public int getSize()
+   {
+      synchronized (m_cache)
+      {
+         return m_cache.size();
+      }
+   }
+
+   /**
+    * Retrieve the number of reads satisfied from memory.
+    *
+    * @return hit count
+    */
+   public long getHitCount()
+   {
+      return m_hitCount.get();
+   }
+
+   /**
+    * Retrieve the number of reads satisfied by reloading a snapshot.
+    *
+    * @return snapshot hit count
+    */
+   public long getSnapshotHitCount()
+   {
+      return m_snapshotHitCount.get();
+   }
+
+   /**
+    * Retrieve the number of reads which required the original
+    * file to be parsed.
+    *
+    * @return miss count
+    */
+   public long getMissCount()
+   {
+      return m_missCount.get();
+   }
+
+   /**
+    * Retrieve the number of projects evicted from memory.
+    *
+    * @return eviction count
+    */
+   public long getEvictionCount()
+   {
+      return m_evictionCount.get();
+   }
+
+   /**
+    * Remove all projects held in memory. Snapshots are not removed.
+    */
+   public void clear()
+   {
+      synchronized (m_cache)
+      {
+         m_cache.clear();
+      }
+   }
+
+   /**
+    * Directories are passed directly to the universal project reader
+    * and the resulting project is not cached.
+    *
+    * {@inheritDoc}
+    */
+   @Override public ProjectFile read(File file) throws MPXJException
+   {
+      if (file.isDirectory())
+      {
+         return createReader().read(file);
+      }
+      return super.read(file);
+   }
+
+   /**
+    * Note that this method returns null if we can't determine the file type.
+    *
+    * {@inheritDoc}
+    */
+   @Override public ProjectFile read(InputStream inputStream) throws MPXJException
+   {
+      final byte[] data = readData(inputStream);
+      final String key = getKey(data);
+
+      synchronized (m_cache)
+      {
+         ProjectFile result = m_cache.get(key);
+         if (result != null)
+         {
+            m_hitCount.incrementAndGet();
+            return result;
+         }
+      }
+
+      FutureTask<ProjectFile> task = new FutureTask<ProjectFile>(new Callable<ProjectFile>()
+      {
+         @Override public ProjectFile call() throws Exception
+         {
+            return load(key, data);
+         }
+      });
+
+      FutureTask<ProjectFile> pending = m_pending.putIfAbsent(key, task);
+      if (pending == null)
+      {
+         pending = task;
+         task.run();
+      }
+      else
+      {
+         m_hitCount.incrementAndGet();
+      }
+
+      try
+      {
+         return pending.get();
+      }
+
+      catch (InterruptedException ex)
+      {
+         Thread.currentThread().interrupt();
+         throw new MPXJException(MPXJException.READ_ERROR, ex);
+      }
+
+      catch (ExecutionException ex)
+      {
+         Throwable cause = ex.getCause();
+         if (cause instanceof MPXJException)
+         {
+            throw (MPXJException) cause;
+         }
+
+         if (cause instanceof RuntimeException)
+         {
+            throw (RuntimeException) cause;
+         }
+
+         if (cause instanceof Error)
+         {
+            throw (Error) cause;
+         }
+
+         throw new MPXJException(MPXJException.READ_ERROR, (Exception) cause);
+      }
+
+      finally
+      {
+         m_pending.remove(key, pending);
+      }
+   }
+
+   /**
+    * Retrieve a project from a snapshot, or by parsing the original
+    * file content, and add it to the cache.
+    *
+    * @param key content key
+    * @param data file content
+    * @return ProjectFile instance
+    */
+   private ProjectFile load(String key, byte[] data) throws MPXJException
+   {
+      //
+      // Another thread may have completed loading this project
+      // between our initial check and this point.
+      //
+      synchronized (m_cache)
+      {
+         ProjectFile result = m_cache.get(key);
+         if (result != null)
+         {
+            m_hitCount.incrementAndGet();
+            return result;
+         }
+      }
+
+      ProjectFile result = readSnapshot(key);
+      if (result == null)
+      {
+         m_missCount.incrementAndGet();
+         result = createReader().read(new ByteArrayInputStream(data));
+         if (result == null)
+         {
+            return null;
+         }
+         result.freeze();
+         writeSnapshot(key, result);
+      }
+      else
+      {
+         m_snapshotHitCount.incrementAndGet();
+         result.freeze();
+      }
+
+      synchronized (m_cache)
+      {
+         m_cache.put(key, result);
+      }
+
+      return result;
+   }
+
+   /**
+    * Create a reader to parse the original file content.
+    *
+    * @return ProjectReader instance
+    */
+   private synchronized ProjectReader createReader()
+   {
+      AbstractProjectReader reader = new UniversalProjectReader();
+      addListeners(reader);
+      return reader;
+   }
+
+   /**
+    * Pass our listeners and field store type to another reader.
+    *
+    * @param reader target reader
+    */
+   private synchronized void addListeners(AbstractProjectReader reader)
+   {
+      reader.setFieldStoreType(getFieldStoreType());
+      if (m_projectListeners != null)
+      {
+         for (ProjectListener listener : m_projectListeners)
+         {
+            reader.addProjectListener(listener);
+         }
+      }
+   }
+
+   /**
+    * Read a project from a snapshot, if one is available. A snapshot
+    * which can't be read, for example because it was written by a
+    * different version of MPXJ, is deleted.
+    *
+    * @param key content key
+    * @return ProjectFile instance or null
+    */
+   private ProjectFile readSnapshot(String key)
+   {
+      File file = getSnapshotFile(key);
+      ProjectFile result = null;
+      if (file != null && file.isFile())
+      {
+         try
+         {
+            SnapshotReader reader = new SnapshotReader();
+            addListeners(reader);
+            result = reader.read(file);
+         }
+
+         catch (MPXJException ex)
+         {
+            file.delete();
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Write a snapshot of a project, if a directory has been supplied.
+    * The snapshot is written to a temporary file, which is only renamed
+    * if the snapshot writer reports that nothing has been omitted. This
+    * ensures that other readers will never see a partially written
+    * snapshot, or one which doesn't represent the project in full.
+    *
+    * @param key content key
+    * @param project ProjectFile instance
+    */
+   private void writeSnapshot(String key, ProjectFile project)
+   {
+      File file = getSnapshotFile(key);
+      if (file == null || file.isFile())
+      {
+         return;
+      }
+
+      File tempFile = null;
+      FileOutputStream stream = null;
+
+      try
+      {
+         tempFile = File.createTempFile(key, ".tmp", file.getParentFile());
+         stream = new FileOutputStream(tempFile);
+         SnapshotWriter writer = new SnapshotWriter();
+         writer.write(project, stream);
+         stream.close();
+         stream = null;
+
+         if (!writer.getPartial() && tempFile.renameTo(file))
+         {
+            tempFile = null;
+         }
+      }
+
+      catch (IOException ex)
+      {
+         // The snapshot is an optimisation: if we can't write it, we can still use the project
+      }
+
+      finally
+      {
+         if (stream != null)
+         {
+            try
+            {
+               stream.close();
+            }
+
+            catch (IOException ex)
+            {
+               // Ignore
+            }
+         }
+
+         if (tempFile != null)
+         {
+            tempFile.delete();
+         }
+      }
+   }
+
+   /**
+    * Retrieve the snapshot file for a given key.
+    *
+    * @param key content key
+    * @return snapshot file or null if no directory has been supplied
+    */
+   private File getSnapshotFile(String key)
+   {
+      File directory = m_directory;
+      return directory == null ? null : new File(directory, key + SNAPSHOT_SUFFIX);
+   }
+
+   /**
+    * Read the entire content of a stream.
+    *
+    * @param stream input stream
+    * @return stream content
+    */
+   private byte[] readData(InputStream stream) throws MPXJException
+   {
+      try
+      {
+         ByteArrayOutputStream os = new ByteArrayOutputStream();
+         byte[] buffer = new byte[BUFFER_SIZE];
+         int bytesRead;
+         while ((bytesRead = stream.read(buffer)) != -1)
+         {
+            os.write(buffer, 0, bytesRead);
+         }
+         return os.toByteArray();
+      }
+
+      catch (IOException ex)
+      {
+         throw new MPXJException(MPXJException.READ_ERROR, ex);
+      }
+   }
+
+   /**
+    * Generate a key from a hash of the file content.
+    *
+    * @param data file content
+    * @return content key
+    */
+   private String getKey(byte[] data) throws MPXJException
+   {
+      try
+      {
+         byte[] hash = MessageDigest.getInstance(HASH_ALGORITHM).digest(data);
+         StringBuilder sb = new StringBuilder(hash.length * 2);
+         for (byte b : hash)
+         {
+            sb.append(HEX_DIGITS[(b & 0xF0) >> 4]);
+            sb.append(HEX_DIGITS[b & 0x0F]);
+         }
+         return sb.toString();
+      }
+
+      catch (NoSuchAlgorithmException ex)
+      {
+         throw new MPXJException(MPXJException.READ_ERROR, ex);
+      }
+   }
+
+   /**
+    * Least recently used map of projects.
+    */
+   private class ProjectCache extends LinkedHashMap<String, ProjectFile>
+   {
+      /**
+       * Constructor.
+       */
+      public ProjectCache()
+      {
+         super(16, 0.75f, true);
+      }
+
+      @Override protected boolean removeEldestEntry(Map.Entry<String, ProjectFile> eldest)
+      {
+         boolean result = size() > m_maxEntries;
+         if (result)
+         {
+            m_evictionCount.incrementAndGet();
+         }
+         return result;
+      }
+
+      private static final long serialVersionUID = 1L;
+   }
+
+   private final int m_maxEntries;
+   private volatile File m_directory;
+   private List<ProjectListener> m_projectListeners;
+   private final ProjectCache m_cache = new ProjectCache();
+   private final ConcurrentMap<String, FutureTask<ProjectFile>> m_pending = new ConcurrentHashMap<String, FutureTask<ProjectFile>>();
+   private final AtomicLong m_hitCount = new AtomicLong();
+   private final AtomicLong m_snapshotHitCount = new AtomicLong();
+   private final AtomicLong m_missCount = new AtomicLong();
+   private final AtomicLong m_evictionCount = new AtomicLong();
+
+   private static final int DEFAULT_MAX_ENTRIES = 16;
+   private static final int BUFFER_SIZE = 64 * 1024;
+   private static final String HASH_ALGORITHM = "SHA-256";
+   private static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+   private static final char[] HEX_DIGITS =
+   {
+      '0',
+      '1',
+      '2',
+      '3',
+      '4',
+      '5',
+      '6',
+      '7',
+      '8',
+      '9',
+      'a',
+      'b',
+      'c',
+      'd',
+      'e',
+      'f'
+   };
+}
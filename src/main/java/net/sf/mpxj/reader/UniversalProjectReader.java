@@ -81,7 +81,7 @@ import net.sf.mpxj.turboproject.TurboProjectReader;
  * will sample the content and determine the type of file it has been given. It will then
  * instantiate the correct reader for that file type and proceed to read the file.
  */
-public final class UniversalProjectReader implements ProjectReader
+public final class UniversalProjectReader extends AbstractProjectReader
 {
    /**
     * {@inheritDoc}
@@ -216,6 +216,7 @@ public final class UniversalProjectReader implements ProjectReader
          {
             MSPDIReader reader = new MSPDIReader();
             reader.setCharset(m_charset);
+            reader.setFieldStoreType(getFieldStoreType());
             return reader.read(bis);
          }
 
@@ -614,6 +615,7 @@ public final class UniversalProjectReader implements ProjectReader
             else
             {
                UniversalProjectReader reader = new UniversalProjectReader();
+               reader.setFieldStoreType(getFieldStoreType());
                ProjectFile result = reader.read(file);
                if (result != null)
                {
@@ -643,7 +645,7 @@ public final class UniversalProjectReader implements ProjectReader
     */
    private ProjectFile handleP3BtrieveDatabase(File directory) throws Exception
    {
-      return P3DatabaseReader.setProjectNameAndRead(directory);
+      return P3DatabaseReader.setProjectNameAndRead(directory, getFieldStoreType());
    }
 
    /**
@@ -654,7 +656,7 @@ public final class UniversalProjectReader implements ProjectReader
     */
    private ProjectFile handleSureTrakDatabase(File directory) throws Exception
    {
-      return SureTrakDatabaseReader.setProjectNameAndRead(directory);
+      return SureTrakDatabaseReader.setProjectNameAndRead(directory, getFieldStoreType());
    }
 
    /**
@@ -670,6 +672,7 @@ public final class UniversalProjectReader implements ProjectReader
       UniversalProjectReader reader = new UniversalProjectReader();
       reader.setSkipBytes(length);
       reader.setCharset(charset);
+      reader.setFieldStoreType(getFieldStoreType());
       return reader.read(stream);
    }
 
@@ -750,6 +753,7 @@ public final class UniversalProjectReader implements ProjectReader
    {
       PrimaveraXERFileReader reader = new PrimaveraXERFileReader();
       reader.setCharset(m_charset);
+      reader.setFieldStoreType(getFieldStoreType());
       List<ProjectFile> projects = reader.readAll(stream);
       ProjectFile project = null;
       for (ProjectFile file : projects)
@@ -807,7 +811,8 @@ public final class UniversalProjectReader implements ProjectReader
    }
 
    /**
-    * Adds any listeners attached to this reader to the reader created internally.
+    * Adds any listeners attached to this reader to the reader created internally,
+    * and passes on the field store type.
     *
     * @param reader internal project reader
     */
@@ -820,6 +825,11 @@ public final class UniversalProjectReader implements ProjectReader
             reader.addProjectListener(listener);
          }
       }
+
+      if (reader instanceof AbstractProjectReader)
+      {
+         ((AbstractProjectReader) reader).setFieldStoreType(getFieldStoreType());
+      }
    }
 
    private int m_skipBytes;
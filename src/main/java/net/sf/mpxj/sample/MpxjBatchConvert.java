@@ -24,11 +24,30 @@
 package net.sf.mpxj.sample;
 
 import java.io.File;
-import java.io.FileFilter;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.reader.UniversalProjectReader;
+import net.sf.mpxj.writer.ProjectWriter;
+import net.sf.mpxj.writer.ProjectWriterUtility;
 
 /**
- * This is a general utility designed to multiple files in one directory
- * into a different file format.
+ * This is a general utility designed to convert multiple files in a directory
+ * tree into a different file format. The structure of the source directory
+ * tree is reproduced in the target directory. Files are converted in
+ * parallel, and a failure to convert one file does not prevent the
+ * remaining files from being converted.
+ *
+ * A tab separated line is written for each file converted, showing
+ * the outcome, the file name, the detected file type, the time taken to
+ * read and write the file in milliseconds, the size of the source and target
+ * files in bytes, and the error message if the conversion failed.
  */
 public final class MpxjBatchConvert
 {
@@ -41,48 +60,225 @@ public final class MpxjBatchConvert
    {
       try
       {
-         if (args.length != 4)
+         if (args.length != 4 && args.length != 5)
          {
-            System.out.println("Usage: MpxjBatchConvert <source directory> <source suffix> <target directory> <target suffix>");
+            System.out.println("Usage: MpxjBatchConvert <source directory> <source suffix> <target directory> <target suffix> [thread count]");
          }
          else
          {
-            File sourceDirectory = new File(args[0]);
-            final String sourceSuffix = args[1];
-            String targetDirectory = args[2];
-            String targetSuffix = args[3];
+            int threadCount = args.length == 5 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+            MpxjBatchConvert convert = new MpxjBatchConvert(args[1], args[3], threadCount);
+            int failures = convert.process(new File(args[0]), new File(args[2]), System.out);
+            System.exit(failures == 0 ? 0 : 1);
+         }
+
+         System.exit(0);
+      }
+
+      catch (Exception ex)
+      {
+         System.out.println();
+         System.out.print("Conversion Error: ");
+         ex.printStackTrace(System.out);
+         System.out.println();
+         System.exit(1);
+      }
+   }
+
+   /**
+    * Constructor.
+    *
+    * @param sourceSuffix suffix of the files to convert
+    * @param targetSuffix suffix used to name the converted files
+    * @param threadCount number of files to convert in parallel
+    */
+   public MpxjBatchConvert(String sourceSuffix, String targetSuffix, int threadCount)
+   {
+      if (threadCount < 1)
+      {
+         throw new IllegalArgumentException("Thread count must be at least 1");
+      }
 
-            File[] fileList = sourceDirectory.listFiles(new FileFilter()
+      m_sourceSuffix = sourceSuffix;
+      m_targetSuffix = targetSuffix;
+      m_threadCount = threadCount;
+   }
+
+   /**
+    * Convert all matching files found in the source directory tree.
+    *
+    * @param sourceDirectory source directory
+    * @param targetDirectory target directory
+    * @param out stream to which the per-file results and summary are written
+    * @return number of files which could not be converted
+    * @throws InterruptedException
+    */
+   public int process(File sourceDirectory, File targetDirectory, final PrintStream out) throws InterruptedException
+   {
+      List<File> sourceFiles = new ArrayList<File>();
+      findFiles(sourceDirectory, sourceFiles);
+
+      long start = System.currentTimeMillis();
+      ExecutorService executor = Executors.newFixedThreadPool(m_threadCount);
+      List<Future<?>> futures = new ArrayList<Future<?>>(sourceFiles.size());
+      final int[] counts = new int[2];
+
+      try
+      {
+         for (final File sourceFile : sourceFiles)
+         {
+            final File targetFile = getTargetFile(sourceDirectory, targetDirectory, sourceFile);
+            futures.add(executor.submit(new Runnable()
             {
-               @Override public boolean accept(File pathname)
+               @Override public void run()
                {
-                  return pathname.getName().endsWith(sourceSuffix);
+                  String result = convert(sourceFile, targetFile);
+                  synchronized (out)
+                  {
+                     ++counts[result.startsWith("OK") ? 0 : 1];
+                     out.println(result);
+                  }
                }
-            });
+            }));
+         }
 
-            if (fileList != null)
+         for (Future<?> future : futures)
+         {
+            try
+            {
+               future.get();
+            }
+
+            catch (ExecutionException ex)
             {
-               MpxjConvert convert = new MpxjConvert();
-               for (File file : fileList)
+               // Not expected, conversion failures are reported by the task itself
+               throw new RuntimeException(ex.getCause());
+            }
+         }
+      }
+
+      finally
+      {
+         executor.shutdownNow();
+      }
+
+      long elapsed = System.currentTimeMillis() - start;
+      out.println("Converted " + counts[0] + " files, " + counts[1] + " failed, in " + elapsed + "ms.");
+
+      return counts[1];
+   }
+
+   /**
+    * Recursively locate files with the source suffix.
+    *
+    * @param directory directory to search
+    * @param files list to which matching files are added
+    */
+   private void findFiles(File directory, List<File> files)
+   {
+      File[] fileList = directory.listFiles();
+      if (fileList != null)
+      {
+         for (File file : fileList)
+         {
+            if (file.isDirectory())
+            {
+               findFiles(file, files);
+            }
+            else
+            {
+               if (file.getName().endsWith(m_sourceSuffix))
                {
-                  String oldName = file.getName();
-                  String newName = oldName.substring(0, oldName.length() - sourceSuffix.length()) + targetSuffix;
-                  File newFile = new File(targetDirectory, newName);
-                  convert.process(file.getCanonicalPath(), newFile.getCanonicalPath());
+                  files.add(file);
                }
             }
          }
+      }
+   }
 
-         System.exit(0);
+   /**
+    * Determine the name of the converted file, reproducing the location
+    * of the source file relative to the source directory.
+    *
+    * @param sourceDirectory source directory
+    * @param targetDirectory target directory
+    * @param sourceFile source file
+    * @return target file
+    */
+   private File getTargetFile(File sourceDirectory, File targetDirectory, File sourceFile)
+   {
+      String sourcePath = sourceFile.getPath().substring(sourceDirectory.getPath().length());
+      String targetPath = sourcePath.substring(0, sourcePath.length() - m_sourceSuffix.length()) + m_targetSuffix;
+      return new File(targetDirectory, targetPath);
+   }
+
+   /**
+    * Convert a single file. Readers and writers maintain state while
+    * they are working, so new instances are created for each file.
+    *
+    * @param sourceFile source file
+    * @param targetFile target file
+    * @return result line for this file
+    */
+   private String convert(File sourceFile, File targetFile)
+   {
+      String fileType = null;
+      long readTime = 0;
+      long writeTime = 0;
+      Throwable error = null;
+
+      try
+      {
+         long start = System.currentTimeMillis();
+         ProjectFile projectFile = new UniversalProjectReader().read(sourceFile);
+         readTime = System.currentTimeMillis() - start;
+
+         if (projectFile == null)
+         {
+            throw new IllegalArgumentException("Unsupported file type");
+         }
+         fileType = projectFile.getProjectProperties().getFileType();
+
+         File parent = targetFile.getParentFile();
+         if (parent != null)
+         {
+            parent.mkdirs();
+         }
+
+         start = System.currentTimeMillis();
+         ProjectWriter writer = ProjectWriterUtility.getProjectWriter(targetFile.getName());
+         writer.write(projectFile, targetFile);
+         writeTime = System.currentTimeMillis() - start;
       }
 
-      catch (Exception ex)
+      catch (Throwable ex)
       {
-         System.out.println();
-         System.out.print("Conversion Error: ");
-         ex.printStackTrace(System.out);
-         System.out.println();
-         System.exit(1);
+         error = ex;
       }
+
+      StringBuilder sb = new StringBuilder();
+      sb.append(error == null ? "OK" : "FAILED");
+      sb.append('\t');
+      sb.append(sourceFile.getPath());
+      sb.append('\t');
+      sb.append(fileType == null ? "" : fileType);
+      sb.append('\t');
+      sb.append(readTime);
+      sb.append('\t');
+      sb.append(writeTime);
+      sb.append('\t');
+      sb.append(sourceFile.length());
+      sb.append('\t');
+      sb.append(error == null ? targetFile.length() : 0);
+      if (error != null)
+      {
+         sb.append('\t');
+         sb.append(String.valueOf(error).replace('\n', ' ').replace('\r', ' '));
+      }
+      return sb.toString();
    }
+
+   private final String m_sourceSuffix;
+   private final String m_targetSuffix;
+   private final int m_threadCount;
 }
@@ -0,0 +1,289 @@
+/*
+ * file:       MpxjConvertServer.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       19/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.sample;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.common.JAXBContextCache;
+import net.sf.mpxj.reader.UniversalProjectReader;
+import net.sf.mpxj.writer.ProjectWriter;
+import net.sf.mpxj.writer.ProjectWriterUtility;
+
+/**
+ * This is a long running version of the MpxjConvert utility, intended to be
+ * used by out of process callers, for example the Ruby gem, which would
+ * otherwise start a new JVM for each file converted.
+ *
+ * Requests are read from standard input, one per line, as three tab
+ * separated fields: a request ID chosen by the caller, the input file name
+ * and the output file name. The type of the output file is determined by
+ * its extension. Requests are processed concurrently by a fixed number of
+ * worker threads, and a single line is written to standard output when each
+ * request completes, in the form:
+ *
+ * <pre>
+ * id&lt;TAB&gt;OK
+ * id&lt;TAB&gt;ERROR&lt;TAB&gt;message
+ * </pre>
+ *
+ * As requests may complete in any order the caller uses the request ID to
+ * match responses to requests. Tab, carriage return, newline and backslash
+ * characters in the error message are escaped as \t, \r, \n and \\
+ * respectively. The server exits when standard input is closed, once any
+ * outstanding requests have been completed.
+ */
+public final class MpxjConvertServer
+{
+   /**
+    * Main method.
+    *
+    * @param args array of command line arguments
+    */
+   public static void main(String[] args)
+   {
+      try
+      {
+         if (args.length > 1)
+         {
+            System.out.println("Usage: MpxjConvertServer [thread count]");
+         }
+         else
+         {
+            //
+            // Create the JAXB contexts in the background while we wait for the first request
+            //
+            JAXBContextCache.initialise();
+
+            int threadCount = args.length == 0 ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(args[0]);
+            MpxjConvertServer server = new MpxjConvertServer(threadCount);
+            server.process(System.in, System.out);
+         }
+
+         System.exit(0);
+      }
+
+      catch (Exception ex)
+      {
+         ex.printStackTrace(System.err);
+         System.exit(1);
+      }
+   }
+
+   /**
+    * Constructor.
+    *
+    * @param threadCount number of worker threads used to process requests
+    */
+   public MpxjConvertServer(int threadCount)
+   {
+      if (threadCount < 1)
+      {
+         throw new IllegalArgumentException("Thread count must be at least 1");
+      }
+      m_threadCount = threadCount;
+   }
+
+   /**
+    * Read requests from the input stream and write responses to the output
+    * stream until the input stream is closed.
+    *
+    * @param is request stream
+    * @param os response stream
+    * @throws IOException
+    * @throws InterruptedException
+    */
+   public void process(InputStream is, OutputStream os) throws IOException, InterruptedException
+   {
+      BufferedReader reader = new BufferedReader(new InputStreamReader(is, "UTF-8"));
+      m_writer = new BufferedWriter(new OutputStreamWriter(os, "UTF-8"));
+
+      //
+      // The queue is bounded so that a caller submitting a large number of
+      // requests is held up by the reading thread running the request itself,
+      // rather than by the server accumulating an unlimited backlog.
+      //
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(m_threadCount, m_threadCount, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(m_threadCount * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+
+      try
+      {
+         String line;
+         while ((line = reader.readLine()) != null)
+         {
+            if (line.length() == 0)
+            {
+               continue;
+            }
+
+            final String[] fields = line.split("\t", -1);
+            if (fields.length != 3)
+            {
+               respond(fields[0], "ERROR\t" + escape("Invalid request: " + line));
+               continue;
+            }
+
+            executor.execute(new Runnable()
+            {
+               @Override public void run()
+               {
+                  convert(fields[0], fields[1], fields[2]);
+               }
+            });
+         }
+      }
+
+      finally
+      {
+         executor.shutdown();
+         executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   /**
+    * Convert a single file and write the response.
+    *
+    * @param id request ID
+    * @param inputFile input file name
+    * @param outputFile output file name
+    */
+   private void convert(String id, String inputFile, String outputFile)
+   {
+      String response;
+
+      try
+      {
+         ProjectFile projectFile = new UniversalProjectReader().read(inputFile);
+         if (projectFile == null)
+         {
+            throw new IllegalArgumentException("Unsupported file type");
+         }
+
+         ProjectWriter writer = ProjectWriterUtility.getProjectWriter(outputFile);
+         writer.write(projectFile, outputFile);
+         response = "OK";
+      }
+
+      catch (Throwable ex)
+      {
+         StringWriter sw = new StringWriter();
+         PrintWriter pw = new PrintWriter(sw);
+         ex.printStackTrace(pw);
+         pw.flush();
+         response = "ERROR\t" + escape(sw.toString());
+      }
+
+      respond(id, response);
+   }
+
+   /**
+    * Write a response line. Responses may be written by any worker thread,
+    * so access to the writer is serialised.
+    *
+    * @param id request ID
+    * @param response response text
+    */
+   private void respond(String id, String response)
+   {
+      synchronized (m_writer)
+      {
+         try
+         {
+            m_writer.write(id);
+            m_writer.write('\t');
+            m_writer.write(response);
+            m_writer.write('\n');
+            m_writer.flush();
+         }
+
+         catch (IOException ex)
+         {
+            // The caller has gone away, nothing more we can do
+         }
+      }
+   }
+
+   /**
+    * Escape characters in a message so that it can be written on a single line.
+    *
+    * @param message message text
+    * @return escaped message text
+    */
+   private static String escape(String message)
+   {
+      StringBuilder sb = new StringBuilder(message.length());
+      for (int index = 0; index < message.length(); index++)
+      {
+         char c = message.charAt(index);
+         switch (c)
+         {
+            case '\\':
+            {
+               sb.append("\\\\");
+               break;
+            }
+
+            case '\t':
+            {
+               sb.append("\\t");
+               break;
+            }
+
+            case '\r':
+            {
+               sb.append("\\r");
+               break;
+            }
+
+            case '\n':
+            {
+               sb.append("\\n");
+               break;
+            }
+
+            default:
+            {
+               sb.append(c);
+               break;
+            }
+         }
+      }
+      return sb.toString();
+   }
+
+   private final int m_threadCount;
+   private Writer m_writer;
+}
@@ -0,0 +1,116 @@
+/*
+ * file:       MpxjMemoryUsage.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       06/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.sample;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.mpxj.FieldStoreType;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.reader.UniversalProjectReader;
+
+/**
+ * This utility reads a project file repeatedly using each of the available
+ * field store types, and reports the approximate heap used per task.
+ */
+public final class MpxjMemoryUsage
+{
+   /**
+    * Main method.
+    *
+    * @param args array of command line arguments
+    */
+   public static void main(String[] args)
+   {
+      try
+      {
+         if (args.length < 1 || args.length > 2)
+         {
+            System.out.println("Usage: MpxjMemoryUsage <input file name> [copies]");
+         }
+         else
+         {
+            int copies = args.length == 2 ? Integer.parseInt(args[1]) : 10;
+            for (FieldStoreType type : FieldStoreType.values())
+            {
+               process(args[0], type, copies);
+            }
+         }
+      }
+
+      catch (Exception ex)
+      {
+         ex.printStackTrace(System.out);
+      }
+   }
+
+   /**
+    * Read multiple copies of a file using the supplied field store type,
+    * and report the memory used.
+    *
+    * @param fileName file name
+    * @param type field store type
+    * @param copies number of copies to hold in memory
+    * @throws Exception
+    */
+   private static void process(String fileName, FieldStoreType type, int copies) throws Exception
+   {
+      UniversalProjectReader reader = new UniversalProjectReader();
+      reader.setFieldStoreType(type);
+
+      List<ProjectFile> projects = new ArrayList<ProjectFile>();
+      long before = usedMemory();
+
+      for (int loop = 0; loop < copies; loop++)
+      {
+         projects.add(reader.read(fileName));
+      }
+
+      long after = usedMemory();
+      long entities = 0;
+      for (ProjectFile project : projects)
+      {
+         entities += project.getTasks().size() + project.getResources().size() + project.getResourceAssignments().size();
+      }
+
+      ProjectFile project = projects.get(0);
+      System.out.println(type + ": " + project.getTasks().size() + " tasks, " + project.getResources().size() + " resources, " + project.getResourceAssignments().size() + " assignments");
+      System.out.println(type + ": " + ((after - before) / copies) + " bytes per project, " + (entities == 0 ? 0 : (after - before) / entities) + " bytes per entity");
+   }
+
+   /**
+    * Retrieve the heap in use after requesting garbage collection.
+    *
+    * @return used heap in bytes
+    */
+   private static long usedMemory()
+   {
+      Runtime runtime = Runtime.getRuntime();
+      for (int loop = 0; loop < 4; loop++)
+      {
+         runtime.gc();
+      }
+      return runtime.totalMemory() - runtime.freeMemory();
+   }
+}
@@ -0,0 +1,126 @@
+/*
+ * file:       SnapshotFormat.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.snapshot;
+
+/**
+ * Constants describing the layout of a snapshot file.
+ */
+final class SnapshotFormat
+{
+   /**
+    * Private constructor to prevent instantiation.
+    */
+   private SnapshotFormat()
+   {
+      // Private constructor to prevent instantiation.
+   }
+
+   /**
+    * Bytes found at the start of every snapshot.
+    */
+   static final byte[] MAGIC =
+   {
+      (byte) 'M',
+      (byte) 'P',
+      (byte) 'X',
+      (byte) 'J',
+      (byte) 'S',
+      (byte) 'N',
+      (byte) 'A',
+      (byte) 'P'
+   };
+
+   /**
+    * Current format version. This must be incremented whenever
+    * the layout of the snapshot changes.
+    */
+   static final int VERSION = 1;
+
+   /**
+    * Marker written at the end of the snapshot.
+    */
+   static final int END_MARKER = 0x7E;
+
+   /**
+    * Number of baselines held for timephased data.
+    */
+   static final int BASELINE_COUNT = 11;
+
+   /**
+    * Number of cost rate tables held for each resource.
+    */
+   static final int COST_RATE_TABLE_COUNT = 5;
+
+   /*
+    * Value type tags.
+    */
+   static final int NULL = 0;
+   static final int STRING = 1;
+   static final int BOOLEAN_TRUE = 2;
+   static final int BOOLEAN_FALSE = 3;
+   static final int INTEGER = 4;
+   static final int LONG = 5;
+   static final int DOUBLE = 6;
+   static final int FLOAT = 7;
+   static final int SHORT = 8;
+   static final int BIG_INTEGER = 9;
+   static final int BIG_DECIMAL = 10;
+   static final int DATE = 11;
+   static final int DURATION = 12;
+   static final int RATE = 13;
+   static final int UUID = 14;
+   static final int ENUM = 15;
+   static final int PRIORITY = 16;
+   static final int CALENDAR = 17;
+   static final int CHARACTER = 18;
+   static final int BINARY = 19;
+   static final int MAP = 20;
+
+   /*
+    * Project configuration flags.
+    */
+   static final int CONFIG_AUTO_WBS = 0x0001;
+   static final int CONFIG_AUTO_OUTLINE_LEVEL = 0x0002;
+   static final int CONFIG_AUTO_OUTLINE_NUMBER = 0x0004;
+   static final int CONFIG_AUTO_TASK_UNIQUE_ID = 0x0008;
+   static final int CONFIG_AUTO_CALENDAR_UNIQUE_ID = 0x0010;
+   static final int CONFIG_AUTO_ASSIGNMENT_UNIQUE_ID = 0x0020;
+   static final int CONFIG_AUTO_TASK_ID = 0x0040;
+   static final int CONFIG_AUTO_RESOURCE_UNIQUE_ID = 0x0080;
+   static final int CONFIG_AUTO_RESOURCE_ID = 0x0100;
+
+   /*
+    * Task flags.
+    */
+   static final int TASK_NULL = 0x01;
+   static final int TASK_EXPANDED = 0x02;
+   static final int TASK_RESUME_VALID = 0x04;
+
+   /*
+    * Recurring data flags.
+    */
+   static final int RECURRING_USE_END_DATE = 0x01;
+   static final int RECURRING_WORKING_DAYS_ONLY = 0x02;
+   static final int RECURRING_RELATIVE = 0x04;
+}
@@ -0,0 +1,520 @@
+/*
+ * file:       SnapshotInputStream.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.snapshot;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.Priority;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Rate;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.common.CharsetHelper;
+
+/**
+ * Reads the primitive values used to represent a snapshot.
+ * This is the counterpart of SnapshotOutputStream.
+ */
+final class SnapshotInputStream
+{
+   /**
+    * Constructor.
+    *
+    * @param stream source stream
+    * @param file project used to resolve calendar references
+    */
+   public SnapshotInputStream(InputStream stream, ProjectFile file)
+   {
+      m_stream = new BufferedInputStream(stream, BUFFER_SIZE);
+      m_file = file;
+   }
+
+   /**
+    * Read a single byte.
+    *
+    * @return byte value
+    */
+   public int readByte() throws IOException
+   {
+      int value = m_stream.read();
+      if (value == -1)
+      {
+         throw new EOFException();
+      }
+      return value;
+   }
+
+   /**
+    * Read a fixed number of bytes.
+    *
+    * @param length number of bytes to read
+    * @return bytes read
+    */
+   public byte[] readRawBytes(int length) throws IOException
+   {
+      byte[] data = new byte[length];
+      int offset = 0;
+      while (offset < length)
+      {
+         int count = m_stream.read(data, offset, length - offset);
+         if (count == -1)
+         {
+            throw new EOFException();
+         }
+         offset += count;
+      }
+      return data;
+   }
+
+   /**
+    * Read an array of bytes preceded by its length.
+    *
+    * @return bytes read
+    */
+   public byte[] readBytes() throws IOException
+   {
+      return readRawBytes(readVarInt());
+   }
+
+   /**
+    * Read a boolean value.
+    *
+    * @return boolean value
+    */
+   public boolean readBoolean() throws IOException
+   {
+      return readByte() != 0;
+   }
+
+   /**
+    * Read an unsigned variable length integer.
+    *
+    * @return integer value
+    */
+   public int readVarInt() throws IOException
+   {
+      int result = 0;
+      int shift = 0;
+      while (true)
+      {
+         int value = readByte();
+         result |= (value & 0x7F) << shift;
+         if ((value & 0x80) == 0)
+         {
+            break;
+         }
+
+         shift += 7;
+         if (shift > 28)
+         {
+            throw new IOException("Invalid variable length integer");
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Read a signed variable length integer.
+    *
+    * @return integer value
+    */
+   public int readSignedVarInt() throws IOException
+   {
+      int value = readVarInt();
+      return (value >>> 1) ^ -(value & 1);
+   }
+
+   /**
+    * Read an unsigned variable length long.
+    *
+    * @return long value
+    */
+   public long readVarLong() throws IOException
+   {
+      long result = 0;
+      int shift = 0;
+      while (true)
+      {
+         int value = readByte();
+         result |= (long) (value & 0x7F) << shift;
+         if ((value & 0x80) == 0)
+         {
+            break;
+         }
+
+         shift += 7;
+         if (shift > 63)
+         {
+            throw new IOException("Invalid variable length long");
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Read a signed variable length long.
+    *
+    * @return long value
+    */
+   public long readSignedVarLong() throws IOException
+   {
+      long value = readVarLong();
+      return (value >>> 1) ^ -(value & 1);
+   }
+
+   /**
+    * Read a long written as eight bytes.
+    *
+    * @return long value
+    */
+   public long readLong() throws IOException
+   {
+      long result = 0;
+      for (int index = 0; index < 8; index++)
+      {
+         result = (result << 8) | readByte();
+      }
+      return result;
+   }
+
+   /**
+    * Read a double.
+    *
+    * @return double value
+    */
+   public double readDouble() throws IOException
+   {
+      double result;
+      long value = readVarLong();
+      if (value == 1)
+      {
+         result = Double.longBitsToDouble(readLong());
+      }
+      else
+      {
+         value >>>= 1;
+         result = (value >>> 1) ^ -(value & 1);
+      }
+      return result;
+   }
+
+   /**
+    * Read a string.
+    *
+    * @return string value, may be null
+    */
+   public String readString() throws IOException
+   {
+      String result;
+      int index = readVarInt();
+      switch (index)
+      {
+         case 0:
+         {
+            result = null;
+            break;
+         }
+
+         case 1:
+         {
+            result = new String(readBytes(), CharsetHelper.UTF8);
+            m_strings.add(result);
+            break;
+         }
+
+         default:
+         {
+            index -= 2;
+            if (index >= m_strings.size())
+            {
+               throw new IOException("Invalid string reference");
+            }
+            result = m_strings.get(index);
+            break;
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Read a date.
+    *
+    * @return date value
+    */
+   public Date readDate() throws IOException
+   {
+      long value = readSignedVarLong();
+      long time = (value & 1) == 0 ? (value >> 1) * MS_PER_MINUTE : value >> 1;
+      return new Date(time);
+   }
+
+   /**
+    * Read a presence bitmap.
+    *
+    * @param length number of bytes in the bitmap
+    * @return presence bitmap
+    */
+   public byte[] readBitmap(int length) throws IOException
+   {
+      byte[] blocks = readRawBytes((length + 7) / 8);
+      byte[] bitmap = new byte[length];
+      for (int index = 0; index < length; index++)
+      {
+         if ((blocks[index / 8] & (1 << (index % 8))) != 0)
+         {
+            bitmap[index] = (byte) readByte();
+         }
+      }
+      return bitmap;
+   }
+
+   /**
+    * Read a value preceded by a tag identifying its type.
+    *
+    * @return value
+    */
+   public Object readValue() throws IOException
+   {
+      Object result;
+      int type = readVarInt();
+
+      switch (type)
+      {
+         case SnapshotFormat.NULL:
+         {
+            result = null;
+            break;
+         }
+
+         case SnapshotFormat.STRING:
+         {
+            result = readString();
+            break;
+         }
+
+         case SnapshotFormat.BOOLEAN_TRUE:
+         {
+            result = Boolean.TRUE;
+            break;
+         }
+
+         case SnapshotFormat.BOOLEAN_FALSE:
+         {
+            result = Boolean.FALSE;
+            break;
+         }
+
+         case SnapshotFormat.INTEGER:
+         {
+            result = Integer.valueOf(readSignedVarInt());
+            break;
+         }
+
+         case SnapshotFormat.SHORT:
+         {
+            result = Short.valueOf((short) readSignedVarInt());
+            break;
+         }
+
+         case SnapshotFormat.LONG:
+         {
+            result = Long.valueOf(readSignedVarLong());
+            break;
+         }
+
+         case SnapshotFormat.DOUBLE:
+         {
+            result = Double.valueOf(readDouble());
+            break;
+         }
+
+         case SnapshotFormat.FLOAT:
+         {
+            result = Float.valueOf((float) readDouble());
+            break;
+         }
+
+         case SnapshotFormat.BIG_INTEGER:
+         {
+            result = new BigInteger(readBytes());
+            break;
+         }
+
+         case SnapshotFormat.BIG_DECIMAL:
+         {
+            int scale = readSignedVarInt();
+            result = new BigDecimal(new BigInteger(readBytes()), scale);
+            break;
+         }
+
+         case SnapshotFormat.DATE:
+         {
+            result = readDate();
+            break;
+         }
+
+         case SnapshotFormat.DURATION:
+         {
+            double duration = readDouble();
+            result = Duration.getInstance(duration, TimeUnit.getInstance(readVarInt()));
+            break;
+         }
+
+         case SnapshotFormat.RATE:
+         {
+            double amount = readDouble();
+            result = new Rate(amount, TimeUnit.getInstance(readVarInt()));
+            break;
+         }
+
+         case SnapshotFormat.UUID:
+         {
+            long mostSignificantBits = readLong();
+            result = new UUID(mostSignificantBits, readLong());
+            break;
+         }
+
+         case SnapshotFormat.ENUM:
+         {
+            String className = readString();
+            result = getEnumConstant(className, readString());
+            break;
+         }
+
+         case SnapshotFormat.PRIORITY:
+         {
+            result = Priority.getInstance(readVarInt());
+            break;
+         }
+
+         case SnapshotFormat.CALENDAR:
+         {
+            result = m_file.getCalendarByUniqueID(Integer.valueOf(readSignedVarInt()));
+            break;
+         }
+
+         case SnapshotFormat.CHARACTER:
+         {
+            result = Character.valueOf((char) readVarInt());
+            break;
+         }
+
+         case SnapshotFormat.BINARY:
+         {
+            result = readBytes();
+            break;
+         }
+
+         case SnapshotFormat.MAP:
+         {
+            int count = readVarInt();
+            Map<String, Object> map = new HashMap<String, Object>();
+            for (int index = 0; index < count; index++)
+            {
+               String key = readString();
+               map.put(key, readValue());
+            }
+            result = map;
+            break;
+         }
+
+         default:
+         {
+            throw new IOException("Unknown value type " + type);
+         }
+      }
+
+      return result;
+   }
+
+   /**
+    * Retrieve an enum constant by name. Only enums defined by MPXJ
+    * are accepted.
+    *
+    * @param className enum class name
+    * @param name constant name
+    * @return enum constant
+    */
+   private Object getEnumConstant(String className, String name) throws IOException
+   {
+      Map<String, Object> constants = m_enums.get(className);
+      if (constants == null)
+      {
+         if (className == null || !className.startsWith(MPXJ_PACKAGE))
+         {
+            throw new IOException("Unexpected enum type " + className);
+         }
+
+         Class<?> c;
+         try
+         {
+            c = Class.forName(className);
+         }
+
+         catch (ClassNotFoundException ex)
+         {
+            throw new IOException("Unknown enum type " + className);
+         }
+
+         if (!c.isEnum())
+         {
+            throw new IOException("Unexpected enum type " + className);
+         }
+
+         constants = new HashMap<String, Object>();
+         for (Object constant : c.getEnumConstants())
+         {
+            constants.put(((Enum<?>) constant).name(), constant);
+         }
+         m_enums.put(className, constants);
+      }
+
+      Object result = constants.get(name);
+      if (result == null)
+      {
+         throw new IOException("Unknown enum value " + className + "." + name);
+      }
+      return result;
+   }
+
+   private final InputStream m_stream;
+   private final ProjectFile m_file;
+   private final List<String> m_strings = new ArrayList<String>();
+   private final Map<String, Map<String, Object>> m_enums = new HashMap<String, Map<String, Object>>();
+
+   private static final int BUFFER_SIZE = 64 * 1024;
+   private static final long MS_PER_MINUTE = 60000;
+   private static final String MPXJ_PACKAGE = "net.sf.mpxj.";
+}
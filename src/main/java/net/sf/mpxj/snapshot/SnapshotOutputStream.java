@@ -0,0 +1,534 @@
+/*
+ * file:       SnapshotOutputStream.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.Priority;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.Rate;
+import net.sf.mpxj.common.CharsetHelper;
+
+/**
+ * Writes the primitive values used to represent a snapshot.
+ * Integers are written as variable length values, and strings are
+ * written to a string table as they are first encountered, with
+ * subsequent occurrences represented by their index in the table.
+ */
+final class SnapshotOutputStream
+{
+   /**
+    * Constructor.
+    *
+    * @param stream target stream
+    */
+   public SnapshotOutputStream(OutputStream stream)
+   {
+      m_stream = new BufferedOutputStream(stream, BUFFER_SIZE);
+   }
+
+   /**
+    * Write a single byte.
+    *
+    * @param value byte value
+    */
+   public void writeByte(int value) throws IOException
+   {
+      m_stream.write(value);
+   }
+
+   /**
+    * Write an array of bytes without a length prefix.
+    *
+    * @param data bytes to write
+    */
+   public void writeRawBytes(byte[] data) throws IOException
+   {
+      m_stream.write(data);
+   }
+
+   /**
+    * Write an array of bytes preceded by its length.
+    *
+    * @param data bytes to write
+    */
+   public void writeBytes(byte[] data) throws IOException
+   {
+      writeVarInt(data.length);
+      m_stream.write(data);
+   }
+
+   /**
+    * Write a boolean value.
+    *
+    * @param value boolean value
+    */
+   public void writeBoolean(boolean value) throws IOException
+   {
+      m_stream.write(value ? 1 : 0);
+   }
+
+   /**
+    * Write an unsigned variable length integer.
+    *
+    * @param value integer value
+    */
+   public void writeVarInt(int value) throws IOException
+   {
+      while ((value & ~0x7F) != 0)
+      {
+         m_stream.write((value & 0x7F) | 0x80);
+         value >>>= 7;
+      }
+      m_stream.write(value);
+   }
+
+   /**
+    * Write a signed variable length integer. Zigzag encoding is used
+    * so that small negative values are also written compactly.
+    *
+    * @param value integer value
+    */
+   public void writeSignedVarInt(int value) throws IOException
+   {
+      writeVarInt((value << 1) ^ (value >> 31));
+   }
+
+   /**
+    * Write an unsigned variable length long.
+    *
+    * @param value long value
+    */
+   public void writeVarLong(long value) throws IOException
+   {
+      while ((value & ~0x7FL) != 0)
+      {
+         m_stream.write((int) ((value & 0x7F) | 0x80));
+         value >>>= 7;
+      }
+      m_stream.write((int) value);
+   }
+
+   /**
+    * Write a signed variable length long.
+    *
+    * @param value long value
+    */
+   public void writeSignedVarLong(long value) throws IOException
+   {
+      writeVarLong((value << 1) ^ (value >> 63));
+   }
+
+   /**
+    * Write a long as eight bytes.
+    *
+    * @param value long value
+    */
+   public void writeLong(long value) throws IOException
+   {
+      for (int shift = 56; shift >= 0; shift -= 8)
+      {
+         m_stream.write((int) (value >>> shift));
+      }
+   }
+
+   /**
+    * Write a double. Whole numbers, which are typical of durations and
+    * costs, are written as variable length integers, other values
+    * are written in full.
+    *
+    * @param value double value
+    */
+   public void writeDouble(double value) throws IOException
+   {
+      long longValue = (long) value;
+      if (longValue == value && Math.abs(longValue) < MAX_WHOLE_DOUBLE && (longValue != 0 || Double.doubleToRawLongBits(value) == 0))
+      {
+         writeVarLong(((longValue << 1) ^ (longValue >> 63)) << 1);
+      }
+      else
+      {
+         writeVarLong(1);
+         writeLong(Double.doubleToRawLongBits(value));
+      }
+   }
+
+   /**
+    * Write a string. Each distinct string is written once, subsequent
+    * occurrences are written as a reference to the first.
+    *
+    * @param value string value, may be null
+    */
+   public void writeString(String value) throws IOException
+   {
+      if (value == null)
+      {
+         writeVarInt(0);
+      }
+      else
+      {
+         Integer index = m_strings.get(value);
+         if (index == null)
+         {
+            m_strings.put(value, Integer.valueOf(m_strings.size()));
+            writeVarInt(1);
+            writeBytes(value.getBytes(CharsetHelper.UTF8));
+         }
+         else
+         {
+            writeVarInt(index.intValue() + 2);
+         }
+      }
+   }
+
+   /**
+    * Write a date. Dates falling on a minute boundary, which is
+    * the common case, are written as a number of minutes.
+    *
+    * @param value date value
+    */
+   public void writeDate(Date value) throws IOException
+   {
+      long time = value.getTime();
+      if (time % MS_PER_MINUTE == 0)
+      {
+         writeSignedVarLong((time / MS_PER_MINUTE) << 1);
+      }
+      else
+      {
+         writeSignedVarLong((time << 1) | 1);
+      }
+   }
+
+   /**
+    * Write a presence bitmap. A second level bitmap is written first
+    * to identify the non-zero bytes in the bitmap, which are then
+    * written. This keeps the bitmap compact where only a small number
+    * of the available fields are populated.
+    *
+    * @param bitmap presence bitmap
+    */
+   public void writeBitmap(byte[] bitmap) throws IOException
+   {
+      byte[] blocks = new byte[(bitmap.length + 7) / 8];
+      for (int index = 0; index < bitmap.length; index++)
+      {
+         if (bitmap[index] != 0)
+         {
+            blocks[index / 8] |= (byte) (1 << (index % 8));
+         }
+      }
+
+      m_stream.write(blocks);
+
+      for (byte value : bitmap)
+      {
+         if (value != 0)
+         {
+            m_stream.write(value);
+         }
+      }
+   }
+
+   /**
+    * Determine if a value can be written to a snapshot.
+    *
+    * @param value value to test
+    * @return true if the value can be written
+    */
+   public static boolean isSupported(Object value)
+   {
+      boolean result;
+
+      if (value == null || value instanceof Enum<?> || value instanceof Boolean || value instanceof Date)
+      {
+         result = true;
+      }
+      else
+      {
+         if (value instanceof ProjectCalendar)
+         {
+            result = ((ProjectCalendar) value).getUniqueID() != null;
+         }
+         else
+         {
+            result = VALUE_TYPES.containsKey(value.getClass()) || value instanceof Map<?, ?>;
+         }
+      }
+
+      return result;
+   }
+
+   /**
+    * Determine if any values have been omitted from the snapshot
+    * because they could not be written.
+    *
+    * @return true if any values have been omitted
+    */
+   public boolean getPartial()
+   {
+      return m_partial;
+   }
+
+   /**
+    * Write a value preceded by a tag identifying its type.
+    * Values which cannot be written are written as null,
+    * and the snapshot is recorded as partial.
+    *
+    * @param value value to write
+    */
+   public void writeValue(Object value) throws IOException
+   {
+      if (value == null)
+      {
+         writeVarInt(SnapshotFormat.NULL);
+         return;
+      }
+
+      if (!isSupported(value))
+      {
+         m_partial = true;
+         writeVarInt(SnapshotFormat.NULL);
+         return;
+      }
+
+      if (value instanceof Boolean)
+      {
+         writeVarInt(((Boolean) value).booleanValue() ? SnapshotFormat.BOOLEAN_TRUE : SnapshotFormat.BOOLEAN_FALSE);
+         return;
+      }
+
+      if (value instanceof Date)
+      {
+         writeVarInt(SnapshotFormat.DATE);
+         writeDate((Date) value);
+         return;
+      }
+
+      if (value instanceof Enum<?>)
+      {
+         Enum<?> e = (Enum<?>) value;
+         writeVarInt(SnapshotFormat.ENUM);
+         writeString(e.getDeclaringClass().getName());
+         writeString(e.name());
+         return;
+      }
+
+      if (value instanceof ProjectCalendar)
+      {
+         writeVarInt(SnapshotFormat.CALENDAR);
+         writeSignedVarInt(((ProjectCalendar) value).getUniqueID().intValue());
+         return;
+      }
+
+      if (value instanceof Map<?, ?>)
+      {
+         writeMap((Map<?, ?>) value);
+         return;
+      }
+
+      int type = VALUE_TYPES.get(value.getClass()).intValue();
+      writeVarInt(type);
+
+      switch (type)
+      {
+         case SnapshotFormat.STRING:
+         {
+            writeString((String) value);
+            break;
+         }
+
+         case SnapshotFormat.INTEGER:
+         case SnapshotFormat.SHORT:
+         {
+            writeSignedVarInt(((Number) value).intValue());
+            break;
+         }
+
+         case SnapshotFormat.LONG:
+         {
+            writeSignedVarLong(((Long) value).longValue());
+            break;
+         }
+
+         case SnapshotFormat.DOUBLE:
+         case SnapshotFormat.FLOAT:
+         {
+            writeDouble(((Number) value).doubleValue());
+            break;
+         }
+
+         case SnapshotFormat.BIG_INTEGER:
+         {
+            writeBytes(((BigInteger) value).toByteArray());
+            break;
+         }
+
+         case SnapshotFormat.BIG_DECIMAL:
+         {
+            BigDecimal decimal = (BigDecimal) value;
+            writeSignedVarInt(decimal.scale());
+            writeBytes(decimal.unscaledValue().toByteArray());
+            break;
+         }
+
+         case SnapshotFormat.DURATION:
+         {
+            Duration duration = (Duration) value;
+            writeDouble(duration.getDuration());
+            writeVarInt(duration.getUnits().getValue());
+            break;
+         }
+
+         case SnapshotFormat.RATE:
+         {
+            Rate rate = (Rate) value;
+            writeDouble(rate.getAmount());
+            writeVarInt(rate.getUnits().getValue());
+            break;
+         }
+
+         case SnapshotFormat.UUID:
+         {
+            UUID uuid = (UUID) value;
+            writeLong(uuid.getMostSignificantBits());
+            writeLong(uuid.getLeastSignificantBits());
+            break;
+         }
+
+         case SnapshotFormat.PRIORITY:
+         {
+            writeVarInt(((Priority) value).getValue());
+            break;
+         }
+
+         case SnapshotFormat.CHARACTER:
+         {
+            writeVarInt(((Character) value).charValue());
+            break;
+         }
+
+         case SnapshotFormat.BINARY:
+         {
+            writeBytes((byte[]) value);
+            break;
+         }
+
+         default:
+         {
+            throw new IllegalStateException("Unexpected value type " + type);
+         }
+      }
+   }
+
+   /**
+    * Write a map of values. Only entries with string keys and
+    * values which can be written to a snapshot are included,
+    * if any entries are omitted the snapshot is recorded as partial.
+    *
+    * @param map map to write
+    */
+   private void writeMap(Map<?, ?> map) throws IOException
+   {
+      int count = 0;
+      for (Map.Entry<?, ?> entry : map.entrySet())
+      {
+         if (isMapEntrySupported(entry))
+         {
+            ++count;
+         }
+      }
+
+      if (count != map.size())
+      {
+         m_partial = true;
+      }
+
+      writeVarInt(SnapshotFormat.MAP);
+      writeVarInt(count);
+      for (Map.Entry<?, ?> entry : map.entrySet())
+      {
+         if (isMapEntrySupported(entry))
+         {
+            writeString((String) entry.getKey());
+            writeValue(entry.getValue());
+         }
+      }
+   }
+
+   /**
+    * Determine if a map entry can be written to a snapshot.
+    *
+    * @param entry map entry
+    * @return true if the entry can be written
+    */
+   private boolean isMapEntrySupported(Map.Entry<?, ?> entry)
+   {
+      return entry.getKey() instanceof String && isSupported(entry.getValue());
+   }
+
+   /**
+    * Flush any buffered data to the underlying stream.
+    */
+   public void flush() throws IOException
+   {
+      m_stream.flush();
+   }
+
+   private final OutputStream m_stream;
+   private final Map<String, Integer> m_strings = new HashMap<String, Integer>();
+   private boolean m_partial;
+
+   private static final int BUFFER_SIZE = 64 * 1024;
+   private static final long MS_PER_MINUTE = 60000;
+   private static final long MAX_WHOLE_DOUBLE = 1L << 53;
+
+   private static final Map<Class<?>, Integer> VALUE_TYPES = new HashMap<Class<?>, Integer>();
+   static
+   {
+      VALUE_TYPES.put(String.class, Integer.valueOf(SnapshotFormat.STRING));
+      VALUE_TYPES.put(Integer.class, Integer.valueOf(SnapshotFormat.INTEGER));
+      VALUE_TYPES.put(Long.class, Integer.valueOf(SnapshotFormat.LONG));
+      VALUE_TYPES.put(Double.class, Integer.valueOf(SnapshotFormat.DOUBLE));
+      VALUE_TYPES.put(Float.class, Integer.valueOf(SnapshotFormat.FLOAT));
+      VALUE_TYPES.put(Short.class, Integer.valueOf(SnapshotFormat.SHORT));
+      VALUE_TYPES.put(BigInteger.class, Integer.valueOf(SnapshotFormat.BIG_INTEGER));
+      VALUE_TYPES.put(BigDecimal.class, Integer.valueOf(SnapshotFormat.BIG_DECIMAL));
+      VALUE_TYPES.put(Duration.class, Integer.valueOf(SnapshotFormat.DURATION));
+      VALUE_TYPES.put(Rate.class, Integer.valueOf(SnapshotFormat.RATE));
+      VALUE_TYPES.put(UUID.class, Integer.valueOf(SnapshotFormat.UUID));
+      VALUE_TYPES.put(Priority.class, Integer.valueOf(SnapshotFormat.PRIORITY));
+      VALUE_TYPES.put(Character.class, Integer.valueOf(SnapshotFormat.CHARACTER));
+      VALUE_TYPES.put(byte[].class, Integer.valueOf(SnapshotFormat.BINARY));
+   }
+}
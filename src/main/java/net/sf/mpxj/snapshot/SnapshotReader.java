@@ -0,0 +1,725 @@
+/*
+ * file:       SnapshotReader.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.snapshot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.UUID;
+
+import net.sf.mpxj.AssignmentField;
+import net.sf.mpxj.Availability;
+import net.sf.mpxj.CostRateTable;
+import net.sf.mpxj.CostRateTableEntry;
+import net.sf.mpxj.CustomField;
+import net.sf.mpxj.DataType;
+import net.sf.mpxj.DateRange;
+import net.sf.mpxj.Day;
+import net.sf.mpxj.DayType;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.EventManager;
+import net.sf.mpxj.FieldContainer;
+import net.sf.mpxj.FieldType;
+import net.sf.mpxj.MPXJException;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectCalendarDateRanges;
+import net.sf.mpxj.ProjectCalendarException;
+import net.sf.mpxj.ProjectCalendarWeek;
+import net.sf.mpxj.ProjectConfig;
+import net.sf.mpxj.ProjectField;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Rate;
+import net.sf.mpxj.RecurrenceType;
+import net.sf.mpxj.RecurringData;
+import net.sf.mpxj.RecurringTask;
+import net.sf.mpxj.Relation;
+import net.sf.mpxj.RelationType;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.ResourceField;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.TimephasedCost;
+import net.sf.mpxj.TimephasedItem;
+import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.common.DefaultTimephasedCostContainer;
+import net.sf.mpxj.common.DefaultTimephasedWorkContainer;
+import net.sf.mpxj.listener.ProjectListener;
+import net.sf.mpxj.mpp.CustomFieldValueItem;
+import net.sf.mpxj.reader.AbstractProjectReader;
+
+/**
+ * This class reads a snapshot written by SnapshotWriter.
+ * Snapshots can only be read by the version of MPXJ which wrote them,
+ * an MPXJException is raised if a snapshot from a different version
+ * is encountered.
+ */
+public final class SnapshotReader extends AbstractProjectReader
+{
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void addProjectListener(ProjectListener listener)
+   {
+      if (m_projectListeners == null)
+      {
+         m_projectListeners = new LinkedList<ProjectListener>();
+      }
+      m_projectListeners.add(listener);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public ProjectFile read(InputStream stream) throws MPXJException
+   {
+      try
+      {
+         m_projectFile = new ProjectFile();
+         applyFieldStoreType(m_projectFile);
+         m_projectFile.beginBulkLoad();
+         m_eventManager = m_projectFile.getEventManager();
+         m_stream = new SnapshotInputStream(stream, m_projectFile);
+
+         ProjectConfig config = m_projectFile.getProjectConfig();
+         config.setAutoTaskID(false);
+         config.setAutoTaskUniqueID(false);
+         config.setAutoResourceID(false);
+         config.setAutoResourceUniqueID(false);
+         config.setAutoOutlineLevel(false);
+         config.setAutoOutlineNumber(false);
+         config.setAutoWBS(false);
+         config.setAutoCalendarUniqueID(false);
+         config.setAutoAssignmentUniqueID(false);
+
+         m_eventManager.addProjectListeners(m_projectListeners);
+
+         readHeader();
+         int configFlags = m_stream.readVarInt();
+         readCalendars();
+         readProperties();
+         readCustomFields();
+         readResources();
+         readTasks();
+         readRelations();
+         readAssignments();
+
+         if (m_stream.readByte() != SnapshotFormat.END_MARKER)
+         {
+            throw new MPXJException(MPXJException.INVALID_FILE);
+         }
+
+         //
+         // Ensure that the unique ID counters are correct
+         //
+         config.updateUniqueCounters();
+
+         config.setAutoWBS((configFlags & SnapshotFormat.CONFIG_AUTO_WBS) != 0);
+         config.setAutoOutlineLevel((configFlags & SnapshotFormat.CONFIG_AUTO_OUTLINE_LEVEL) != 0);
+         config.setAutoOutlineNumber((configFlags & SnapshotFormat.CONFIG_AUTO_OUTLINE_NUMBER) != 0);
+         config.setAutoTaskUniqueID((configFlags & SnapshotFormat.CONFIG_AUTO_TASK_UNIQUE_ID) != 0);
+         config.setAutoCalendarUniqueID((configFlags & SnapshotFormat.CONFIG_AUTO_CALENDAR_UNIQUE_ID) != 0);
+         config.setAutoAssignmentUniqueID((configFlags & SnapshotFormat.CONFIG_AUTO_ASSIGNMENT_UNIQUE_ID) != 0);
+         config.setAutoTaskID((configFlags & SnapshotFormat.CONFIG_AUTO_TASK_ID) != 0);
+         config.setAutoResourceUniqueID((configFlags & SnapshotFormat.CONFIG_AUTO_RESOURCE_UNIQUE_ID) != 0);
+         config.setAutoResourceID((configFlags & SnapshotFormat.CONFIG_AUTO_RESOURCE_ID) != 0);
+
+         m_projectFile.endBulkLoad();
+
+         return m_projectFile;
+      }
+
+      catch (IOException ex)
+      {
+         throw new MPXJException(MPXJException.READ_ERROR, ex);
+      }
+
+      catch (ClassCastException ex)
+      {
+         throw new MPXJException(MPXJException.INVALID_FILE, ex);
+      }
+
+      finally
+      {
+         m_projectFile = null;
+         m_eventManager = null;
+         m_stream = null;
+         m_tasks = null;
+      }
+   }
+
+   /**
+    * Validate the file header.
+    */
+   private void readHeader() throws IOException, MPXJException
+   {
+      byte[] magic = m_stream.readRawBytes(SnapshotFormat.MAGIC.length);
+      if (!Arrays.equals(magic, SnapshotFormat.MAGIC))
+      {
+         throw new MPXJException(MPXJException.INVALID_FILE);
+      }
+
+      if (m_stream.readVarInt() != SnapshotFormat.VERSION || m_stream.readVarInt() != ProjectField.MAX_VALUE || m_stream.readVarInt() != TaskField.MAX_VALUE || m_stream.readVarInt() != ResourceField.MAX_VALUE || m_stream.readVarInt() != AssignmentField.MAX_VALUE)
+      {
+         throw new MPXJException(UNSUPPORTED_VERSION);
+      }
+   }
+
+   /**
+    * Read calendars. Parent calendars are resolved once all
+    * calendars have been read.
+    */
+   private void readCalendars() throws IOException
+   {
+      int count = m_stream.readVarInt();
+      m_calendarParents = new Integer[count];
+      m_calendarResources = new Integer[count];
+      List<ProjectCalendar> calendars = new ArrayList<ProjectCalendar>(count);
+
+      for (int index = 0; index < count; index++)
+      {
+         ProjectCalendar calendar = m_projectFile.addCalendar();
+         calendars.add(calendar);
+
+         Integer uniqueID = (Integer) m_stream.readValue();
+         if (uniqueID != null)
+         {
+            calendar.setUniqueID(uniqueID);
+         }
+         m_calendarParents[index] = (Integer) m_stream.readValue();
+         m_calendarResources[index] = (Integer) m_stream.readValue();
+         calendar.setMinutesPerDay((Integer) m_stream.readValue());
+         calendar.setMinutesPerWeek((Integer) m_stream.readValue());
+         calendar.setMinutesPerMonth((Integer) m_stream.readValue());
+         calendar.setMinutesPerYear((Integer) m_stream.readValue());
+         readWeek(calendar);
+
+         int weekCount = m_stream.readVarInt();
+         for (int weekIndex = 0; weekIndex < weekCount; weekIndex++)
+         {
+            ProjectCalendarWeek week = calendar.addWorkWeek();
+            Date start = (Date) m_stream.readValue();
+            Date end = (Date) m_stream.readValue();
+            if (start != null || end != null)
+            {
+               week.setDateRange(new DateRange(start, end));
+            }
+            readWeek(week);
+         }
+
+         int exceptionCount = m_stream.readVarInt();
+         for (int exceptionIndex = 0; exceptionIndex < exceptionCount; exceptionIndex++)
+         {
+            Date fromDate = (Date) m_stream.readValue();
+            Date toDate = (Date) m_stream.readValue();
+            ProjectCalendarException exception = calendar.addCalendarException(fromDate, toDate);
+            exception.setName(m_stream.readString());
+            readRanges(exception);
+            if (m_stream.readBoolean())
+            {
+               RecurringData data = new RecurringData();
+               readRecurringData(data);
+               exception.setRecurring(data);
+            }
+         }
+      }
+
+      for (int index = 0; index < count; index++)
+      {
+         Integer parentID = m_calendarParents[index];
+         if (parentID != null)
+         {
+            calendars.get(index).setParent(m_projectFile.getCalendarByUniqueID(parentID));
+         }
+      }
+
+      for (ProjectCalendar calendar : calendars)
+      {
+         m_eventManager.fireCalendarReadEvent(calendar);
+      }
+   }
+
+   /**
+    * Read the name, day types and working hours for a calendar or work week.
+    *
+    * @param week calendar or work week
+    */
+   private void readWeek(ProjectCalendarWeek week) throws IOException
+   {
+      week.setName(m_stream.readString());
+      for (Day day : Day.values())
+      {
+         DayType type = (DayType) m_stream.readValue();
+         if (type != null)
+         {
+            week.setWorkingDay(day, type);
+         }
+
+         int count = m_stream.readVarInt();
+         if (count != 0)
+         {
+            ProjectCalendarDateRanges hours = week.addCalendarHours(day);
+            readRanges(hours, count - 1);
+         }
+      }
+   }
+
+   /**
+    * Read a set of date ranges where a count of zero represents null.
+    *
+    * @param ranges target date ranges
+    */
+   private void readRanges(ProjectCalendarDateRanges ranges) throws IOException
+   {
+      int count = m_stream.readVarInt();
+      if (count != 0)
+      {
+         readRanges(ranges, count - 1);
+      }
+   }
+
+   /**
+    * Read a set of date ranges.
+    *
+    * @param ranges target date ranges
+    * @param count number of ranges
+    */
+   private void readRanges(ProjectCalendarDateRanges ranges, int count) throws IOException
+   {
+      for (int index = 0; index < count; index++)
+      {
+         ranges.addRange(readRange());
+      }
+   }
+
+   /**
+    * Read a single date range.
+    *
+    * @return date range
+    */
+   private DateRange readRange() throws IOException
+   {
+      Date start = (Date) m_stream.readValue();
+      return new DateRange(start, (Date) m_stream.readValue());
+   }
+
+   /**
+    * Read recurrence data.
+    *
+    * @param data target recurrence data
+    */
+   private void readRecurringData(RecurringData data) throws IOException
+   {
+      int flags = m_stream.readVarInt();
+      data.setUseEndDate((flags & SnapshotFormat.RECURRING_USE_END_DATE) != 0);
+      data.setWorkingDaysOnly((flags & SnapshotFormat.RECURRING_WORKING_DAYS_ONLY) != 0);
+      data.setRelative((flags & SnapshotFormat.RECURRING_RELATIVE) != 0);
+
+      int days = m_stream.readVarInt();
+      for (Day day : Day.values())
+      {
+         data.setWeeklyDay(day, (days & (1 << day.ordinal())) != 0);
+      }
+
+      data.setStartDate((Date) m_stream.readValue());
+      data.setFinishDate((Date) m_stream.readValue());
+      data.setOccurrences((Integer) m_stream.readValue());
+      data.setRecurrenceType((RecurrenceType) m_stream.readValue());
+      data.setFrequency((Integer) m_stream.readValue());
+      data.setDayNumber((Integer) m_stream.readValue());
+      data.setMonthNumber((Integer) m_stream.readValue());
+   }
+
+   /**
+    * Read project properties.
+    */
+   private void readProperties() throws IOException
+   {
+      readFields(m_projectFile.getProjectProperties(), ProjectField.values(), ProjectField.MAX_VALUE);
+   }
+
+   /**
+    * Read custom field definitions.
+    */
+   private void readCustomFields() throws IOException
+   {
+      int count = m_stream.readVarInt();
+      for (int index = 0; index < count; index++)
+      {
+         CustomField field = m_projectFile.getCustomFields().getCustomField((FieldType) m_stream.readValue());
+         String alias = m_stream.readString();
+         if (alias != null)
+         {
+            field.setAlias(alias);
+         }
+
+         int itemCount = m_stream.readVarInt();
+         for (int itemIndex = 0; itemIndex < itemCount; itemIndex++)
+         {
+            CustomFieldValueItem item = new CustomFieldValueItem((Integer) m_stream.readValue());
+            item.setValue(m_stream.readValue());
+            item.setDescription(m_stream.readString());
+            item.setParent((Integer) m_stream.readValue());
+            item.setGuid((UUID) m_stream.readValue());
+            item.setUnknown((byte[]) m_stream.readValue());
+            field.getLookupTable().add(item);
+         }
+      }
+   }
+
+   /**
+    * Read resources, then link resource calendars to their resources.
+    */
+   private void readResources() throws IOException
+   {
+      int count = m_stream.readVarInt();
+      for (int index = 0; index < count; index++)
+      {
+         Resource resource = m_projectFile.addResource();
+         readFields(resource, ResourceField.values(), ResourceField.MAX_VALUE);
+         if (resource.getID() != null)
+         {
+            resource.setID(resource.getID());
+         }
+
+         resource.setIsNull(m_stream.readBoolean());
+         resource.setActveDirectoryGUID(m_stream.readString());
+         resource.setActualWorkProtected((Duration) m_stream.readValue());
+         resource.setActualOvertimeWorkProtected((Duration) m_stream.readValue());
+
+         for (int tableIndex = 0; tableIndex < SnapshotFormat.COST_RATE_TABLE_COUNT; tableIndex++)
+         {
+            int entryCount = m_stream.readVarInt();
+            if (entryCount != 0)
+            {
+               CostRateTable table = new CostRateTable();
+               for (int entryIndex = 0; entryIndex < entryCount - 1; entryIndex++)
+               {
+                  Date endDate = (Date) m_stream.readValue();
+                  Rate standardRate = (Rate) m_stream.readValue();
+                  TimeUnit standardRateFormat = (TimeUnit) m_stream.readValue();
+                  Rate overtimeRate = (Rate) m_stream.readValue();
+                  TimeUnit overtimeRateFormat = (TimeUnit) m_stream.readValue();
+                  Number costPerUse = (Number) m_stream.readValue();
+                  table.add(new CostRateTableEntry(standardRate, standardRateFormat, overtimeRate, overtimeRateFormat, costPerUse, endDate));
+               }
+               resource.setCostRateTable(tableIndex, table);
+            }
+         }
+
+         int availabilityCount = m_stream.readVarInt();
+         for (int availabilityIndex = 0; availabilityIndex < availabilityCount; availabilityIndex++)
+         {
+            DateRange range = readRange();
+            resource.getAvailability().add(new Availability(range.getStart(), range.getEnd(), (Number) m_stream.readValue()));
+         }
+
+         m_eventManager.fireResourceReadEvent(resource);
+      }
+
+      //
+      // Linking a calendar to a resource updates the calendar name,
+      // so we restore the original name here.
+      //
+      List<ProjectCalendar> calendars = m_projectFile.getCalendars();
+      for (int index = 0; index < m_calendarResources.length; index++)
+      {
+         Integer resourceID = m_calendarResources[index];
+         if (resourceID != null)
+         {
+            Resource resource = m_projectFile.getResourceByUniqueID(resourceID);
+            if (resource != null)
+            {
+               ProjectCalendar calendar = calendars.get(index);
+               String name = calendar.getName();
+               calendar.setResource(resource);
+               calendar.setName(name);
+            }
+         }
+      }
+   }
+
+   /**
+    * Read tasks. The task hierarchy is created first, then each task
+    * is populated. This ensures that values set automatically as the
+    * hierarchy is created are replaced by the values read.
+    */
+   private void readTasks() throws IOException, MPXJException
+   {
+      int count = m_stream.readVarInt();
+      m_tasks = new Task[count];
+
+      for (int index = 0; index < count; index++)
+      {
+         int parentIndex = m_stream.readVarInt();
+         if (parentIndex > index)
+         {
+            throw new MPXJException(MPXJException.INVALID_OUTLINE);
+         }
+         m_tasks[index] = parentIndex == 0 ? m_projectFile.addTask() : m_tasks[parentIndex - 1].addTask();
+      }
+
+      for (Task task : m_tasks)
+      {
+         readFields(task, TaskField.values(), TaskField.MAX_VALUE);
+         if (task.getID() != null)
+         {
+            task.setID(task.getID());
+         }
+
+         int flags = m_stream.readVarInt();
+         task.setNull((flags & SnapshotFormat.TASK_NULL) != 0);
+         task.setExpanded((flags & SnapshotFormat.TASK_EXPANDED) != 0);
+         task.setResumeValid((flags & SnapshotFormat.TASK_RESUME_VALID) != 0);
+
+         task.setWBSLevel(m_stream.readString());
+         task.setExternalTaskProject(m_stream.readString());
+         task.setLevelingDelayFormat((TimeUnit) m_stream.readValue());
+         task.setActualWorkProtected((Duration) m_stream.readValue());
+         task.setActualOvertimeWorkProtected((Duration) m_stream.readValue());
+         task.setSplitCompleteDuration((Date) m_stream.readValue());
+
+         int splitCount = m_stream.readVarInt();
+         if (splitCount != 0)
+         {
+            List<DateRange> splits = new LinkedList<DateRange>();
+            for (int index = 0; index < splitCount - 1; index++)
+            {
+               splits.add(readRange());
+            }
+            task.setSplits(splits);
+         }
+
+         if (m_stream.readBoolean())
+         {
+            RecurringTask recurringTask = task.addRecurringTask();
+            readRecurringData(recurringTask);
+            recurringTask.setDuration((Duration) m_stream.readValue());
+         }
+
+         m_eventManager.fireTaskReadEvent(task);
+      }
+   }
+
+   /**
+    * Read task relations.
+    */
+   private void readRelations() throws IOException
+   {
+      int count = m_stream.readVarInt();
+      List<Relation> relations = new ArrayList<Relation>(count);
+      for (int index = 0; index < count; index++)
+      {
+         Task sourceTask = getTask(m_stream.readVarInt());
+         Task targetTask = getTask(m_stream.readVarInt());
+         RelationType type = (RelationType) m_stream.readValue();
+         Duration lag = (Duration) m_stream.readValue();
+         Relation relation = new Relation(sourceTask, targetTask, type, lag);
+         relation.setUniqueID((Integer) m_stream.readValue());
+         relations.add(relation);
+      }
+
+      for (Relation relation : m_projectFile.getRelations().addAll(relations))
+      {
+         m_eventManager.fireRelationReadEvent(relation);
+      }
+   }
+
+   /**
+    * Read resource assignments.
+    */
+   private void readAssignments() throws IOException
+   {
+      int count = m_stream.readVarInt();
+      for (int index = 0; index < count; index++)
+      {
+         Task task = getTask(m_stream.readVarInt());
+         ResourceAssignment assignment = new ResourceAssignment(m_projectFile, task);
+         readFields(assignment, AssignmentField.values(), AssignmentField.MAX_VALUE);
+
+         List<TimephasedWork> work = readTimephasedWork();
+         if (work != null)
+         {
+            assignment.setTimephasedWork(new DefaultTimephasedWorkContainer(null, null, work, false));
+         }
+
+         work = readTimephasedWork();
+         if (work != null)
+         {
+            assignment.setTimephasedActualWork(new DefaultTimephasedWorkContainer(null, null, work, false));
+         }
+
+         work = readTimephasedWork();
+         if (work != null)
+         {
+            assignment.setTimephasedActualOvertimeWork(new DefaultTimephasedWorkContainer(null, null, work, false));
+         }
+
+         for (int baselineIndex = 0; baselineIndex < SnapshotFormat.BASELINE_COUNT; baselineIndex++)
+         {
+            work = readTimephasedWork();
+            if (work != null)
+            {
+               assignment.setTimephasedBaselineWork(baselineIndex, new DefaultTimephasedWorkContainer(null, null, work, false));
+            }
+
+            List<TimephasedCost> cost = readTimephasedCost();
+            if (cost != null)
+            {
+               assignment.setTimephasedBaselineCost(baselineIndex, new DefaultTimephasedCostContainer(null, null, cost, false));
+            }
+         }
+
+         task.addResourceAssignment(assignment);
+         m_eventManager.fireAssignmentReadEvent(assignment);
+      }
+   }
+
+   /**
+    * Read a list of timephased work items.
+    *
+    * @return timephased work, or null if not present
+    */
+   private List<TimephasedWork> readTimephasedWork() throws IOException
+   {
+      List<TimephasedWork> result = null;
+      int count = m_stream.readVarInt();
+      if (count != 0)
+      {
+         result = new LinkedList<TimephasedWork>();
+         for (int index = 0; index < count - 1; index++)
+         {
+            TimephasedWork item = new TimephasedWork();
+            readTimephasedItem(item);
+            item.setTotalAmount((Duration) m_stream.readValue());
+            item.setAmountPerDay((Duration) m_stream.readValue());
+            item.setModified(m_stream.readBoolean());
+            result.add(item);
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Read a list of timephased cost items.
+    *
+    * @return timephased cost, or null if not present
+    */
+   private List<TimephasedCost> readTimephasedCost() throws IOException
+   {
+      List<TimephasedCost> result = null;
+      int count = m_stream.readVarInt();
+      if (count != 0)
+      {
+         result = new LinkedList<TimephasedCost>();
+         for (int index = 0; index < count - 1; index++)
+         {
+            TimephasedCost item = new TimephasedCost();
+            readTimephasedItem(item);
+            item.setTotalAmount((Number) m_stream.readValue());
+            item.setAmountPerDay((Number) m_stream.readValue());
+            item.setModified(m_stream.readBoolean());
+            result.add(item);
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Read the start and finish of a timephased item.
+    *
+    * @param item timephased item
+    */
+   private void readTimephasedItem(TimephasedItem<?> item) throws IOException
+   {
+      item.setStart((Date) m_stream.readValue());
+      item.setFinish((Date) m_stream.readValue());
+   }
+
+   /**
+    * Retrieve a task by its index in the snapshot.
+    *
+    * @param index task index
+    * @return Task instance
+    */
+   private Task getTask(int index) throws IOException
+   {
+      if (index >= m_tasks.length)
+      {
+         throw new IOException("Invalid task reference");
+      }
+      return m_tasks[index];
+   }
+
+   /**
+    * Read the values held by a field container. Fields which are not
+    * present in the snapshot are cleared, to remove any default values
+    * set when the container was created.
+    *
+    * @param container field container
+    * @param fields fields to read
+    * @param maxValue number of fields of this type
+    */
+   private void readFields(FieldContainer container, FieldType[] fields, int maxValue) throws IOException
+   {
+      byte[] bitmap = m_stream.readBitmap((maxValue + 7) / 8);
+      Object[] values = new Object[maxValue];
+      for (int index = 0; index < maxValue; index++)
+      {
+         if ((bitmap[index / 8] & (1 << (index % 8))) != 0)
+         {
+            values[index] = m_stream.readValue();
+         }
+      }
+
+      for (FieldType field : fields)
+      {
+         if (field.getDataType() == DataType.RELATION_LIST)
+         {
+            continue;
+         }
+
+         Object value = values[field.getValue()];
+         if (value != null || container.getCachedValue(field) != null)
+         {
+            container.set(field, value);
+         }
+      }
+   }
+
+   private ProjectFile m_projectFile;
+   private EventManager m_eventManager;
+   private SnapshotInputStream m_stream;
+   private List<ProjectListener> m_projectListeners;
+   private Integer[] m_calendarParents;
+   private Integer[] m_calendarResources;
+   private Task[] m_tasks;
+
+   private static final String UNSUPPORTED_VERSION = "Snapshot was written by a different version of MPXJ";
+}
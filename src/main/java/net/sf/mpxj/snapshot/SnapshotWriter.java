@@ -0,0 +1,631 @@
+/*
+ * file:       SnapshotWriter.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.snapshot;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.mpxj.AssignmentField;
+import net.sf.mpxj.Availability;
+import net.sf.mpxj.AvailabilityTable;
+import net.sf.mpxj.CostRateTable;
+import net.sf.mpxj.CostRateTableEntry;
+import net.sf.mpxj.CustomField;
+import net.sf.mpxj.DataType;
+import net.sf.mpxj.DateRange;
+import net.sf.mpxj.Day;
+import net.sf.mpxj.FieldContainer;
+import net.sf.mpxj.FieldType;
+import net.sf.mpxj.FilterContainer;
+import net.sf.mpxj.GraphicalIndicator;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectCalendarDateRanges;
+import net.sf.mpxj.ProjectCalendarException;
+import net.sf.mpxj.ProjectCalendarWeek;
+import net.sf.mpxj.ProjectConfig;
+import net.sf.mpxj.ProjectField;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.ProjectProperties;
+import net.sf.mpxj.RecurringData;
+import net.sf.mpxj.RecurringTask;
+import net.sf.mpxj.Relation;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.ResourceField;
+import net.sf.mpxj.SubProjectContainer;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.TimephasedItem;
+import net.sf.mpxj.mpp.CustomFieldValueItem;
+import net.sf.mpxj.writer.AbstractProjectWriter;
+
+/**
+ * This class writes a compact binary snapshot of a ProjectFile instance.
+ * A snapshot can be read using SnapshotReader, and is intended to allow
+ * a project which has already been read from another format to be
+ * cached and reloaded quickly. The snapshot format is specific to
+ * the version of MPXJ used to write it, and is not suitable for
+ * long term storage.
+ *
+ * Field values are written with a presence bitmap for each entity,
+ * integer values use a variable length encoding, and each distinct
+ * string is written once.
+ *
+ * Views, tables, filters, groups, activity codes, subprojects and
+ * graphical indicators are not written, nor are any field values of a
+ * type the snapshot format can't represent. Once a snapshot has been
+ * written, getPartial() reports whether anything was omitted, in which
+ * case a project read from the snapshot will not match the original.
+ */
+public final class SnapshotWriter extends AbstractProjectWriter
+{
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void write(ProjectFile projectFile, OutputStream stream) throws IOException
+   {
+      try
+      {
+         m_projectFile = projectFile;
+         m_stream = new SnapshotOutputStream(stream);
+         m_taskIndexes = new IdentityHashMap<Task, Integer>();
+         m_partial = false;
+
+         writeHeader();
+         writeConfig();
+         writeCalendars();
+         writeProperties();
+         writeCustomFields();
+         writeResources();
+         writeTasks();
+         writeRelations();
+         writeAssignments();
+         m_stream.writeByte(SnapshotFormat.END_MARKER);
+
+         m_stream.flush();
+         m_partial = m_partial || m_stream.getPartial() || hasUnwrittenStructures();
+      }
+
+      finally
+      {
+         m_projectFile = null;
+         m_stream = null;
+         m_taskIndexes = null;
+      }
+   }
+
+   /**
+    * Determine if the most recent snapshot written by this instance was
+    * partial, i.e. some of the data held by the project could not
+    * be written.
+    *
+    * @return true if the snapshot was partial
+    */
+   public boolean getPartial()
+   {
+      return m_partial;
+   }
+
+   /**
+    * Determine if the project holds structures which are not
+    * written to a snapshot.
+    *
+    * @return true if any structures have not been written
+    */
+   private boolean hasUnwrittenStructures()
+   {
+      FilterContainer filters = m_projectFile.getFilters();
+      SubProjectContainer subProjects = m_projectFile.getSubProjects();
+
+      return !m_projectFile.getViews().isEmpty() || !m_projectFile.getTables().isEmpty() || !filters.getTaskFilters().isEmpty() || !filters.getResourceFilters().isEmpty() || !m_projectFile.getGroups().isEmpty() || !m_projectFile.getActivityCodes().isEmpty() || !subProjects.isEmpty() || subProjects.getResourceSubProject() != null;
+   }
+
+   /**
+    * Write the file header. The number of fields of each type is
+    * included to allow the reader to reject snapshots written by
+    * a different version of MPXJ.
+    */
+   private void writeHeader() throws IOException
+   {
+      m_stream.writeRawBytes(SnapshotFormat.MAGIC);
+      m_stream.writeVarInt(SnapshotFormat.VERSION);
+      m_stream.writeVarInt(ProjectField.MAX_VALUE);
+      m_stream.writeVarInt(TaskField.MAX_VALUE);
+      m_stream.writeVarInt(ResourceField.MAX_VALUE);
+      m_stream.writeVarInt(AssignmentField.MAX_VALUE);
+   }
+
+   /**
+    * Write the project configuration flags.
+    */
+   private void writeConfig() throws IOException
+   {
+      ProjectConfig config = m_projectFile.getProjectConfig();
+      int flags = 0;
+      flags |= config.getAutoWBS() ? SnapshotFormat.CONFIG_AUTO_WBS : 0;
+      flags |= config.getAutoOutlineLevel() ? SnapshotFormat.CONFIG_AUTO_OUTLINE_LEVEL : 0;
+      flags |= config.getAutoOutlineNumber() ? SnapshotFormat.CONFIG_AUTO_OUTLINE_NUMBER : 0;
+      flags |= config.getAutoTaskUniqueID() ? SnapshotFormat.CONFIG_AUTO_TASK_UNIQUE_ID : 0;
+      flags |= config.getAutoCalendarUniqueID() ? SnapshotFormat.CONFIG_AUTO_CALENDAR_UNIQUE_ID : 0;
+      flags |= config.getAutoAssignmentUniqueID() ? SnapshotFormat.CONFIG_AUTO_ASSIGNMENT_UNIQUE_ID : 0;
+      flags |= config.getAutoTaskID() ? SnapshotFormat.CONFIG_AUTO_TASK_ID : 0;
+      flags |= config.getAutoResourceUniqueID() ? SnapshotFormat.CONFIG_AUTO_RESOURCE_UNIQUE_ID : 0;
+      flags |= config.getAutoResourceID() ? SnapshotFormat.CONFIG_AUTO_RESOURCE_ID : 0;
+      m_stream.writeVarInt(flags);
+   }
+
+   /**
+    * Write calendars.
+    */
+   private void writeCalendars() throws IOException
+   {
+      ProjectProperties properties = m_projectFile.getProjectProperties();
+
+      m_stream.writeVarInt(m_projectFile.getCalendars().size());
+      for (ProjectCalendar calendar : m_projectFile.getCalendars())
+      {
+         ProjectCalendar parent = calendar.getParent();
+         Resource resource = calendar.getResource();
+
+         m_stream.writeValue(calendar.getUniqueID());
+         m_stream.writeValue(parent == null ? null : parent.getUniqueID());
+         m_stream.writeValue(resource == null ? null : resource.getUniqueID());
+         writeMinutes(calendar.getMinutesPerDay(), properties.getMinutesPerDay());
+         writeMinutes(calendar.getMinutesPerWeek(), properties.getMinutesPerWeek());
+         writeMinutes(calendar.getMinutesPerMonth(), properties.getMinutesPerMonth());
+         writeMinutes(calendar.getMinutesPerYear(), properties.getMinutesPerYear());
+         writeWeek(calendar);
+
+         List<ProjectCalendarWeek> weeks = calendar.getWorkWeeks();
+         m_stream.writeVarInt(weeks.size());
+         for (ProjectCalendarWeek week : weeks)
+         {
+            DateRange range = week.getDateRange();
+            m_stream.writeValue(range == null ? null : range.getStart());
+            m_stream.writeValue(range == null ? null : range.getEnd());
+            writeWeek(week);
+         }
+
+         List<ProjectCalendarException> exceptions = calendar.getCalendarExceptions();
+         m_stream.writeVarInt(exceptions.size());
+         for (ProjectCalendarException exception : exceptions)
+         {
+            m_stream.writeValue(exception.getFromDate());
+            m_stream.writeValue(exception.getToDate());
+            m_stream.writeString(exception.getName());
+            writeRanges(exception);
+            writeRecurringData(exception.getRecurring());
+         }
+      }
+   }
+
+   /**
+    * Write a calendar's minutes per period, if this differs from the
+    * value inherited from the project properties.
+    *
+    * @param calendarValue value from the calendar
+    * @param projectValue value from the project properties
+    */
+   private void writeMinutes(int calendarValue, Number projectValue) throws IOException
+   {
+      m_stream.writeValue(projectValue != null && projectValue.intValue() == calendarValue ? null : Integer.valueOf(calendarValue));
+   }
+
+   /**
+    * Write the name, day types and working hours from a calendar or work week.
+    *
+    * @param week calendar or work week
+    */
+   private void writeWeek(ProjectCalendarWeek week) throws IOException
+   {
+      m_stream.writeString(week.getName());
+      for (Day day : Day.values())
+      {
+         m_stream.writeValue(week.getWorkingDay(day));
+         writeRanges(week.getCalendarHours(day));
+      }
+   }
+
+   /**
+    * Write a set of date ranges. A count of zero represents null.
+    *
+    * @param ranges date ranges
+    */
+   private void writeRanges(ProjectCalendarDateRanges ranges) throws IOException
+   {
+      if (ranges == null)
+      {
+         m_stream.writeVarInt(0);
+      }
+      else
+      {
+         m_stream.writeVarInt(ranges.getRangeCount() + 1);
+         for (DateRange range : ranges)
+         {
+            writeRange(range);
+         }
+      }
+   }
+
+   /**
+    * Write a single date range.
+    *
+    * @param range date range
+    */
+   private void writeRange(DateRange range) throws IOException
+   {
+      m_stream.writeValue(range.getStart());
+      m_stream.writeValue(range.getEnd());
+   }
+
+   /**
+    * Write recurrence data.
+    *
+    * @param data recurrence data, may be null
+    */
+   private void writeRecurringData(RecurringData data) throws IOException
+   {
+      m_stream.writeBoolean(data != null);
+      if (data != null)
+      {
+         int flags = 0;
+         flags |= data.getUseEndDate() ? SnapshotFormat.RECURRING_USE_END_DATE : 0;
+         flags |= data.isWorkingDaysOnly() ? SnapshotFormat.RECURRING_WORKING_DAYS_ONLY : 0;
+         flags |= data.getRelative() ? SnapshotFormat.RECURRING_RELATIVE : 0;
+         m_stream.writeVarInt(flags);
+
+         int days = 0;
+         for (Day day : Day.values())
+         {
+            if (data.getWeeklyDay(day))
+            {
+               days |= 1 << day.ordinal();
+            }
+         }
+         m_stream.writeVarInt(days);
+
+         m_stream.writeValue(data.getStartDate());
+         m_stream.writeValue(data.getFinishDate());
+         m_stream.writeValue(data.getOccurrences());
+         m_stream.writeValue(data.getRecurrenceType());
+         m_stream.writeValue(data.getFrequency());
+         m_stream.writeValue(data.getDayNumber());
+         m_stream.writeValue(data.getMonthNumber());
+      }
+   }
+
+   /**
+    * Write project properties.
+    */
+   private void writeProperties() throws IOException
+   {
+      writeFields(m_projectFile.getProjectProperties(), ProjectField.values(), ProjectField.MAX_VALUE);
+   }
+
+   /**
+    * Write custom field definitions. Field aliases and lookup tables are written,
+    * graphical indicators are not.
+    */
+   private void writeCustomFields() throws IOException
+   {
+      List<CustomField> fields = new ArrayList<CustomField>();
+      for (CustomField field : m_projectFile.getCustomFields())
+      {
+         if (field.getFieldType() != null)
+         {
+            fields.add(field);
+         }
+      }
+
+      m_stream.writeVarInt(fields.size());
+      for (CustomField field : fields)
+      {
+         GraphicalIndicator indicator = field.getGraphicalIndicator();
+         if (indicator.getDisplayGraphicalIndicators() || !indicator.getNonSummaryRowCriteria().isEmpty() || !indicator.getSummaryRowCriteria().isEmpty() || !indicator.getProjectSummaryCriteria().isEmpty())
+         {
+            m_partial = true;
+         }
+
+         m_stream.writeValue(field.getFieldType());
+         m_stream.writeString(field.getAlias());
+
+         List<CustomFieldValueItem> items = field.getLookupTable();
+         m_stream.writeVarInt(items.size());
+         for (CustomFieldValueItem item : items)
+         {
+            m_stream.writeValue(item.getUniqueID());
+            m_stream.writeValue(item.getValue());
+            m_stream.writeString(item.getDescription());
+            m_stream.writeValue(item.getParent());
+            m_stream.writeValue(item.getGuid());
+            m_stream.writeValue(item.getUnknown());
+         }
+      }
+   }
+
+   /**
+    * Write resources.
+    */
+   private void writeResources() throws IOException
+   {
+      m_stream.writeVarInt(m_projectFile.getResources().size());
+      for (Resource resource : m_projectFile.getResources())
+      {
+         writeFields(resource, ResourceField.values(), ResourceField.MAX_VALUE);
+         m_stream.writeBoolean(resource.getNull());
+         m_stream.writeString(resource.getActiveDirectoryGUID());
+         m_stream.writeValue(resource.getActualWorkProtected());
+         m_stream.writeValue(resource.getActualOvertimeWorkProtected());
+
+         for (int index = 0; index < SnapshotFormat.COST_RATE_TABLE_COUNT; index++)
+         {
+            CostRateTable table = resource.getCostRateTable(index);
+            if (table == null)
+            {
+               m_stream.writeVarInt(0);
+            }
+            else
+            {
+               m_stream.writeVarInt(table.size() + 1);
+               for (CostRateTableEntry entry : table)
+               {
+                  m_stream.writeValue(entry.getEndDate());
+                  m_stream.writeValue(entry.getStandardRate());
+                  m_stream.writeValue(entry.getStandardRateFormat());
+                  m_stream.writeValue(entry.getOvertimeRate());
+                  m_stream.writeValue(entry.getOvertimeRateFormat());
+                  m_stream.writeValue(entry.getCostPerUse());
+               }
+            }
+         }
+
+         AvailabilityTable availability = resource.getAvailability();
+         m_stream.writeVarInt(availability.size());
+         for (Availability entry : availability)
+         {
+            writeRange(entry.getRange());
+            m_stream.writeValue(entry.getUnits());
+         }
+      }
+   }
+
+   /**
+    * Write tasks. The task hierarchy is written first, as a list of
+    * parent task indexes, followed by the data for each task.
+    */
+   private void writeTasks() throws IOException
+   {
+      List<Task> tasks = new ArrayList<Task>(m_projectFile.getTasks().size());
+      addTasks(tasks, m_projectFile.getChildTasks());
+
+      m_stream.writeVarInt(tasks.size());
+      for (Task task : tasks)
+      {
+         Task parent = task.getParentTask();
+         m_stream.writeVarInt(parent == null ? 0 : m_taskIndexes.get(parent).intValue() + 1);
+      }
+
+      for (Task task : tasks)
+      {
+         writeFields(task, TaskField.values(), TaskField.MAX_VALUE);
+
+         int flags = 0;
+         flags |= task.getNull() ? SnapshotFormat.TASK_NULL : 0;
+         flags |= task.getExpanded() ? SnapshotFormat.TASK_EXPANDED : 0;
+         flags |= task.getResumeValid() ? SnapshotFormat.TASK_RESUME_VALID : 0;
+         m_stream.writeVarInt(flags);
+
+         m_stream.writeString(task.getWBSLevel());
+         m_stream.writeString(task.getExternalTaskProject());
+         m_stream.writeValue(task.getLevelingDelayFormat());
+         m_stream.writeValue(task.getActualWorkProtected());
+         m_stream.writeValue(task.getActualOvertimeWorkProtected());
+         m_stream.writeValue(task.getSplitCompleteDuration());
+
+         List<DateRange> splits = task.getSplits();
+         if (splits == null)
+         {
+            m_stream.writeVarInt(0);
+         }
+         else
+         {
+            m_stream.writeVarInt(splits.size() + 1);
+            for (DateRange range : splits)
+            {
+               writeRange(range);
+            }
+         }
+
+         RecurringTask recurringTask = task.getRecurringTask();
+         writeRecurringData(recurringTask);
+         if (recurringTask != null)
+         {
+            m_stream.writeValue(recurringTask.getDuration());
+         }
+      }
+   }
+
+   /**
+    * Recursively add tasks to a list in hierarchical order,
+    * recording the index of each task.
+    *
+    * @param list target list
+    * @param tasks tasks to add
+    */
+   private void addTasks(List<Task> list, List<Task> tasks)
+   {
+      for (Task task : tasks)
+      {
+         m_taskIndexes.put(task, Integer.valueOf(list.size()));
+         list.add(task);
+         addTasks(list, task.getChildTasks());
+      }
+   }
+
+   /**
+    * Write task relations.
+    */
+   private void writeRelations() throws IOException
+   {
+      List<Relation> relations = new ArrayList<Relation>();
+      for (Relation relation : m_projectFile.getRelations())
+      {
+         if (m_taskIndexes.containsKey(relation.getSourceTask()) && m_taskIndexes.containsKey(relation.getTargetTask()))
+         {
+            relations.add(relation);
+         }
+         else
+         {
+            m_partial = true;
+         }
+      }
+
+      m_stream.writeVarInt(relations.size());
+      for (Relation relation : relations)
+      {
+         m_stream.writeVarInt(m_taskIndexes.get(relation.getSourceTask()).intValue());
+         m_stream.writeVarInt(m_taskIndexes.get(relation.getTargetTask()).intValue());
+         m_stream.writeValue(relation.getType());
+         m_stream.writeValue(relation.getLag());
+         m_stream.writeValue(relation.getUniqueID());
+      }
+   }
+
+   /**
+    * Write resource assignments, including timephased data.
+    */
+   private void writeAssignments() throws IOException
+   {
+      List<ResourceAssignment> assignments = new ArrayList<ResourceAssignment>();
+      for (ResourceAssignment assignment : m_projectFile.getResourceAssignments())
+      {
+         if (m_taskIndexes.containsKey(assignment.getTask()))
+         {
+            assignments.add(assignment);
+         }
+         else
+         {
+            m_partial = true;
+         }
+      }
+
+      m_stream.writeVarInt(assignments.size());
+      for (ResourceAssignment assignment : assignments)
+      {
+         m_stream.writeVarInt(m_taskIndexes.get(assignment.getTask()).intValue());
+         writeFields(assignment, AssignmentField.values(), AssignmentField.MAX_VALUE);
+
+         writeTimephasedData(assignment.getTimephasedWork());
+         writeTimephasedData(assignment.getTimephasedActualWork());
+         writeTimephasedData(assignment.getTimephasedActualOvertimeWork());
+         for (int index = 0; index < SnapshotFormat.BASELINE_COUNT; index++)
+         {
+            writeTimephasedData(assignment.getTimephasedBaselineWork(index));
+            writeTimephasedData(assignment.getTimephasedBaselineCost(index));
+         }
+      }
+   }
+
+   /**
+    * Write a list of timephased items. A count of zero represents null.
+    *
+    * @param items timephased items
+    */
+   private void writeTimephasedData(List<? extends TimephasedItem<?>> items) throws IOException
+   {
+      if (items == null)
+      {
+         m_stream.writeVarInt(0);
+      }
+      else
+      {
+         m_stream.writeVarInt(items.size() + 1);
+         for (TimephasedItem<?> item : items)
+         {
+            m_stream.writeValue(item.getStart());
+            m_stream.writeValue(item.getFinish());
+            m_stream.writeValue(item.getTotalAmount());
+            m_stream.writeValue(item.getAmountPerDay());
+            m_stream.writeBoolean(item.getModified());
+         }
+      }
+   }
+
+   /**
+    * Write the values held by a field container. A presence bitmap
+    * is written first, followed by each populated value. Relation
+    * lists are excluded as these are written separately. Values which
+    * can't be written are omitted, and the snapshot is recorded as partial.
+    *
+    * @param container field container
+    * @param fields fields to write
+    * @param maxValue number of fields of this type
+    */
+   private void writeFields(FieldContainer container, FieldType[] fields, int maxValue) throws IOException
+   {
+      Object[] values = new Object[maxValue];
+      byte[] bitmap = new byte[(maxValue + 7) / 8];
+
+      for (FieldType field : fields)
+      {
+         if (field.getDataType() == DataType.RELATION_LIST)
+         {
+            continue;
+         }
+
+         int index = field.getValue();
+         Object value = container.getCachedValue(field);
+         if (value != null)
+         {
+            if (SnapshotOutputStream.isSupported(value))
+            {
+               values[index] = value;
+               bitmap[index / 8] |= (byte) (1 << (index % 8));
+            }
+            else
+            {
+               m_partial = true;
+            }
+         }
+      }
+
+      m_stream.writeBitmap(bitmap);
+      for (Object value : values)
+      {
+         if (value != null)
+         {
+            m_stream.writeValue(value);
+         }
+      }
+   }
+
+   private ProjectFile m_projectFile;
+   private SnapshotOutputStream m_stream;
+   private Map<Task, Integer> m_taskIndexes;
+   private boolean m_partial;
+}
@@ -114,6 +114,8 @@ public final class SynchroReader extends AbstractProjectReader
    private ProjectFile read() throws Exception
    {
       m_project = new ProjectFile();
+      applyFieldStoreType(m_project);
+      m_project.beginBulkLoad();
       m_eventManager = m_project.getEventManager();
 
       m_project.getProjectProperties().setFileApplication("Synchro");
@@ -129,6 +131,8 @@ public final class SynchroReader extends AbstractProjectReader
       processTasks();
       processPredecessors();
 
+      m_project.endBulkLoad();
+
       return m_project;
    }
 
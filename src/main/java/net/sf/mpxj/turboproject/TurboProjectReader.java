@@ -81,6 +81,8 @@ public final class TurboProjectReader extends AbstractProjectReader
       try
       {
          m_projectFile = new ProjectFile();
+         applyFieldStoreType(m_projectFile);
+         m_projectFile.beginBulkLoad();
          m_eventManager = m_projectFile.getEventManager();
          m_tables = new HashMap<String, Table>();
 
@@ -113,6 +115,8 @@ public final class TurboProjectReader extends AbstractProjectReader
          //
          config.updateUniqueCounters();
 
+         m_projectFile.endBulkLoad();
+
          return m_projectFile;
       }
 
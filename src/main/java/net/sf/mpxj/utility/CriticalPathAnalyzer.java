@@ -0,0 +1,1096 @@
+/*
+ * file:       CriticalPathAnalyzer.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       22/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.sf.mpxj.ConstraintType;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.ProjectProperties;
+import net.sf.mpxj.Relation;
+import net.sf.mpxj.RelationType;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.common.DateHelper;
+import net.sf.mpxj.common.NumberHelper;
+
+/**
+ * Calculates early and late start and finish dates for the tasks in a
+ * project using a forward and backward pass over the network defined by
+ * the task predecessors. The working time defined by each task's
+ * effective calendar, relation lags and task constraints are taken into
+ * account. Start slack, finish slack, total slack and the critical flag
+ * are then derived by the Task class from the calculated dates, and free
+ * slack is set explicitly.
+ *
+ * The network is held as arrays of task indexes, in topological order.
+ * Once an initial analysis has been carried out, tasks whose durations,
+ * constraints, calendars or actual dates have been changed can be reported
+ * using the taskChanged method, and the update method will recalculate
+ * only those tasks affected by the changes. Adding or removing tasks or
+ * relations requires a new call to the analyze method.
+ *
+ * Only leaf tasks are scheduled. A relation attached to a summary task is
+ * applied to each of the summary task's leaf tasks, and the dates for
+ * summary tasks are rolled up from their child tasks. Tasks are scheduled
+ * forward from the project start date, and the late dates are calculated
+ * back from the latest early finish date.
+ */
+public final class CriticalPathAnalyzer
+{
+   /**
+    * Constructor.
+    *
+    * @param file project to analyze
+    */
+   public CriticalPathAnalyzer(ProjectFile file)
+   {
+      m_file = file;
+      m_properties = file.getProjectProperties();
+   }
+
+   /**
+    * Build the network and calculate dates for all tasks.
+    */
+   public void analyze()
+   {
+      buildNetwork();
+      m_changed.clear();
+      m_structureChanged = false;
+
+      if (m_taskCount == 0)
+      {
+         return;
+      }
+
+      for (int position = 0; position < m_taskCount; position++)
+      {
+         calculateEarlyDates(m_order[position]);
+      }
+
+      m_projectFinish = getLatestEarlyFinish();
+
+      for (int position = m_taskCount - 1; position >= 0; position--)
+      {
+         calculateLateDates(m_order[position]);
+      }
+
+      for (int index = 0; index < m_taskCount; index++)
+      {
+         updateTask(index);
+      }
+
+      rollupSummaryTasks(m_summaryTasks);
+   }
+
+   /**
+    * Record that a task has changed. The change will be taken into account
+    * by the next call to the update method.
+    *
+    * @param task changed task
+    */
+   public void taskChanged(Task task)
+   {
+      if (m_index == null)
+      {
+         return;
+      }
+
+      Integer index = m_index.get(task);
+      if (index == null)
+      {
+         if (task.getChildTasks().isEmpty())
+         {
+            m_structureChanged = true;
+         }
+      }
+      else
+      {
+         m_changed.add(index);
+      }
+   }
+
+   /**
+    * Recalculate dates for tasks affected by the changes reported since
+    * the last analysis. If no analysis has been carried out, or a task
+    * not present in the network has been reported as changed, a full
+    * analysis is carried out.
+    */
+   public void update()
+   {
+      if (m_index == null || m_structureChanged)
+      {
+         analyze();
+         return;
+      }
+
+      if (m_changed.isEmpty())
+      {
+         return;
+      }
+
+      //
+      // Refresh the details of each changed task, including any
+      // relation lags expressed as a percentage of its duration.
+      //
+      boolean[] forward = new boolean[m_taskCount];
+      boolean[] backward = new boolean[m_taskCount];
+      boolean[] write = new boolean[m_taskCount];
+      int firstPosition = m_taskCount;
+
+      for (Integer value : m_changed)
+      {
+         int index = value.intValue();
+         readTask(index);
+         for (int offset = m_successorStart[index]; offset < m_successorStart[index + 1]; offset++)
+         {
+            readLag(m_successorRelation[offset]);
+         }
+
+         forward[index] = true;
+         backward[index] = true;
+         write[index] = true;
+         firstPosition = Math.min(firstPosition, m_position[index]);
+      }
+      m_changed.clear();
+
+      //
+      // Forward pass, starting from the earliest changed task.
+      //
+      for (int position = firstPosition; position < m_taskCount; position++)
+      {
+         int index = m_order[position];
+         if (!forward[index])
+         {
+            continue;
+         }
+
+         long earlyStart = m_earlyStart[index];
+         long earlyFinish = m_earlyFinish[index];
+         calculateEarlyDates(index);
+
+         if (earlyStart != m_earlyStart[index] || earlyFinish != m_earlyFinish[index])
+         {
+            write[index] = true;
+            for (int offset = m_successorStart[index]; offset < m_successorStart[index + 1]; offset++)
+            {
+               forward[m_successorTask[offset]] = true;
+            }
+
+            // Free slack of the predecessors depends on our early dates
+            for (int offset = m_predecessorStart[index]; offset < m_predecessorStart[index + 1]; offset++)
+            {
+               write[m_predecessorTask[offset]] = true;
+            }
+         }
+      }
+
+      //
+      // Backward pass. If the project finish has moved, all late dates
+      // must be recalculated.
+      //
+      long projectFinish = getLatestEarlyFinish();
+      boolean fullBackwardPass = projectFinish != m_projectFinish;
+      m_projectFinish = projectFinish;
+
+      for (int position = m_taskCount - 1; position >= 0; position--)
+      {
+         int index = m_order[position];
+         if (!fullBackwardPass && !backward[index])
+         {
+            continue;
+         }
+
+         long lateStart = m_lateStart[index];
+         long lateFinish = m_lateFinish[index];
+         calculateLateDates(index);
+
+         if (lateStart != m_lateStart[index] || lateFinish != m_lateFinish[index])
+         {
+            write[index] = true;
+            for (int offset = m_predecessorStart[index]; offset < m_predecessorStart[index + 1]; offset++)
+            {
+               backward[m_predecessorTask[offset]] = true;
+            }
+         }
+      }
+
+      //
+      // Update the tasks, and the summary tasks above them.
+      //
+      Set<Task> summaryTasks = new HashSet<Task>();
+      for (int index = 0; index < m_taskCount; index++)
+      {
+         if (write[index])
+         {
+            updateTask(index);
+            Task parent = m_tasks[index].getParentTask();
+            while (parent != null && summaryTasks.add(parent))
+            {
+               parent = parent.getParentTask();
+            }
+         }
+      }
+
+      rollupSummaryTasks(new ArrayList<Task>(summaryTasks));
+   }
+
+   /**
+    * Retrieve the project finish date calculated by the last analysis.
+    *
+    * @return project finish date, or null if no tasks were analyzed
+    */
+   public Date getProjectFinish()
+   {
+      return m_index == null || m_taskCount == 0 ? null : new Date(m_projectFinish);
+   }
+
+   /**
+    * Create the arrays representing the network.
+    */
+   private void buildNetwork()
+   {
+      m_projectStart = getProjectStart();
+
+      //
+      // Identify the leaf tasks to be scheduled.
+      //
+      List<Task> tasks = new ArrayList<Task>();
+      m_summaryTasks = new ArrayList<Task>();
+      m_index = new IdentityHashMap<Task, Integer>();
+
+      for (Task task : m_file.getTasks())
+      {
+         if (task.getNull())
+         {
+            continue;
+         }
+
+         if (task.getChildTasks().isEmpty())
+         {
+            m_index.put(task, Integer.valueOf(tasks.size()));
+            tasks.add(task);
+         }
+         else
+         {
+            m_summaryTasks.add(task);
+         }
+      }
+
+      m_taskCount = tasks.size();
+      m_tasks = tasks.toArray(new Task[m_taskCount]);
+      m_calendar = new ProjectCalendar[m_taskCount];
+      m_duration = new double[m_taskCount];
+      m_durationElapsed = new boolean[m_taskCount];
+      m_constraintType = new ConstraintType[m_taskCount];
+      m_constraintDate = new long[m_taskCount];
+      m_actualStart = new long[m_taskCount];
+      m_actualFinish = new long[m_taskCount];
+      m_earlyStart = new long[m_taskCount];
+      m_earlyFinish = new long[m_taskCount];
+      m_lateStart = new long[m_taskCount];
+      m_lateFinish = new long[m_taskCount];
+
+      for (int index = 0; index < m_taskCount; index++)
+      {
+         readTask(index);
+      }
+
+      //
+      // Collect the relations between leaf tasks.
+      //
+      RelationList relations = new RelationList();
+      for (Task task : m_file.getTasks())
+      {
+         if (task.getNull())
+         {
+            continue;
+         }
+
+         for (Relation relation : task.getPredecessors())
+         {
+            List<Integer> predecessors = getLeafTasks(relation.getTargetTask());
+            List<Integer> successors = getLeafTasks(relation.getSourceTask());
+            for (Integer predecessor : predecessors)
+            {
+               for (Integer successor : successors)
+               {
+                  relations.add(predecessor.intValue(), successor.intValue(), relation);
+               }
+            }
+         }
+      }
+
+      int relationCount = relations.m_size;
+      m_relationType = new RelationType[relationCount];
+      m_relationLag = new Duration[relationCount];
+      m_relationPredecessor = relations.m_predecessor;
+      m_lag = new double[relationCount];
+      m_lagElapsed = new boolean[relationCount];
+
+      for (int relationIndex = 0; relationIndex < relationCount; relationIndex++)
+      {
+         Relation relation = relations.m_relation[relationIndex];
+         m_relationType[relationIndex] = relation.getType() == null ? RelationType.FINISH_START : relation.getType();
+         m_relationLag[relationIndex] = relation.getLag();
+         readLag(relationIndex);
+      }
+
+      //
+      // Build compressed adjacency arrays in each direction.
+      //
+      m_predecessorStart = new int[m_taskCount + 1];
+      m_successorStart = new int[m_taskCount + 1];
+      for (int relationIndex = 0; relationIndex < relationCount; relationIndex++)
+      {
+         ++m_predecessorStart[relations.m_successor[relationIndex] + 1];
+         ++m_successorStart[relations.m_predecessor[relationIndex] + 1];
+      }
+
+      for (int index = 0; index < m_taskCount; index++)
+      {
+         m_predecessorStart[index + 1] += m_predecessorStart[index];
+         m_successorStart[index + 1] += m_successorStart[index];
+      }
+
+      m_predecessorTask = new int[relationCount];
+      m_predecessorRelation = new int[relationCount];
+      m_successorTask = new int[relationCount];
+      m_successorRelation = new int[relationCount];
+      int[] predecessorOffset = Arrays.copyOf(m_predecessorStart, m_taskCount);
+      int[] successorOffset = Arrays.copyOf(m_successorStart, m_taskCount);
+
+      for (int relationIndex = 0; relationIndex < relationCount; relationIndex++)
+      {
+         int predecessor = relations.m_predecessor[relationIndex];
+         int successor = relations.m_successor[relationIndex];
+
+         int offset = predecessorOffset[successor]++;
+         m_predecessorTask[offset] = predecessor;
+         m_predecessorRelation[offset] = relationIndex;
+
+         offset = successorOffset[predecessor]++;
+         m_successorTask[offset] = successor;
+         m_successorRelation[offset] = relationIndex;
+      }
+
+      sortTopologically();
+   }
+
+   /**
+    * Order the tasks so that each task appears after all of its predecessors.
+    */
+   private void sortTopologically()
+   {
+      m_order = new int[m_taskCount];
+      m_position = new int[m_taskCount];
+      int[] remaining = new int[m_taskCount];
+      int head = 0;
+      int tail = 0;
+
+      for (int index = 0; index < m_taskCount; index++)
+      {
+         remaining[index] = m_predecessorStart[index + 1] - m_predecessorStart[index];
+         if (remaining[index] == 0)
+         {
+            m_order[tail++] = index;
+         }
+      }
+
+      while (head < tail)
+      {
+         int index = m_order[head];
+         m_position[index] = head++;
+         for (int offset = m_successorStart[index]; offset < m_successorStart[index + 1]; offset++)
+         {
+            int successor = m_successorTask[offset];
+            if (--remaining[successor] == 0)
+            {
+               m_order[tail++] = successor;
+            }
+         }
+      }
+
+      if (tail != m_taskCount)
+      {
+         for (int index = 0; index < m_taskCount; index++)
+         {
+            if (remaining[index] != 0)
+            {
+               m_index = null;
+               throw new IllegalStateException("Circular relationship found involving task " + m_tasks[index].getID());
+            }
+         }
+      }
+   }
+
+   /**
+    * Read the attributes of a task used to calculate its dates.
+    *
+    * @param index task index
+    */
+   private void readTask(int index)
+   {
+      Task task = m_tasks[index];
+      m_calendar[index] = task.getEffectiveCalendar();
+
+      Duration duration = task.getDuration();
+      if (duration == null || duration.getUnits() == TimeUnit.PERCENT || duration.getUnits() == TimeUnit.ELAPSED_PERCENT)
+      {
+         m_duration[index] = 0;
+         m_durationElapsed[index] = false;
+      }
+      else
+      {
+         m_duration[index] = Duration.convertUnits(duration.getDuration(), duration.getUnits(), TimeUnit.MINUTES, m_properties).getDuration();
+         m_durationElapsed[index] = isElapsed(duration.getUnits());
+      }
+
+      ConstraintType constraintType = task.getConstraintType();
+      Date constraintDate = task.getConstraintDate();
+      if (constraintType == null || constraintDate == null)
+      {
+         constraintType = ConstraintType.AS_SOON_AS_POSSIBLE;
+      }
+      m_constraintType[index] = constraintType;
+      m_constraintDate[index] = constraintDate == null ? 0 : constraintDate.getTime();
+
+      m_actualStart[index] = getTime(task.getActualStart());
+      m_actualFinish[index] = getTime(task.getActualFinish());
+   }
+
+   /**
+    * Resolve a relation lag into minutes.
+    *
+    * @param relationIndex relation index
+    */
+   private void readLag(int relationIndex)
+   {
+      Duration lag = m_relationLag[relationIndex];
+      if (lag == null || lag.getDuration() == 0)
+      {
+         m_lag[relationIndex] = 0;
+         m_lagElapsed[relationIndex] = false;
+         return;
+      }
+
+      switch (lag.getUnits())
+      {
+         case PERCENT:
+         case ELAPSED_PERCENT:
+         {
+            int predecessor = m_relationPredecessor[relationIndex];
+            m_lag[relationIndex] = m_duration[predecessor] * lag.getDuration() / 100.0;
+            m_lagElapsed[relationIndex] = lag.getUnits() == TimeUnit.ELAPSED_PERCENT;
+            break;
+         }
+
+         default:
+         {
+            m_lag[relationIndex] = Duration.convertUnits(lag.getDuration(), lag.getUnits(), TimeUnit.MINUTES, m_properties).getDuration();
+            m_lagElapsed[relationIndex] = isElapsed(lag.getUnits());
+            break;
+         }
+      }
+   }
+
+   /**
+    * Forward pass calculation for a single task.
+    *
+    * @param index task index
+    */
+   private void calculateEarlyDates(int index)
+   {
+      ProjectCalendar calendar = m_calendar[index];
+      long start = m_projectStart;
+      long finish = Long.MIN_VALUE;
+
+      for (int offset = m_predecessorStart[index]; offset < m_predecessorStart[index + 1]; offset++)
+      {
+         int predecessor = m_predecessorTask[offset];
+         int relation = m_predecessorRelation[offset];
+
+         switch (m_relationType[relation])
+         {
+            case FINISH_START:
+            {
+               start = Math.max(start, add(calendar, m_earlyFinish[predecessor], m_lag[relation], m_lagElapsed[relation]));
+               break;
+            }
+
+            case START_START:
+            {
+               start = Math.max(start, add(calendar, m_earlyStart[predecessor], m_lag[relation], m_lagElapsed[relation]));
+               break;
+            }
+
+            case FINISH_FINISH:
+            {
+               finish = Math.max(finish, add(calendar, m_earlyFinish[predecessor], m_lag[relation], m_lagElapsed[relation]));
+               break;
+            }
+
+            case START_FINISH:
+            {
+               finish = Math.max(finish, add(calendar, m_earlyStart[predecessor], m_lag[relation], m_lagElapsed[relation]));
+               break;
+            }
+         }
+      }
+
+      if (finish != Long.MIN_VALUE)
+      {
+         start = Math.max(start, getStartFromFinish(index, finish));
+      }
+
+      long constraintDate = m_constraintDate[index];
+      switch (m_constraintType[index])
+      {
+         case MUST_START_ON:
+         {
+            start = constraintDate;
+            break;
+         }
+
+         case MUST_FINISH_ON:
+         {
+            start = getStartFromFinish(index, constraintDate);
+            break;
+         }
+
+         case START_NO_EARLIER_THAN:
+         {
+            start = Math.max(start, constraintDate);
+            break;
+         }
+
+         case START_NO_LATER_THAN:
+         {
+            start = Math.min(start, constraintDate);
+            break;
+         }
+
+         case FINISH_NO_EARLIER_THAN:
+         {
+            start = Math.max(start, getStartFromFinish(index, constraintDate));
+            break;
+         }
+
+         case FINISH_NO_LATER_THAN:
+         {
+            start = Math.min(start, getStartFromFinish(index, constraintDate));
+            break;
+         }
+
+         default:
+         {
+            break;
+         }
+      }
+
+      if (m_actualStart[index] != NULL_DATE)
+      {
+         start = m_actualStart[index];
+      }
+      else
+      {
+         if (calendar != null && m_duration[index] != 0 && !m_durationElapsed[index])
+         {
+            start = calendar.addWorkingTime(start, 0, false);
+         }
+      }
+
+      m_earlyStart[index] = start;
+      m_earlyFinish[index] = m_actualFinish[index] == NULL_DATE ? getFinishFromStart(index, start) : m_actualFinish[index];
+   }
+
+   /**
+    * Backward pass calculation for a single task.
+    *
+    * @param index task index
+    */
+   private void calculateLateDates(int index)
+   {
+      if (m_actualFinish[index] != NULL_DATE)
+      {
+         m_lateStart[index] = m_earlyStart[index];
+         m_lateFinish[index] = m_earlyFinish[index];
+         return;
+      }
+
+      long finish = Math.max(m_projectFinish, m_earlyFinish[index]);
+      long start = Long.MAX_VALUE;
+
+      for (int offset = m_successorStart[index]; offset < m_successorStart[index + 1]; offset++)
+      {
+         int successor = m_successorTask[offset];
+         int relation = m_successorRelation[offset];
+         ProjectCalendar calendar = m_calendar[successor];
+
+         switch (m_relationType[relation])
+         {
+            case FINISH_START:
+            {
+               finish = Math.min(finish, add(calendar, m_lateStart[successor], -m_lag[relation], m_lagElapsed[relation]));
+               break;
+            }
+
+            case START_START:
+            {
+               start = Math.min(start, add(calendar, m_lateStart[successor], -m_lag[relation], m_lagElapsed[relation]));
+               break;
+            }
+
+            case FINISH_FINISH:
+            {
+               finish = Math.min(finish, add(calendar, m_lateFinish[successor], -m_lag[relation], m_lagElapsed[relation]));
+               break;
+            }
+
+            case START_FINISH:
+            {
+               start = Math.min(start, add(calendar, m_lateFinish[successor], -m_lag[relation], m_lagElapsed[relation]));
+               break;
+            }
+         }
+      }
+
+      if (start != Long.MAX_VALUE)
+      {
+         finish = Math.min(finish, getFinishFromStart(index, start));
+      }
+
+      long constraintDate = m_constraintDate[index];
+      switch (m_constraintType[index])
+      {
+         case MUST_START_ON:
+         {
+            finish = getFinishFromStart(index, constraintDate);
+            break;
+         }
+
+         case MUST_FINISH_ON:
+         {
+            finish = constraintDate;
+            break;
+         }
+
+         case START_NO_LATER_THAN:
+         {
+            finish = Math.min(finish, getFinishFromStart(index, constraintDate));
+            break;
+         }
+
+         case FINISH_NO_LATER_THAN:
+         {
+            finish = Math.min(finish, constraintDate);
+            break;
+         }
+
+         default:
+         {
+            break;
+         }
+      }
+
+      ProjectCalendar calendar = m_calendar[index];
+      if (calendar != null && m_duration[index] != 0 && !m_durationElapsed[index])
+      {
+         finish = calendar.addWorkingTime(finish, 0, true);
+      }
+
+      m_lateFinish[index] = finish;
+      m_lateStart[index] = m_actualStart[index] == NULL_DATE ? getStartFromFinish(index, finish) : m_actualStart[index];
+   }
+
+   /**
+    * Calculate the latest finish date for a task which will not delay any
+    * of its successors' early dates. This is used to determine free slack.
+    *
+    * @param index task index
+    * @return free finish date
+    */
+   private long getFreeFinish(int index)
+   {
+      long finish = m_lateFinish[index];
+      long start = Long.MAX_VALUE;
+
+      for (int offset = m_successorStart[index]; offset < m_successorStart[index + 1]; offset++)
+      {
+         int successor = m_successorTask[offset];
+         int relation = m_successorRelation[offset];
+         ProjectCalendar calendar = m_calendar[successor];
+
+         switch (m_relationType[relation])
+         {
+            case FINISH_START:
+            {
+               finish = Math.min(finish, add(calendar, m_earlyStart[successor], -m_lag[relation], m_lagElapsed[relation]));
+               break;
+            }
+
+            case START_START:
+            {
+               start = Math.min(start, add(calendar, m_earlyStart[successor], -m_lag[relation], m_lagElapsed[relation]));
+               break;
+            }
+
+            case FINISH_FINISH:
+            {
+               finish = Math.min(finish, add(calendar, m_earlyFinish[successor], -m_lag[relation], m_lagElapsed[relation]));
+               break;
+            }
+
+            case START_FINISH:
+            {
+               start = Math.min(start, add(calendar, m_earlyFinish[successor], -m_lag[relation], m_lagElapsed[relation]));
+               break;
+            }
+         }
+      }
+
+      if (start != Long.MAX_VALUE)
+      {
+         finish = Math.min(finish, getFinishFromStart(index, start));
+      }
+
+      return Math.max(finish, m_earlyFinish[index]);
+   }
+
+   /**
+    * Write the calculated dates to a task.
+    *
+    * @param index task index
+    */
+   private void updateTask(int index)
+   {
+      Task task = m_tasks[index];
+      Date earlyFinish = new Date(m_earlyFinish[index]);
+      task.setEarlyStart(new Date(m_earlyStart[index]));
+      task.setEarlyFinish(earlyFinish);
+      task.setLateStart(new Date(m_lateStart[index]));
+      task.setLateFinish(new Date(m_lateFinish[index]));
+      task.setFreeSlack(DateHelper.getVariance(task, earlyFinish, new Date(getFreeFinish(index)), getSlackUnits(task)));
+   }
+
+   /**
+    * Calculate summary task dates from their child tasks. Summary tasks
+    * are processed from the lowest outline level upwards.
+    *
+    * @param summaryTasks summary tasks to update
+    */
+   private void rollupSummaryTasks(List<Task> summaryTasks)
+   {
+      Collections.sort(summaryTasks, new Comparator<Task>()
+      {
+         @Override public int compare(Task o1, Task o2)
+         {
+            return NumberHelper.getInt(o2.getOutlineLevel()) - NumberHelper.getInt(o1.getOutlineLevel());
+         }
+      });
+
+      for (Task task : summaryTasks)
+      {
+         Date earlyStart = null;
+         Date earlyFinish = null;
+         Date lateStart = null;
+         Date lateFinish = null;
+
+         for (Task child : task.getChildTasks())
+         {
+            earlyStart = DateHelper.min(earlyStart, child.getEarlyStart());
+            earlyFinish = DateHelper.max(earlyFinish, child.getEarlyFinish());
+            lateStart = DateHelper.min(lateStart, child.getLateStart());
+            lateFinish = DateHelper.max(lateFinish, child.getLateFinish());
+         }
+
+         task.setEarlyStart(earlyStart);
+         task.setEarlyFinish(earlyFinish);
+         task.setLateStart(lateStart);
+         task.setLateFinish(lateFinish);
+      }
+   }
+
+   /**
+    * Calculate a finish date from a start date using a task's duration.
+    *
+    * @param index task index
+    * @param start start date
+    * @return finish date
+    */
+   private long getFinishFromStart(int index, long start)
+   {
+      return add(m_calendar[index], start, m_duration[index], m_durationElapsed[index]);
+   }
+
+   /**
+    * Calculate a start date from a finish date using a task's duration.
+    *
+    * @param index task index
+    * @param finish finish date
+    * @return start date
+    */
+   private long getStartFromFinish(int index, long finish)
+   {
+      return add(m_calendar[index], finish, -m_duration[index], m_durationElapsed[index]);
+   }
+
+   /**
+    * Add a number of minutes to a date, either as working time
+    * using the supplied calendar or as elapsed time.
+    *
+    * @param calendar calendar, elapsed time is used if this is null
+    * @param date date
+    * @param minutes minutes to add, may be negative
+    * @param elapsed true if the minutes represent elapsed time
+    * @return new date
+    */
+   private long add(ProjectCalendar calendar, long date, double minutes, boolean elapsed)
+   {
+      if (elapsed || calendar == null)
+      {
+         return date + Math.round(minutes * 60000);
+      }
+      if (minutes == 0)
+      {
+         return date;
+      }
+      return calendar.addWorkingTime(date, minutes, minutes > 0);
+   }
+
+   /**
+    * Retrieve the latest early finish date.
+    *
+    * @return project finish date
+    */
+   private long getLatestEarlyFinish()
+   {
+      long result = m_projectStart;
+      for (int index = 0; index < m_taskCount; index++)
+      {
+         result = Math.max(result, m_earlyFinish[index]);
+      }
+      return result;
+   }
+
+   /**
+    * Determine the project start date. If this is not set in the project
+    * properties, the earliest task start date is used.
+    *
+    * @return project start date
+    */
+   private long getProjectStart()
+   {
+      Date result = m_properties.getStartDate();
+      if (result == null)
+      {
+         for (Task task : m_file.getTasks())
+         {
+            result = DateHelper.min(result, task.getStart());
+         }
+      }
+
+      if (result == null)
+      {
+         result = DateHelper.getDayStartDate(new Date());
+      }
+
+      return result.getTime();
+   }
+
+   /**
+    * Retrieve the indexes of the leaf tasks at or below the supplied task.
+    *
+    * @param task parent task
+    * @return leaf task indexes
+    */
+   private List<Integer> getLeafTasks(Task task)
+   {
+      List<Integer> result;
+      Integer index = task == null ? null : m_index.get(task);
+      if (index == null)
+      {
+         result = new ArrayList<Integer>();
+         if (task != null)
+         {
+            for (Task child : task.getChildTasks())
+            {
+               result.addAll(getLeafTasks(child));
+            }
+         }
+      }
+      else
+      {
+         result = Collections.singletonList(index);
+      }
+      return result;
+   }
+
+   /**
+    * Determine the units used to represent free slack for a task.
+    *
+    * @param task task
+    * @return time units
+    */
+   private TimeUnit getSlackUnits(Task task)
+   {
+      Duration duration = task.getDuration();
+      TimeUnit result = duration == null ? TimeUnit.DAYS : duration.getUnits();
+      if (result == TimeUnit.PERCENT || result == TimeUnit.ELAPSED_PERCENT)
+      {
+         result = TimeUnit.DAYS;
+      }
+      return result;
+   }
+
+   /**
+    * Retrieve a date as a long value.
+    *
+    * @param date date
+    * @return date as a long or NULL_DATE
+    */
+   private static long getTime(Date date)
+   {
+      return date == null ? NULL_DATE : date.getTime();
+   }
+
+   /**
+    * Determine if a time unit represents elapsed time.
+    *
+    * @param units time units
+    * @return true if this is elapsed time
+    */
+   private static boolean isElapsed(TimeUnit units)
+   {
+      boolean result;
+      switch (units)
+      {
+         case ELAPSED_MINUTES:
+         case ELAPSED_HOURS:
+         case ELAPSED_DAYS:
+         case ELAPSED_WEEKS:
+         case ELAPSED_MONTHS:
+         case ELAPSED_YEARS:
+         case ELAPSED_PERCENT:
+         {
+            result = true;
+            break;
+         }
+
+         default:
+         {
+            result = false;
+            break;
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Growable arrays used to collect relations while the network is built.
+    */
+   private static final class RelationList
+   {
+      /**
+       * Add a relation.
+       *
+       * @param predecessor predecessor task index
+       * @param successor successor task index
+       * @param relation relation
+       */
+      public void add(int predecessor, int successor, Relation relation)
+      {
+         if (m_size == m_relation.length)
+         {
+            int capacity = m_size * 2;
+            m_predecessor = Arrays.copyOf(m_predecessor, capacity);
+            m_successor = Arrays.copyOf(m_successor, capacity);
+            m_relation = Arrays.copyOf(m_relation, capacity);
+         }
+
+         m_predecessor[m_size] = predecessor;
+         m_successor[m_size] = successor;
+         m_relation[m_size] = relation;
+         ++m_size;
+      }
+
+      int m_size;
+      int[] m_predecessor = new int[16];
+      int[] m_successor = new int[16];
+      Relation[] m_relation = new Relation[16];
+   }
+
+   private final ProjectFile m_file;
+   private final ProjectProperties m_properties;
+   private final Set<Integer> m_changed = new HashSet<Integer>();
+   private boolean m_structureChanged;
+
+   private Map<Task, Integer> m_index;
+   private List<Task> m_summaryTasks;
+   private long m_projectStart;
+   private long m_projectFinish;
+
+   private int m_taskCount;
+   private Task[] m_tasks;
+   private ProjectCalendar[] m_calendar;
+   private double[] m_duration;
+   private boolean[] m_durationElapsed;
+   private ConstraintType[] m_constraintType;
+   private long[] m_constraintDate;
+   private long[] m_actualStart;
+   private long[] m_actualFinish;
+   private long[] m_earlyStart;
+   private long[] m_earlyFinish;
+   private long[] m_lateStart;
+   private long[] m_lateFinish;
+
+   private RelationType[] m_relationType;
+   private Duration[] m_relationLag;
+   private int[] m_relationPredecessor;
+   private double[] m_lag;
+   private boolean[] m_lagElapsed;
+
+   private int[] m_predecessorStart;
+   private int[] m_predecessorTask;
+   private int[] m_predecessorRelation;
+   private int[] m_successorStart;
+   private int[] m_successorTask;
+   private int[] m_successorRelation;
+   private int[] m_order;
+   private int[] m_position;
+
+   private static final long NULL_DATE = Long.MIN_VALUE;
+}
@@ -0,0 +1,140 @@
+/*
+ * file:       TimephasedAggregation.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       21/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.utility;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.sf.mpxj.DateRange;
+
+/**
+ * The result of aggregating timephased work and cost across all of the
+ * resource assignments in a project, see TimephasedAggregator.
+ * Each array returned by this class contains one value per timescale
+ * segment. Work values are in hours. The arrays are owned by this class
+ * and should not be modified by the caller.
+ */
+public final class TimephasedAggregation
+{
+   /**
+    * Constructor.
+    *
+    * @param ranges timescale segments
+    * @param resourceWork work by resource unique ID
+    * @param resourceCost cost by resource unique ID
+    * @param taskWork work by task unique ID
+    * @param taskCost cost by task unique ID
+    */
+   TimephasedAggregation(List<DateRange> ranges, Map<Integer, double[]> resourceWork, Map<Integer, double[]> resourceCost, Map<Integer, double[]> taskWork, Map<Integer, double[]> taskCost)
+   {
+      m_ranges = Collections.unmodifiableList(ranges);
+      m_resourceWork = resourceWork;
+      m_resourceCost = resourceCost;
+      m_taskWork = taskWork;
+      m_taskCost = taskCost;
+   }
+
+   /**
+    * Retrieve the timescale segments.
+    *
+    * @return list of date ranges
+    */
+   public List<DateRange> getRanges()
+   {
+      return m_ranges;
+   }
+
+   /**
+    * Retrieve the unique IDs of the resources with aggregated data.
+    *
+    * @return resource unique IDs
+    */
+   public Set<Integer> getResourceUniqueIDs()
+   {
+      return Collections.unmodifiableSet(m_resourceWork.keySet());
+   }
+
+   /**
+    * Retrieve the unique IDs of the tasks with aggregated data.
+    *
+    * @return task unique IDs
+    */
+   public Set<Integer> getTaskUniqueIDs()
+   {
+      return Collections.unmodifiableSet(m_taskWork.keySet());
+   }
+
+   /**
+    * Retrieve the work in hours for a resource, by timescale segment.
+    *
+    * @param uniqueID resource unique ID
+    * @return work values, or null if the resource has no assignments
+    */
+   public double[] getResourceWork(Integer uniqueID)
+   {
+      return m_resourceWork.get(uniqueID);
+   }
+
+   /**
+    * Retrieve the cost for a resource, by timescale segment.
+    *
+    * @param uniqueID resource unique ID
+    * @return cost values, or null if the resource has no assignments
+    */
+   public double[] getResourceCost(Integer uniqueID)
+   {
+      return m_resourceCost.get(uniqueID);
+   }
+
+   /**
+    * Retrieve the work in hours for a task, by timescale segment.
+    *
+    * @param uniqueID task unique ID
+    * @return work values, or null if the task has no assignments
+    */
+   public double[] getTaskWork(Integer uniqueID)
+   {
+      return m_taskWork.get(uniqueID);
+   }
+
+   /**
+    * Retrieve the cost for a task, by timescale segment.
+    *
+    * @param uniqueID task unique ID
+    * @return cost values, or null if the task has no assignments
+    */
+   public double[] getTaskCost(Integer uniqueID)
+   {
+      return m_taskCost.get(uniqueID);
+   }
+
+   private final List<DateRange> m_ranges;
+   private final Map<Integer, double[]> m_resourceWork;
+   private final Map<Integer, double[]> m_resourceCost;
+   private final Map<Integer, double[]> m_taskWork;
+   private final Map<Integer, double[]> m_taskCost;
+}
@@ -0,0 +1,621 @@
+/*
+ * file:       TimephasedAggregator.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       21/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import net.sf.mpxj.DateRange;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.ProjectProperties;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.TimephasedCost;
+import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.mpp.TimescaleUnits;
+
+/**
+ * Aggregates timephased work and cost across all of the resource
+ * assignments in a project, producing one array of values per resource
+ * and per task, with one value per timescale segment. The values for each
+ * assignment are calculated in the same way as the segmentWork and
+ * segmentCost methods of TimephasedUtility.
+ *
+ * The timephased data for each assignment is retrieved first, on the
+ * calling thread, along with a table of working days for each calendar
+ * used. The segment values are then calculated from these primitive
+ * tables, optionally in parallel using a caller-supplied executor.
+ */
+public final class TimephasedAggregator
+{
+   /**
+    * Constructor. Calculations will be carried out on the calling thread.
+    */
+   public TimephasedAggregator()
+   {
+      this(null);
+   }
+
+   /**
+    * Constructor. Calculations will be split across the tasks submitted
+    * to the supplied executor.
+    *
+    * @param executor executor used to carry out calculations, or null to use the calling thread
+    */
+   public TimephasedAggregator(ExecutorService executor)
+   {
+      m_executor = executor;
+   }
+
+   /**
+    * Aggregate timephased work and cost for the supplied project.
+    *
+    * @param file project file
+    * @param segmentUnit timescale units, days or longer
+    * @param startDate timescale start date
+    * @param segmentCount number of timescale segments
+    * @return aggregated work and cost
+    */
+   public TimephasedAggregation aggregate(ProjectFile file, TimescaleUnits segmentUnit, Date startDate, int segmentCount)
+   {
+      switch (segmentUnit)
+      {
+         case NONE:
+         case MINUTES:
+         case HOURS:
+         {
+            throw new UnsupportedOperationException("Please request this functionality from the MPXJ maintainer");
+         }
+
+         default:
+         {
+            break;
+         }
+      }
+
+      ArrayList<DateRange> ranges = new TimescaleUtility().createTimescale(startDate, segmentUnit, segmentCount);
+      Map<Integer, double[]> resourceWork = new HashMap<Integer, double[]>();
+      Map<Integer, double[]> resourceCost = new HashMap<Integer, double[]>();
+      Map<Integer, double[]> taskWork = new HashMap<Integer, double[]>();
+      Map<Integer, double[]> taskCost = new HashMap<Integer, double[]>();
+
+      if (!ranges.isEmpty())
+      {
+         Timescale timescale = new Timescale(ranges);
+         List<AssignmentData> assignments = getAssignmentData(file, timescale);
+         List<AssignmentData[]> chunks = getChunks(assignments);
+
+         if (m_executor == null)
+         {
+            for (AssignmentData[] chunk : chunks)
+            {
+               calculate(timescale, chunk);
+            }
+         }
+         else
+         {
+            calculateConcurrently(timescale, chunks);
+         }
+
+         for (AssignmentData assignment : assignments)
+         {
+            if (assignment.m_resourceUniqueID != null)
+            {
+               add(resourceWork, assignment.m_resourceUniqueID, assignment.m_workResult, ranges.size());
+               add(resourceCost, assignment.m_resourceUniqueID, assignment.m_costResult, ranges.size());
+            }
+
+            if (assignment.m_taskUniqueID != null)
+            {
+               add(taskWork, assignment.m_taskUniqueID, assignment.m_workResult, ranges.size());
+               add(taskCost, assignment.m_taskUniqueID, assignment.m_costResult, ranges.size());
+            }
+         }
+      }
+
+      return new TimephasedAggregation(ranges, resourceWork, resourceCost, taskWork, taskCost);
+   }
+
+   /**
+    * Retrieve the timephased data for each assignment. This is done on the
+    * calling thread as the first request for timephased data may cause
+    * it to be normalised, which updates state held by the calendars.
+    *
+    * @param file project file
+    * @param timescale timescale
+    * @return assignment data
+    */
+   private List<AssignmentData> getAssignmentData(ProjectFile file, Timescale timescale)
+   {
+      ProjectProperties properties = file.getProjectProperties();
+      Map<ProjectCalendar, boolean[]> workingDays = new IdentityHashMap<ProjectCalendar, boolean[]>();
+      List<AssignmentData> result = new ArrayList<AssignmentData>();
+
+      for (ResourceAssignment assignment : file.getResourceAssignments())
+      {
+         List<TimephasedWork> work = assignment.getTimephasedWork();
+
+         // Costs can only be calculated for assignments with a resource
+         List<TimephasedCost> cost = assignment.getResource() == null ? null : assignment.getTimephasedCost();
+
+         if ((work == null || work.isEmpty()) && (cost == null || cost.isEmpty()))
+         {
+            continue;
+         }
+
+         ProjectCalendar calendar = assignment.getCalendar();
+         boolean[] days = null;
+         if (calendar != null)
+         {
+            days = workingDays.get(calendar);
+            if (days == null)
+            {
+               days = timescale.getWorkingDays(calendar);
+               workingDays.put(calendar, days);
+            }
+         }
+
+         AssignmentData data = new AssignmentData();
+         data.m_resourceUniqueID = assignment.getResourceUniqueID();
+         data.m_taskUniqueID = assignment.getTaskUniqueID();
+         data.m_workingDays = days;
+         data.m_work = work == null ? null : TimephasedItems.getWorkInstance(work, properties);
+         data.m_cost = cost == null ? null : TimephasedItems.getCostInstance(cost);
+         result.add(data);
+      }
+
+      return result;
+   }
+
+   /**
+    * Divide the assignments into chunks to be processed.
+    *
+    * @param assignments assignment data
+    * @return list of chunks
+    */
+   private List<AssignmentData[]> getChunks(List<AssignmentData> assignments)
+   {
+      List<AssignmentData[]> result = new ArrayList<AssignmentData[]>();
+      int chunkSize = assignments.size();
+      if (m_executor != null)
+      {
+         chunkSize = Math.max(MIN_CHUNK_SIZE, assignments.size() / (Runtime.getRuntime().availableProcessors() * 4));
+      }
+
+      for (int index = 0; index < assignments.size(); index += chunkSize)
+      {
+         List<AssignmentData> chunk = assignments.subList(index, Math.min(assignments.size(), index + chunkSize));
+         result.add(chunk.toArray(new AssignmentData[chunk.size()]));
+      }
+
+      return result;
+   }
+
+   /**
+    * Calculate segment values for each chunk using the executor.
+    *
+    * @param timescale timescale
+    * @param chunks chunks of assignment data
+    */
+   private void calculateConcurrently(final Timescale timescale, List<AssignmentData[]> chunks)
+   {
+      List<Future<Void>> futures = new ArrayList<Future<Void>>(chunks.size());
+      for (final AssignmentData[] chunk : chunks)
+      {
+         futures.add(m_executor.submit(new Callable<Void>()
+         {
+            @Override public Void call()
+            {
+               calculate(timescale, chunk);
+               return null;
+            }
+         }));
+      }
+
+      try
+      {
+         for (Future<Void> future : futures)
+         {
+            future.get();
+         }
+      }
+
+      catch (InterruptedException ex)
+      {
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException("Interrupted while aggregating timephased data", ex);
+      }
+
+      catch (ExecutionException ex)
+      {
+         Throwable cause = ex.getCause();
+         if (cause instanceof RuntimeException)
+         {
+            throw (RuntimeException) cause;
+         }
+
+         if (cause instanceof Error)
+         {
+            throw (Error) cause;
+         }
+
+         throw new IllegalStateException(cause);
+      }
+
+      finally
+      {
+         for (Future<Void> future : futures)
+         {
+            future.cancel(true);
+         }
+      }
+   }
+
+   /**
+    * Calculate segment values for a chunk of assignments.
+    *
+    * @param timescale timescale
+    * @param chunk assignment data
+    */
+   private static void calculate(Timescale timescale, AssignmentData[] chunk)
+   {
+      for (AssignmentData assignment : chunk)
+      {
+         assignment.m_workResult = segment(timescale, assignment.m_workingDays, assignment.m_work);
+         assignment.m_costResult = segment(timescale, assignment.m_workingDays, assignment.m_cost);
+      }
+   }
+
+   /**
+    * Calculate the value for each segment from a set of timephased items.
+    *
+    * @param timescale timescale
+    * @param workingDays working day flags, null if every day is a working day
+    * @param items timephased items
+    * @return value for each segment, null if no items are present
+    */
+   private static double[] segment(Timescale timescale, boolean[] workingDays, TimephasedItems items)
+   {
+      if (items == null || items.m_start.length == 0)
+      {
+         return null;
+      }
+
+      double[] result = new double[timescale.m_rangeStart.length];
+      int lastStartIndex = 0;
+
+      for (int range = 0; range < result.length; range++)
+      {
+         long rangeStart = timescale.m_rangeStart[range];
+         long rangeEnd = timescale.m_rangeEnd[range];
+         int startIndex = getStartIndex(items, rangeStart, rangeEnd, lastStartIndex);
+         if (startIndex != -1)
+         {
+            result[range] = getRangeAmount(timescale, workingDays, items, rangeStart, rangeEnd, startIndex);
+            lastStartIndex = startIndex;
+         }
+      }
+
+      return result;
+   }
+
+   /**
+    * Locate the first timephased item which intersects with the target range.
+    *
+    * @param items timephased items
+    * @param rangeStart range start
+    * @param rangeEnd range end
+    * @param startIndex index at which to start the search
+    * @return item index, or -1 if no item intersects the range
+    */
+   private static int getStartIndex(TimephasedItems items, long rangeStart, long rangeEnd, int startIndex)
+   {
+      int result = -1;
+
+      for (int loop = startIndex; loop < items.m_start.length; loop++)
+      {
+         int compareResult = compare(items.m_start[loop], items.m_finish[loop], rangeStart);
+         if (compareResult > 0)
+         {
+            continue;
+         }
+
+         if (compareResult == 0 || compare(items.m_start[loop], items.m_finish[loop], rangeEnd) >= 0)
+         {
+            result = loop;
+            break;
+         }
+      }
+
+      return result;
+   }
+
+   /**
+    * Determine the amount allocated to a range, counting the working
+    * days in the range covered by each item.
+    *
+    * @param timescale timescale
+    * @param workingDays working day flags, null if every day is a working day
+    * @param items timephased items
+    * @param rangeStart range start
+    * @param rangeEnd range end
+    * @param startIndex index of the first item intersecting the range
+    * @return amount allocated to the range
+    */
+   private static double getRangeAmount(Timescale timescale, boolean[] workingDays, TimephasedItems items, long rangeStart, long rangeEnd, int startIndex)
+   {
+      double total = 0;
+      int index = startIndex;
+
+      while (true)
+      {
+         long date = Math.max(rangeStart, items.m_start[index]);
+         long itemEnd = items.m_finish[index];
+         int day = timescale.getDayIndex(date);
+         long timeOfDay = date - timescale.m_dayStart[day];
+         int totalDays = 0;
+
+         while (date < rangeEnd && date < itemEnd)
+         {
+            if (workingDays == null || workingDays[day])
+            {
+               ++totalDays;
+            }
+            ++day;
+            date = timescale.m_dayStart[day] + timeOfDay;
+         }
+
+         total += items.m_amountPerDay[index] * totalDays;
+
+         if (date >= rangeEnd || ++index == items.m_start.length)
+         {
+            break;
+         }
+      }
+
+      return total;
+   }
+
+   /**
+    * Determine where a date falls relative to a span.
+    *
+    * @param start span start
+    * @param finish span finish
+    * @param date target date
+    * @return -1 if the date is before the span, 1 if it is after, 0 if it is within the span
+    */
+   private static int compare(long start, long finish, long date)
+   {
+      return date < start ? -1 : (date > finish ? 1 : 0);
+   }
+
+   /**
+    * Add values from an assignment to a total.
+    *
+    * @param map totals
+    * @param key total key
+    * @param values assignment values, may be null
+    * @param segmentCount number of timescale segments
+    */
+   private static void add(Map<Integer, double[]> map, Integer key, double[] values, int segmentCount)
+   {
+      double[] total = map.get(key);
+      if (total == null)
+      {
+         total = new double[segmentCount];
+         map.put(key, total);
+      }
+
+      if (values != null)
+      {
+         for (int index = 0; index < values.length; index++)
+         {
+            total[index] += values[index];
+         }
+      }
+   }
+
+   /**
+    * Timescale segments and day boundaries, represented as primitive values.
+    */
+   static final class Timescale
+   {
+      /**
+       * Constructor.
+       *
+       * @param ranges timescale segments
+       */
+      Timescale(List<DateRange> ranges)
+      {
+         m_rangeStart = new long[ranges.size()];
+         m_rangeEnd = new long[ranges.size()];
+         for (int index = 0; index < m_rangeStart.length; index++)
+         {
+            DateRange range = ranges.get(index);
+            m_rangeStart[index] = range.getStart().getTime();
+            m_rangeEnd[index] = range.getEnd().getTime();
+         }
+
+         //
+         // Record the start of each day covered by the timescale, plus
+         // one further day to allow iteration to step past the end.
+         //
+         long end = m_rangeEnd[m_rangeEnd.length - 1];
+         Calendar cal = Calendar.getInstance();
+         cal.setTimeInMillis(m_rangeStart[0]);
+         cal.set(Calendar.HOUR_OF_DAY, 0);
+         cal.set(Calendar.MINUTE, 0);
+         cal.set(Calendar.SECOND, 0);
+         cal.set(Calendar.MILLISECOND, 0);
+
+         List<Long> dayStart = new ArrayList<Long>();
+         while (true)
+         {
+            long time = cal.getTimeInMillis();
+            dayStart.add(Long.valueOf(time));
+            if (time > end)
+            {
+               break;
+            }
+            cal.add(Calendar.DAY_OF_YEAR, 1);
+         }
+         cal.add(Calendar.DAY_OF_YEAR, 1);
+         dayStart.add(Long.valueOf(cal.getTimeInMillis()));
+
+         m_dayStart = new long[dayStart.size()];
+         for (int index = 0; index < m_dayStart.length; index++)
+         {
+            m_dayStart[index] = dayStart.get(index).longValue();
+         }
+      }
+
+      /**
+       * Determine which day a date falls on.
+       *
+       * @param date date
+       * @return day index
+       */
+      int getDayIndex(long date)
+      {
+         int index = Arrays.binarySearch(m_dayStart, date);
+         return index < 0 ? -index - 2 : index;
+      }
+
+      /**
+       * Create a table of working day flags for a calendar.
+       *
+       * @param calendar calendar
+       * @return working day flags
+       */
+      boolean[] getWorkingDays(ProjectCalendar calendar)
+      {
+         boolean[] result = new boolean[m_dayStart.length];
+         for (int index = 0; index < result.length; index++)
+         {
+            result[index] = calendar.isWorkingDate(new Date(m_dayStart[index]));
+         }
+         return result;
+      }
+
+      final long[] m_rangeStart;
+      final long[] m_rangeEnd;
+      final long[] m_dayStart;
+   }
+
+   /**
+    * Timephased items represented as primitive values.
+    */
+   static final class TimephasedItems
+   {
+      /**
+       * Constructor.
+       *
+       * @param size number of items
+       */
+      private TimephasedItems(int size)
+      {
+         m_start = new long[size];
+         m_finish = new long[size];
+         m_amountPerDay = new double[size];
+      }
+
+      /**
+       * Create from timephased work, converting amounts to hours.
+       *
+       * @param list timephased work
+       * @param properties project properties
+       * @return timephased items
+       */
+      static TimephasedItems getWorkInstance(List<TimephasedWork> list, ProjectProperties properties)
+      {
+         TimephasedItems result = new TimephasedItems(list.size());
+         int index = 0;
+         for (TimephasedWork item : list)
+         {
+            Duration amountPerDay = item.getAmountPerDay();
+            result.m_start[index] = item.getStart().getTime();
+            result.m_finish[index] = item.getFinish().getTime();
+            result.m_amountPerDay[index] = amountPerDay == null ? 0 : amountPerDay.convertUnits(TimeUnit.HOURS, properties).getDuration();
+            ++index;
+         }
+         return result;
+      }
+
+      /**
+       * Create from timephased cost.
+       *
+       * @param list timephased cost
+       * @return timephased items
+       */
+      static TimephasedItems getCostInstance(List<TimephasedCost> list)
+      {
+         TimephasedItems result = new TimephasedItems(list.size());
+         int index = 0;
+         for (TimephasedCost item : list)
+         {
+            Number amountPerDay = item.getAmountPerDay();
+            result.m_start[index] = item.getStart().getTime();
+            result.m_finish[index] = item.getFinish().getTime();
+            result.m_amountPerDay[index] = amountPerDay == null ? 0 : amountPerDay.doubleValue();
+            ++index;
+         }
+         return result;
+      }
+
+      final long[] m_start;
+      final long[] m_finish;
+      final double[] m_amountPerDay;
+   }
+
+   /**
+    * Data extracted from a single resource assignment.
+    */
+   static final class AssignmentData
+   {
+      Integer m_resourceUniqueID;
+      Integer m_taskUniqueID;
+      boolean[] m_workingDays;
+      TimephasedItems m_work;
+      TimephasedItems m_cost;
+      double[] m_workResult;
+      double[] m_costResult;
+   }
+
+   private final ExecutorService m_executor;
+
+   private static final int MIN_CHUNK_SIZE = 64;
+}
@@ -36,6 +36,8 @@ import net.sf.mpxj.TimeUnit;
 import net.sf.mpxj.TimephasedCost;
 import net.sf.mpxj.TimephasedItem;
 import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.common.CompactTimephasedList;
+import net.sf.mpxj.common.CompactTimephasedWorkList;
 import net.sf.mpxj.common.DateHelper;
 import net.sf.mpxj.common.NumberHelper;
 import net.sf.mpxj.mpp.TimescaleUnits;
@@ -195,8 +197,9 @@ public final class TimephasedUtility
 
          for (int loop = startIndex; loop < assignments.size(); loop++)
          {
-            T assignment = assignments.get(loop);
-            int compareResult = DateHelper.compare(assignment.getStart(), assignment.getFinish(), rangeStart);
+            long assignmentStart = getStart(assignments, loop);
+            long assignmentFinish = getFinish(assignments, loop);
+            int compareResult = DateHelper.compare(assignmentStart, assignmentFinish, rangeStart);
 
             //
             // The start of the target range falls after the assignment end -
@@ -222,7 +225,7 @@ public final class TimephasedUtility
             // the assignment start. We need to determine if the end of the
             // target range overlaps the assignment.
             //
-            compareResult = DateHelper.compare(assignment.getStart(), assignment.getFinish(), rangeEnd);
+            compareResult = DateHelper.compare(assignmentStart, assignmentFinish, rangeEnd);
             if (compareResult >= 0)
             {
                result = loop;
@@ -323,7 +326,6 @@ public final class TimephasedUtility
 
       int totalDays = 0;
       double totalWork = 0;
-      TimephasedWork assignment = assignments.get(startIndex);
       boolean done = false;
 
       do
@@ -332,14 +334,14 @@ public final class TimephasedUtility
          // Select the correct start date
          //
          long startDate = range.getStart().getTime();
-         long assignmentStart = assignment.getStart().getTime();
+         long assignmentStart = getStart(assignments, startIndex);
          if (startDate < assignmentStart)
          {
             startDate = assignmentStart;
          }
 
          long rangeEndDate = range.getEnd().getTime();
-         long traEndDate = assignment.getFinish().getTime();
+         long traEndDate = getFinish(assignments, startIndex);
 
          Calendar cal = Calendar.getInstance();
          cal.setTimeInMillis(startDate);
@@ -364,21 +366,17 @@ public final class TimephasedUtility
          // check to see if the next TRA can be used.
          //
          done = true;
-         totalWork += (assignment.getAmountPerDay().getDuration() * totalDays);
-         if (startDate < rangeEndDate)
+         totalWork += (getAmountPerDay(assignments, startIndex) * totalDays);
+         if (startDate < rangeEndDate && startIndex + 1 < assignments.size())
          {
             ++startIndex;
-            if (startIndex < assignments.size())
-            {
-               assignment = assignments.get(startIndex);
-               totalDays = 0;
-               done = false;
-            }
+            totalDays = 0;
+            done = false;
          }
       }
       while (!done);
 
-      return Duration.getInstance(totalWork, assignment.getAmountPerDay().getUnits());
+      return Duration.getInstance(totalWork, getAmountPerDayUnits(assignments, startIndex));
    }
 
    /**
@@ -432,7 +430,6 @@ public final class TimephasedUtility
    {
       int totalDays = 0;
       double totalCost = 0;
-      TimephasedCost assignment = assignments.get(startIndex);
       boolean done = false;
 
       do
@@ -441,14 +438,14 @@ public final class TimephasedUtility
          // Select the correct start date
          //
          long startDate = range.getStart().getTime();
-         long assignmentStart = assignment.getStart().getTime();
+         long assignmentStart = getStart(assignments, startIndex);
          if (startDate < assignmentStart)
          {
             startDate = assignmentStart;
          }
 
          long rangeEndDate = range.getEnd().getTime();
-         long traEndDate = assignment.getFinish().getTime();
+         long traEndDate = getFinish(assignments, startIndex);
 
          Calendar cal = Calendar.getInstance();
          cal.setTimeInMillis(startDate);
@@ -473,16 +470,12 @@ public final class TimephasedUtility
          // check to see if the next TRA can be used.
          //
          done = true;
-         totalCost += (assignment.getAmountPerDay().doubleValue() * totalDays);
-         if (startDate < rangeEndDate)
+         totalCost += (getCostPerDay(assignments, startIndex) * totalDays);
+         if (startDate < rangeEndDate && startIndex + 1 < assignments.size())
          {
             ++startIndex;
-            if (startIndex < assignments.size())
-            {
-               assignment = assignments.get(startIndex);
-               totalDays = 0;
-               done = false;
-            }
+            totalDays = 0;
+            done = false;
          }
       }
       while (!done);
@@ -507,4 +500,66 @@ public final class TimephasedUtility
    {
       throw new UnsupportedOperationException("Please request this functionality from the MPXJ maintainer");
    }
+
+   /**
+    * Retrieve the start of a timephased item in milliseconds. The value
+    * is read directly from a compact list, avoiding the creation of
+    * an intermediate item.
+    *
+    * @param list timephased items
+    * @param index item index
+    * @return item start
+    */
+   private long getStart(List<? extends TimephasedItem<?>> list, int index)
+   {
+      return list instanceof CompactTimephasedList<?> ? ((CompactTimephasedList<?>) list).getStart(index) : list.get(index).getStart().getTime();
+   }
+
+   /**
+    * Retrieve the finish of a timephased item in milliseconds.
+    *
+    * @param list timephased items
+    * @param index item index
+    * @return item finish
+    */
+   private long getFinish(List<? extends TimephasedItem<?>> list, int index)
+   {
+      return list instanceof CompactTimephasedList<?> ? ((CompactTimephasedList<?>) list).getFinish(index) : list.get(index).getFinish().getTime();
+   }
+
+   /**
+    * Retrieve the amount per day of a timephased work item.
+    *
+    * @param list timephased items
+    * @param index item index
+    * @return amount per day
+    */
+   private double getAmountPerDay(List<TimephasedWork> list, int index)
+   {
+      return list instanceof CompactTimephasedList<?> ? ((CompactTimephasedList<?>) list).getAmountPerDay(index) : list.get(index).getAmountPerDay().getDuration();
+   }
+
+   /**
+    * Retrieve the units of the amount per day of a timephased work item.
+    *
+    * @param list timephased items
+    * @param index item index
+    * @return amount per day units
+    */
+   private TimeUnit getAmountPerDayUnits(List<TimephasedWork> list, int index)
+   {
+      return list instanceof CompactTimephasedWorkList ? ((CompactTimephasedWorkList) list).getAmountPerDayUnits(index) : list.get(index).getAmountPerDay().getUnits();
+   }
+
+   /**
+    * Retrieve the amount per day of a timephased cost item.
+    *
+    * @param list timephased items
+    * @param index item index
+    * @return amount per day
+    */
+   private double getCostPerDay(List<TimephasedCost> list, int index)
+   {
+      return list instanceof CompactTimephasedList<?> ? ((CompactTimephasedList<?>) list).getAmountPerDay(index) : list.get(index).getAmountPerDay().doubleValue();
+   }
 }
@@ -0,0 +1,87 @@
+/*
+ * file:       BulkLoadTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.util.Date;
+
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.FieldContainer;
+import net.sf.mpxj.FieldType;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.listener.FieldListener;
+
+import org.junit.Test;
+
+/**
+ * Tests to exercise bulk load behaviour.
+ */
+public class BulkLoadTest
+{
+   /**
+    * Ensure that field values set during a bulk load are retained,
+    * and that normal behaviour resumes once the bulk load is complete.
+    */
+   @Test public void testBulkLoad()
+   {
+      ProjectFile file = new ProjectFile();
+      Task task = file.addTask();
+      final int[] count = new int[1];
+      task.addFieldListener(new FieldListener()
+      {
+         @Override public void fieldChange(FieldContainer container, FieldType type, Object oldValue, Object newValue)
+         {
+            ++count[0];
+         }
+      });
+
+      Duration slack = Duration.getInstance(2, TimeUnit.DAYS);
+
+      file.beginBulkLoad();
+      file.beginBulkLoad();
+      assertTrue(file.getBulkLoad());
+
+      task.setTotalSlack(slack);
+      task.setCritical(false);
+      task.setEarlyStart(new Date());
+      task.setUniqueID(Integer.valueOf(10));
+
+      file.endBulkLoad();
+      assertTrue(file.getBulkLoad());
+      file.endBulkLoad();
+      assertFalse(file.getBulkLoad());
+
+      assertEquals(1, count[0]);
+      assertSame(slack, task.getTotalSlack());
+      assertSame(task, file.getTaskByUniqueID(Integer.valueOf(10)));
+
+      task.setEarlyStart(new Date());
+      assertEquals(2, count[0]);
+      assertNull(task.getCachedValue(TaskField.TOTAL_SLACK));
+   }
+}
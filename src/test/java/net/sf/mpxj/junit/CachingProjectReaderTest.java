@@ -0,0 +1,205 @@
+/*
+ * file:       CachingProjectReaderTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.reader.CachingProjectReader;
+
+import org.junit.Test;
+
+/**
+ * Tests to exercise the caching project reader.
+ */
+public class CachingProjectReaderTest
+{
+   /**
+    * Ensure that reading the same file twice returns the cached project.
+    */
+   @Test public void testHit() throws Exception
+   {
+      CachingProjectReader reader = new CachingProjectReader();
+      ProjectFile file1 = reader.read(MpxjTestData.filePath("mpp9timephased.mpp"));
+      ProjectFile file2 = reader.read(MpxjTestData.filePath("mpp9timephased.mpp"));
+
+      assertNotNull(file1);
+      assertSame(file1, file2);
+      assertTrue(file1.getFrozen());
+      assertEquals(1, reader.getMissCount());
+      assertEquals(1, reader.getHitCount());
+      assertEquals(1, reader.getSize());
+   }
+
+   /**
+    * Ensure that the least recently used project is evicted.
+    */
+   @Test public void testEviction() throws Exception
+   {
+      CachingProjectReader reader = new CachingProjectReader(1);
+      ProjectFile file1 = reader.read(MpxjTestData.filePath("mpp9timephased.mpp"));
+      reader.read(MpxjTestData.filePath("mpp14timephased.mpp"));
+      ProjectFile file2 = reader.read(MpxjTestData.filePath("mpp9timephased.mpp"));
+
+      assertNotSame(file1, file2);
+      assertEquals(3, reader.getMissCount());
+      assertEquals(0, reader.getHitCount());
+      assertEquals(2, reader.getEvictionCount());
+      assertEquals(1, reader.getSize());
+   }
+
+   /**
+    * Ensure that evicted projects are reloaded from snapshots.
+    */
+   @Test public void testSnapshot() throws Exception
+   {
+      File directory = File.createTempFile("junit", "");
+      directory.delete();
+      directory.mkdir();
+
+      try
+      {
+         CachingProjectReader reader = new CachingProjectReader(1);
+         reader.setDirectory(directory);
+         ProjectFile file1 = reader.read(MpxjTestData.filePath("mspdirelations.xml"));
+         reader.read(MpxjTestData.filePath("baselines.xml"));
+         assertEquals(2, directory.listFiles().length);
+
+         ProjectFile file2 = reader.read(MpxjTestData.filePath("mspdirelations.xml"));
+         assertEquals(2, reader.getMissCount());
+         assertEquals(1, reader.getSnapshotHitCount());
+         assertTrue(file2.getFrozen());
+         assertEquals(file1.getTasks().size(), file2.getTasks().size());
+
+         CachingProjectReader reader2 = new CachingProjectReader();
+         reader2.setDirectory(directory);
+         reader2.read(MpxjTestData.filePath("baselines.xml"));
+         assertEquals(0, reader2.getMissCount());
+         assertEquals(1, reader2.getSnapshotHitCount());
+      }
+
+      finally
+      {
+         for (File file : directory.listFiles())
+         {
+            file.delete();
+         }
+         directory.delete();
+      }
+   }
+
+   /**
+    * Ensure that projects which can't be held in full by a snapshot are
+    * parsed again rather than being reloaded from a partial snapshot.
+    */
+   @Test public void testPartialSnapshot() throws Exception
+   {
+      File directory = File.createTempFile("junit", "");
+      directory.delete();
+      directory.mkdir();
+
+      try
+      {
+         CachingProjectReader reader = new CachingProjectReader(1);
+         reader.setDirectory(directory);
+
+         ProjectFile file1 = reader.read(MpxjTestData.filePath("mpp9timephased.mpp"));
+         assertFalse(file1.getViews().isEmpty());
+         assertEquals(0, directory.listFiles().length);
+
+         reader.read(MpxjTestData.filePath("mspdirelations.xml"));
+         assertEquals(1, directory.listFiles().length);
+
+         ProjectFile file2 = reader.read(MpxjTestData.filePath("mpp9timephased.mpp"));
+         assertEquals(file1.getViews().size(), file2.getViews().size());
+         assertEquals(file1.getTables().size(), file2.getTables().size());
+         assertEquals(3, reader.getMissCount());
+         assertEquals(0, reader.getSnapshotHitCount());
+
+         reader.read(MpxjTestData.filePath("mspdirelations.xml"));
+         assertEquals(1, reader.getSnapshotHitCount());
+
+         reader.clear();
+         reader.read(MpxjTestData.filePath("mpp9timephased.mpp"));
+         assertEquals(4, reader.getMissCount());
+         assertEquals(1, directory.listFiles().length);
+      }
+
+      finally
+      {
+         for (File file : directory.listFiles())
+         {
+            file.delete();
+         }
+         directory.delete();
+      }
+   }
+
+   /**
+    * Ensure that concurrent reads of the same content only parse it once.
+    */
+   @Test public void testConcurrentReads() throws Exception
+   {
+      final CachingProjectReader reader = new CachingProjectReader();
+      final String fileName = MpxjTestData.filePath("mpp9timephased.mpp");
+
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try
+      {
+         List<Future<ProjectFile>> futures = new ArrayList<Future<ProjectFile>>();
+         for (int index = 0; index < 8; index++)
+         {
+            futures.add(executor.submit(new Callable<ProjectFile>()
+            {
+               @Override public ProjectFile call() throws Exception
+               {
+                  return reader.read(fileName);
+               }
+            }));
+         }
+
+         ProjectFile expected = futures.get(0).get();
+         for (Future<ProjectFile> future : futures)
+         {
+            assertSame(expected, future.get());
+         }
+      }
+
+      finally
+      {
+         executor.shutdown();
+      }
+
+      assertEquals(1, reader.getMissCount());
+      assertEquals(7, reader.getHitCount());
+   }
+}
@@ -0,0 +1,210 @@
+/*
+ * file:       CompactTimephasedListTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       20/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.TimephasedCost;
+import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.common.CompactTimephasedCostList;
+import net.sf.mpxj.common.CompactTimephasedWorkList;
+import net.sf.mpxj.common.DefaultTimephasedWorkContainer;
+import net.sf.mpxj.mpp.MPPReader;
+
+import org.junit.Test;
+
+/**
+ * Tests to exercise the compact timephased data lists.
+ */
+public class CompactTimephasedListTest
+{
+   /**
+    * Ensure that timephased work is reproduced exactly, including null values.
+    */
+   @Test public void testWork()
+   {
+      List<TimephasedWork> list = new LinkedList<TimephasedWork>();
+      list.add(createWork(new Date(1000000), new Date(2000000), Duration.getInstance(8, TimeUnit.HOURS), Duration.getInstance(480, TimeUnit.MINUTES), true));
+      list.add(createWork(new Date(3000000), null, Duration.getInstance(2.5, TimeUnit.DAYS), null, false));
+      list.add(createWork(null, new Date(4000000), null, Duration.getInstance(0, TimeUnit.HOURS), false));
+
+      List<TimephasedWork> compact = CompactTimephasedWorkList.getInstance(list);
+      assertTrue(compact instanceof CompactTimephasedWorkList);
+      assertEquals(list.size(), compact.size());
+
+      for (int index = 0; index < list.size(); index++)
+      {
+         TimephasedWork expected = list.get(index);
+         TimephasedWork actual = compact.get(index);
+         assertEquals(expected.getStart(), actual.getStart());
+         assertEquals(expected.getFinish(), actual.getFinish());
+         assertEquals(expected.getTotalAmount(), actual.getTotalAmount());
+         assertEquals(expected.getAmountPerDay(), actual.getAmountPerDay());
+         assertEquals(expected.getModified(), actual.getModified());
+      }
+
+      assertSame(compact, CompactTimephasedWorkList.getInstance(compact));
+   }
+
+   /**
+    * Ensure that timephased cost is reproduced exactly, including null values.
+    */
+   @Test public void testCost()
+   {
+      List<TimephasedCost> list = new LinkedList<TimephasedCost>();
+      list.add(createCost(new Date(1000000), new Date(2000000), Double.valueOf(100.5), Double.valueOf(10), true));
+      list.add(createCost(new Date(3000000), null, null, Double.valueOf(Double.NaN), false));
+
+      List<TimephasedCost> compact = CompactTimephasedCostList.getInstance(list);
+      assertTrue(compact instanceof CompactTimephasedCostList);
+      assertEquals(list.size(), compact.size());
+
+      for (int index = 0; index < list.size(); index++)
+      {
+         TimephasedCost expected = list.get(index);
+         TimephasedCost actual = compact.get(index);
+         assertEquals(expected.getStart(), actual.getStart());
+         assertEquals(expected.getFinish(), actual.getFinish());
+         assertEquals(expected.getTotalAmount(), actual.getTotalAmount());
+         assertEquals(expected.getAmountPerDay(), actual.getAmountPerDay());
+         assertEquals(expected.getModified(), actual.getModified());
+      }
+   }
+
+   /**
+    * Values which can't be represented exactly leave the original list in place.
+    */
+   @Test public void testFallback()
+   {
+      List<TimephasedWork> work = new LinkedList<TimephasedWork>();
+      work.add(createWork(new Timestamp(1000000), new Date(2000000), Duration.getInstance(8, TimeUnit.HOURS), null, false));
+      assertSame(work, CompactTimephasedWorkList.getInstance(work));
+
+      List<TimephasedCost> cost = new LinkedList<TimephasedCost>();
+      cost.add(createCost(new Date(1000000), new Date(2000000), Integer.valueOf(1), null, false));
+      assertSame(cost, CompactTimephasedCostList.getInstance(cost));
+   }
+
+   /**
+    * Ensure that the container only uses the compact form when requested.
+    */
+   @Test public void testContainer()
+   {
+      LinkedList<TimephasedWork> list = new LinkedList<TimephasedWork>();
+      list.add(createWork(new Date(1000000), new Date(2000000), Duration.getInstance(8, TimeUnit.HOURS), Duration.getInstance(8, TimeUnit.HOURS), false));
+
+      DefaultTimephasedWorkContainer defaultContainer = new DefaultTimephasedWorkContainer(null, null, list, false);
+      assertSame(list, defaultContainer.getData());
+
+      DefaultTimephasedWorkContainer container = new DefaultTimephasedWorkContainer(null, null, list, false, true);
+      assertTrue(container.hasData());
+      assertTrue(container.getData() instanceof CompactTimephasedWorkList);
+
+      DefaultTimephasedWorkContainer scaled = new DefaultTimephasedWorkContainer(container, 0.5, 2.0);
+      TimephasedWork item = scaled.getData().get(0);
+      assertEquals(Duration.getInstance(4, TimeUnit.HOURS), item.getAmountPerDay());
+      assertEquals(Duration.getInstance(16, TimeUnit.HOURS), item.getTotalAmount());
+   }
+
+   /**
+    * Ensure that reading compact timephased data produces the same values
+    * as the default representation.
+    *
+    * @throws Exception
+    */
+   @Test public void testReader() throws Exception
+   {
+      MPPReader reader = new MPPReader();
+      ProjectFile expected = reader.read(MpxjTestData.filePath("mpp14timephasedsegments.mpp"));
+      reader.setCompactTimephasedData(true);
+      ProjectFile actual = reader.read(MpxjTestData.filePath("mpp14timephasedsegments.mpp"));
+
+      List<ResourceAssignment> expectedAssignments = expected.getResourceAssignments();
+      List<ResourceAssignment> actualAssignments = actual.getResourceAssignments();
+      assertEquals(expectedAssignments.size(), actualAssignments.size());
+
+      for (int index = 0; index < expectedAssignments.size(); index++)
+      {
+         ResourceAssignment expectedAssignment = expectedAssignments.get(index);
+         ResourceAssignment actualAssignment = actualAssignments.get(index);
+         assertTrue(actualAssignment.getTimephasedWork() instanceof CompactTimephasedWorkList);
+         assertEquals(expectedAssignment.getTimephasedWork(), actualAssignment.getTimephasedWork());
+         assertEquals(expectedAssignment.getTimephasedActualWork(), actualAssignment.getTimephasedActualWork());
+         assertEquals(expectedAssignment.getTimephasedBaselineWork(0), actualAssignment.getTimephasedBaselineWork(0));
+         assertEquals(expectedAssignment.getTimephasedBaselineCost(0), actualAssignment.getTimephasedBaselineCost(0));
+      }
+   }
+
+   /**
+    * Create a timephased work item.
+    *
+    * @param start start date
+    * @param finish finish date
+    * @param totalAmount total amount
+    * @param amountPerDay amount per day
+    * @param modified modified flag
+    * @return timephased work item
+    */
+   private TimephasedWork createWork(Date start, Date finish, Duration totalAmount, Duration amountPerDay, boolean modified)
+   {
+      TimephasedWork item = new TimephasedWork();
+      item.setStart(start);
+      item.setFinish(finish);
+      item.setTotalAmount(totalAmount);
+      item.setAmountPerDay(amountPerDay);
+      item.setModified(modified);
+      return item;
+   }
+
+   /**
+    * Create a timephased cost item.
+    *
+    * @param start start date
+    * @param finish finish date
+    * @param totalAmount total amount
+    * @param amountPerDay amount per day
+    * @param modified modified flag
+    * @return timephased cost item
+    */
+   private TimephasedCost createCost(Date start, Date finish, Number totalAmount, Number amountPerDay, boolean modified)
+   {
+      TimephasedCost item = new TimephasedCost();
+      item.setStart(start);
+      item.setFinish(finish);
+      item.setTotalAmount(totalAmount);
+      item.setAmountPerDay(amountPerDay);
+      item.setModified(modified);
+      return item;
+   }
+}
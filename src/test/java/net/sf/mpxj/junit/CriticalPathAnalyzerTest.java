@@ -0,0 +1,317 @@
+/*
+ * file:       CriticalPathAnalyzerTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       22/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import net.sf.mpxj.ConstraintType;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.RelationType;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.mpp.MPPReader;
+import net.sf.mpxj.utility.CriticalPathAnalyzer;
+
+import org.junit.Test;
+
+/**
+ * Tests to exercise the critical path analyzer.
+ */
+public class CriticalPathAnalyzerTest
+{
+   /**
+    * Ensure that recalculated dates and slack match those
+    * calculated by MS Project.
+    *
+    * @throws Exception
+    */
+   @Test public void testMppFiles() throws Exception
+   {
+      testMppFile("slack9.mpp");
+      testMppFile("mpp9baseline.mpp");
+      testMppFile("mpp12baseline.mpp");
+      testMppFile("mpp14baseline.mpp");
+   }
+
+   /**
+    * Test each relation type, with and without lag.
+    *
+    * @throws Exception
+    */
+   @Test public void testRelationTypes() throws Exception
+   {
+      ProjectFile file = createProject();
+      Task task1 = addTask(file, 2);
+      Task task2 = addTask(file, 3);
+      Task task3 = addTask(file, 1);
+      Task task4 = addTask(file, 2);
+      Task task5 = addTask(file, 1);
+
+      task2.addPredecessor(task1, RelationType.FINISH_START, Duration.getInstance(1, TimeUnit.DAYS));
+      task3.addPredecessor(task2, RelationType.START_START, Duration.getInstance(1, TimeUnit.DAYS));
+      task4.addPredecessor(task2, RelationType.FINISH_FINISH, null);
+      task5.addPredecessor(task4, RelationType.START_FINISH, null);
+
+      CriticalPathAnalyzer analyzer = new CriticalPathAnalyzer(file);
+      analyzer.analyze();
+
+      // Mon 01/01 - Tue 02/01, one day lag, Thu 04/01 - Mon 08/01
+      assertDates(task1, "01/01/2018 08:00", "02/01/2018 17:00", "01/01/2018 08:00", "02/01/2018 17:00");
+      assertDates(task2, "04/01/2018 08:00", "08/01/2018 17:00", "04/01/2018 08:00", "08/01/2018 17:00");
+      assertDates(task3, "05/01/2018 08:00", "05/01/2018 17:00", "08/01/2018 08:00", "08/01/2018 17:00");
+      assertDates(task4, "05/01/2018 08:00", "08/01/2018 17:00", "05/01/2018 08:00", "08/01/2018 17:00");
+      assertDates(task5, "04/01/2018 08:00", "04/01/2018 17:00", "08/01/2018 08:00", "08/01/2018 17:00");
+
+      assertTrue(task1.getCritical());
+      assertTrue(task2.getCritical());
+      assertFalse(task3.getCritical());
+      assertEquals(1.0, task3.getTotalSlack().getDuration(), 0.0);
+      assertEquals(1.0, task3.getFreeSlack().getDuration(), 0.0);
+      assertEquals(2.0, task5.getTotalSlack().getDuration(), 0.0);
+
+      assertEquals(parse("08/01/2018 17:00"), analyzer.getProjectFinish());
+   }
+
+   /**
+    * Test constraints.
+    *
+    * @throws Exception
+    */
+   @Test public void testConstraints() throws Exception
+   {
+      ProjectFile file = createProject();
+      Task task1 = addTask(file, 5);
+      Task task2 = addTask(file, 2);
+      Task task3 = addTask(file, 1);
+
+      task2.setConstraintType(ConstraintType.START_NO_EARLIER_THAN);
+      task2.setConstraintDate(parse("03/01/2018 08:00"));
+
+      task3.addPredecessor(task2, RelationType.FINISH_START, null);
+      task3.setConstraintType(ConstraintType.FINISH_NO_LATER_THAN);
+      task3.setConstraintDate(parse("05/01/2018 17:00"));
+
+      new CriticalPathAnalyzer(file).analyze();
+
+      assertDates(task1, "01/01/2018 08:00", "05/01/2018 17:00", "01/01/2018 08:00", "05/01/2018 17:00");
+      assertDates(task2, "03/01/2018 08:00", "04/01/2018 17:00", "03/01/2018 08:00", "04/01/2018 17:00");
+      assertDates(task3, "05/01/2018 08:00", "05/01/2018 17:00", "05/01/2018 08:00", "05/01/2018 17:00");
+      assertTrue(task3.getCritical());
+   }
+
+   /**
+    * Ensure that incremental updates give the same results as a full analysis.
+    *
+    * @throws Exception
+    */
+   @Test public void testIncremental() throws Exception
+   {
+      ProjectFile file = createProject();
+      List<Task> tasks = new ArrayList<Task>();
+      for (int index = 0; index < 200; index++)
+      {
+         Task task = addTask(file, (index * 7) % 5);
+         if (index > 0)
+         {
+            task.addPredecessor(tasks.get(index - 1 - (index * 13) % Math.min(index, 10)), RelationType.getInstance(index % 4), Duration.getInstance(index % 3, TimeUnit.DAYS));
+         }
+         tasks.add(task);
+      }
+
+      CriticalPathAnalyzer analyzer = new CriticalPathAnalyzer(file);
+      analyzer.analyze();
+
+      for (int index = 0; index < tasks.size(); index += 17)
+      {
+         Task task = tasks.get(index);
+         task.setDuration(Duration.getInstance(index % 7, TimeUnit.DAYS));
+         analyzer.taskChanged(task);
+         analyzer.update();
+
+         List<String> incremental = getDates(tasks, true);
+         new CriticalPathAnalyzer(file).analyze();
+         assertEquals(getDates(tasks, true), incremental);
+      }
+   }
+
+   /**
+    * Ensure that changes to a calendar are taken into account by an update.
+    *
+    * @throws Exception
+    */
+   @Test public void testCalendarChange() throws Exception
+   {
+      ProjectFile file = createProject();
+      Task task1 = addTask(file, 2);
+      Task task2 = addTask(file, 1);
+      task2.addPredecessor(task1, RelationType.FINISH_START, null);
+
+      CriticalPathAnalyzer analyzer = new CriticalPathAnalyzer(file);
+      analyzer.analyze();
+      assertDates(task2, "03/01/2018 08:00", "03/01/2018 17:00", "03/01/2018 08:00", "03/01/2018 17:00");
+
+      file.getDefaultCalendar().addCalendarException(parse("02/01/2018 00:00"), parse("02/01/2018 23:59"));
+      analyzer.taskChanged(task1);
+      analyzer.update();
+      assertDates(task1, "01/01/2018 08:00", "03/01/2018 17:00", "01/01/2018 08:00", "03/01/2018 17:00");
+      assertDates(task2, "04/01/2018 08:00", "04/01/2018 17:00", "04/01/2018 08:00", "04/01/2018 17:00");
+   }
+
+   /**
+    * Ensure that circular relationships are reported.
+    *
+    * @throws Exception
+    */
+   @Test(expected = IllegalStateException.class) public void testCircularRelationship() throws Exception
+   {
+      ProjectFile file = createProject();
+      Task task1 = addTask(file, 1);
+      Task task2 = addTask(file, 1);
+      task2.addPredecessor(task1, RelationType.FINISH_START, null);
+      task1.addPredecessor(task2, RelationType.FINISH_START, null);
+      new CriticalPathAnalyzer(file).analyze();
+   }
+
+   /**
+    * Compare recalculated values with those read from an MPP file.
+    *
+    * @param name file name
+    * @throws Exception
+    */
+   private void testMppFile(String name) throws Exception
+   {
+      ProjectFile file = new MPPReader().read(MpxjTestData.filePath(name));
+      // MS Project's stored total slack for milestones doesn't always
+      // match the value derived from the dates, so only compare dates here
+      List<String> expected = getDates(file.getTasks(), false);
+      List<Boolean> expectedCritical = getCritical(file.getTasks());
+
+      new CriticalPathAnalyzer(file).analyze();
+
+      assertEquals(name, expected, getDates(file.getTasks(), false));
+      assertEquals(name, expectedCritical, getCritical(file.getTasks()));
+   }
+
+   /**
+    * Retrieve early and late dates, and optionally total slack, for each task.
+    *
+    * @param tasks tasks
+    * @param includeSlack true if total slack should be included
+    * @return list of values
+    */
+   private List<String> getDates(List<Task> tasks, boolean includeSlack)
+   {
+      List<String> result = new ArrayList<String>();
+      for (Task task : tasks)
+      {
+         result.add(task.getID() + " " + task.getEarlyStart() + " " + task.getEarlyFinish() + " " + task.getLateStart() + " " + task.getLateFinish() + (includeSlack ? " " + task.getTotalSlack() : ""));
+      }
+      return result;
+   }
+
+   /**
+    * Retrieve the critical flag for each task.
+    *
+    * @param tasks tasks
+    * @return list of values
+    */
+   private List<Boolean> getCritical(List<Task> tasks)
+   {
+      List<Boolean> result = new ArrayList<Boolean>();
+      for (Task task : tasks)
+      {
+         result.add(Boolean.valueOf(task.getCritical()));
+      }
+      return result;
+   }
+
+   /**
+    * Create an empty project starting on Monday 01/01/2018.
+    *
+    * @return project file
+    * @throws Exception
+    */
+   private ProjectFile createProject() throws Exception
+   {
+      ProjectFile file = new ProjectFile();
+      file.addDefaultBaseCalendar();
+      file.getProjectProperties().setStartDate(parse("01/01/2018 08:00"));
+      return file;
+   }
+
+   /**
+    * Add a task to a project.
+    *
+    * @param file project file
+    * @param days duration in days
+    * @return new task
+    */
+   private Task addTask(ProjectFile file, int days)
+   {
+      Task task = file.addTask();
+      task.setName("Task " + task.getID());
+      task.setDuration(Duration.getInstance(days, TimeUnit.DAYS));
+      return task;
+   }
+
+   /**
+    * Assert the early and late dates for a task.
+    *
+    * @param task task
+    * @param earlyStart expected early start
+    * @param earlyFinish expected early finish
+    * @param lateStart expected late start
+    * @param lateFinish expected late finish
+    * @throws Exception
+    */
+   private void assertDates(Task task, String earlyStart, String earlyFinish, String lateStart, String lateFinish) throws Exception
+   {
+      assertEquals(task.getName(), parse(earlyStart), task.getEarlyStart());
+      assertEquals(task.getName(), parse(earlyFinish), task.getEarlyFinish());
+      assertEquals(task.getName(), parse(lateStart), task.getLateStart());
+      assertEquals(task.getName(), parse(lateFinish), task.getLateFinish());
+   }
+
+   /**
+    * Parse a date.
+    *
+    * @param value date text
+    * @return Date instance
+    * @throws Exception
+    */
+   private Date parse(String value) throws Exception
+   {
+      return m_format.parse(value);
+   }
+
+   private final DateFormat m_format = new SimpleDateFormat("dd/MM/yyyy HH:mm");
+}
@@ -0,0 +1,171 @@
+/*
+ * file:       FieldStoreTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       06/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Random;
+
+import net.sf.mpxj.AssignmentField;
+import net.sf.mpxj.FieldContainer;
+import net.sf.mpxj.FieldStoreType;
+import net.sf.mpxj.FieldType;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.ResourceField;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.common.ArrayFieldStore;
+import net.sf.mpxj.common.SparseFieldStore;
+import net.sf.mpxj.mpp.MPPReader;
+import net.sf.mpxj.reader.UniversalProjectReader;
+
+import org.junit.Test;
+
+/**
+ * Tests to exercise the field store implementations.
+ */
+public class FieldStoreTest
+{
+   /**
+    * Exercise the sparse field store with a random sequence of updates,
+    * using the array field store to provide the expected values.
+    */
+   @Test public void testSparseFieldStore()
+   {
+      int size = TaskField.MAX_VALUE;
+      ArrayFieldStore expected = new ArrayFieldStore(size);
+      SparseFieldStore actual = new SparseFieldStore(size);
+      Random random = new Random(1);
+
+      for (int loop = 0; loop < 100000; loop++)
+      {
+         int index = random.nextInt(size);
+         Object value = random.nextInt(3) == 0 ? null : Integer.valueOf(loop);
+         expected.set(index, value);
+         actual.set(index, value);
+
+         int check = random.nextInt(size);
+         assertEquals(expected.get(check), actual.get(check));
+      }
+
+      int count = 0;
+      for (int index = 0; index < size; index++)
+      {
+         assertEquals(expected.get(index), actual.get(index));
+         if (expected.get(index) != null)
+         {
+            ++count;
+         }
+      }
+      assertEquals(count, actual.size());
+   }
+
+   /**
+    * Ensure that the same field values are read from an MPP file
+    * regardless of the field store type.
+    *
+    * @throws Exception
+    */
+   @Test public void testReadProject() throws Exception
+   {
+      String fileName = MpxjTestData.filePath("mpp14assignmentfields.mpp");
+      ProjectFile arrayFile = read(fileName, FieldStoreType.ARRAY);
+      ProjectFile sparseFile = read(fileName, FieldStoreType.SPARSE);
+
+      assertEquals(FieldStoreType.SPARSE, sparseFile.getProjectConfig().getFieldStoreType());
+
+      assertEquals(arrayFile.getTasks().size(), sparseFile.getTasks().size());
+      for (int index = 0; index < arrayFile.getTasks().size(); index++)
+      {
+         compare(TaskField.values(), arrayFile.getTasks().get(index), sparseFile.getTasks().get(index));
+      }
+
+      assertEquals(arrayFile.getResources().size(), sparseFile.getResources().size());
+      for (int index = 0; index < arrayFile.getResources().size(); index++)
+      {
+         compare(ResourceField.values(), arrayFile.getResources().get(index), sparseFile.getResources().get(index));
+      }
+
+      assertEquals(arrayFile.getResourceAssignments().size(), sparseFile.getResourceAssignments().size());
+      for (int index = 0; index < arrayFile.getResourceAssignments().size(); index++)
+      {
+         compare(AssignmentField.values(), arrayFile.getResourceAssignments().get(index), sparseFile.getResourceAssignments().get(index));
+      }
+   }
+
+   /**
+    * Ensure that the universal project reader passes the field
+    * store type to the reader it uses.
+    *
+    * @throws Exception
+    */
+   @Test public void testUniversalProjectReader() throws Exception
+   {
+      UniversalProjectReader reader = new UniversalProjectReader();
+      assertEquals(FieldStoreType.ARRAY, reader.read(MpxjTestData.filePath("mspdirelations.xml")).getProjectConfig().getFieldStoreType());
+
+      reader.setFieldStoreType(FieldStoreType.SPARSE);
+      assertEquals(FieldStoreType.SPARSE, reader.read(MpxjTestData.filePath("mspdirelations.xml")).getProjectConfig().getFieldStoreType());
+      assertEquals(FieldStoreType.SPARSE, reader.read(MpxjTestData.filePath("mpp14assignmentfields.mpp")).getProjectConfig().getFieldStoreType());
+   }
+
+   /**
+    * Read a project using the requested field store type.
+    *
+    * @param fileName file name
+    * @param type field store type
+    * @return ProjectFile instance
+    * @throws Exception
+    */
+   private ProjectFile read(String fileName, FieldStoreType type) throws Exception
+   {
+      MPPReader reader = new MPPReader();
+      reader.setFieldStoreType(type);
+      return reader.read(fileName);
+   }
+
+   /**
+    * Compare the cached field values of two entities.
+    *
+    * @param fields fields to compare
+    * @param expected expected values
+    * @param actual actual values
+    */
+   private void compare(FieldType[] fields, FieldContainer expected, FieldContainer actual)
+   {
+      for (FieldType field : fields)
+      {
+         Object expectedValue = expected.getCachedValue(field);
+         Object actualValue = actual.getCachedValue(field);
+         if (expectedValue instanceof List)
+         {
+            assertEquals(field.toString(), ((List<?>) expectedValue).size(), ((List<?>) actualValue).size());
+         }
+         else
+         {
+            assertEquals(field.toString(), expectedValue == null ? null : expectedValue.toString(), actualValue == null ? null : actualValue.toString());
+         }
+      }
+   }
+}
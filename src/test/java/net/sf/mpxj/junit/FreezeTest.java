@@ -0,0 +1,372 @@
+/*
+ * file:       FreezeTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.RelationType;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.mpp.MPPReader;
+
+import org.junit.Test;
+
+/**
+ * Tests to exercise frozen projects.
+ */
+public class FreezeTest
+{
+   /**
+    * Ensure that a frozen project cannot be modified, but that
+    * values can still be read.
+    */
+   @Test public void testModification() throws Exception
+   {
+      ProjectFile file = new MPPReader().read(MpxjTestData.filePath("mpp9timephased.mpp"));
+      file.freeze();
+      assertTrue(file.getFrozen());
+
+      Task task = file.getTaskByID(Integer.valueOf(1));
+      String name = task.getName();
+      task.setName(name);
+      assertEquals(name, task.getName());
+
+      try
+      {
+         task.setName(name + " changed");
+         fail("Expected exception");
+      }
+
+      catch (UnsupportedOperationException ex)
+      {
+         // expected
+      }
+      assertEquals(name, task.getName());
+
+      try
+      {
+         file.getProjectProperties().setAuthor("Changed");
+         fail("Expected exception");
+      }
+
+      catch (UnsupportedOperationException ex)
+      {
+         // expected
+      }
+
+      ProjectCalendar calendar = file.getDefaultCalendar();
+      assertTrue(calendar.getFrozen());
+      try
+      {
+         calendar.addCalendarException(new Date(), new Date());
+         fail("Expected exception");
+      }
+
+      catch (UnsupportedOperationException ex)
+      {
+         // expected
+      }
+   }
+
+   /**
+    * Ensure that the structure of a frozen project cannot be modified.
+    */
+   @Test public void testStructureModification() throws Exception
+   {
+      final ProjectFile file = new MPPReader().read(MpxjTestData.filePath("mpp9timephased.mpp"));
+      file.freeze();
+
+      final Task task = file.getTaskByID(Integer.valueOf(1));
+      final Task other = file.getTaskByID(Integer.valueOf(2));
+      final Resource resource = file.getResources().get(1);
+      final int taskCount = file.getTasks().size();
+      final int childCount = task.getChildTasks().size();
+      final int predecessorCount = task.getPredecessors().size();
+      final int assignmentCount = task.getResourceAssignments().size();
+
+      assertFrozen(new Runnable()
+      {
+         @Override public void run()
+         {
+            file.addTask();
+         }
+      });
+
+      assertFrozen(new Runnable()
+      {
+         @Override public void run()
+         {
+            file.removeTask(other);
+         }
+      });
+
+      assertFrozen(new Runnable()
+      {
+         @Override public void run()
+         {
+            file.getTasks().add();
+         }
+      });
+
+      assertFrozen(new Runnable()
+      {
+         @Override public void run()
+         {
+            file.getTasks().insertTask(null, task);
+         }
+      });
+
+      assertFrozen(new Runnable()
+      {
+         @Override public void run()
+         {
+            file.getTasks().moveTask(other, null, task);
+         }
+      });
+
+      assertFrozen(new Runnable()
+      {
+         @Override public void run()
+         {
+            file.getTasks().deleteTask(other);
+         }
+      });
+
+      assertFrozen(new Runnable()
+      {
+         @Override public void run()
+         {
+            file.getChildTasks().clear();
+         }
+      });
+
+      assertFrozen(new Runnable()
+      {
+         @Override public void run()
+         {
+            task.addTask();
+         }
+      });
+
+      assertFrozen(new Runnable()
+      {
+         @Override public void run()
+         {
+            task.addChildTask(other);
+         }
+      });
+
+      assertFrozen(new Runnable()
+      {
+         @Override public void run()
+         {
+            task.getChildTasks().add(other);
+         }
+      });
+
+      assertFrozen(new Runnable()
+      {
+         @Override public void run()
+         {
+            task.addPredecessor(other, RelationType.FINISH_START, null);
+         }
+      });
+
+      assertFrozen(new Runnable()
+      {
+         @Override public void run()
+         {
+            task.removePredecessor(other, RelationType.FINISH_START, null);
+         }
+      });
+
+      assertFrozen(new Runnable()
+      {
+         @Override public void run()
+         {
+            task.getPredecessors().clear();
+         }
+      });
+
+      assertFrozen(new Runnable()
+      {
+         @Override public void run()
+         {
+            task.addResourceAssignment(resource);
+         }
+      });
+
+      assertFrozen(new Runnable()
+      {
+         @Override public void run()
+         {
+            task.getResourceAssignments().clear();
+         }
+      });
+
+      assertFrozen(new Runnable()
+      {
+         @Override public void run()
+         {
+            resource.getTaskAssignments().clear();
+         }
+      });
+
+      assertFrozen(new Runnable()
+      {
+         @Override public void run()
+         {
+            file.getResourceAssignments().clear();
+         }
+      });
+
+      assertEquals(taskCount, file.getTasks().size());
+      assertEquals(childCount, task.getChildTasks().size());
+      assertEquals(predecessorCount, task.getPredecessors().size());
+      assertEquals(assignmentCount, task.getResourceAssignments().size());
+   }
+
+   /**
+    * Ensure that multiple threads reading from a frozen project
+    * see the same values as a single thread.
+    */
+   @Test public void testConcurrentReads() throws Exception
+   {
+      final ProjectFile file = new MPPReader().read(MpxjTestData.filePath("mpp9timephased.mpp"));
+      file.freeze();
+
+      final String expected = readProject(file);
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try
+      {
+         List<Future<String>> futures = new ArrayList<Future<String>>();
+         for (int index = 0; index < 8; index++)
+         {
+            futures.add(executor.submit(new Callable<String>()
+            {
+               @Override public String call()
+               {
+                  return readProject(file);
+               }
+            }));
+         }
+
+         for (Future<String> future : futures)
+         {
+            assertEquals(expected, future.get());
+         }
+      }
+
+      finally
+      {
+         executor.shutdown();
+      }
+   }
+
+   /**
+    * Ensure that the supplied operation fails because the project is frozen.
+    *
+    * @param operation operation to attempt
+    */
+   private void assertFrozen(Runnable operation)
+   {
+      try
+      {
+         operation.run();
+         fail("Expected exception");
+      }
+
+      catch (UnsupportedOperationException ex)
+      {
+         // expected
+      }
+   }
+
+   /**
+    * Read values from the project, including calculations
+    * which use the project's calendars.
+    *
+    * @param file project file
+    * @return text representation of the values read
+    */
+   String readProject(ProjectFile file)
+   {
+      StringBuilder sb = new StringBuilder();
+      ProjectCalendar calendar = file.getDefaultCalendar();
+      Duration day = Duration.getInstance(1, TimeUnit.DAYS);
+
+      for (Task task : file.getTasks())
+      {
+         for (TaskField field : TaskField.values())
+         {
+            sb.append(task.getCurrentValue(field));
+            sb.append(',');
+         }
+
+         Date start = task.getStart();
+         Date finish = task.getFinish();
+         if (start != null && finish != null)
+         {
+            sb.append(calendar.getWork(start, finish, TimeUnit.HOURS));
+            sb.append(',');
+            sb.append(calendar.getDate(start, day, false));
+            sb.append(',');
+            sb.append(calendar.getStartTime(start));
+         }
+         sb.append('\n');
+      }
+
+      for (Resource resource : file.getResources())
+      {
+         sb.append(resource.getName());
+         sb.append(',');
+         sb.append(resource.getWork());
+         sb.append('\n');
+      }
+
+      for (ResourceAssignment assignment : file.getResourceAssignments())
+      {
+         sb.append(assignment.getTimephasedWork());
+         sb.append(',');
+         sb.append(assignment.getTimephasedCost());
+         sb.append('\n');
+      }
+
+      return sb.toString();
+   }
+}
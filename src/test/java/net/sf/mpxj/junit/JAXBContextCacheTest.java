@@ -0,0 +1,99 @@
+/*
+ * file:       JAXBContextCacheTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+
+import net.sf.mpxj.common.JAXBContextCache;
+
+import org.junit.Test;
+
+/**
+ * Tests for JAXBContextCache.
+ */
+public class JAXBContextCacheTest
+{
+   /**
+    * Ensure that a context is created once and shared.
+    */
+   @Test public void testGetContext() throws Exception
+   {
+      JAXBContext context = JAXBContextCache.getContext(JAXBContextCache.PLANNER);
+      assertNotNull(context);
+      assertSame(context, JAXBContextCache.getContext(JAXBContextCache.PLANNER));
+      assertTrue(JAXBContextCache.getInitialisationTime(JAXBContextCache.PLANNER) >= 0);
+      assertTrue(JAXBContextCache.getInitialisationTimes().containsKey(JAXBContextCache.PLANNER));
+   }
+
+   /**
+    * Ensure that contexts created using an executor are used by getContext.
+    */
+   @Test public void testInitialise() throws Exception
+   {
+      ExecutorService executor = Executors.newFixedThreadPool(2);
+      try
+      {
+         JAXBContextCache.initialise(Arrays.asList(JAXBContextCache.MSPDI, JAXBContextCache.PRIMAVERA), executor);
+         JAXBContext mspdi = JAXBContextCache.getContext(JAXBContextCache.MSPDI);
+         JAXBContext primavera = JAXBContextCache.getContext(JAXBContextCache.PRIMAVERA);
+         assertNotSame(mspdi, primavera);
+         assertTrue(JAXBContextCache.getInitialisationTime(JAXBContextCache.MSPDI) >= 0);
+         assertTrue(JAXBContextCache.getInitialisationTime(JAXBContextCache.PRIMAVERA) >= 0);
+      }
+
+      finally
+      {
+         executor.shutdown();
+      }
+   }
+
+   /**
+    * Ensure that a failure to create a context is reported each time it is requested.
+    */
+   @Test public void testInvalidContextPath() throws Exception
+   {
+      String contextPath = "net.sf.mpxj.missing.schema";
+      for (int attempt = 0; attempt < 2; attempt++)
+      {
+         try
+         {
+            JAXBContextCache.getContext(contextPath);
+            fail("Expected JAXBException");
+         }
+
+         catch (JAXBException ex)
+         {
+            // expected
+         }
+      }
+      assertEquals(-1, JAXBContextCache.getInitialisationTime(contextPath));
+   }
+}
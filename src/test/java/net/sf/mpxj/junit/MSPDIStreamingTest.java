@@ -0,0 +1,237 @@
+/*
+ * file:       MSPDIStreamingTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.mpxj.AssignmentField;
+import net.sf.mpxj.DataType;
+import net.sf.mpxj.FieldContainer;
+import net.sf.mpxj.FieldType;
+import net.sf.mpxj.MPXJException;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectField;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.ResourceField;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.mspdi.MSPDIReader;
+import net.sf.mpxj.mspdi.MSPDIWriter;
+import net.sf.mpxj.reader.UniversalProjectReader;
+
+import org.junit.Test;
+
+/**
+ * Ensure that reading and writing MSPDI files in streaming mode
+ * produces the same results as working with the complete JAXB structure.
+ */
+public class MSPDIStreamingTest
+{
+   /**
+    * Compare the results of reading each MSPDI test file.
+    */
+   @Test public void testStreaming() throws Exception
+   {
+      List<File> files = new ArrayList<File>();
+      listFiles(files, new File(MpxjTestData.filePath("")));
+      int count = 0;
+
+      for (File file : files)
+      {
+         ProjectFile expected;
+         try
+         {
+            expected = new MSPDIReader().read(file);
+         }
+
+         catch (MPXJException ex)
+         {
+            // Not an MSPDI file
+            continue;
+         }
+
+         MSPDIReader reader = new MSPDIReader();
+         reader.setStreaming(true);
+         ProjectFile actual = reader.read(file);
+         String name = file.getName();
+         ++count;
+
+         compare(name, expected.getProjectProperties(), actual.getProjectProperties(), ProjectField.values());
+
+         assertEquals(name, expected.getCalendars().size(), actual.getCalendars().size());
+         for (ProjectCalendar calendar : expected.getCalendars())
+         {
+            assertEquals(name, calendar.toString(), actual.getCalendarByUniqueID(calendar.getUniqueID()).toString());
+         }
+
+         assertEquals(name, expected.getResources().size(), actual.getResources().size());
+         for (int index = 0; index < expected.getResources().size(); index++)
+         {
+            Resource expectedResource = expected.getResources().get(index);
+            Resource actualResource = actual.getResources().get(index);
+            compare(name, expectedResource, actualResource, ResourceField.values());
+         }
+
+         assertEquals(name, expected.getTasks().size(), actual.getTasks().size());
+         for (int index = 0; index < expected.getTasks().size(); index++)
+         {
+            Task expectedTask = expected.getTasks().get(index);
+            Task actualTask = actual.getTasks().get(index);
+            compare(name, expectedTask, actualTask, TaskField.values());
+            assertEquals(name, String.valueOf(expectedTask.getParentTask()), String.valueOf(actualTask.getParentTask()));
+            assertEquals(name, expectedTask.getPredecessors().toString(), actualTask.getPredecessors().toString());
+         }
+
+         assertEquals(name, expected.getResourceAssignments().size(), actual.getResourceAssignments().size());
+         for (int index = 0; index < expected.getResourceAssignments().size(); index++)
+         {
+            ResourceAssignment expectedAssignment = expected.getResourceAssignments().get(index);
+            ResourceAssignment actualAssignment = actual.getResourceAssignments().get(index);
+            compare(name, expectedAssignment, actualAssignment, AssignmentField.values());
+            assertEquals(name, String.valueOf(expectedAssignment.getTimephasedWork()), String.valueOf(actualAssignment.getTimephasedWork()));
+         }
+      }
+
+      assertTrue(count != 0);
+   }
+
+   /**
+    * Compare the output of the MSPDI writer with and without streaming.
+    */
+   @Test public void testStreamingWriter() throws Exception
+   {
+      int count = 0;
+
+      for (File file : new File(MpxjTestData.filePath("")).listFiles())
+      {
+         if (file.isDirectory())
+         {
+            continue;
+         }
+
+         //
+         // The writer may update the project, so we read it once for each writer.
+         // If the file has no current date, it defaults to the time the file
+         // was read, so we ensure that both projects use the same value.
+         //
+         ProjectFile project1;
+         byte[] expected;
+
+         try
+         {
+            project1 = new UniversalProjectReader().read(file);
+            if (project1 == null)
+            {
+               continue;
+            }
+            expected = write(project1, false);
+         }
+
+         catch (Exception ex)
+         {
+            // Not a file we can read and write
+            continue;
+         }
+
+         ProjectFile project2 = new UniversalProjectReader().read(file);
+         project2.getProjectProperties().setCurrentDate(project1.getProjectProperties().getCurrentDate());
+         byte[] actual = write(project2, true);
+         assertArrayEquals(file.getName(), expected, actual);
+         ++count;
+      }
+
+      assertTrue(count != 0);
+   }
+
+   /**
+    * Write a project as MSPDI.
+    *
+    * @param project project to write
+    * @param streaming true if the streaming writer should be used
+    * @return MSPDI data
+    */
+   private byte[] write(ProjectFile project, boolean streaming) throws Exception
+   {
+      MSPDIWriter writer = new MSPDIWriter();
+      writer.setWriteTimephasedData(true);
+      writer.setStreaming(streaming);
+      ByteArrayOutputStream stream = new ByteArrayOutputStream();
+      writer.write(project, stream);
+      return stream.toByteArray();
+   }
+
+   /**
+    * Compare the cached values of two entities.
+    *
+    * @param name file name
+    * @param expected expected values
+    * @param actual actual values
+    * @param fields fields to compare
+    */
+   private void compare(String name, FieldContainer expected, FieldContainer actual, FieldType[] fields)
+   {
+      for (FieldType field : fields)
+      {
+         if (field.getDataType() != DataType.RELATION_LIST)
+         {
+            assertEquals(name + " " + field, String.valueOf(expected.getCachedValue(field)), String.valueOf(actual.getCachedValue(field)));
+         }
+      }
+   }
+
+   /**
+    * Recursively list XML files.
+    *
+    * @param list list of files
+    * @param parent parent directory
+    */
+   private void listFiles(List<File> list, File parent)
+   {
+      File[] fileList = parent.listFiles();
+      if (fileList != null)
+      {
+         for (File file : fileList)
+         {
+            if (file.isDirectory())
+            {
+               listFiles(list, file);
+            }
+            else
+            {
+               if (file.getName().endsWith(".xml"))
+               {
+                  list.add(file);
+               }
+            }
+         }
+      }
+   }
+}
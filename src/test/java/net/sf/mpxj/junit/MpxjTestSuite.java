@@ -35,6 +35,9 @@ import net.sf.mpxj.junit.calendar.InvalidCalendarTest;
 import net.sf.mpxj.junit.calendar.RecurringExceptionsTest;
 import net.sf.mpxj.junit.legacy.BasicTest;
 import net.sf.mpxj.junit.primavera.PrimaveraDatabaseReaderTest;
+import net.sf.mpxj.junit.primavera.PrimaveraPMFileReaderTest;
+import net.sf.mpxj.junit.primavera.PrimaveraPMFileWriterTest;
+import net.sf.mpxj.junit.primavera.PrimaveraXERFileReaderTest;
 import net.sf.mpxj.junit.project.DefaultDurationFormatTest;
 import net.sf.mpxj.junit.project.ProjectPropertiesOnlyTest;
 import net.sf.mpxj.junit.project.ProjectPropertiesTest;
@@ -133,6 +136,7 @@ import net.sf.mpxj.junit.task.TaskTextValuesTest;
    ProjectValueListsTest.class,
    CalendarCalendarsTest.class,
    PrimaveraDatabaseReaderTest.class,
+   PrimaveraXERFileReaderTest.class,
    TaskContainerTest.class,
    AvailabilityTableTest.class,
    AssignmentAssignmentsTest.class,
@@ -145,7 +149,20 @@ import net.sf.mpxj.junit.task.TaskTextValuesTest;
    ResourceTextTest.class,
    RecurringExceptionsTest.class,
    RecurringDataTest.class,
-   CustomerDataTest.class
+   CustomerDataTest.class,
+   FieldStoreTest.class,
+   CompactTimephasedListTest.class,
+   TimephasedAggregatorTest.class,
+   CriticalPathAnalyzerTest.class,
+   RelationContainerTest.class,
+   BulkLoadTest.class,
+   FreezeTest.class,
+   SnapshotTest.class,
+   CachingProjectReaderTest.class,
+   MSPDIStreamingTest.class,
+   PrimaveraPMFileWriterTest.class,
+   PrimaveraPMFileReaderTest.class,
+   JAXBContextCacheTest.class
 }) public class MpxjTestSuite
 {
    // No class body required
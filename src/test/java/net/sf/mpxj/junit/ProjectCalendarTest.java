@@ -710,4 +710,87 @@ public class ProjectCalendarTest
       //
       assertNull(cal.getStartTime(df.parse("11/10/2003 00:00")));
    }
+
+   /**
+    * Exercise the calendar calculations over long date ranges.
+    *
+    * @throws Exception
+    */
+   @Test public void testLongRanges() throws Exception
+   {
+      ProjectFile file = new ProjectFile();
+      ProjectCalendar cal = file.addDefaultBaseCalendar();
+      SimpleDateFormat df = new SimpleDateFormat("dd/MM/yyyy HH:mm");
+
+      Date startDate = df.parse("06/01/2003 10:00");
+      Date midDate = df.parse("17/07/2006 13:00");
+      Date endDate = df.parse("10/11/2010 15:30");
+
+      //
+      // Work is additive across adjacent ranges, and negative when reversed
+      //
+      double total = cal.getWork(startDate, endDate, TimeUnit.MINUTES).getDuration();
+      double first = cal.getWork(startDate, midDate, TimeUnit.MINUTES).getDuration();
+      double second = cal.getWork(midDate, endDate, TimeUnit.MINUTES).getDuration();
+      assertEquals(total, first + second, 0.0);
+      assertEquals(-total, cal.getWork(endDate, startDate, TimeUnit.MINUTES).getDuration(), 0.0);
+
+      //
+      // Forward and backward date calculations agree
+      //
+      Duration duration = Duration.getInstance(total, TimeUnit.MINUTES);
+      assertEquals(endDate, cal.getDate(startDate, duration, false));
+      assertEquals(startDate, cal.getStartDate(endDate, duration));
+
+      //
+      // Adding an exception is reflected in subsequent calculations
+      //
+      cal.addCalendarException(df.parse("17/07/2006 00:00"), df.parse("17/07/2006 23:59"));
+      assertEquals(total - 480, cal.getWork(startDate, endDate, TimeUnit.MINUTES).getDuration(), 0.0);
+      assertEquals(df.parse("11/11/2010 15:30"), cal.getDate(startDate, duration, false));
+   }
+
+   /**
+    * Ensure that adding working time in milliseconds matches the
+    * equivalent Date based calculations.
+    *
+    * @throws Exception
+    */
+   @Test public void testAddWorkingTime() throws Exception
+   {
+      ProjectFile file = new ProjectFile();
+      ProjectCalendar cal = file.addDefaultBaseCalendar();
+      SimpleDateFormat df = new SimpleDateFormat("dd/MM/yyyy HH:mm");
+      cal.addCalendarException(df.parse("04/04/2018 00:00"), df.parse("06/04/2018 23:59"));
+
+      Date date = df.parse("01/01/2018 00:00");
+      Date endDate = df.parse("01/01/2019 00:00");
+      while (date.getTime() < endDate.getTime())
+      {
+         for (double minutes : new double[]
+         {
+            30,
+            480,
+            2400,
+            100000
+         })
+         {
+            Duration duration = Duration.getInstance(minutes, TimeUnit.MINUTES);
+            assertEquals(cal.getDate(date, duration, false).getTime(), cal.addWorkingTime(date.getTime(), minutes, true));
+            assertEquals(cal.getDate(date, duration, true).getTime(), cal.addWorkingTime(date.getTime(), minutes, false));
+            assertEquals(cal.getStartDate(date, duration).getTime(), cal.addWorkingTime(date.getTime(), -minutes, false));
+         }
+         assertEquals(cal.getNextWorkStart(date).getTime(), cal.addWorkingTime(date.getTime(), 0, false));
+
+         date = new Date(date.getTime() + 97 * 60 * 1000);
+      }
+
+      //
+      // Changes to the calendar are reflected in subsequent calculations
+      //
+      Date startDate = df.parse("16/07/2018 08:00");
+      assertEquals(df.parse("16/07/2018 17:00").getTime(), cal.addWorkingTime(startDate.getTime(), 480, true));
+      cal.addCalendarException(df.parse("16/07/2018 00:00"), df.parse("16/07/2018 23:59"));
+      assertEquals(df.parse("17/07/2018 17:00").getTime(), cal.addWorkingTime(startDate.getTime(), 480, true));
+   }
 }
@@ -0,0 +1,321 @@
+/*
+ * file:       RelationContainerTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Relation;
+import net.sf.mpxj.RelationContainer;
+import net.sf.mpxj.RelationType;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests to exercise adding, removing and locating task relations.
+ */
+public class RelationContainerTest
+{
+   /**
+    * Ensure that duplicate relations are not created, and that relations
+    * with a different type or lag are retained.
+    */
+   @Test public void testAddPredecessor()
+   {
+      ProjectFile file = new ProjectFile();
+      Task task1 = file.addTask();
+      Task task2 = file.addTask();
+
+      Relation relation1 = task2.addPredecessor(task1, RelationType.FINISH_START, null);
+      Relation relation2 = task2.addPredecessor(task1, RelationType.FINISH_START, Duration.getInstance(0, TimeUnit.HOURS));
+      assertSame(relation1, relation2);
+      assertEquals(1, task2.getPredecessors().size());
+      assertEquals(1, task1.getSuccessors().size());
+
+      Relation relation3 = task2.addPredecessor(task1, RelationType.START_START, null);
+      Relation relation4 = task2.addPredecessor(task1, RelationType.FINISH_START, Duration.getInstance(1, TimeUnit.DAYS));
+      assertNotSame(relation1, relation3);
+      assertNotSame(relation1, relation4);
+      assertEquals(3, task2.getPredecessors().size());
+      assertEquals(3, task1.getSuccessors().size());
+
+      assertTrue(task2.isPredecessor(task1));
+      assertTrue(task1.isSucessor(task2));
+      assertFalse(task1.isPredecessor(task2));
+      assertFalse(task2.isSucessor(task1));
+
+      assertTrue(task2.removePredecessor(task1, RelationType.START_START, null));
+      assertFalse(task2.removePredecessor(task1, RelationType.START_START, null));
+      assertEquals(2, task2.getPredecessors().size());
+      assertEquals(2, task1.getSuccessors().size());
+      assertSame(relation1, task2.getPredecessors().get(0));
+      assertSame(relation4, task2.getPredecessors().get(1));
+   }
+
+   /**
+    * Exercise a task with enough relations for them to be indexed.
+    */
+   @Test public void testLargeNetwork()
+   {
+      ProjectFile file = new ProjectFile();
+      RelationContainer relations = file.getRelations();
+      Task milestone = file.addTask();
+      List<Task> tasks = new ArrayList<Task>();
+      for (int index = 0; index < 100; index++)
+      {
+         Task task = file.addTask();
+         tasks.add(task);
+         relations.add(milestone, task, RelationType.FINISH_START, null);
+         relations.add(milestone, task, RelationType.FINISH_START, null);
+      }
+
+      assertEquals(100, milestone.getPredecessors().size());
+      assertEquals(100, relations.size());
+
+      for (int index = 0; index < tasks.size(); index++)
+      {
+         Task task = tasks.get(index);
+         assertTrue(relations.contains(milestone, task));
+         assertTrue(milestone.isPredecessor(task));
+         assertTrue(task.isSucessor(milestone));
+         assertSame(milestone.getPredecessors().get(index), relations.get(milestone, task, RelationType.FINISH_START, null));
+         assertNull(relations.get(milestone, task, RelationType.START_START, null));
+      }
+
+      for (int index = 0; index < tasks.size(); index += 2)
+      {
+         assertTrue(relations.remove(milestone, tasks.get(index), RelationType.FINISH_START, null));
+      }
+
+      assertEquals(50, milestone.getPredecessors().size());
+      for (int index = 0; index < tasks.size(); index++)
+      {
+         Task task = tasks.get(index);
+         boolean expected = index % 2 != 0;
+         assertEquals(expected, milestone.isPredecessor(task));
+         assertEquals(expected, task.isSucessor(milestone));
+         assertEquals(expected ? 1 : 0, task.getSuccessors().size());
+      }
+
+      int count = 0;
+      for (Relation relation : relations)
+      {
+         assertSame(milestone, relation.getSourceTask());
+         ++count;
+      }
+      assertEquals(50, count);
+   }
+
+   /**
+    * Remove relations from a task with a large number of predecessors,
+    * ensuring that the order of the remaining relations is preserved.
+    */
+   @Test public void testHighFanInRemoval()
+   {
+      ProjectFile file = new ProjectFile();
+      RelationContainer relations = file.getRelations();
+      Task milestone = file.addTask();
+      List<Task> tasks = new ArrayList<Task>();
+      for (int index = 0; index < 20000; index++)
+      {
+         Task task = file.addTask();
+         tasks.add(task);
+         relations.add(milestone, task, RelationType.FINISH_START, null);
+      }
+
+      //
+      // Remove every third relation, reading the list part way through
+      //
+      for (int index = 0; index < tasks.size(); index += 3)
+      {
+         assertTrue(relations.remove(milestone, tasks.get(index), RelationType.FINISH_START, null));
+         assertFalse(relations.remove(milestone, tasks.get(index), RelationType.FINISH_START, null));
+         if (index == 9000)
+         {
+            assertSame(tasks.get(1), milestone.getPredecessors().get(0).getTargetTask());
+         }
+      }
+
+      List<Relation> predecessors = milestone.getPredecessors();
+      int expectedIndex = 1;
+      for (Relation relation : predecessors)
+      {
+         assertSame(tasks.get(expectedIndex), relation.getTargetTask());
+         expectedIndex += expectedIndex % 3 == 1 ? 1 : 2;
+      }
+      assertEquals(13333, predecessors.size());
+
+      //
+      // Remove the remaining relations in reverse order
+      //
+      for (int index = tasks.size() - 1; index >= 0; index--)
+      {
+         Task task = tasks.get(index);
+         assertEquals(index % 3 != 0, relations.remove(milestone, task, RelationType.FINISH_START, null));
+         assertFalse(milestone.isPredecessor(task));
+         assertTrue(task.getSuccessors().isEmpty());
+      }
+      assertTrue(milestone.getPredecessors().isEmpty());
+
+      //
+      // Ensure that the list is still usable once empty
+      //
+      relations.add(milestone, tasks.get(0), RelationType.FINISH_START, null);
+      assertEquals(1, milestone.getPredecessors().size());
+      assertSame(tasks.get(0), milestone.getPredecessors().get(0).getTargetTask());
+   }
+
+   /**
+    * Read, replace and remove relations by position while the
+    * list contains gaps left by removed relations.
+    */
+   @Test public void testPositionalAccessWithGaps()
+   {
+      ProjectFile file = new ProjectFile();
+      RelationContainer relations = file.getRelations();
+      Task milestone = file.addTask();
+      List<Task> tasks = new ArrayList<Task>();
+      for (int index = 0; index < 40; index++)
+      {
+         Task task = file.addTask();
+         tasks.add(task);
+         relations.add(milestone, task, RelationType.FINISH_START, null);
+      }
+
+      relations.remove(milestone, tasks.get(3), RelationType.FINISH_START, null);
+      relations.remove(milestone, tasks.get(7), RelationType.FINISH_START, null);
+      tasks.remove(7);
+      tasks.remove(3);
+
+      List<Relation> predecessors = milestone.getPredecessors();
+      assertEquals(tasks.size(), predecessors.size());
+      for (int index = 0; index < tasks.size(); index++)
+      {
+         assertSame(tasks.get(index), predecessors.get(index).getTargetTask());
+      }
+
+      Relation replacement = new Relation(milestone, tasks.get(0), RelationType.START_START, Duration.getInstance(0, TimeUnit.DAYS));
+      Relation replaced = predecessors.set(5, replacement);
+      assertSame(tasks.get(5), replaced.getTargetTask());
+      assertSame(replacement, predecessors.get(5));
+      assertEquals(5, predecessors.indexOf(replacement));
+      predecessors.set(5, replaced);
+
+      Iterator<Relation> iter = predecessors.iterator();
+      int index = 0;
+      while (iter.hasNext())
+      {
+         Relation relation = iter.next();
+         assertSame(tasks.get(index), relation.getTargetTask());
+         if (index % 2 == 0)
+         {
+            iter.remove();
+         }
+         ++index;
+      }
+      assertEquals(tasks.size(), index);
+
+      assertEquals(tasks.size() / 2, predecessors.size());
+      for (index = 0; index < predecessors.size(); index++)
+      {
+         assertSame(tasks.get(index * 2 + 1), predecessors.get(index).getTargetTask());
+      }
+   }
+
+   /**
+    * Ensure that relations added in bulk are retained, and that
+    * duplicates are resolved to the existing relation.
+    */
+   @Test public void testAddAll()
+   {
+      ProjectFile file = new ProjectFile();
+      Task milestone = file.addTask();
+      Task first = file.addTask();
+      Relation existing = milestone.addPredecessor(first, RelationType.FINISH_START, null);
+
+      List<Relation> batch = new ArrayList<Relation>();
+      batch.add(new Relation(milestone, first, RelationType.FINISH_START, null));
+      for (int index = 0; index < 20; index++)
+      {
+         Relation relation = new Relation(milestone, file.addTask(), RelationType.FINISH_FINISH, Duration.getInstance(index, TimeUnit.HOURS));
+         relation.setUniqueID(Integer.valueOf(index));
+         batch.add(relation);
+      }
+
+      List<Relation> result = file.getRelations().addAll(batch);
+      assertEquals(batch.size(), result.size());
+      assertSame(existing, result.get(0));
+      for (int index = 1; index < batch.size(); index++)
+      {
+         assertSame(batch.get(index), result.get(index));
+         Task predecessor = batch.get(index).getTargetTask();
+         assertEquals(1, predecessor.getSuccessors().size());
+         Relation successor = predecessor.getSuccessors().get(0);
+         assertSame(milestone, successor.getTargetTask());
+         assertEquals(RelationType.FINISH_FINISH, successor.getType());
+      }
+      assertEquals(21, milestone.getPredecessors().size());
+      assertEquals(1, first.getSuccessors().size());
+   }
+
+   /**
+    * Ensure that relations added in bulk without a type or lag
+    * match relations added individually with the default type and lag.
+    */
+   @Test public void testAddAllDefaults()
+   {
+      ProjectFile file = new ProjectFile();
+      Task milestone = file.addTask();
+      List<Task> tasks = new ArrayList<Task>();
+      List<Relation> batch = new ArrayList<Relation>();
+      for (int index = 0; index < 20; index++)
+      {
+         Task task = file.addTask();
+         tasks.add(task);
+         batch.add(new Relation(milestone, task, null, null));
+         batch.add(new Relation(milestone, task, RelationType.FINISH_START, Duration.getInstance(0, TimeUnit.HOURS)));
+      }
+
+      List<Relation> result = file.getRelations().addAll(batch);
+      assertEquals(20, milestone.getPredecessors().size());
+      for (int index = 0; index < tasks.size(); index++)
+      {
+         Task task = tasks.get(index);
+         Relation relation = result.get(index * 2);
+         assertSame(relation, result.get(index * 2 + 1));
+         assertEquals(RelationType.FINISH_START, relation.getType());
+         assertEquals(0, relation.getLag().getDuration(), 0);
+         assertSame(relation, milestone.addPredecessor(task, null, null));
+         assertEquals(1, task.getSuccessors().size());
+      }
+      assertEquals(20, milestone.getPredecessors().size());
+   }
+}
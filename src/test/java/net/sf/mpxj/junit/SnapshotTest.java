@@ -0,0 +1,211 @@
+/*
+ * file:       SnapshotTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import net.sf.mpxj.AssignmentField;
+import net.sf.mpxj.DataType;
+import net.sf.mpxj.MPXJException;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Relation;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.ResourceField;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
+import net.sf.mpxj.mpp.MPPReader;
+import net.sf.mpxj.reader.UniversalProjectReader;
+import net.sf.mpxj.snapshot.SnapshotReader;
+import net.sf.mpxj.snapshot.SnapshotWriter;
+
+import org.junit.Test;
+
+/**
+ * Tests to exercise writing and reading project snapshots.
+ */
+public class SnapshotTest
+{
+   /**
+    * Ensure that a project read from a snapshot matches the original.
+    */
+   @Test public void testRoundTrip() throws Exception
+   {
+      ProjectFile original = new MPPReader().read(MpxjTestData.filePath("mpp9timephased.mpp"));
+      ProjectFile snapshot = new SnapshotReader().read(new ByteArrayInputStream(write(original)));
+
+      assertEquals(original.getProjectProperties().getProjectTitle(), snapshot.getProjectProperties().getProjectTitle());
+      assertEquals(original.getProjectProperties().getStartDate(), snapshot.getProjectProperties().getStartDate());
+
+      assertEquals(original.getCalendars().size(), snapshot.getCalendars().size());
+      for (ProjectCalendar expected : original.getCalendars())
+      {
+         ProjectCalendar actual = snapshot.getCalendarByUniqueID(expected.getUniqueID());
+         assertNotNull(actual);
+         assertEquals(expected.getName(), actual.getName());
+         assertEquals(expected.getCalendarExceptions().size(), actual.getCalendarExceptions().size());
+      }
+
+      assertEquals(original.getResources().size(), snapshot.getResources().size());
+      for (Resource expected : original.getResources())
+      {
+         Resource actual = snapshot.getResourceByUniqueID(expected.getUniqueID());
+         assertNotNull(actual);
+         for (ResourceField field : ResourceField.values())
+         {
+            assertEquals(field.toString(), String.valueOf(expected.getCachedValue(field)), String.valueOf(actual.getCachedValue(field)));
+         }
+      }
+
+      assertEquals(original.getTasks().size(), snapshot.getTasks().size());
+      for (Task expected : original.getTasks())
+      {
+         Task actual = snapshot.getTaskByUniqueID(expected.getUniqueID());
+         assertNotNull(actual);
+         assertEquals(expected.getParentTask() == null ? null : expected.getParentTask().getUniqueID(), actual.getParentTask() == null ? null : actual.getParentTask().getUniqueID());
+         for (TaskField field : TaskField.values())
+         {
+            if (field.getDataType() != DataType.RELATION_LIST)
+            {
+               assertEquals(field.toString(), String.valueOf(expected.getCachedValue(field)), String.valueOf(actual.getCachedValue(field)));
+            }
+         }
+         assertRelations(expected.getPredecessors(), actual.getPredecessors());
+      }
+
+      List<ResourceAssignment> expectedAssignments = original.getResourceAssignments();
+      List<ResourceAssignment> actualAssignments = snapshot.getResourceAssignments();
+      assertEquals(expectedAssignments.size(), actualAssignments.size());
+      for (int index = 0; index < expectedAssignments.size(); index++)
+      {
+         ResourceAssignment expected = expectedAssignments.get(index);
+         ResourceAssignment actual = actualAssignments.get(index);
+         for (AssignmentField field : AssignmentField.values())
+         {
+            assertEquals(field.toString(), String.valueOf(expected.getCachedValue(field)), String.valueOf(actual.getCachedValue(field)));
+         }
+         assertEquals(String.valueOf(expected.getTimephasedWork()), String.valueOf(actual.getTimephasedWork()));
+         assertEquals(String.valueOf(expected.getTimephasedActualWork()), String.valueOf(actual.getTimephasedActualWork()));
+      }
+   }
+
+   /**
+    * Ensure that the writer reports when data has been omitted from a snapshot.
+    */
+   @Test public void testPartial() throws Exception
+   {
+      SnapshotWriter writer = new SnapshotWriter();
+
+      ProjectFile file = new UniversalProjectReader().read(MpxjTestData.filePath("mspdirelations.xml"));
+      writer.write(file, new ByteArrayOutputStream());
+      assertFalse(writer.getPartial());
+
+      Task task = file.getTasks().get(1);
+      task.set(TaskField.TEXT1, new StringBuilder("Text"));
+      writer.write(file, new ByteArrayOutputStream());
+      assertTrue(writer.getPartial());
+
+      task.set(TaskField.TEXT1, "Text");
+      writer.write(file, new ByteArrayOutputStream());
+      assertFalse(writer.getPartial());
+
+      file = new MPPReader().read(MpxjTestData.filePath("mpp9timephased.mpp"));
+      assertFalse(file.getViews().isEmpty());
+      writer.write(file, new ByteArrayOutputStream());
+      assertTrue(writer.getPartial());
+   }
+
+   /**
+    * Ensure that a snapshot written by a different version is rejected.
+    */
+   @Test public void testInvalidSnapshot() throws Exception
+   {
+      ProjectFile original = new MPPReader().read(MpxjTestData.filePath("mpp9timephased.mpp"));
+      byte[] data = write(original);
+
+      byte[] version = data.clone();
+      version[8]++;
+      assertInvalid(version);
+
+      byte[] header = data.clone();
+      header[0] = 'X';
+      assertInvalid(header);
+   }
+
+   /**
+    * Write a project to a byte array.
+    *
+    * @param file project file
+    * @return snapshot data
+    */
+   private byte[] write(ProjectFile file) throws Exception
+   {
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      new SnapshotWriter().write(file, os);
+      return os.toByteArray();
+   }
+
+   /**
+    * Ensure that the snapshot data is rejected.
+    *
+    * @param data snapshot data
+    */
+   private void assertInvalid(byte[] data) throws Exception
+   {
+      try
+      {
+         new SnapshotReader().read(new ByteArrayInputStream(data));
+         fail("Expected exception");
+      }
+
+      catch (MPXJException ex)
+      {
+         // expected
+      }
+   }
+
+   /**
+    * Compare two lists of relations.
+    *
+    * @param expected expected relations
+    * @param actual actual relations
+    */
+   private void assertRelations(List<Relation> expected, List<Relation> actual)
+   {
+      assertEquals(expected.size(), actual.size());
+      for (int index = 0; index < expected.size(); index++)
+      {
+         Relation expectedRelation = expected.get(index);
+         Relation actualRelation = actual.get(index);
+         assertEquals(expectedRelation.getType(), actualRelation.getType());
+         assertEquals(expectedRelation.getLag(), actualRelation.getLag());
+         assertEquals(expectedRelation.getTargetTask().getUniqueID(), actualRelation.getTargetTask().getUniqueID());
+      }
+   }
+}
@@ -0,0 +1,234 @@
+/*
+ * file:       TimephasedAggregatorTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       21/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+
+package net.sf.mpxj.junit;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.sf.mpxj.DateRange;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.mpp.TimescaleUnits;
+import net.sf.mpxj.reader.UniversalProjectReader;
+import net.sf.mpxj.utility.TimephasedAggregation;
+import net.sf.mpxj.utility.TimephasedAggregator;
+import net.sf.mpxj.utility.TimephasedUtility;
+
+import org.junit.Test;
+
+/**
+ * Ensure that aggregated timephased data matches the totals
+ * calculated from the individual resource assignments.
+ */
+public class TimephasedAggregatorTest
+{
+   /**
+    * Test aggregation using MPP9 data.
+    *
+    * @throws Exception
+    */
+   @Test public void testMpp9() throws Exception
+   {
+      testAggregation("mpp9timephased.mpp");
+   }
+
+   /**
+    * Test aggregation using MPP12 data.
+    *
+    * @throws Exception
+    */
+   @Test public void testMpp12() throws Exception
+   {
+      testAggregation("mpp12timephased.mpp");
+   }
+
+   /**
+    * Test aggregation using MPP14 data.
+    *
+    * @throws Exception
+    */
+   @Test public void testMpp14() throws Exception
+   {
+      testAggregation("mpp14timephased.mpp");
+   }
+
+   /**
+    * Test aggregation using MSPDI data.
+    *
+    * @throws Exception
+    */
+   @Test public void testMspdi() throws Exception
+   {
+      testAggregation("mspditimephased.xml");
+   }
+
+   /**
+    * Aggregation is not supported for units of less than a day.
+    */
+   @Test(expected = UnsupportedOperationException.class) public void testHours()
+   {
+      new TimephasedAggregator().aggregate(new ProjectFile(), TimescaleUnits.HOURS, new Date(), 10);
+   }
+
+   /**
+    * Compare inline and concurrent aggregation with totals calculated
+    * from each assignment.
+    *
+    * @param name file name
+    * @throws Exception
+    */
+   private void testAggregation(String name) throws Exception
+   {
+      ProjectFile file = new UniversalProjectReader().read(MpxjTestData.filePath(name));
+      Date startDate = file.getProjectProperties().getStartDate();
+
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try
+      {
+         for (TimescaleUnits units : new TimescaleUnits[]
+         {
+            TimescaleUnits.DAYS,
+            TimescaleUnits.WEEKS,
+            TimescaleUnits.MONTHS
+         })
+         {
+            TimephasedAggregation inline = new TimephasedAggregator().aggregate(file, units, startDate, 40);
+            TimephasedAggregation concurrent = new TimephasedAggregator(executor).aggregate(file, units, startDate, 40);
+            testAggregation(file, units, inline);
+            testAggregation(file, units, concurrent);
+         }
+      }
+
+      finally
+      {
+         executor.shutdown();
+      }
+   }
+
+   /**
+    * Compare aggregated values with totals calculated from each assignment.
+    *
+    * @param file project file
+    * @param units timescale units
+    * @param aggregation aggregated values
+    */
+   private void testAggregation(ProjectFile file, TimescaleUnits units, TimephasedAggregation aggregation)
+   {
+      ArrayList<DateRange> ranges = new ArrayList<DateRange>(aggregation.getRanges());
+      TimephasedUtility utility = new TimephasedUtility();
+      Map<Integer, double[]> resourceWork = new HashMap<Integer, double[]>();
+      Map<Integer, double[]> resourceCost = new HashMap<Integer, double[]>();
+      Map<Integer, double[]> taskWork = new HashMap<Integer, double[]>();
+      Map<Integer, double[]> taskCost = new HashMap<Integer, double[]>();
+      int assignmentCount = 0;
+
+      for (ResourceAssignment assignment : file.getResourceAssignments())
+      {
+         if (assignment.getTimephasedWork().isEmpty())
+         {
+            continue;
+         }
+         ++assignmentCount;
+
+         List<Duration> work = utility.segmentWork(assignment.getCalendar(), assignment.getTimephasedWork(), units, ranges);
+         double[] workValues = new double[ranges.size()];
+         for (int index = 0; index < workValues.length; index++)
+         {
+            workValues[index] = work.get(index).convertUnits(TimeUnit.HOURS, file.getProjectProperties()).getDuration();
+         }
+
+         double[] costValues = new double[ranges.size()];
+         if (assignment.getResource() != null)
+         {
+            List<Double> cost = utility.segmentCost(assignment.getCalendar(), assignment.getTimephasedCost(), units, ranges);
+            for (int index = 0; index < costValues.length; index++)
+            {
+               costValues[index] = cost.get(index).doubleValue();
+            }
+         }
+
+         if (assignment.getResourceUniqueID() != null)
+         {
+            add(resourceWork, assignment.getResourceUniqueID(), workValues);
+            add(resourceCost, assignment.getResourceUniqueID(), costValues);
+         }
+         add(taskWork, assignment.getTaskUniqueID(), workValues);
+         add(taskCost, assignment.getTaskUniqueID(), costValues);
+      }
+
+      assertTrue(assignmentCount > 0);
+      assertEquals(resourceWork.keySet(), aggregation.getResourceUniqueIDs());
+      assertEquals(taskWork.keySet(), aggregation.getTaskUniqueIDs());
+
+      for (Integer id : resourceWork.keySet())
+      {
+         assertArrayEquals(resourceWork.get(id), aggregation.getResourceWork(id), 0.0001);
+         assertArrayEquals(resourceCost.get(id), aggregation.getResourceCost(id), 0.0001);
+      }
+
+      double totalWork = 0;
+      for (Integer id : taskWork.keySet())
+      {
+         assertArrayEquals(taskWork.get(id), aggregation.getTaskWork(id), 0.0001);
+         assertArrayEquals(taskCost.get(id), aggregation.getTaskCost(id), 0.0001);
+         for (double value : aggregation.getTaskWork(id))
+         {
+            totalWork += value;
+         }
+      }
+      assertTrue(totalWork > 0);
+   }
+
+   /**
+    * Add values to a total.
+    *
+    * @param map totals
+    * @param key total key
+    * @param values values to add
+    */
+   private void add(Map<Integer, double[]> map, Integer key, double[] values)
+   {
+      double[] total = map.get(key);
+      if (total == null)
+      {
+         total = new double[values.length];
+         map.put(key, total);
+      }
+
+      for (int index = 0; index < values.length; index++)
+      {
+         total[index] += values[index];
+      }
+   }
+}
@@ -0,0 +1,176 @@
+/*
+ * file:       PrimaveraPMFileReaderTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit.primavera;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.junit.MpxjTestData;
+import net.sf.mpxj.primavera.PrimaveraPMFileReader;
+import net.sf.mpxj.primavera.PrimaveraPMFileWriter;
+import net.sf.mpxj.primavera.PrimaveraPMProjectHandler;
+import net.sf.mpxj.reader.UniversalProjectReader;
+
+import org.junit.Test;
+
+/**
+ * Tests for PrimaveraPMFileReader functionality.
+ */
+public class PrimaveraPMFileReaderTest
+{
+   /**
+    * Ensure that all non-external projects are read from a multi-project file.
+    */
+   @Test public void testReadAll() throws Exception
+   {
+      List<ProjectFile> projects = new PrimaveraPMFileReader().readAll(new ByteArrayInputStream(getMultiProjectFile()));
+      assertEquals(2, projects.size());
+      assertProject(projects.get(0), "1", "mpp14resource.mpp");
+      assertProject(projects.get(1), "2", "mpp14relations.mpp");
+   }
+
+   /**
+    * Ensure that read returns the first non-external project.
+    */
+   @Test public void testRead() throws Exception
+   {
+      ProjectFile project = new PrimaveraPMFileReader().read(new ByteArrayInputStream(getMultiProjectFile()));
+      assertProject(project, "1", "mpp14resource.mpp");
+   }
+
+   /**
+    * Ensure that only the selected projects are read.
+    */
+   @Test public void testProjectFilter() throws Exception
+   {
+      PrimaveraPMFileReader reader = new PrimaveraPMFileReader();
+      reader.setProjectFilter(Arrays.asList(Integer.valueOf(2)));
+
+      List<ProjectFile> projects = reader.readAll(new ByteArrayInputStream(getMultiProjectFile()));
+      assertEquals(1, projects.size());
+      assertProject(projects.get(0), "2", "mpp14relations.mpp");
+
+      assertProject(reader.read(new ByteArrayInputStream(getMultiProjectFile())), "2", "mpp14relations.mpp");
+
+      reader.setProjectFilter(Arrays.asList(Integer.valueOf(3)));
+      assertTrue(reader.readAll(new ByteArrayInputStream(getMultiProjectFile())).isEmpty());
+   }
+
+   /**
+    * Ensure that each project is passed to the handler in file order.
+    */
+   @Test public void testHandler() throws Exception
+   {
+      final List<String> ids = new ArrayList<String>();
+      new PrimaveraPMFileReader().readAll(new ByteArrayInputStream(getMultiProjectFile()), new PrimaveraPMProjectHandler()
+      {
+         @Override public void handleProject(ProjectFile project)
+         {
+            ids.add(project.getProjectProperties().getUniqueID());
+         }
+      });
+
+      assertEquals(Arrays.asList("1", "2"), ids);
+   }
+
+   /**
+    * Compare a project read from the multi-project file with the
+    * same project read from a single-project file.
+    *
+    * @param project project read from the multi-project file
+    * @param uniqueID expected project unique ID
+    * @param fileName name of the source file
+    */
+   private void assertProject(ProjectFile project, String uniqueID, String fileName) throws Exception
+   {
+      ProjectFile expected = new PrimaveraPMFileReader().read(new ByteArrayInputStream(write(fileName)));
+      assertEquals(uniqueID, project.getProjectProperties().getUniqueID());
+      assertEquals(expected.getTasks().size(), project.getTasks().size());
+      assertEquals(expected.getResourceAssignments().size(), project.getResourceAssignments().size());
+      assertEquals(getRelationCount(expected), getRelationCount(project));
+   }
+
+   /**
+    * Count the relations in a project.
+    *
+    * @param project project
+    * @return relation count
+    */
+   private int getRelationCount(ProjectFile project)
+   {
+      int count = 0;
+      for (Task task : project.getTasks())
+      {
+         count += task.getPredecessors().size();
+      }
+      return count;
+   }
+
+   /**
+    * Create a PMXML file containing an external project followed by
+    * two projects. The shared data is taken from the first project.
+    *
+    * @return PMXML data
+    */
+   private byte[] getMultiProjectFile() throws Exception
+   {
+      String file1 = new String(write("mpp14resource.mpp"), "UTF-8");
+      String file2 = new String(write("mpp14relations.mpp"), "UTF-8");
+
+      int projectStart = file1.indexOf("<Project>");
+      int projectEnd = file1.lastIndexOf("</Project>") + "</Project>".length();
+
+      String project2 = file2.substring(file2.indexOf("<Project>"), file2.lastIndexOf("</Project>") + "</Project>".length());
+      project2 = project2.replaceFirst("\n    <ObjectId>1</ObjectId>", "\n    <ObjectId>2</ObjectId>");
+
+      StringBuilder sb = new StringBuilder();
+      sb.append(file1.substring(0, projectStart));
+      sb.append("<Project><External>true</External><Name>External</Name><ObjectId>3</ObjectId></Project>");
+      sb.append(file1.substring(projectStart, projectEnd));
+      sb.append(project2);
+      sb.append(file1.substring(projectEnd));
+      return sb.toString().getBytes("UTF-8");
+   }
+
+   /**
+    * Write a test file as PMXML.
+    *
+    * @param fileName name of the source file
+    * @return PMXML data
+    */
+   private byte[] write(String fileName) throws Exception
+   {
+      ProjectFile project = new UniversalProjectReader().read(MpxjTestData.filePath(fileName));
+      ByteArrayOutputStream stream = new ByteArrayOutputStream();
+      new PrimaveraPMFileWriter().write(project, stream);
+      return stream.toByteArray();
+   }
+}
@@ -0,0 +1,133 @@
+/*
+ * file:       PrimaveraPMFileWriterTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       23/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit.primavera;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.junit.MpxjTestData;
+import net.sf.mpxj.primavera.PrimaveraPMFileReader;
+import net.sf.mpxj.primavera.PrimaveraPMFileWriter;
+import net.sf.mpxj.reader.UniversalProjectReader;
+
+import org.junit.Test;
+
+/**
+ * Tests for PrimaveraPMFileWriter functionality.
+ */
+public class PrimaveraPMFileWriterTest
+{
+   /**
+    * Ensure that the PMXML files we write omit nil elements,
+    * and can be read back.
+    */
+   @Test public void testWrite() throws Exception
+   {
+      int count = 0;
+
+      for (File file : new File(MpxjTestData.filePath("")).listFiles())
+      {
+         if (file.isDirectory())
+         {
+            continue;
+         }
+
+         ProjectFile expected;
+         byte[] data;
+
+         try
+         {
+            expected = new UniversalProjectReader().read(file);
+            if (expected == null)
+            {
+               continue;
+            }
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            new PrimaveraPMFileWriter().write(expected, stream);
+            data = stream.toByteArray();
+         }
+
+         catch (Exception ex)
+         {
+            // Not a file we can read and write
+            continue;
+         }
+
+         String name = file.getName();
+         String text = new String(data, "UTF-8");
+         assertFalse(name, text.contains("xsi:nil"));
+
+         ProjectFile actual = new PrimaveraPMFileReader().read(new ByteArrayInputStream(data));
+         assertEquals(name, getResourceCount(expected), actual.getResources().size());
+         assertEquals(name, getActivityCount(expected), getActivityCount(actual));
+         ++count;
+      }
+
+      assertTrue(count != 0);
+   }
+
+   /**
+    * Count the resources the writer will export.
+    *
+    * @param project project
+    * @return resource count
+    */
+   private int getResourceCount(ProjectFile project)
+   {
+      int count = 0;
+      for (Resource resource : project.getResources())
+      {
+         if (resource.getUniqueID().intValue() != 0)
+         {
+            ++count;
+         }
+      }
+      return count;
+   }
+
+   /**
+    * Count the tasks which will be represented as activities.
+    *
+    * @param project project
+    * @return activity count
+    */
+   private int getActivityCount(ProjectFile project)
+   {
+      int count = 0;
+      for (Task task : project.getTasks())
+      {
+         if (!task.getNull() && !task.getSummary())
+         {
+            ++count;
+         }
+      }
+      return count;
+   }
+}
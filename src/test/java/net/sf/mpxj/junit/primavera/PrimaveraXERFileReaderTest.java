@@ -0,0 +1,281 @@
+/*
+ * file:       PrimaveraXERFileReaderTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2018
+ * date:       18/11/2018
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit.primavera;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Relation;
+import net.sf.mpxj.RelationType;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.junit.MpxjTestData;
+import net.sf.mpxj.primavera.PrimaveraXERFileReader;
+
+import org.junit.Test;
+
+/**
+ * Tests for PrimaveraXERFileReader functionality.
+ */
+public class PrimaveraXERFileReaderTest
+{
+   /**
+    * Ensure that each project in a multi-project XER file receives
+    * only its own data.
+    */
+   @Test public void testReadAll() throws Exception
+   {
+      PrimaveraXERFileReader reader = new PrimaveraXERFileReader();
+      InputStream is = new FileInputStream(getTestFile());
+      List<ProjectFile> projects;
+      try
+      {
+         projects = reader.readAll(is);
+      }
+
+      finally
+      {
+         is.close();
+      }
+
+      assertEquals(3, projects.size());
+      for (int index = 0; index < projects.size(); index++)
+      {
+         ProjectFile project = projects.get(index);
+         assertEquals("EC00640-" + index, project.getProjectProperties().getName());
+         assertEquals(13, project.getTasks().size());
+
+         Task task = project.getTaskByUniqueID(Integer.valueOf(101718 + index * 100000));
+         assertNotNull(task);
+         assertEquals("Duration 25%", task.getName());
+         assertEquals(25.0, task.getPercentageComplete().doubleValue(), 0.0);
+      }
+   }
+
+   /**
+    * Ensure that relationships between projects are linked when requested,
+    * and that projects read concurrently match those read serially.
+    */
+   @Test public void testReadAllConcurrent() throws Exception
+   {
+      List<ProjectFile> serialProjects = readAll(false, null);
+      assertEquals(0, getTask(serialProjects, 1, 201718).getPredecessors().size());
+
+      serialProjects = readAll(true, null);
+      ExecutorService executor = Executors.newFixedThreadPool(2);
+      List<ProjectFile> concurrentProjects;
+      try
+      {
+         concurrentProjects = readAll(true, executor);
+      }
+
+      finally
+      {
+         executor.shutdown();
+      }
+
+      for (List<ProjectFile> projects : Arrays.asList(serialProjects, concurrentProjects))
+      {
+         assertEquals(3, projects.size());
+
+         Relation relation = getTask(projects, 0, 101719).getPredecessors().get(0);
+         assertEquals(getTask(projects, 0, 101718), relation.getTargetTask());
+
+         relation = getTask(projects, 1, 201718).getPredecessors().get(0);
+         assertEquals(getTask(projects, 0, 101720), relation.getTargetTask());
+         assertEquals(RelationType.FINISH_START, relation.getType());
+         assertEquals(Duration.getInstance(8, TimeUnit.HOURS), relation.getLag());
+         assertEquals(Integer.valueOf(9002), relation.getUniqueID());
+
+         relation = getTask(projects, 2, 301718).getPredecessors().get(0);
+         assertEquals(getTask(projects, 1, 201721), relation.getTargetTask());
+         assertEquals(RelationType.START_START, relation.getType());
+      }
+
+      for (int index = 0; index < serialProjects.size(); index++)
+      {
+         List<Task> serialTasks = serialProjects.get(index).getTasks();
+         List<Task> concurrentTasks = concurrentProjects.get(index).getTasks();
+         assertEquals(serialTasks.size(), concurrentTasks.size());
+         for (int taskIndex = 0; taskIndex < serialTasks.size(); taskIndex++)
+         {
+            Task serialTask = serialTasks.get(taskIndex);
+            Task concurrentTask = concurrentTasks.get(taskIndex);
+            assertEquals(serialTask.getUniqueID(), concurrentTask.getUniqueID());
+            assertEquals(serialTask.getName(), concurrentTask.getName());
+            assertEquals(serialTask.getStart(), concurrentTask.getStart());
+            assertEquals(serialTask.getFinish(), concurrentTask.getFinish());
+         }
+      }
+   }
+
+   /**
+    * Ensure that a single project can be selected from a multi-project XER file.
+    */
+   @Test public void testReadSingleProject() throws Exception
+   {
+      PrimaveraXERFileReader reader = new PrimaveraXERFileReader();
+      InputStream is = new FileInputStream(getTestFile());
+      Map<Integer, String> projects;
+      try
+      {
+         projects = reader.listProjects(is);
+      }
+
+      finally
+      {
+         is.close();
+      }
+
+      assertEquals(3, projects.size());
+      assertEquals("EC00640-1", projects.get(Integer.valueOf(104507)));
+
+      reader.setProjectID(104507);
+      ProjectFile project = reader.read(getTestFile());
+      assertEquals("EC00640-1", project.getProjectProperties().getName());
+      assertEquals(13, project.getTasks().size());
+      assertNull(project.getTaskByUniqueID(Integer.valueOf(101718)));
+      assertNotNull(project.getTaskByUniqueID(Integer.valueOf(201718)));
+
+      is = new FileInputStream(getTestFile());
+      try
+      {
+         assertEquals(3, reader.readAll(is).size());
+      }
+
+      finally
+      {
+         is.close();
+      }
+   }
+
+   /**
+    * Ensure that rows from unselected projects and tables are discarded.
+    */
+   @Test public void testFilters() throws Exception
+   {
+      PrimaveraXERFileReader reader = new PrimaveraXERFileReader();
+      reader.setProjectFilter(Arrays.asList(Integer.valueOf(104507), Integer.valueOf(204507)));
+
+      InputStream is = new FileInputStream(getTestFile());
+      Map<Integer, String> projectNames;
+      try
+      {
+         projectNames = reader.listProjects(is);
+      }
+
+      finally
+      {
+         is.close();
+      }
+      assertEquals(2, projectNames.size());
+      assertFalse(projectNames.containsKey(Integer.valueOf(4507)));
+
+      ProjectFile project = reader.read(getTestFile());
+      assertEquals("EC00640-1", project.getProjectProperties().getName());
+      assertEquals(13, project.getTasks().size());
+
+      is = new FileInputStream(getTestFile());
+      List<ProjectFile> projects;
+      try
+      {
+         projects = reader.readAll(is, true);
+      }
+
+      finally
+      {
+         is.close();
+      }
+      assertEquals(2, projects.size());
+      assertEquals("EC00640-2", projects.get(1).getProjectProperties().getName());
+      assertEquals(0, getTask(projects, 0, 201718).getPredecessors().size());
+      assertEquals(getTask(projects, 0, 201721), getTask(projects, 1, 301718).getPredecessors().get(0).getTargetTask());
+
+      reader.setTableFilter(Arrays.asList("PROJWBS", "TASK"));
+      project = reader.read(getTestFile());
+      assertEquals(13, project.getTasks().size());
+      assertEquals(0, project.getResourceAssignments().size());
+
+      reader.setProjectFilter(null);
+      reader.setTableFilter(null);
+      reader.setProjectID(4507);
+      project = reader.read(getTestFile());
+      assertEquals("EC00640-0", project.getProjectProperties().getName());
+      assertEquals(1, getTask(Arrays.asList(project), 0, 101719).getPredecessors().size());
+   }
+
+   /**
+    * Read all projects from the test file.
+    *
+    * @param linkCrossProjectRelations true if relations between projects should be linked
+    * @param executor optional ExecutorService
+    * @return list of projects
+    */
+   private List<ProjectFile> readAll(boolean linkCrossProjectRelations, ExecutorService executor) throws Exception
+   {
+      InputStream is = new FileInputStream(getTestFile());
+      try
+      {
+         return new PrimaveraXERFileReader().readAll(is, linkCrossProjectRelations, executor);
+      }
+
+      finally
+      {
+         is.close();
+      }
+   }
+
+   /**
+    * Retrieve a task from one of the projects.
+    *
+    * @param projects list of projects
+    * @param index project index
+    * @param uniqueID task unique ID
+    * @return Task instance
+    */
+   private Task getTask(List<ProjectFile> projects, int index, int uniqueID)
+   {
+      return projects.get(index).getTaskByUniqueID(Integer.valueOf(uniqueID));
+   }
+
+   /**
+    * Retrieve the multi-project test file.
+    *
+    * @return test file
+    */
+   private File getTestFile()
+   {
+      return new File(MpxjTestData.filePath("primavera"), "multi-project-8.4.xer");
+   }
+}
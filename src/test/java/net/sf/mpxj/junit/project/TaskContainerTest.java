@@ -25,10 +25,16 @@ package net.sf.mpxj.junit.project;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import org.junit.Test;
 
 import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Resource;
 import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskContainer;
 
 /**
  * Test to exercise TaskContainer functionality.
@@ -69,4 +75,203 @@ public class TaskContainerTest
       assertEquals(task3, task2.getChildTasks().get(0));
       assertEquals(task4, task3.getChildTasks().get(0));
    }
+
+   /**
+    * Exercise each operation individually.
+    */
+   @Test public void testOperations()
+   {
+      ProjectFile file = new ProjectFile();
+      TaskContainer tasks = file.getTasks();
+
+      Task task1 = tasks.insertTask(null, null);
+      Task task2 = tasks.insertTask(null, null);
+      Task task3 = tasks.insertTask(task1, null);
+      Task task4 = tasks.insertTask(task1, task3);
+      Task task5 = tasks.insertTask(null, task2);
+      validate(file);
+      assertEquals("1.2", task3.getWBS());
+      assertEquals("1.1", task4.getOutlineNumber());
+      assertEquals("2", task5.getWBS());
+      assertEquals(5, task2.getID().intValue());
+      assertTrue(task1.getSummary());
+
+      tasks.moveTask(task1, task2, null);
+      validate(file);
+      assertEquals("2.1.2", task3.getWBS());
+      assertEquals(3, task3.getOutlineLevel().intValue());
+      assertEquals(1, task5.getID().intValue());
+
+      tasks.moveTask(task3, null, task5);
+      validate(file);
+      assertEquals("1", task3.getWBS());
+      assertEquals(1, task3.getOutlineLevel().intValue());
+
+      try
+      {
+         tasks.moveTask(task2, task4, null);
+         fail("Expected exception");
+      }
+
+      catch (IllegalArgumentException ex)
+      {
+         // Expected
+      }
+
+      Resource resource = file.addResource();
+      task1.addResourceAssignment(resource);
+      task4.addResourceAssignment(resource);
+      task5.addResourceAssignment(resource);
+
+      tasks.deleteTask(task1);
+      validate(file);
+      assertEquals(3, tasks.size());
+      assertFalse(task2.getSummary());
+      assertEquals(1, file.getResourceAssignments().size());
+      assertEquals(1, resource.getTaskAssignments().size());
+      assertNull(file.getTaskByUniqueID(task4.getUniqueID()));
+   }
+
+   /**
+    * Ensure that tasks added by other means are handled.
+    */
+   @Test public void testExistingStructure()
+   {
+      ProjectFile file = new ProjectFile();
+      Task task1 = file.addTask();
+      Task task2 = file.addTask();
+      Task task3 = task1.addTask();
+      file.getTasks().insertTask(task1, task3);
+      validate(file);
+      assertEquals(4, task2.getID().intValue());
+   }
+
+   /**
+    * Apply a sequence of random operations, validating the structure
+    * after each one.
+    */
+   @Test public void testRandomOperations()
+   {
+      ProjectFile file = new ProjectFile();
+      TaskContainer tasks = file.getTasks();
+      Random random = new Random(1);
+
+      for (int index = 0; index < 500; index++)
+      {
+         int operation = tasks.size() < 10 ? 0 : random.nextInt(4);
+         switch (operation)
+         {
+            case 0:
+            case 1:
+            {
+               Task parent = randomTask(file, random);
+               tasks.insertTask(parent, randomChild(file, parent, random));
+               break;
+            }
+
+            case 2:
+            {
+               Task task = file.getTasks().get(random.nextInt(tasks.size()));
+               Task parent = randomTask(file, random);
+               boolean valid = true;
+               for (Task ancestor = parent; ancestor != null; ancestor = ancestor.getParentTask())
+               {
+                  if (ancestor == task)
+                  {
+                     valid = false;
+                     break;
+                  }
+               }
+
+               if (valid)
+               {
+                  tasks.moveTask(task, parent, randomChild(file, parent, random));
+               }
+               break;
+            }
+
+            default:
+            {
+               tasks.deleteTask(file.getTasks().get(random.nextInt(tasks.size())));
+               break;
+            }
+         }
+
+         validate(file);
+      }
+   }
+
+   /**
+    * Select a random task, or null to represent the top level.
+    *
+    * @param file project
+    * @param random random number source
+    * @return task or null
+    */
+   private Task randomTask(ProjectFile file, Random random)
+   {
+      int index = random.nextInt(file.getTasks().size() + 1);
+      return index == file.getTasks().size() ? null : file.getTasks().get(index);
+   }
+
+   /**
+    * Select a random child task, or null to represent appending a task.
+    *
+    * @param file project
+    * @param parent parent task or null
+    * @param random random number source
+    * @return task or null
+    */
+   private Task randomChild(ProjectFile file, Task parent, Random random)
+   {
+      List<Task> children = parent == null ? file.getChildTasks() : parent.getChildTasks();
+      int index = random.nextInt(children.size() + 1);
+      return index == children.size() ? null : children.get(index);
+   }
+
+   /**
+    * Validate that task order, IDs, outline levels, outline numbers
+    * and WBS values are consistent with the task hierarchy.
+    *
+    * @param file project
+    */
+   private void validate(ProjectFile file)
+   {
+      List<Task> expected = new ArrayList<Task>();
+      validate(file, null, file.getChildTasks(), expected);
+      assertEquals(expected, new ArrayList<Task>(file.getTasks()));
+
+      for (int index = 0; index < expected.size(); index++)
+      {
+         Task task = expected.get(index);
+         assertEquals(index + 1, task.getID().intValue());
+         assertSame(task, file.getTaskByID(task.getID()));
+         assertSame(task, file.getTaskByUniqueID(task.getUniqueID()));
+      }
+   }
+
+   /**
+    * Recursively validate a list of sibling tasks.
+    *
+    * @param file project
+    * @param parent parent task or null
+    * @param tasks sibling tasks
+    * @param expected tasks in expected order
+    */
+   private void validate(ProjectFile file, Task parent, List<Task> tasks, List<Task> expected)
+   {
+      int index = 1;
+      for (Task task : tasks)
+      {
+         String number = parent == null ? Integer.toString(index) : parent.getWBS() + "." + index;
+         assertSame(parent, task.getParentTask());
+         assertEquals(number, task.getWBS());
+         assertEquals(number, task.getOutlineNumber());
+         assertEquals(parent == null ? 1 : parent.getOutlineLevel().intValue() + 1, task.getOutlineLevel().intValue());
+         assertEquals(!task.getChildTasks().isEmpty(), task.getSummary());
+         expected.add(task);
+         validate(file, task, task.getChildTasks(), expected);
+         ++index;
+      }
+   }
 }